@@ -36,6 +36,11 @@ public class ArffLoader {
 
     protected InstancesHeader streamHeader;
 
+    /**
+     * How the dense instances read store their values, null for doubles.
+     */
+    protected InstanceStorage storage;
+
     /**
      * The stream tokenizer.
      */
@@ -127,11 +132,24 @@ public class ArffLoader {
             return readInstanceSparse();
             // return readDenseInstanceSparse();
         } else {
-            return readInstanceDense();
+            Instance instance = readInstanceDense();
+            if (instance != null && this.storage != null) {
+                instance = this.storage.compact(instance, this.instanceInformation);
+            }
+            return instance;
         }
 
     }
 
+    /**
+     * Sets how the dense instances read from now on store their values.
+     *
+     * @param storage the storage, or null for doubles
+     */
+    public void setStorage(InstanceStorage storage) {
+        this.storage = storage;
+    }
+
     /**
      * Reads a dense instance from the file.
      *
@@ -0,0 +1,440 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A block of instances of the same header whose values are packed row by row
+ * into one array, instead of one object per instance as in
+ * <code>Instances</code>.
+ *
+ * <p>Rows are kept in a ring: removing the oldest rows does not move the
+ * others, and a block with a maximum size drops its oldest row when a row is
+ * added to it while full, which makes it a sliding window. The array grows
+ * by doubling when a block without a maximum size is full.</p>
+ *
+ * <p>Rows are read and written through the block, or through flyweight
+ * <code>Instance</code> views returned by <code>instance</code>. A view reads
+ * and writes its row in place; it stays valid until its row is removed or
+ * overwritten, or the block grows. Copying a view gives an ordinary dense
+ * instance that does not depend on the block.</p>
+ */
+public class InstanceBlock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The header of the instances. */
+    protected InstancesHeader header;
+
+    /** The number of attributes of each row. */
+    protected int numAttributes;
+
+    /** The values of the rows, row by row. */
+    protected double[] values;
+
+    /** The weights of the rows. */
+    protected double[] weights;
+
+    /** The number of rows that fit in the arrays. */
+    protected int capacity;
+
+    /** The position in the arrays of the oldest row. */
+    protected int first;
+
+    /** The number of rows. */
+    protected int size;
+
+    /** The maximum number of rows, 0 for none. */
+    protected int maxSize;
+
+    /** The view of each position in the arrays, created when first asked for. */
+    protected transient InstanceImpl[] views;
+
+    /**
+     * Instantiates an empty block that grows as needed.
+     *
+     * @param header the header of the instances
+     * @param capacity the initial number of rows
+     */
+    public InstanceBlock(InstancesHeader header, int capacity) {
+        this(header, capacity, 0);
+    }
+
+    /**
+     * Instantiates an empty block.
+     *
+     * @param header the header of the instances
+     * @param capacity the initial number of rows
+     * @param maxSize the maximum number of rows, after which the oldest row
+     * is dropped for every row added; 0 to let the block grow
+     */
+    public InstanceBlock(InstancesHeader header, int capacity, int maxSize) {
+        this.header = header;
+        this.numAttributes = header.numAttributes();
+        this.maxSize = Math.max(maxSize, 0);
+        this.capacity = Math.max(maxSize > 0 ? Math.min(capacity, maxSize) : capacity, 1);
+        this.values = new double[this.capacity * this.numAttributes];
+        this.weights = new double[this.capacity];
+    }
+
+    /**
+     * Instantiates a block holding the values of a set of instances.
+     *
+     * @param instances the instances
+     */
+    public InstanceBlock(Instances instances) {
+        this(InstancesHeader.intern(instances), instances.numInstances());
+        for (int i = 0; i < instances.numInstances(); i++) {
+            add(instances.instance(i));
+        }
+    }
+
+    public InstancesHeader header() {
+        return this.header;
+    }
+
+    public int numAttributes() {
+        return this.numAttributes;
+    }
+
+    public int numInstances() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the maximum number of rows, 0 for none
+     */
+    public int maxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Adds a copy of the values and the weight of an instance.
+     *
+     * @param inst the instance, which must have the attributes of the header
+     */
+    public void add(Instance inst) {
+        int offset = newRow(inst.weight());
+        int n = inst.numValues();
+        if (n == this.numAttributes) {
+            for (int i = 0; i < n; i++) {
+                this.values[offset + i] = inst.valueSparse(i);
+            }
+        } else {
+            // sparse: the values that are not stored are 0
+            Arrays.fill(this.values, offset, offset + this.numAttributes, 0.0);
+            for (int p = 0; p < n; p++) {
+                this.values[offset + inst.index(p)] = inst.valueSparse(p);
+            }
+        }
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param rowValues the values of the row, one per attribute
+     * @param weight the weight of the row
+     */
+    public void add(double[] rowValues, double weight) {
+        int offset = newRow(weight);
+        System.arraycopy(rowValues, 0, this.values, offset, this.numAttributes);
+    }
+
+    /**
+     * Removes the oldest rows.
+     *
+     * @param n the number of rows to remove
+     */
+    public void removeFirst(int n) {
+        n = Math.min(n, this.size);
+        this.first = (this.first + n) % this.capacity;
+        this.size -= n;
+        if (this.size == 0) {
+            this.first = 0;
+        }
+    }
+
+    public void clear() {
+        this.first = 0;
+        this.size = 0;
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @param attIndex the index of an attribute
+     * @return the value of the attribute in the row
+     */
+    public double value(int row, int attIndex) {
+        return this.values[offset(row) + attIndex];
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @param attIndex the index of an attribute
+     * @param value the new value of the attribute in the row
+     */
+    public void setValue(int row, int attIndex, double value) {
+        this.values[offset(row) + attIndex] = value;
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @return the weight of the row
+     */
+    public double weight(int row) {
+        return this.weights[position(row)];
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @return the class value of the row
+     */
+    public double classValue(int row) {
+        return value(row, this.header.classIndex());
+    }
+
+    /**
+     * Gets the array holding the values, for loops over many rows. The values
+     * of a row start at <code>offset(row)</code>.
+     *
+     * @return the array, which is replaced when the block grows
+     */
+    public double[] valueArray() {
+        return this.values;
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @return the position in valueArray() of the first value of the row
+     */
+    public int offset(int row) {
+        return position(row) * this.numAttributes;
+    }
+
+    /**
+     * Gets a view of a row.
+     *
+     * @param row the index of a row, 0 for the oldest
+     * @return the view, which is the same object for the same row until the
+     * row is removed or the block grows, and which is reused for later rows
+     * at the same position unless attributes were inserted into or deleted
+     * from it
+     */
+    public Instance instance(int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + this.size);
+        }
+        int position = position(row);
+        if (this.views == null) {
+            this.views = new InstanceImpl[this.capacity];
+        }
+        InstanceImpl view = this.views[position];
+        if (view == null) {
+            view = new InstanceImpl(1.0, new RowData(this, position));
+            view.instanceHeader = this.header;
+            this.views[position] = view;
+        }
+        view.weight = this.weights[position];
+        return view;
+    }
+
+    /**
+     * Gets the rows as a set of instances. The instances are views of the
+     * rows, so no values are copied; copy the result to keep it after
+     * changing the block.
+     *
+     * @return the instances, oldest first
+     */
+    public Instances toInstances() {
+        Instances instances = new Instances(this.header, this.size);
+        for (int i = 0; i < this.size; i++) {
+            instances.instances.add(instance(i));
+        }
+        return instances;
+    }
+
+    /**
+     * @param row the index of a row, 0 for the oldest
+     * @return the position of the row in the arrays
+     */
+    protected int position(int row) {
+        int position = this.first + row;
+        return position < this.capacity ? position : position - this.capacity;
+    }
+
+    /**
+     * Makes room for a row at the end, dropping the oldest row or growing the
+     * arrays when full.
+     *
+     * @param weight the weight of the new row
+     * @return the position in the value array of the new row
+     */
+    protected int newRow(double weight) {
+        if (this.size == this.capacity) {
+            if (this.maxSize > 0 && this.size >= this.maxSize) {
+                removeFirst(1);
+            } else {
+                int newCapacity = this.capacity * 2;
+                if (this.maxSize > 0) {
+                    newCapacity = Math.min(newCapacity, this.maxSize);
+                }
+                grow(newCapacity);
+            }
+        }
+        int position = position(this.size);
+        this.size++;
+        this.weights[position] = weight;
+        if (this.views != null && this.views[position] != null) {
+            InstanceImpl view = this.views[position];
+            if (((RowData) view.instanceData).ownData != null) {
+                // the view no longer reads the block, keep it as it is for its holders
+                this.views[position] = null;
+            } else {
+                view.instanceHeader = this.header;
+                view.weight = weight;
+            }
+        }
+        return position * this.numAttributes;
+    }
+
+    /**
+     * Moves the rows to larger arrays, oldest first.
+     */
+    protected void grow(int newCapacity) {
+        double[] newValues = new double[newCapacity * this.numAttributes];
+        double[] newWeights = new double[newCapacity];
+        int firstPart = Math.min(this.size, this.capacity - this.first);
+        System.arraycopy(this.values, this.first * this.numAttributes, newValues, 0,
+                firstPart * this.numAttributes);
+        System.arraycopy(this.values, 0, newValues, firstPart * this.numAttributes,
+                (this.size - firstPart) * this.numAttributes);
+        System.arraycopy(this.weights, this.first, newWeights, 0, firstPart);
+        System.arraycopy(this.weights, 0, newWeights, firstPart, this.size - firstPart);
+        this.values = newValues;
+        this.weights = newWeights;
+        this.capacity = newCapacity;
+        this.first = 0;
+        this.views = null;
+    }
+
+    /**
+     * The values of a row of a block, read and written in place. Inserting
+     * or deleting attributes first copies the row into private dense data.
+     */
+    protected static class RowData implements InstanceData {
+
+        private static final long serialVersionUID = 1L;
+
+        protected InstanceBlock block;
+
+        protected int position;
+
+        /** The private values, null while the row is read in place. */
+        protected InstanceData ownData;
+
+        public RowData(InstanceBlock block, int position) {
+            this.block = block;
+            this.position = position;
+        }
+
+        protected void materialize() {
+            if (this.ownData == null) {
+                this.ownData = new DenseInstanceData(this.toDoubleArray());
+                this.block = null;
+            }
+        }
+
+        @Override
+        public int numAttributes() {
+            return this.ownData != null ? this.ownData.numAttributes() : this.block.numAttributes;
+        }
+
+        @Override
+        public double value(int instAttIndex) {
+            if (this.ownData != null) {
+                return this.ownData.value(instAttIndex);
+            }
+            return this.block.values[this.position * this.block.numAttributes + instAttIndex];
+        }
+
+        @Override
+        public boolean isMissing(int instAttIndex) {
+            return Double.isNaN(this.value(instAttIndex));
+        }
+
+        @Override
+        public int numValues() {
+            return this.numAttributes();
+        }
+
+        @Override
+        public int index(int i) {
+            return i;
+        }
+
+        @Override
+        public double valueSparse(int i) {
+            return this.value(i);
+        }
+
+        @Override
+        public boolean isMissingSparse(int p1) {
+            return this.isMissing(p1);
+        }
+
+        @Override
+        public double[] toDoubleArray() {
+            if (this.ownData != null) {
+                return this.ownData.toDoubleArray();
+            }
+            int offset = this.position * this.block.numAttributes;
+            return Arrays.copyOfRange(this.block.values, offset, offset + this.block.numAttributes);
+        }
+
+        @Override
+        public void setValue(int attributeIndex, double d) {
+            if (this.ownData != null) {
+                this.ownData.setValue(attributeIndex, d);
+            } else {
+                this.block.values[this.position * this.block.numAttributes + attributeIndex] = d;
+            }
+        }
+
+        @Override
+        public void deleteAttributeAt(int index) {
+            materialize();
+            this.ownData.deleteAttributeAt(index);
+        }
+
+        @Override
+        public void insertAttributeAt(int index) {
+            materialize();
+            this.ownData.insertAttributeAt(index);
+        }
+
+        @Override
+        public InstanceData copy() {
+            return new DenseInstanceData(this.toDoubleArray());
+        }
+    }
+}
@@ -361,7 +361,8 @@ public class InstanceImpl implements MultiLabelInstance {
     }
 
     /**
-     * Sets the dataset.
+     * Sets the dataset. A dataset that is not a header is replaced by the
+     * interned header of its structure.
      *
      * @param dataset the new dataset
      */
@@ -370,7 +371,7 @@ public class InstanceImpl implements MultiLabelInstance {
         if(dataset instanceof InstancesHeader) {
             this.instanceHeader = (InstancesHeader) dataset;
         }else {
-            this.instanceHeader = new InstancesHeader(dataset);
+            this.instanceHeader = InstancesHeader.intern(dataset);
         }
     }
 
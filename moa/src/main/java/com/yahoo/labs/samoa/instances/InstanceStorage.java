@@ -0,0 +1,126 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+import java.io.Serializable;
+
+/**
+ * Chooses how dense instances kept in memory store their values, to let
+ * loaders and caches trade precision for memory.
+ *
+ * <ul>
+ * <li><code>DOUBLE</code> keeps the values in doubles.</li>
+ * <li><code>QUANTIZED</code> stores rows whose values are all small integers
+ * in bytes or shorts, exactly, and keeps other rows in doubles.</li>
+ * <li><code>FLOAT</code> stores rows of small integers like
+ * <code>QUANTIZED</code> and other rows in floats, unless the header has date
+ * attributes, whose values do not fit the precision of a float.</li>
+ * </ul>
+ *
+ * Sparse instances and instances that are not backed by plain dense data are
+ * left as they are.
+ */
+public class InstanceStorage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DOUBLE = 0;
+
+    public static final int FLOAT = 1;
+
+    public static final int QUANTIZED = 2;
+
+    /** The names of the storages, for options. */
+    public static final String[] NAMES = {"double", "float", "quantized"};
+
+    /** The descriptions of the storages, for options. */
+    public static final String[] DESCRIPTIONS = {
+        "Keep values in doubles.",
+        "Store small integers in bytes or shorts and other values in floats.",
+        "Store rows of small integers in bytes or shorts, other rows in doubles."};
+
+    protected int storage;
+
+    /** The header whose attribute types were checked last. */
+    protected transient InstanceInformation checkedInformation;
+
+    /** Whether the header checked last allows floats. */
+    protected transient boolean floatAllowed;
+
+    /**
+     * @param storage DOUBLE, FLOAT or QUANTIZED
+     */
+    public InstanceStorage(int storage) {
+        this.storage = storage;
+    }
+
+    public int getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Changes the storage of an instance to the chosen one.
+     *
+     * @param inst the instance, whose dataset is used for the attribute types
+     * @return the instance
+     */
+    public Instance compact(Instance inst) {
+        Instances dataset = inst.dataset();
+        return compact(inst, dataset == null ? null : dataset.instanceInformation);
+    }
+
+    /**
+     * Changes the storage of an instance to the chosen one.
+     *
+     * @param inst the instance
+     * @param information the attributes of the instance, or null if unknown
+     * @return the instance
+     */
+    public Instance compact(Instance inst, InstanceInformation information) {
+        if (this.storage == DOUBLE || !(inst instanceof InstanceImpl)) {
+            return inst;
+        }
+        InstanceImpl impl = (InstanceImpl) inst;
+        if (!(impl.instanceData instanceof DenseInstanceData)) {
+            return inst;
+        }
+        double[] values = ((DenseInstanceData) impl.instanceData).attributeValues;
+        InstanceData data = QuantizedInstanceData.quantize(values);
+        if (data == null && this.storage == FLOAT && isFloatAllowed(information)) {
+            data = new FloatInstanceData(values);
+        }
+        if (data != null) {
+            impl.instanceData = data;
+        }
+        return inst;
+    }
+
+    protected boolean isFloatAllowed(InstanceInformation information) {
+        if (information == null) {
+            return false;
+        }
+        if (information != this.checkedInformation) {
+            boolean allowed = true;
+            for (int i = 0; i < information.numAttributes() && allowed; i++) {
+                allowed = !information.attribute(i).isDate();
+            }
+            this.floatAllowed = allowed;
+            this.checkedInformation = information;
+        }
+        return this.floatAllowed;
+    }
+}
@@ -71,6 +71,12 @@ public class Instances implements Serializable {
      */
     protected int[] indicesIrrelevants;
 
+    /**
+     * The interned header with the structure of this dataset, cleared when
+     * the structure changes.
+     */
+    protected transient InstancesHeader internedHeader;
+
     /**
      * Instantiates a new instances.
      *
@@ -205,6 +211,7 @@ public class Instances implements Serializable {
      * @param string the new relation name
      */
     public void setRelationName(String string) {
+        this.internedHeader = null;
         this.instanceInformation.setRelationName(string);
     }
 
@@ -232,6 +239,7 @@ public class Instances implements Serializable {
      * @param classIndex the new class index
      */
     public void setClassIndex(int classIndex) {
+        this.internedHeader = null;
         this.instanceInformation.setClassIndex(classIndex);
     }
 
@@ -278,6 +286,7 @@ public class Instances implements Serializable {
      * @param integer the integer
      */
     public void deleteAttributeAt(Integer integer) {
+        this.internedHeader = null;
         this.instanceInformation.deleteAttributeAt(integer);
         for (int i = 0; i < numInstances(); i++) {
             instance(i).setDataset(null);
@@ -293,6 +302,7 @@ public class Instances implements Serializable {
      * @param position the position
      */
     public void insertAttributeAt(Attribute attribute, int position) {
+        this.internedHeader = null;
         if (this.instanceInformation == null) {
             this.instanceInformation = new InstanceInformation();
         }
@@ -484,6 +494,17 @@ public class Instances implements Serializable {
         }
     }
 
+    /**
+     * Sets how the instances read from now on store their values.
+     *
+     * @param storage the storage, or null for doubles
+     */
+    public void setInstanceStorage(InstanceStorage storage) {
+        if (this.arff != null) {
+            this.arff.setStorage(storage);
+        }
+    }
+
     /**
      * Delete.
      */
@@ -542,11 +563,13 @@ public class Instances implements Serializable {
     }
 
     public void setRangeOutputIndices(Range range) {
+        this.internedHeader = null;
         this.instanceInformation.setRangeOutputIndices(range);
 
     }
 
     public void setAttributes(Attribute[] v) {
+        this.internedHeader = null;
         if (this.instanceInformation == null) {
             this.instanceInformation = new InstanceInformation();
         }
@@ -554,6 +577,7 @@ public class Instances implements Serializable {
     }
 
     public void setAttributes(Attribute[] v, int[] indexValues) {
+        this.internedHeader = null;
         if (this.instanceInformation == null) {
             this.instanceInformation = new InstanceInformation();
         }
@@ -657,6 +681,7 @@ public class Instances implements Serializable {
      * @param indicesRelevants
      */
     public void setIndicesRelevants(int[] indicesRelevants) {
+        this.internedHeader = null;
         this.indicesRelevants = indicesRelevants;
         // -1 to skip the class attribute
         int numIrrelevantFeatures = this.numAttributes() - this.indicesRelevants.length - 1;
@@ -15,16 +15,35 @@
  */
 package com.yahoo.labs.samoa.instances;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
 /**
  * Class for storing the header or context of a data stream. It allows to know
  * the number of attributes and classes.
  *
+ * <p>Headers can be interned: <code>intern</code> returns the same header
+ * object for all datasets with the same structure, so instances, streams and
+ * learners sharing a schema share one header, and two interned headers have
+ * the same structure exactly when they are the same object. Interned headers
+ * cannot be changed.</p>
+ *
  * @version $Revision: 7 $
  */
 public class InstancesHeader extends Instances {
 
     private static final long serialVersionUID = 1L;
 
+    /** The interned headers by structure. */
+    private static final Map<Structure, WeakReference<InstancesHeader>> internedHeaders
+            = new HashMap<Structure, WeakReference<InstancesHeader>>();
+
+    /** Whether this header is the interned header of its structure. */
+    protected boolean interned;
+
     public InstancesHeader(Instances i) {
         super(i, 0);
     }
@@ -33,6 +52,150 @@ public class InstancesHeader extends Instances {
         super();
     }
 
+    /**
+     * Gets the interned header with the structure of a dataset. The header of
+     * a dataset is remembered until its structure is changed through its own
+     * methods.
+     *
+     * @param dataset a dataset, or an interned header
+     * @return the interned header, or null if the dataset is null
+     */
+    public static InstancesHeader intern(Instances dataset) {
+        if (dataset == null) {
+            return null;
+        }
+        if (dataset instanceof InstancesHeader && ((InstancesHeader) dataset).interned) {
+            return (InstancesHeader) dataset;
+        }
+        InstancesHeader header = dataset.internedHeader;
+        if (header == null) {
+            header = intern(dataset, null);
+            dataset.internedHeader = header;
+        }
+        return header;
+    }
+
+    /**
+     * Compares the structures of two datasets, in constant time once both are
+     * interned.
+     *
+     * @param a a dataset
+     * @param b another dataset
+     * @return true if the datasets have the same attributes, class and name
+     */
+    public static boolean sameStructure(Instances a, Instances b) {
+        return a == b || (a != null && b != null && intern(a) == intern(b));
+    }
+
+    /**
+     * Finds the interned header with the structure of a dataset.
+     *
+     * @param dataset the dataset
+     * @param candidate the header to intern if there is none yet, or null to
+     * intern a copy of the dataset
+     */
+    private static InstancesHeader intern(Instances dataset, InstancesHeader candidate) {
+        Structure structure = new Structure(dataset);
+        synchronized (internedHeaders) {
+            WeakReference<InstancesHeader> reference = internedHeaders.get(structure);
+            InstancesHeader header = reference == null ? null : reference.get();
+            if (header == null) {
+                Iterator<WeakReference<InstancesHeader>> references = internedHeaders.values().iterator();
+                while (references.hasNext()) {
+                    if (references.next().get() == null) {
+                        references.remove();
+                    }
+                }
+                header = candidate != null ? candidate : new InstancesHeader(dataset);
+                header.interned = true;
+                internedHeaders.put(structure, new WeakReference<InstancesHeader>(header));
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Shares a deserialized interned header with the headers of the same
+     * structure.
+     */
+    protected Object readResolve() {
+        return this.interned ? intern(this, this) : this;
+    }
+
+    /**
+     * @return true if this header is the interned header of its structure
+     */
+    public boolean isInterned() {
+        return this.interned;
+    }
+
+    protected void checkNotInterned() {
+        if (this.interned) {
+            throw new UnsupportedOperationException(
+                    "An interned header is shared and cannot be changed, change a copy instead.");
+        }
+    }
+
+    @Override
+    public void setRelationName(String string) {
+        checkNotInterned();
+        super.setRelationName(string);
+    }
+
+    @Override
+    public void setClassIndex(int classIndex) {
+        checkNotInterned();
+        super.setClassIndex(classIndex);
+    }
+
+    @Override
+    public void deleteAttributeAt(Integer integer) {
+        checkNotInterned();
+        super.deleteAttributeAt(integer);
+    }
+
+    @Override
+    public void insertAttributeAt(Attribute attribute, int position) {
+        checkNotInterned();
+        super.insertAttributeAt(attribute, position);
+    }
+
+    @Override
+    public void add(Instance inst) {
+        checkNotInterned();
+        super.add(inst);
+    }
+
+    @Override
+    public void set(int i, Instance inst) {
+        checkNotInterned();
+        super.set(i, inst);
+    }
+
+    @Override
+    public void setRangeOutputIndices(Range range) {
+        checkNotInterned();
+        super.setRangeOutputIndices(range);
+    }
+
+    @Override
+    public void setAttributes(Attribute[] v) {
+        checkNotInterned();
+        super.setAttributes(v);
+    }
+
+    @Override
+    public void setAttributes(Attribute[] v, int[] indexValues) {
+        checkNotInterned();
+        super.setAttributes(v, indexValues);
+    }
+
+    @Override
+    public void setIndicesRelevants(int[] indicesRelevants) {
+        checkNotInterned();
+        super.setIndicesRelevants(indicesRelevants);
+    }
+
     public static String getClassNameString(InstancesHeader context) {
         if (context == null) {
             return "[class]";
@@ -123,4 +286,122 @@ public class InstancesHeader extends Instances {
     public InstanceInformation getInstanceInformation() {
         return this.instanceInformation;
     }
+
+    /**
+     * The structure of a dataset, as a key of the interned headers. It refers
+     * to the attributes of the dataset but not to the dataset itself. The hash
+     * code leaves out the values of the attributes, which string attributes
+     * extend as they see new values.
+     */
+    private static class Structure {
+
+        private final String relationName;
+
+        private final int classIndex;
+
+        private final int rangeStart;
+
+        private final int rangeEnd;
+
+        private final int numAttributes;
+
+        private final Attribute[] attributes;
+
+        private final int[] indexValues;
+
+        private final int[] indicesRelevants;
+
+        private final int hash;
+
+        Structure(Instances dataset) {
+            InstanceInformation information = dataset.instanceInformation;
+            this.relationName = information.relationName;
+            this.classIndex = information.classIndex;
+            this.rangeStart = information.range == null ? -1 : information.range.getStart();
+            this.rangeEnd = information.range == null ? -1 : information.range.getEnd();
+            AttributesInformation attributesInformation = information.attributesInformation;
+            if (attributesInformation == null) {
+                this.numAttributes = 0;
+                this.attributes = null;
+                this.indexValues = null;
+            } else {
+                this.numAttributes = attributesInformation.numberAttributes;
+                this.attributes = attributesInformation.attributes == null ? null
+                        : attributesInformation.attributes.clone();
+                this.indexValues = attributesInformation.indexValues == null ? null
+                        : attributesInformation.indexValues.clone();
+            }
+            this.indicesRelevants = dataset.indicesRelevants == null ? null
+                    : dataset.indicesRelevants.clone();
+            int h = this.relationName == null ? 0 : this.relationName.hashCode();
+            h = 31 * h + this.classIndex;
+            h = 31 * h + this.rangeStart;
+            h = 31 * h + this.rangeEnd;
+            h = 31 * h + this.numAttributes;
+            h = 31 * h + Arrays.hashCode(this.indexValues);
+            h = 31 * h + Arrays.hashCode(this.indicesRelevants);
+            if (this.attributes != null) {
+                for (Attribute attribute : this.attributes) {
+                    h = 31 * h + (attribute == null || attribute.name == null ? 0 : attribute.name.hashCode());
+                    h = 31 * h + (attribute != null && attribute.isNominal ? 1 : 0);
+                }
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Structure)) {
+                return false;
+            }
+            Structure other = (Structure) o;
+            if (this.hash != other.hash
+                    || this.classIndex != other.classIndex
+                    || this.rangeStart != other.rangeStart
+                    || this.rangeEnd != other.rangeEnd
+                    || this.numAttributes != other.numAttributes
+                    || !equal(this.relationName, other.relationName)
+                    || !Arrays.equals(this.indexValues, other.indexValues)
+                    || !Arrays.equals(this.indicesRelevants, other.indicesRelevants)) {
+                return false;
+            }
+            if (this.attributes == null || other.attributes == null) {
+                return this.attributes == other.attributes;
+            }
+            if (this.attributes.length != other.attributes.length) {
+                return false;
+            }
+            for (int i = 0; i < this.attributes.length; i++) {
+                if (!sameAttribute(this.attributes[i], other.attributes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean sameAttribute(Attribute a, Attribute b) {
+            if (a == b) {
+                return true;
+            }
+            if (a == null || b == null) {
+                return false;
+            }
+            return a.isNominal == b.isNominal
+                    && a.isNumeric == b.isNumeric
+                    && a.isDate == b.isDate
+                    && equal(a.name, b.name)
+                    && equal(a.attributeValues, b.attributeValues)
+                    && equal(a.m_DateFormat == null ? null : a.m_DateFormat.toPattern(),
+                            b.m_DateFormat == null ? null : b.m_DateFormat.toPattern());
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * Instance data that shares the attribute values of another dense instance
+ * and only owns the value of one attribute, normally the class.
+ *
+ * <p>Several overlays can share the same values, e.g. the folds of a
+ * cross-validation task that each observe a different label for the same
+ * instance. The shared values are never modified: writing to any attribute
+ * other than the overlaid one first copies them (copy-on-write), so the
+ * overlays are independent of each other. The shared values are released
+ * when the last overlay referencing them is collected.</p>
+ */
+public class LabelOverlayInstanceData implements InstanceData {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The attribute values, shared until the first write. */
+    protected InstanceData sharedData;
+
+    /** Whether the values are still shared with other instances. */
+    protected boolean shared;
+
+    /** The index of the overlaid attribute. */
+    protected int overlayIndex;
+
+    /** The value of the overlaid attribute. */
+    protected double overlayValue;
+
+    /**
+     * Instantiates an overlay over the given values.
+     *
+     * @param sharedData the values to share, must not be modified afterwards
+     * @param overlayIndex the index of the attribute owned by the overlay
+     */
+    public LabelOverlayInstanceData(InstanceData sharedData, int overlayIndex) {
+        this.sharedData = sharedData;
+        this.shared = true;
+        this.overlayIndex = overlayIndex;
+        this.overlayValue = sharedData.value(overlayIndex);
+    }
+
+    /**
+     * Instantiates a copy of an overlay sharing the same values.
+     *
+     * @param other the overlay to copy
+     */
+    protected LabelOverlayInstanceData(LabelOverlayInstanceData other) {
+        this.sharedData = other.sharedData;
+        this.shared = true;
+        this.overlayIndex = other.overlayIndex;
+        this.overlayValue = other.overlayValue;
+    }
+
+    /**
+     * Returns an instance with the same values, header and weight as the given
+     * one, that shares the attribute values with it and only owns its class
+     * value and weight. The given instance must not be modified afterwards.
+     * Instances that are not dense fall back to a full copy.
+     *
+     * @param instance the instance to share
+     * @return the overlay instance
+     */
+    public static Instance shareInstance(Instance instance) {
+        if (instance instanceof InstanceImpl) {
+            InstanceImpl impl = (InstanceImpl) instance;
+            InstanceData data = impl.instanceData;
+            if (data instanceof LabelOverlayInstanceData || data instanceof DenseInstanceData
+                    || data instanceof FloatInstanceData || data instanceof QuantizedInstanceData) {
+                InstanceData overlay;
+                if (data instanceof LabelOverlayInstanceData
+                        && ((LabelOverlayInstanceData) data).overlayIndex == impl.classIndex()) {
+                    overlay = data.copy();
+                } else {
+                    overlay = new LabelOverlayInstanceData(data, impl.classIndex());
+                }
+                InstanceImpl inst = new InstanceImpl(impl.weight(), overlay);
+                inst.instanceHeader = impl.instanceHeader;
+                return inst;
+            }
+        }
+        return instance.copy();
+    }
+
+    /**
+     * Replaces the shared values by a private copy holding the overlaid value.
+     */
+    protected void unshare() {
+        if (this.shared) {
+            this.sharedData = this.sharedData.copy();
+            this.sharedData.setValue(this.overlayIndex, this.overlayValue);
+            this.shared = false;
+        }
+    }
+
+    @Override
+    public int numAttributes() {
+        return this.sharedData.numAttributes();
+    }
+
+    @Override
+    public double value(int instAttIndex) {
+        if (this.shared && instAttIndex == this.overlayIndex) {
+            return this.overlayValue;
+        }
+        return this.sharedData.value(instAttIndex);
+    }
+
+    @Override
+    public boolean isMissing(int instAttIndex) {
+        return Double.isNaN(this.value(instAttIndex));
+    }
+
+    @Override
+    public int numValues() {
+        return this.sharedData.numValues();
+    }
+
+    @Override
+    public int index(int i) {
+        return this.sharedData.index(i);
+    }
+
+    @Override
+    public double valueSparse(int i) {
+        return this.value(this.sharedData.index(i));
+    }
+
+    @Override
+    public boolean isMissingSparse(int p1) {
+        return Double.isNaN(this.valueSparse(p1));
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] values = this.sharedData.toDoubleArray();
+        if (this.shared) {
+            values[this.overlayIndex] = this.overlayValue;
+        }
+        return values;
+    }
+
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        if (this.shared && attributeIndex == this.overlayIndex) {
+            this.overlayValue = d;
+        } else {
+            unshare();
+            this.sharedData.setValue(attributeIndex, d);
+        }
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        unshare();
+        this.sharedData.deleteAttributeAt(index);
+    }
+
+    @Override
+    public void insertAttributeAt(int index) {
+        unshare();
+        this.sharedData.insertAttributeAt(index);
+    }
+
+    @Override
+    public InstanceData copy() {
+        if (this.shared) {
+            return new LabelOverlayInstanceData(this);
+        }
+        return this.sharedData.copy();
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * Dense instance data for rows whose values are all small integers, such as
+ * nominal values and 0/1 or count features. The values are stored exactly in
+ * one byte each when they all lie in [-127, 127], and in two bytes each when
+ * they lie in [-32767, 32767]; the lowest code marks a missing value.
+ *
+ * <p>Setting a value that does not fit widens the storage, up to doubles, so
+ * the data always returns the values it was given.</p>
+ */
+public class QuantizedInstanceData implements InstanceData {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The code of a missing value in bytes. */
+    protected static final byte MISSING_BYTE = Byte.MIN_VALUE;
+
+    /** The code of a missing value in shorts. */
+    protected static final short MISSING_SHORT = Short.MIN_VALUE;
+
+    /** The values while they all fit in a byte, otherwise null. */
+    protected byte[] byteValues;
+
+    /** The values while they all fit in a short but not in a byte, otherwise null. */
+    protected short[] shortValues;
+
+    /** The values once one does not fit in a short, otherwise null. */
+    protected double[] doubleValues;
+
+    protected QuantizedInstanceData(byte[] byteValues, short[] shortValues, double[] doubleValues) {
+        this.byteValues = byteValues;
+        this.shortValues = shortValues;
+        this.doubleValues = doubleValues;
+    }
+
+    /**
+     * Quantizes the values of a row.
+     *
+     * @param values the values
+     * @return the data, or null if some value is not an integer in [-32767, 32767]
+     */
+    public static QuantizedInstanceData quantize(double[] values) {
+        boolean fitsByte = true;
+        for (double value : values) {
+            if (!fitsShort(value)) {
+                return null;
+            }
+            fitsByte &= fitsByte(value);
+        }
+        if (fitsByte) {
+            byte[] byteValues = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                byteValues[i] = Double.isNaN(values[i]) ? MISSING_BYTE : (byte) values[i];
+            }
+            return new QuantizedInstanceData(byteValues, null, null);
+        }
+        short[] shortValues = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shortValues[i] = Double.isNaN(values[i]) ? MISSING_SHORT : (short) values[i];
+        }
+        return new QuantizedInstanceData(null, shortValues, null);
+    }
+
+    protected static boolean fitsByte(double value) {
+        return Double.isNaN(value) || (isInteger(value) && value >= -Byte.MAX_VALUE && value <= Byte.MAX_VALUE);
+    }
+
+    protected static boolean fitsShort(double value) {
+        return Double.isNaN(value) || (isInteger(value) && value >= -Short.MAX_VALUE && value <= Short.MAX_VALUE);
+    }
+
+    /**
+     * Negative zero is not an integer here, as it would be read back as zero.
+     */
+    private static boolean isInteger(double value) {
+        return value == Math.rint(value) && (value != 0.0 || 1.0 / value > 0.0);
+    }
+
+    @Override
+    public int numAttributes() {
+        if (this.byteValues != null) {
+            return this.byteValues.length;
+        }
+        return this.shortValues != null ? this.shortValues.length : this.doubleValues.length;
+    }
+
+    @Override
+    public double value(int indexAttribute) {
+        if (this.byteValues != null) {
+            byte value = this.byteValues[indexAttribute];
+            return value == MISSING_BYTE ? Double.NaN : value;
+        }
+        if (this.shortValues != null) {
+            short value = this.shortValues[indexAttribute];
+            return value == MISSING_SHORT ? Double.NaN : value;
+        }
+        return this.doubleValues[indexAttribute];
+    }
+
+    @Override
+    public boolean isMissing(int indexAttribute) {
+        return Double.isNaN(this.value(indexAttribute));
+    }
+
+    @Override
+    public int numValues() {
+        return numAttributes();
+    }
+
+    @Override
+    public int index(int indexAttribute) {
+        return indexAttribute;
+    }
+
+    @Override
+    public double valueSparse(int indexAttribute) {
+        return value(indexAttribute);
+    }
+
+    @Override
+    public boolean isMissingSparse(int indexAttribute) {
+        return isMissing(indexAttribute);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        if (this.doubleValues != null) {
+            return this.doubleValues.clone();
+        }
+        double[] array = new double[numAttributes()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = value(i);
+        }
+        return array;
+    }
+
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        if (this.byteValues != null) {
+            if (fitsByte(d)) {
+                this.byteValues[attributeIndex] = Double.isNaN(d) ? MISSING_BYTE : (byte) d;
+                return;
+            }
+            widen(fitsShort(d));
+        } else if (this.shortValues != null && !fitsShort(d)) {
+            widen(false);
+        }
+        if (this.shortValues != null) {
+            this.shortValues[attributeIndex] = Double.isNaN(d) ? MISSING_SHORT : (short) d;
+        } else {
+            this.doubleValues[attributeIndex] = d;
+        }
+    }
+
+    /**
+     * Moves the values to wider storage.
+     *
+     * @param toShort true to store shorts, false to store doubles
+     */
+    protected void widen(boolean toShort) {
+        if (toShort) {
+            short[] values = new short[this.byteValues.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = this.byteValues[i] == MISSING_BYTE ? MISSING_SHORT : this.byteValues[i];
+            }
+            this.shortValues = values;
+        } else {
+            this.doubleValues = toDoubleArray();
+            this.shortValues = null;
+        }
+        this.byteValues = null;
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        int n = numAttributes();
+        if (this.byteValues != null) {
+            byte[] newValues = new byte[n - 1];
+            System.arraycopy(this.byteValues, 0, newValues, 0, index);
+            System.arraycopy(this.byteValues, index + 1, newValues, index, n - (index + 1));
+            this.byteValues = newValues;
+        } else if (this.shortValues != null) {
+            short[] newValues = new short[n - 1];
+            System.arraycopy(this.shortValues, 0, newValues, 0, index);
+            System.arraycopy(this.shortValues, index + 1, newValues, index, n - (index + 1));
+            this.shortValues = newValues;
+        } else {
+            double[] newValues = new double[n - 1];
+            System.arraycopy(this.doubleValues, 0, newValues, 0, index);
+            System.arraycopy(this.doubleValues, index + 1, newValues, index, n - (index + 1));
+            this.doubleValues = newValues;
+        }
+    }
+
+    @Override
+    public void insertAttributeAt(int index) {
+        int n = numAttributes();
+        if ((index < 0) || (index > n)) {
+            throw new IllegalArgumentException("Can't insert attribute: index out "
+                    + "of range");
+        }
+        if (this.byteValues != null) {
+            byte[] newValues = new byte[n + 1];
+            System.arraycopy(this.byteValues, 0, newValues, 0, index);
+            newValues[index] = MISSING_BYTE;
+            System.arraycopy(this.byteValues, index, newValues, index + 1, n - index);
+            this.byteValues = newValues;
+        } else if (this.shortValues != null) {
+            short[] newValues = new short[n + 1];
+            System.arraycopy(this.shortValues, 0, newValues, 0, index);
+            newValues[index] = MISSING_SHORT;
+            System.arraycopy(this.shortValues, index, newValues, index + 1, n - index);
+            this.shortValues = newValues;
+        } else {
+            double[] newValues = new double[n + 1];
+            System.arraycopy(this.doubleValues, 0, newValues, 0, index);
+            newValues[index] = Double.NaN; //Missing Value
+            System.arraycopy(this.doubleValues, index, newValues, index + 1, n - index);
+            this.doubleValues = newValues;
+        }
+    }
+
+    @Override
+    public InstanceData copy() {
+        return new QuantizedInstanceData(
+                this.byteValues == null ? null : this.byteValues.clone(),
+                this.shortValues == null ? null : this.shortValues.clone(),
+                this.doubleValues == null ? null : this.doubleValues.clone());
+    }
+}
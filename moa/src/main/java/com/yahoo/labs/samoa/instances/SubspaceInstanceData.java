@@ -0,0 +1,158 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * Instance data that exposes a subset of the attributes of another instance
+ * without copying them: attribute <code>i</code> of the view is attribute
+ * <code>indexes[i]</code> of the source instance.
+ *
+ * <p>Used to present the random subspace of an ensemble member to its base
+ * learner. The source instance and the index array are never modified:
+ * writing to the view, or inserting or deleting attributes, first copies the
+ * selected values into private dense data (copy-on-write). Copies of a view
+ * hold only the selected values, but views that are kept by a learner keep
+ * their source instance alive.</p>
+ */
+public class SubspaceInstanceData implements InstanceData {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The instance the values are read from. */
+    protected Instance source;
+
+    /** The index in the source instance of each attribute of the view. */
+    protected int[] indexes;
+
+    /** The private values, null while the view still reads the source. */
+    protected InstanceData ownData;
+
+    /**
+     * Instantiates a view over the given attributes of an instance.
+     *
+     * @param source the instance to read, must not be modified afterwards
+     * @param indexes the source index of each attribute of the view, must not be modified afterwards
+     */
+    public SubspaceInstanceData(Instance source, int[] indexes) {
+        this.source = source;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Returns an instance with the given header and weight whose attributes
+     * are the selected attributes of the given instance.
+     *
+     * @param instance the instance to read, must not be modified afterwards
+     * @param indexes the source index of each attribute, must not be modified afterwards
+     * @param header the header of the subspace
+     * @param weight the weight of the returned instance
+     * @return the view
+     */
+    public static Instance subspaceInstance(Instance instance, int[] indexes,
+            InstancesHeader header, double weight) {
+        InstanceImpl inst = new InstanceImpl(weight, new SubspaceInstanceData(instance, indexes));
+        inst.instanceHeader = header;
+        return inst;
+    }
+
+    /**
+     * Replaces the view by a private copy of the selected values.
+     */
+    protected void materialize() {
+        if (this.ownData == null) {
+            this.ownData = new DenseInstanceData(this.toDoubleArray());
+            this.source = null;
+        }
+    }
+
+    @Override
+    public int numAttributes() {
+        return this.ownData != null ? this.ownData.numAttributes() : this.indexes.length;
+    }
+
+    @Override
+    public double value(int instAttIndex) {
+        if (this.ownData != null) {
+            return this.ownData.value(instAttIndex);
+        }
+        return this.source.value(this.indexes[instAttIndex]);
+    }
+
+    @Override
+    public boolean isMissing(int instAttIndex) {
+        return Double.isNaN(this.value(instAttIndex));
+    }
+
+    @Override
+    public int numValues() {
+        return this.numAttributes();
+    }
+
+    @Override
+    public int index(int i) {
+        return i;
+    }
+
+    @Override
+    public double valueSparse(int i) {
+        return this.value(i);
+    }
+
+    @Override
+    public boolean isMissingSparse(int p1) {
+        return this.isMissing(p1);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        if (this.ownData != null) {
+            return this.ownData.toDoubleArray();
+        }
+        double[] values = new double[this.indexes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.source.value(this.indexes[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        materialize();
+        this.ownData.setValue(attributeIndex, d);
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        materialize();
+        this.ownData.deleteAttributeAt(index);
+    }
+
+    @Override
+    public void insertAttributeAt(int index) {
+        materialize();
+        this.ownData.insertAttributeAt(index);
+    }
+
+    @Override
+    public InstanceData copy() {
+        if (this.ownData != null) {
+            return this.ownData.copy();
+        }
+        return new DenseInstanceData(this.toDoubleArray());
+    }
+
+}
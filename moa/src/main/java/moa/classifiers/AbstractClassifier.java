@@ -52,7 +52,7 @@ import com.yahoo.labs.samoa.instances.Prediction;
 import moa.core.Utils;
 
 public abstract class AbstractClassifier extends AbstractOptionHandler
-        implements Classifier, CapabilitiesHandler { //Learner<Example<Instance>> {
+        implements BatchClassifier, CapabilitiesHandler { //Learner<Example<Instance>> {
 
     @Override
     public String getPurposeString() {
@@ -105,6 +105,13 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
     @Override
     public abstract double[] getVotesForInstance(Instance inst);
 
+    @Override
+    public void getVotesForInstances(Instances batch, double[][] votes) {
+        for (int i = 0; i < batch.numInstances(); i++) {
+            votes[i] = getVotesForInstance(batch.instance(i));
+        }
+    }
+
     @Override
     public Prediction getPredictionForInstance(Example<Instance> example){
 		return getPredictionForInstance(example.getData());
@@ -245,6 +252,13 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
         return this;
     };
     
+    @Override
+    public void trainOnInstances(Instances batch) {
+        for (int i = 0; i < batch.numInstances(); i++) {
+            trainOnInstance(batch.instance(i));
+        }
+    }
+
     @Override
     public void trainOnInstance(Example<Instance> example){
 		trainOnInstance(example.getData());
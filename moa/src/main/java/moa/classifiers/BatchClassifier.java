@@ -0,0 +1,52 @@
+/*
+ *    BatchClassifier.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers;
+
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Classifier interface for models that can train on and predict a block of
+ * instances at a time. AbstractClassifier implements it by calling
+ * trainOnInstance and getVotesForInstance for every instance, and learners
+ * override it where handling the block at once saves work.
+ *
+ * Training on a block must give the same model as training on its instances
+ * one by one, in order, and the votes must be those getVotesForInstance
+ * would return for each instance.
+ *
+ * @version $Revision: 1 $
+ */
+public interface BatchClassifier extends Classifier {
+
+    /**
+     * Trains this learner incrementally on the instances of a block, in order.
+     *
+     * @param batch the instances to be used for training
+     */
+    public void trainOnInstances(Instances batch);
+
+    /**
+     * Predicts the class memberships of the instances of a block without
+     * training on them.
+     *
+     * @param batch the instances to be classified
+     * @param votes receives the votes for instance i in row i, which must
+     * have at least batch.numInstances() rows; rows are replaced
+     */
+    public void getVotesForInstances(Instances batch, double[][] votes);
+}
@@ -32,6 +32,7 @@ import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.StringUtils;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * Naive Bayes incremental learner.
@@ -61,6 +62,9 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
 
     protected AutoExpandVector<AttributeClassObserver> attributeObservers;
 
+    /** Computes the predictions, created when first needed. */
+    protected transient NaiveBayesKernel kernel;
+
     @Override
     public void resetLearningImpl() {
         this.observedClassDistribution = new DoubleVector();
@@ -84,10 +88,29 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
 
     @Override
     public double[] getVotesForInstance(Instance inst) {
-        return doNaiveBayesPrediction(inst, this.observedClassDistribution,
+        return getKernel().getVotesForInstance(inst, this.observedClassDistribution,
                 this.attributeObservers);
     }
 
+    @Override
+    public void getVotesForInstances(Instances batch, double[][] votes) {
+        NaiveBayesKernel kernel = getKernel();
+        for (int i = 0; i < batch.numInstances(); i++) {
+            votes[i] = kernel.getVotesForInstance(batch.instance(i),
+                    this.observedClassDistribution, this.attributeObservers);
+        }
+    }
+
+    /**
+     * @return the kernel that computes the predictions of this model
+     */
+    protected NaiveBayesKernel getKernel() {
+        if (this.kernel == null) {
+            this.kernel = new NaiveBayesKernel();
+        }
+        return this.kernel;
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
@@ -140,12 +163,16 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
         for (int classIndex = 0; classIndex < votes.length; classIndex++) {
             votes[classIndex] = observedClassDistribution.getValue(classIndex)
                     / observedClassSum;
-            for (int attIndex = 0; attIndex < inst.numAttributes() - 1; attIndex++) {
-                int instAttIndex = modelAttIndexToInstanceAttIndex(attIndex,
-                        inst);
-                AttributeClassObserver obs = attributeObservers.get(attIndex);
-                if ((obs != null) && !inst.isMissing(instAttIndex)) {
-                    votes[classIndex] *= obs.probabilityOfAttributeValueGivenClass(inst.value(instAttIndex), classIndex);
+        }
+        // each class still multiplies its probabilities in attribute order
+        for (int attIndex = 0; attIndex < inst.numAttributes() - 1; attIndex++) {
+            int instAttIndex = modelAttIndexToInstanceAttIndex(attIndex,
+                    inst);
+            AttributeClassObserver obs = attributeObservers.get(attIndex);
+            if ((obs != null) && !inst.isMissing(instAttIndex)) {
+                double value = inst.value(instAttIndex);
+                for (int classIndex = 0; classIndex < votes.length; classIndex++) {
+                    votes[classIndex] *= obs.probabilityOfAttributeValueGivenClass(value, classIndex);
                 }
             }
         }
@@ -0,0 +1,219 @@
+/*
+ *    NaiveBayesKernel.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.bayes;
+
+import java.util.Arrays;
+
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.core.AutoExpandVector;
+import moa.core.DoubleVector;
+import moa.core.GaussianEstimator;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Computes naive Bayes votes like
+ * {@link NaiveBayes#doNaiveBayesPrediction}, reusing its buffers between
+ * predictions.
+ *
+ * <p>The attributes are visited in the outer loop, so the observer and the
+ * value of an attribute are looked up once for all classes, while each class
+ * still multiplies its probabilities in attribute order and gets the same vote.
+ * The standard deviations and normalising constants of the Gaussian observers
+ * and the denominators of the nominal observers are cached per attribute and
+ * class. Cached entries are checked against the state of the observers before
+ * they are used, so the learners never have to reset them, and one kernel can
+ * serve all the leaves of a tree.</p>
+ *
+ * <p>A kernel must not be used by several threads at once.</p>
+ */
+public class NaiveBayesKernel {
+
+    /** The votes of the last prediction. */
+    protected double[] votes = new double[0];
+
+    /** The number of classes the caches are laid out for. */
+    protected int numClasses;
+
+    /** The number of attributes the caches have room for. */
+    protected int numAttributes;
+
+    /** The weight of the Gaussian estimators the cached parameters were computed from. */
+    protected double[] gaussianWeightSum = new double[0];
+
+    /** The variance sum of the Gaussian estimators the cached parameters were computed from. */
+    protected double[] gaussianVarianceSum = new double[0];
+
+    protected double[] gaussianStdDev = new double[0];
+
+    /** The normalising constants, 1 / (sqrt(2 pi) stdDev). */
+    protected double[] gaussianCoefficient = new double[0];
+
+    /** Twice the variances, 2 stdDev stdDev. */
+    protected double[] gaussianTwiceVariance = new double[0];
+
+    /** The nominal observers the denominators were computed from, per attribute. */
+    protected NominalAttributeClassObserver[] nominalObservers = new NominalAttributeClassObserver[0];
+
+    /** The modification counts of the nominal observers, per attribute. */
+    protected int[] nominalModificationCounts = new int[0];
+
+    /** The denominators of the nominal estimates, weight plus number of values. */
+    protected double[] nominalDenominators = new double[0];
+
+    /**
+     * Computes the votes for an instance into the buffer of the kernel.
+     *
+     * @param inst the instance
+     * @param observedClassDistribution the weight observed per class
+     * @param attributeObservers the observers, per model attribute
+     * @return the votes, valid until the next prediction of the kernel
+     */
+    public double[] predict(Instance inst,
+            DoubleVector observedClassDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers) {
+        int classes = observedClassDistribution.numValues();
+        int numModelAttributes = inst.numAttributes() - 1;
+        ensureCapacity(numModelAttributes, classes);
+        if (this.votes.length != classes) {
+            this.votes = new double[classes];
+        }
+        double[] votes = this.votes;
+        double observedClassSum = observedClassDistribution.sumOfValues();
+        for (int classIndex = 0; classIndex < classes; classIndex++) {
+            votes[classIndex] = observedClassDistribution.getValue(classIndex)
+                    / observedClassSum;
+        }
+        int classIndexOfInst = inst.classIndex();
+        for (int attIndex = 0; attIndex < numModelAttributes; attIndex++) {
+            int instAttIndex = classIndexOfInst > attIndex ? attIndex : attIndex + 1;
+            AttributeClassObserver obs = attributeObservers.get(attIndex);
+            if ((obs == null) || inst.isMissing(instAttIndex)) {
+                continue;
+            }
+            double value = inst.value(instAttIndex);
+            if (obs.getClass() == GaussianNumericAttributeClassObserver.class) {
+                multiplyGaussian(votes, attIndex, (GaussianNumericAttributeClassObserver) obs, value);
+            } else if (obs.getClass() == NominalAttributeClassObserver.class) {
+                multiplyNominal(votes, attIndex, (NominalAttributeClassObserver) obs, value);
+            } else {
+                for (int classIndex = 0; classIndex < classes; classIndex++) {
+                    votes[classIndex] *= obs.probabilityOfAttributeValueGivenClass(value, classIndex);
+                }
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Computes the votes for an instance into a new array.
+     *
+     * @param inst the instance
+     * @param observedClassDistribution the weight observed per class
+     * @param attributeObservers the observers, per model attribute
+     * @return the votes
+     */
+    public double[] getVotesForInstance(Instance inst,
+            DoubleVector observedClassDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers) {
+        return predict(inst, observedClassDistribution, attributeObservers).clone();
+    }
+
+    protected void multiplyGaussian(double[] votes, int attIndex,
+            GaussianNumericAttributeClassObserver obs, double value) {
+        int offset = attIndex * this.numClasses;
+        for (int classIndex = 0; classIndex < votes.length; classIndex++) {
+            GaussianEstimator estimator = obs.getEstimator(classIndex);
+            double weightSum = estimator != null ? estimator.getTotalWeightObserved() : 0.0;
+            if (!(weightSum > 0.0)) {
+                votes[classIndex] *= 0.0;
+                continue;
+            }
+            int k = offset + classIndex;
+            double varianceSum = estimator.getVarianceSum();
+            if (weightSum != this.gaussianWeightSum[k]
+                    || varianceSum != this.gaussianVarianceSum[k]) {
+                double stdDev = estimator.getStdDev();
+                this.gaussianWeightSum[k] = weightSum;
+                this.gaussianVarianceSum[k] = varianceSum;
+                this.gaussianStdDev[k] = stdDev;
+                this.gaussianCoefficient[k] = 1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev);
+                this.gaussianTwiceVariance[k] = 2.0 * stdDev * stdDev;
+            }
+            double mean = estimator.getMean();
+            if (this.gaussianStdDev[k] > 0.0) {
+                double diff = value - mean;
+                votes[classIndex] *= this.gaussianCoefficient[k]
+                        * Math.exp(-(diff * diff / this.gaussianTwiceVariance[k]));
+            } else {
+                votes[classIndex] *= value == mean ? 1.0 : 0.0;
+            }
+        }
+    }
+
+    protected void multiplyNominal(double[] votes, int attIndex,
+            NominalAttributeClassObserver obs, double value) {
+        int offset = attIndex * this.numClasses;
+        boolean cached = this.nominalObservers[attIndex] == obs
+                && this.nominalModificationCounts[attIndex] == obs.getModificationCount();
+        for (int classIndex = 0; classIndex < votes.length; classIndex++) {
+            DoubleVector dist = obs.attValDistPerClass.get(classIndex);
+            if (dist == null) {
+                votes[classIndex] *= 0.0;
+                continue;
+            }
+            if (!cached) {
+                this.nominalDenominators[offset + classIndex] = dist.sumOfValues() + dist.numValues();
+            }
+            votes[classIndex] *= (dist.getValue((int) value) + 1.0)
+                    / this.nominalDenominators[offset + classIndex];
+        }
+        this.nominalObservers[attIndex] = obs;
+        this.nominalModificationCounts[attIndex] = obs.getModificationCount();
+    }
+
+    protected void ensureCapacity(int attributes, int classes) {
+        if (classes != this.numClasses) {
+            // the layout changes, so every cached entry is dropped
+            this.numClasses = classes;
+            this.numAttributes = 0;
+            this.gaussianWeightSum = new double[0];
+            this.gaussianVarianceSum = new double[0];
+            this.gaussianStdDev = new double[0];
+            this.gaussianCoefficient = new double[0];
+            this.gaussianTwiceVariance = new double[0];
+            this.nominalDenominators = new double[0];
+            this.nominalObservers = new NominalAttributeClassObserver[0];
+            this.nominalModificationCounts = new int[0];
+        }
+        if (attributes <= this.numAttributes) {
+            return;
+        }
+        int size = attributes * classes;
+        this.gaussianWeightSum = Arrays.copyOf(this.gaussianWeightSum, size);
+        this.gaussianVarianceSum = Arrays.copyOf(this.gaussianVarianceSum, size);
+        this.gaussianStdDev = Arrays.copyOf(this.gaussianStdDev, size);
+        this.gaussianCoefficient = Arrays.copyOf(this.gaussianCoefficient, size);
+        this.gaussianTwiceVariance = Arrays.copyOf(this.gaussianTwiceVariance, size);
+        this.nominalDenominators = Arrays.copyOf(this.nominalDenominators, size);
+        this.nominalObservers = Arrays.copyOf(this.nominalObservers, attributes);
+        this.nominalModificationCounts = Arrays.copyOf(this.nominalModificationCounts, attributes);
+        this.numAttributes = attributes;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ *    SplitSuggestionCache.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import moa.AbstractMOAObject;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.AutoExpandVector;
+
+/**
+ * Per-node cache of the best split suggestion of each attribute.
+ *
+ * <p>The node reports every observation that changes an attribute observer,
+ * so not those of missing values, and the suggestion of an attribute is only
+ * recomputed when its observer changed since the last evaluation. The merit of
+ * a reused suggestion is still recomputed from its class distributions, as it
+ * depends on the class distribution at the node, which is cheap next to
+ * searching the split points again. With a positive tolerance the suggestion is also
+ * reused while the weight observed by the attribute has grown by less than
+ * that fraction, except for the two best attributes of the last evaluation,
+ * which are always rescored so split decisions use current merits. Scoring
+ * can be spread over a thread pool for nodes with many attributes; the
+ * suggestions are returned in attribute order either way.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class SplitSuggestionCache extends AbstractMOAObject {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Nodes with fewer attributes to score than this are scored sequentially. */
+    public static final int MIN_ATTRIBUTES_FOR_PARALLEL_EVALUATION = 100;
+
+    protected double[] weightObserved = new double[0];
+
+    protected double[] weightAtLastEvaluation = new double[0];
+
+    protected AttributeSplitSuggestion[] suggestions = new AttributeSplitSuggestion[0];
+
+    protected AttributeClassObserver[] evaluatedObservers = new AttributeClassObserver[0];
+
+    protected boolean[] contenders = new boolean[0];
+
+    protected void ensureCapacity(int numAttributes) {
+        if (this.weightObserved.length < numAttributes) {
+            this.weightObserved = Arrays.copyOf(this.weightObserved, numAttributes);
+            this.weightAtLastEvaluation = Arrays.copyOf(this.weightAtLastEvaluation, numAttributes);
+            this.suggestions = Arrays.copyOf(this.suggestions, numAttributes);
+            this.evaluatedObservers = Arrays.copyOf(this.evaluatedObservers, numAttributes);
+            this.contenders = Arrays.copyOf(this.contenders, numAttributes);
+        }
+    }
+
+    /**
+     * Records that the observer of an attribute was updated with a value
+     * that is not missing.
+     *
+     * @param attIndex the model index of the attribute
+     * @param weight the weight of the observation
+     */
+    public void attributeObserved(int attIndex, double weight) {
+        if (attIndex >= this.weightObserved.length) {
+            ensureCapacity(Math.max(attIndex + 1, 2 * this.weightObserved.length));
+        }
+        this.weightObserved[attIndex] += weight;
+    }
+
+    protected boolean needsEvaluation(int attIndex, AttributeClassObserver obs, double tolerance) {
+        if (this.evaluatedObservers[attIndex] != obs) {
+            return true;
+        }
+        double growth = this.weightObserved[attIndex] - this.weightAtLastEvaluation[attIndex];
+        if (growth == 0.0) {
+            return false;
+        }
+        return this.contenders[attIndex]
+                || growth > tolerance * this.weightAtLastEvaluation[attIndex];
+    }
+
+    /**
+     * Returns the best split suggestion of every attribute, recomputing only
+     * those whose statistics changed.
+     *
+     * @param observers the attribute observers of the node
+     * @param criterion the split criterion
+     * @param preSplitDist the class distribution at the node
+     * @param binaryOnly whether only binary splits are allowed
+     * @param addNullSplit whether to include the null split (pre-pruning)
+     * @param tolerance relative weight growth below which a suggestion is reused, 0 to reuse only unchanged ones
+     * @param executor the pool to score attributes with, or null to score sequentially
+     * @return the suggestions, the null split first if requested
+     */
+    public AttributeSplitSuggestion[] getBestSplitSuggestions(
+            final AutoExpandVector<AttributeClassObserver> observers,
+            final SplitCriterion criterion, final double[] preSplitDist,
+            final boolean binaryOnly, boolean addNullSplit, double tolerance,
+            ExecutorService executor) {
+        int numAttributes = observers.size();
+        ensureCapacity(numAttributes);
+        List<Integer> toEvaluate = new ArrayList<Integer>();
+        for (int i = 0; i < numAttributes; i++) {
+            AttributeClassObserver obs = observers.get(i);
+            if (obs == null) {
+                this.suggestions[i] = null;
+                this.evaluatedObservers[i] = null;
+            } else if (needsEvaluation(i, obs, tolerance)) {
+                toEvaluate.add(i);
+            }
+        }
+
+        if (executor != null && toEvaluate.size() >= MIN_ATTRIBUTES_FOR_PARALLEL_EVALUATION) {
+            List<Callable<AttributeSplitSuggestion>> tasks = new ArrayList<Callable<AttributeSplitSuggestion>>(toEvaluate.size());
+            for (final int i : toEvaluate) {
+                final AttributeClassObserver obs = observers.get(i);
+                tasks.add(new Callable<AttributeSplitSuggestion>() {
+                    @Override
+                    public AttributeSplitSuggestion call() {
+                        return obs.getBestEvaluatedSplitSuggestion(criterion, preSplitDist, i, binaryOnly);
+                    }
+                });
+            }
+            try {
+                List<Future<AttributeSplitSuggestion>> results = executor.invokeAll(tasks);
+                for (int j = 0; j < results.size(); j++) {
+                    this.suggestions[toEvaluate.get(j)] = results.get(j).get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while evaluating split suggestions.", ex);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException("Could not evaluate split suggestions.", ex.getCause());
+            }
+        } else {
+            for (int i : toEvaluate) {
+                this.suggestions[i] = observers.get(i).getBestEvaluatedSplitSuggestion(criterion,
+                        preSplitDist, i, binaryOnly);
+            }
+        }
+        boolean[] evaluated = new boolean[numAttributes];
+        for (int i : toEvaluate) {
+            this.evaluatedObservers[i] = observers.get(i);
+            this.weightAtLastEvaluation[i] = this.weightObserved[i];
+            evaluated[i] = true;
+        }
+        for (int i = 0; i < numAttributes; i++) {
+            if (!evaluated[i] && this.suggestions[i] != null) {
+                this.suggestions[i].merit = criterion.getMeritOfSplit(preSplitDist,
+                        this.suggestions[i].resultingClassDistributions);
+            }
+        }
+
+        // keep track of the two best attributes, they are rescored on every evaluation
+        int best = -1;
+        int second = -1;
+        for (int i = 0; i < numAttributes; i++) {
+            this.contenders[i] = false;
+            if (this.suggestions[i] != null) {
+                if (best < 0 || this.suggestions[i].merit > this.suggestions[best].merit) {
+                    second = best;
+                    best = i;
+                } else if (second < 0 || this.suggestions[i].merit > this.suggestions[second].merit) {
+                    second = i;
+                }
+            }
+        }
+        if (best >= 0) {
+            this.contenders[best] = true;
+        }
+        if (second >= 0) {
+            this.contenders[second] = true;
+        }
+
+        List<AttributeSplitSuggestion> bestSuggestions = new ArrayList<AttributeSplitSuggestion>(numAttributes + 1);
+        if (addNullSplit) {
+            bestSuggestions.add(new AttributeSplitSuggestion(null,
+                    new double[0][], criterion.getMeritOfSplit(
+                    preSplitDist, new double[][]{preSplitDist})));
+        }
+        for (int i = 0; i < numAttributes; i++) {
+            if (this.suggestions[i] != null) {
+                bestSuggestions.add(this.suggestions[i]);
+            }
+        }
+        return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        int cached = 0;
+        for (AttributeSplitSuggestion suggestion : this.suggestions) {
+            if (suggestion != null) {
+                cached++;
+            }
+        }
+        sb.append("Split suggestions cached for ").append(cached).append(" attributes");
+    }
+}
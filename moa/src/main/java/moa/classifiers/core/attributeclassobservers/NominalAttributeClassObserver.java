@@ -50,6 +50,9 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
 
     public AutoExpandVector<DoubleVector> attValDistPerClass = new AutoExpandVector<DoubleVector>();
 
+    /** The number of observations made, to let caches of the distributions detect changes. */
+    protected int modificationCount = 0;
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Utils.isMissingValue(attVal)) {
@@ -64,6 +67,7 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
             valDist.addToValue(attValInt, weight);
         }
         this.totalWeightObserved += weight;
+        this.modificationCount++;
     }
 
     @Override
@@ -78,6 +82,10 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
         return this.totalWeightObserved;
     }
 
+    public int getModificationCount() {
+        return this.modificationCount;
+    }
+
     public double weightOfObservedMissingValues() {
         return this.missingWeightObserved;
     }
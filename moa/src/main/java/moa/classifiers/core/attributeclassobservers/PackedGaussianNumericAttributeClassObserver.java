@@ -0,0 +1,271 @@
+/*
+ *    PackedGaussianNumericAttributeClassObserver.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.util.Arrays;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.GaussianEstimator;
+import moa.core.ObjectRepository;
+import moa.core.Statistics;
+import moa.core.Utils;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+import com.github.javacliparser.IntOption;
+
+/**
+ * Class for observing the class data distribution for a numeric attribute using gaussian estimators.
+ * Computes the same statistics and split suggestions as
+ * {@link GaussianNumericAttributeClassObserver}, but keeps the weight, mean,
+ * variance sum and range of every class in primitive arrays instead of one
+ * estimator object per class, and evaluates the candidate split points over
+ * those arrays without rebuilding them for every split attempt.
+ *
+ * @version $Revision: 1 $
+ */
+public class PackedGaussianNumericAttributeClassObserver extends AbstractOptionHandler
+        implements NumericAttributeClassObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int numClasses;
+
+    protected boolean[] classObserved = new boolean[0];
+
+    protected double[] weightSum = new double[0];
+
+    protected double[] mean = new double[0];
+
+    protected double[] varianceSum = new double[0];
+
+    protected double[] minValueObserved = new double[0];
+
+    protected double[] maxValueObserved = new double[0];
+
+    public IntOption numBinsOption = new IntOption("numBins", 'n',
+            "The number of bins.", 10, 1, Integer.MAX_VALUE);
+
+    protected void ensureNumClasses(int n) {
+        if (n > this.classObserved.length) {
+            int capacity = Math.max(n, 2 * this.classObserved.length);
+            this.classObserved = Arrays.copyOf(this.classObserved, capacity);
+            this.weightSum = Arrays.copyOf(this.weightSum, capacity);
+            this.mean = Arrays.copyOf(this.mean, capacity);
+            this.varianceSum = Arrays.copyOf(this.varianceSum, capacity);
+            this.minValueObserved = Arrays.copyOf(this.minValueObserved, capacity);
+            this.maxValueObserved = Arrays.copyOf(this.maxValueObserved, capacity);
+        }
+        if (n > this.numClasses) {
+            this.numClasses = n;
+        }
+    }
+
+    @Override
+    public void observeAttributeClass(double attVal, int classVal, double weight) {
+        if (Utils.isMissingValue(attVal)) {
+            return;
+        }
+        ensureNumClasses(classVal + 1);
+        if (!this.classObserved[classVal]) {
+            this.classObserved[classVal] = true;
+            this.minValueObserved[classVal] = attVal;
+            this.maxValueObserved[classVal] = attVal;
+        } else {
+            if (attVal < this.minValueObserved[classVal]) {
+                this.minValueObserved[classVal] = attVal;
+            }
+            if (attVal > this.maxValueObserved[classVal]) {
+                this.maxValueObserved[classVal] = attVal;
+            }
+        }
+        if (Double.isInfinite(attVal)) {
+            return;
+        }
+        // same incremental update as GaussianEstimator.addObservation
+        if (this.weightSum[classVal] > 0.0) {
+            this.weightSum[classVal] += weight;
+            double lastMean = this.mean[classVal];
+            this.mean[classVal] += weight * (attVal - lastMean) / this.weightSum[classVal];
+            this.varianceSum[classVal] += weight * (attVal - lastMean) * (attVal - this.mean[classVal]);
+        } else {
+            this.mean[classVal] = attVal;
+            this.weightSum[classVal] = weight;
+        }
+    }
+
+    protected double getStdDev(int classVal) {
+        double variance = this.weightSum[classVal] > 1.0
+                ? this.varianceSum[classVal] / (this.weightSum[classVal] - 1.0) : 0.0;
+        return Math.sqrt(variance);
+    }
+
+    protected double probabilityDensity(int classVal, double value, double stdDev) {
+        if (this.weightSum[classVal] > 0.0) {
+            if (stdDev > 0.0) {
+                double diff = value - this.mean[classVal];
+                return (1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev))
+                        * Math.exp(-(diff * diff / (2.0 * stdDev * stdDev)));
+            }
+            return value == this.mean[classVal] ? 1.0 : 0.0;
+        }
+        return 0.0;
+    }
+
+    @Override
+    public double probabilityOfAttributeValueGivenClass(double attVal,
+            int classVal) {
+        if (classVal < this.numClasses && this.classObserved[classVal]) {
+            return probabilityDensity(classVal, attVal, getStdDev(classVal));
+        }
+        return 0.0;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        double[] suggestedSplitValues = getSplitPointSuggestions();
+        if (suggestedSplitValues.length == 0) {
+            return null;
+        }
+        double[] stdDevs = new double[this.numClasses];
+        for (int i = 0; i < this.numClasses; i++) {
+            stdDevs[i] = getStdDev(i);
+        }
+        double bestMerit = 0.0;
+        double bestSplitValue = 0.0;
+        double[][] bestPostSplitDists = null;
+        for (double splitValue : suggestedSplitValues) {
+            double[][] postSplitDists = getClassDistsResultingFromBinarySplit(splitValue, stdDevs);
+            double merit = criterion.getMeritOfSplit(preSplitDist,
+                    postSplitDists);
+            if ((bestPostSplitDists == null) || (merit > bestMerit)) {
+                bestMerit = merit;
+                bestSplitValue = splitValue;
+                bestPostSplitDists = postSplitDists;
+            }
+        }
+        return new AttributeSplitSuggestion(
+                new NumericAttributeBinaryTest(attIndex, bestSplitValue, true),
+                bestPostSplitDists, bestMerit);
+    }
+
+    public double[] getSplitPointSuggestions() {
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.numClasses; i++) {
+            if (this.classObserved[i]) {
+                if (this.minValueObserved[i] < minValue) {
+                    minValue = this.minValueObserved[i];
+                }
+                if (this.maxValueObserved[i] > maxValue) {
+                    maxValue = this.maxValueObserved[i];
+                }
+            }
+        }
+        if (!(minValue < Double.POSITIVE_INFINITY)) {
+            return new double[0];
+        }
+        // the candidate points are increasing, so duplicates are adjacent
+        int numBins = this.numBinsOption.getValue();
+        double range = maxValue - minValue;
+        double[] suggestions = new double[numBins];
+        int numSuggestions = 0;
+        for (int i = 0; i < numBins; i++) {
+            double splitValue = range / (numBins + 1.0) * (i + 1) + minValue;
+            if ((splitValue > minValue) && (splitValue < maxValue)
+                    && (numSuggestions == 0 || splitValue != suggestions[numSuggestions - 1])) {
+                suggestions[numSuggestions++] = splitValue;
+            }
+        }
+        return numSuggestions == numBins ? suggestions : Arrays.copyOf(suggestions, numSuggestions);
+    }
+
+    // assume all values equal to splitValue go to lhs
+    public double[][] getClassDistsResultingFromBinarySplit(double splitValue) {
+        double[] stdDevs = new double[this.numClasses];
+        for (int i = 0; i < this.numClasses; i++) {
+            stdDevs[i] = getStdDev(i);
+        }
+        return getClassDistsResultingFromBinarySplit(splitValue, stdDevs);
+    }
+
+    protected double[][] getClassDistsResultingFromBinarySplit(double splitValue, double[] stdDevs) {
+        double[] lhsDist = new double[this.numClasses];
+        double[] rhsDist = new double[this.numClasses];
+        // lengths of the distributions, as a DoubleVector would have grown them
+        int lhsLength = 0;
+        int rhsLength = 0;
+        for (int i = 0; i < this.numClasses; i++) {
+            if (!this.classObserved[i]) {
+                continue;
+            }
+            double weight = this.weightSum[i];
+            if (splitValue < this.minValueObserved[i]) {
+                rhsDist[i] += weight;
+                rhsLength = i + 1;
+            } else if (splitValue >= this.maxValueObserved[i]) {
+                lhsDist[i] += weight;
+                lhsLength = i + 1;
+            } else {
+                // same estimate as GaussianEstimator.estimatedWeight_LessThan_EqualTo_GreaterThan_Value
+                double stdDev = stdDevs[i];
+                double equalToWeight = probabilityDensity(i, splitValue, stdDev) * weight;
+                double lessThanWeight = stdDev > 0.0
+                        ? Statistics.normalProbability((splitValue - this.mean[i]) / stdDev)
+                        * weight - equalToWeight
+                        : (splitValue < this.mean[i] ? weight - equalToWeight : 0.0);
+                double greaterThanWeight = weight - equalToWeight - lessThanWeight;
+                if (greaterThanWeight < 0.0) {
+                    greaterThanWeight = 0.0;
+                }
+                lhsDist[i] += lessThanWeight + equalToWeight;
+                rhsDist[i] += greaterThanWeight;
+                lhsLength = i + 1;
+                rhsLength = i + 1;
+            }
+        }
+        return new double[][]{
+            lhsLength == this.numClasses ? lhsDist : Arrays.copyOf(lhsDist, lhsLength),
+            rhsLength == this.numClasses ? rhsDist : Arrays.copyOf(rhsDist, rhsLength)};
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        int observed = 0;
+        for (int i = 0; i < this.numClasses; i++) {
+            if (this.classObserved[i]) {
+                observed++;
+            }
+        }
+        sb.append("Gaussian estimators of ").append(observed).append(" classes");
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+        // nothing to prepare, numBins is read when splits are suggested and
+        // the estimators are created as classes are observed
+    }
+
+    @Override
+    public void observeAttributeTarget(double attVal, double target) {
+        // only class distributions are modelled, numeric targets are ignored
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *    ParallelObserverUpdate.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.core.AutoExpandVector;
+
+/**
+ * Updates the attribute observers of a leaf with one instance, splitting the
+ * attributes into disjoint ranges that are updated in parallel on a fork/join
+ * pool.
+ *
+ * <p>Every observer is updated by exactly one thread and receives the same
+ * observations in the same order as with a sequential loop, so the resulting
+ * statistics do not depend on the number of threads. The observers must
+ * already exist: the vector is only read while the update runs.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class ParallelObserverUpdate extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Ranges with fewer attributes than this are updated by a single task. */
+    public static final int MIN_ATTRIBUTES_PER_TASK = 512;
+
+    private static final Map<Integer, ForkJoinPool> pools = new HashMap<Integer, ForkJoinPool>();
+
+    protected final AutoExpandVector<AttributeClassObserver> observers;
+
+    protected final int[] attIndices;
+
+    protected final Instance inst;
+
+    protected final int from;
+
+    protected final int to;
+
+    protected ParallelObserverUpdate(AutoExpandVector<AttributeClassObserver> observers,
+            int[] attIndices, Instance inst, int from, int to) {
+        this.observers = observers;
+        this.attIndices = attIndices;
+        this.inst = inst;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the pool shared by all the learners using the given number of
+     * jobs, following the convention of the <code>numberOfJobs</code> option
+     * of {@link moa.classifiers.meta.AdaptiveRandomForest}. Sharing the pools
+     * keeps the number of threads bounded when an ensemble holds many trees.
+     *
+     * @param numberOfJobs the option value, -1 for as many as available cores
+     * @return the pool, or null if multithreading is disabled
+     */
+    public static synchronized ForkJoinPool getPool(int numberOfJobs) {
+        int jobs = numberOfJobs == -1 ? Runtime.getRuntime().availableProcessors() : numberOfJobs;
+        if (jobs <= 1) {
+            return null;
+        }
+        ForkJoinPool pool = pools.get(jobs);
+        if (pool == null) {
+            pool = new ForkJoinPool(jobs);
+            pools.put(jobs, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Passes an instance to the observers of the given attributes.
+     *
+     * @param pool the pool to use, or null to update sequentially
+     * @param observers the observers, indexed by model attribute index
+     * @param attIndices the model indices of the attributes to update, or null for 0 to numAttributes - 1
+     * @param numAttributes the number of attributes to update
+     * @param inst the instance to observe
+     */
+    public static void observe(ForkJoinPool pool, AutoExpandVector<AttributeClassObserver> observers,
+            int[] attIndices, int numAttributes, Instance inst) {
+        ParallelObserverUpdate task = new ParallelObserverUpdate(observers, attIndices, inst, 0, numAttributes);
+        if (pool == null || numAttributes < 2 * MIN_ATTRIBUTES_PER_TASK) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from < 2 * MIN_ATTRIBUTES_PER_TASK) {
+            int classValue = (int) this.inst.classValue();
+            double weight = this.inst.weight();
+            int classIndex = this.inst.classIndex();
+            for (int j = this.from; j < this.to; j++) {
+                int i = this.attIndices == null ? j : this.attIndices[j];
+                int instAttIndex = classIndex > i ? i : i + 1;
+                this.observers.get(i).observeAttributeClass(this.inst.value(instAttIndex), classValue, weight);
+            }
+        } else {
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new ParallelObserverUpdate(this.observers, this.attIndices, this.inst, this.from, mid),
+                    new ParallelObserverUpdate(this.observers, this.attIndices, this.inst, mid, this.to));
+        }
+    }
+}
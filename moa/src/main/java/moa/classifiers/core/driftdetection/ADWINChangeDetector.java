@@ -57,6 +57,33 @@ public class ADWINChangeDetector extends AbstractChangeDetector {
         this.estimation = adwin.getEstimation();
     }
 
+    @Override
+    public int input(double[] values, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        if (this.adwin == null) {
+            resetLearning();
+        }
+        ADWIN adwin = this.adwin;
+        double estimation = adwin.getEstimation();
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            double ErrEstim = estimation;
+            boolean detected = adwin.setInput(values[i]);
+            estimation = adwin.getEstimation();
+            if (detected && estimation > ErrEstim) {
+                change = i;
+                break;
+            }
+        }
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = false;
+        this.delay = 0.0;
+        this.estimation = estimation;
+        return change;
+    }
+
     @Override
     public void resetLearning() {
         adwin = new ADWIN((double) this.deltaAdwinOption.getValue());
@@ -45,6 +45,22 @@ public interface ChangeDetector extends OptionHandler {
      */
     public void input(double inputValue);
 
+    /**
+     * Adding a batch of numeric values to the change detector<br><br>
+     *
+     * The values are inserted in order, as by calls to input(double), until
+     * a change is detected. The values after the change are not inserted, so
+     * that the caller can react to the change and then continue with the next
+     * batch starting after the returned index.
+     *
+     * @param values the array holding the numbers to insert
+     * @param offset the index of the first number to insert
+     * @param length the number of numbers to insert
+     * @return the index in values of the number after which a change was
+     * detected, or -1 if all the numbers were inserted without change
+     */
+    public int input(double[] values, int offset, int length);
+
     /**
      * Gets whether there is change detected.
      *
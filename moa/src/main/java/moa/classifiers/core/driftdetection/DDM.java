@@ -128,6 +128,56 @@ public class DDM extends AbstractChangeDetector {
         }
     }
 
+    @Override
+    public int input(double[] predictions, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        if (this.isChangeDetected == true || this.isInitialized == false) {
+            resetLearning();
+            this.isInitialized = true;
+        }
+        int n = m_n;
+        double p = m_p;
+        double s = m_s;
+        double psmin = m_psmin;
+        double pmin = m_pmin;
+        double smin = m_smin;
+        boolean warning = false;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            p = p + (predictions[i] - p) / (double) n;
+            s = Math.sqrt(p * (1 - p) / (double) n);
+            n++;
+            warning = false;
+            if (n < minNumInstances) {
+                continue;
+            }
+            if (p + s <= psmin) {
+                pmin = p;
+                smin = s;
+                psmin = p + s;
+            }
+            if (n > minNumInstances && p + s > pmin + outcontrolLevel * smin) {
+                change = i;
+                break;
+            } else if (p + s > pmin + warningLevel * smin) {
+                warning = true;
+            }
+        }
+        m_n = n;
+        m_p = p;
+        m_s = s;
+        m_psmin = psmin;
+        m_pmin = pmin;
+        m_smin = smin;
+        this.estimation = p;
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = warning;
+        this.delay = 0;
+        return change;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -146,6 +146,74 @@ public class EDDM extends AbstractChangeDetector {
         }
     }
 
+    @Override
+    public int input(double[] predictions, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        if (this.isChangeDetected == true || this.isInitialized == false) {
+            resetLearning();
+            this.isInitialized = true;
+        }
+        int n = m_n;
+        double numErrors = m_numErrors;
+        int d = m_d;
+        int lastd = m_lastd;
+        double mean = m_mean;
+        double stdTemp = m_stdTemp;
+        double m2smax = m_m2smax;
+        boolean errorSeen = false;
+        boolean warning = this.isWarningZone;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            n++;
+            if (predictions[i] == 1.0) {
+                errorSeen = true;
+                warning = false;
+                numErrors += 1;
+                lastd = d;
+                d = n - 1;
+                int distance = d - lastd;
+                double oldmean = mean;
+                mean = mean + ((double) distance - mean) / numErrors;
+                stdTemp = stdTemp + (distance - mean) * (distance - oldmean);
+                double std = Math.sqrt(stdTemp / numErrors);
+                double m2s = mean + 2 * std;
+                if (m2s > m2smax) {
+                    if (n > FDDM_MINNUMINSTANCES) {
+                        m2smax = m2s;
+                    }
+                } else {
+                    double p = m2s / m2smax;
+                    if (n > FDDM_MINNUMINSTANCES && numErrors > m_minNumErrors
+                            && p < FDDM_OUTCONTROL) {
+                        change = i;
+                        break;
+                    } else if (n > FDDM_MINNUMINSTANCES
+                            && numErrors > m_minNumErrors && p < FDDM_WARNING) {
+                        warning = true;
+                    } else {
+                        warning = false;
+                    }
+                }
+            }
+        }
+        m_n = n;
+        m_numErrors = numErrors;
+        m_d = d;
+        m_lastd = lastd;
+        m_mean = mean;
+        m_stdTemp = stdTemp;
+        m_m2smax = m2smax;
+        if (errorSeen) {
+            this.delay = 0;
+            this.estimation = mean;
+        }
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = warning;
+        return change;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -99,14 +99,14 @@ public class HDDM_A_Test extends AbstractChangeDetector {
             c_max = total_c;
             n_max = total_n;
         }
-        if (meanIncr(c_min, n_min, total_c, total_n, driftConfidenceOption.getValue())) {
+        if (meanIncr(c_min, n_min, total_c, total_n, Math.log(2.0 / driftConfidenceOption.getValue()))) {
             nEstimacion = total_n - n_min;
             cEstimacion = total_c - c_min;
             n_min = n_max = total_n = 0;
             c_min = c_max = total_c = 0;
             this.isChangeDetected = true;
             this.isWarningZone = false;
-        } else if (meanIncr(c_min, n_min, total_c, total_n, warningConfidenceOption.getValue())) {
+        } else if (meanIncr(c_min, n_min, total_c, total_n, Math.log(2.0 / warningConfidenceOption.getValue()))) {
             this.isChangeDetected = false;
             this.isWarningZone = true;
         } else {
@@ -114,7 +114,7 @@ public class HDDM_A_Test extends AbstractChangeDetector {
             this.isWarningZone = false;
         }
         if (this.oneSidedTestOption.getChosenIndex() == 1 
-                && meanDecr(c_max, n_max, total_c, total_n)) {
+                && meanDecr(c_max, n_max, total_c, total_n, Math.log(2.0 / driftConfidenceOption.getValue()))) {
             nEstimacion = total_n - n_max;
             cEstimacion = total_c - c_max;
             n_min = n_max = total_n = 0;
@@ -123,21 +123,97 @@ public class HDDM_A_Test extends AbstractChangeDetector {
         updateEstimations();
     }
 
-    private boolean meanIncr(double c_min, int n_min, double total_c, int total_n, double confianzaCambio) {
+    @Override
+    public int input(double[] values, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        double driftConfidence = driftConfidenceOption.getValue();
+        double logDrift = Math.log(1.0 / driftConfidence);
+        double logIncrDrift = Math.log(2.0 / driftConfidence);
+        double logIncrWarning = Math.log(2.0 / warningConfidenceOption.getValue());
+        boolean twoSided = this.oneSidedTestOption.getChosenIndex() == 1;
+        int nMin = n_min, totalN = total_n, nMax = n_max, nEst = nEstimacion;
+        double cMin = c_min, totalC = total_c, cMax = c_max, cEst = cEstimacion;
+        boolean warning = false;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            totalN++;
+            totalC += values[i];
+            if (nMin == 0) {
+                nMin = totalN;
+                cMin = totalC;
+            }
+            if (nMax == 0) {
+                nMax = totalN;
+                cMax = totalC;
+            }
+
+            double cota = Math.sqrt(1.0 / (2 * nMin) * logDrift),
+                    cota1 = Math.sqrt(1.0 / (2 * totalN) * logDrift);
+            if (cMin / nMin + cota >= totalC / totalN + cota1) {
+                cMin = totalC;
+                nMin = totalN;
+            }
+
+            cota = Math.sqrt(1.0 / (2 * nMax) * logDrift);
+            if (cMax / nMax - cota <= totalC / totalN - cota1) {
+                cMax = totalC;
+                nMax = totalN;
+            }
+            boolean drift = meanIncr(cMin, nMin, totalC, totalN, logIncrDrift);
+            if (drift) {
+                nEst = totalN - nMin;
+                cEst = totalC - cMin;
+                nMin = nMax = totalN = 0;
+                cMin = cMax = totalC = 0;
+                warning = false;
+            } else {
+                warning = meanIncr(cMin, nMin, totalC, totalN, logIncrWarning);
+            }
+            if (twoSided && meanDecr(cMax, nMax, totalC, totalN, logIncrDrift)) {
+                nEst = totalN - nMax;
+                cEst = totalC - cMax;
+                nMin = nMax = totalN = 0;
+                cMin = cMax = totalC = 0;
+            }
+            if (totalN >= nEst) {
+                cEst = nEst = 0;
+            }
+            if (drift) {
+                change = i;
+                break;
+            }
+        }
+        n_min = nMin;
+        c_min = cMin;
+        total_n = totalN;
+        total_c = totalC;
+        n_max = nMax;
+        c_max = cMax;
+        nEstimacion = nEst;
+        cEstimacion = cEst;
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = warning;
+        updateEstimations();
+        return change;
+    }
+
+    private boolean meanIncr(double c_min, int n_min, double total_c, int total_n, double logConfianza) {
         if (n_min == total_n) {
             return false;
         }
         double m = (double) (total_n - n_min) / n_min * (1.0 / total_n);
-        double cota = Math.sqrt(m / 2 * Math.log(2.0 / confianzaCambio));
+        double cota = Math.sqrt(m / 2 * logConfianza);
         return total_c / total_n - c_min / n_min >= cota;
     }
 
-    private boolean meanDecr(double c_max, int n_max, double total_c, int total_n) {
+    private boolean meanDecr(double c_max, int n_max, double total_c, int total_n, double logConfianza) {
         if (n_max == total_n) {
             return false;
         }
         double m = (double) (total_n - n_max) / n_max * (1.0 / total_n);
-        double cota = Math.sqrt(m / 2 * Math.log(2.0 / driftConfidenceOption.getValue()));
+        double cota = Math.sqrt(m / 2 * logConfianza);
         return c_max / n_max - total_c / total_n >= cota;
     }
 
@@ -19,6 +19,8 @@
  */
 package moa.classifiers.core.driftdetection;
 
+import java.io.Serializable;
+
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.core.ObjectRepository;
@@ -66,7 +68,7 @@ public class HDDM_W_Test extends AbstractChangeDetector {
             0);
     
 
-    public static class SampleInfo {
+    public static class SampleInfo implements Serializable {
 
         private static final long serialVersionUID = 1L;
         public double EWMA_Estimator;
@@ -76,7 +78,7 @@ public class HDDM_W_Test extends AbstractChangeDetector {
             this.EWMA_Estimator = -1.0;
         }
     }
-    private static SampleInfo sample1_IncrMonitoring,
+    protected SampleInfo sample1_IncrMonitoring,
             sample2_IncrMonitoring,
             sample1_DecrMonitoring,
             sample2_DecrMonitoring,
@@ -145,6 +147,133 @@ public class HDDM_W_Test extends AbstractChangeDetector {
         this.estimation = this.total.EWMA_Estimator;
     }
 
+    @Override
+    public int input(double[] values, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        double auxDecayRate = 1.0 - lambda;
+        double logDrift = Math.log(1.0 / driftConfidence);
+        double logWarning = Math.log(1.0 / warningConfidence);
+        double totalEstimator = total.EWMA_Estimator, totalSum = total.independentBoundedConditionSum;
+        double incr1Estimator = sample1_IncrMonitoring.EWMA_Estimator, incr1Sum = sample1_IncrMonitoring.independentBoundedConditionSum;
+        double incr2Estimator = sample2_IncrMonitoring.EWMA_Estimator, incr2Sum = sample2_IncrMonitoring.independentBoundedConditionSum;
+        double decr1Estimator = sample1_DecrMonitoring.EWMA_Estimator, decr1Sum = sample1_DecrMonitoring.independentBoundedConditionSum;
+        double decr2Estimator = sample2_DecrMonitoring.EWMA_Estimator, decr2Sum = sample2_DecrMonitoring.independentBoundedConditionSum;
+        double incrCut = incrCutPoint, decrCut = decrCutPoint;
+        double delay = this.delay;
+        int width = this.width;
+        boolean warning = false;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            double value = values[i];
+            width++;
+            if (totalEstimator < 0) {
+                totalEstimator = value;
+                totalSum = 1;
+            } else {
+                totalEstimator = lambda * value + auxDecayRate * totalEstimator;
+                totalSum = lambda * lambda + auxDecayRate * auxDecayRate * totalSum;
+            }
+
+            // updateIncrStatistics
+            double bound = Math.sqrt(totalSum * logDrift / 2);
+            if (totalEstimator + bound < incrCut) {
+                incrCut = totalEstimator + bound;
+                incr1Estimator = totalEstimator;
+                incr1Sum = totalSum;
+                incr2Estimator = -1.0;
+                incr2Sum = 0.0;
+                delay = 0;
+            } else {
+                delay++;
+                if (incr2Estimator < 0) {
+                    incr2Estimator = value;
+                    incr2Sum = 1;
+                } else {
+                    incr2Estimator = lambda * value + auxDecayRate * incr2Estimator;
+                    incr2Sum = lambda * lambda + auxDecayRate * auxDecayRate * incr2Sum;
+                }
+            }
+
+            if (meanIncrement(incr1Estimator, incr1Sum, incr2Estimator, incr2Sum, logDrift)) {
+                change = i;
+                break;
+            }
+            warning = meanIncrement(incr1Estimator, incr1Sum, incr2Estimator, incr2Sum, logWarning);
+
+            // updateDecrStatistics
+            double epsilon = Math.sqrt(totalSum * logDrift / 2);
+            if (totalEstimator - epsilon > decrCut) {
+                decrCut = totalEstimator - epsilon;
+                decr1Estimator = totalEstimator;
+                decr1Sum = totalSum;
+                decr2Estimator = -1.0;
+                decr2Sum = 0.0;
+            } else {
+                if (decr2Estimator < 0) {
+                    decr2Estimator = value;
+                    decr2Sum = 1;
+                } else {
+                    decr2Estimator = lambda * value + auxDecayRate * decr2Estimator;
+                    decr2Sum = lambda * lambda + auxDecayRate * auxDecayRate * decr2Sum;
+                }
+            }
+            if (!oneSidedTest && meanIncrement(decr2Estimator, decr2Sum, decr1Estimator, decr1Sum, logDrift)) {
+                // resetLearning
+                totalEstimator = incr1Estimator = incr2Estimator = decr1Estimator = decr2Estimator = -1.0;
+                totalSum = incr1Sum = incr2Sum = decr1Sum = decr2Sum = 0.0;
+                incrCut = Double.MAX_VALUE;
+                decrCut = Double.MIN_VALUE;
+                width = 0;
+                delay = 0;
+                warning = false;
+            }
+        }
+        total.EWMA_Estimator = totalEstimator;
+        total.independentBoundedConditionSum = totalSum;
+        sample1_IncrMonitoring.EWMA_Estimator = incr1Estimator;
+        sample1_IncrMonitoring.independentBoundedConditionSum = incr1Sum;
+        sample2_IncrMonitoring.EWMA_Estimator = incr2Estimator;
+        sample2_IncrMonitoring.independentBoundedConditionSum = incr2Sum;
+        sample1_DecrMonitoring.EWMA_Estimator = decr1Estimator;
+        sample1_DecrMonitoring.independentBoundedConditionSum = decr1Sum;
+        sample2_DecrMonitoring.EWMA_Estimator = decr2Estimator;
+        sample2_DecrMonitoring.independentBoundedConditionSum = decr2Sum;
+        incrCutPoint = incrCut;
+        decrCutPoint = decrCut;
+        this.delay = delay;
+        this.width = width;
+        if (change >= 0) {
+            // the rest of input(double) for the value where the change was detected
+            resetLearning();
+            this.isChangeDetected = true;
+            this.isWarningZone = false;
+            updateDecrStatistics(values[change], driftConfidence);
+            if (!oneSidedTest && monitorMeanDecr(values[change], driftConfidence)) {
+                resetLearning();
+            }
+        } else {
+            this.isChangeDetected = false;
+            this.isWarningZone = warning;
+        }
+        this.estimation = this.total.EWMA_Estimator;
+        return change;
+    }
+
+    /**
+     * The test of detectMeanIncrement on the estimators and sums of two samples,
+     * with the logarithm of the inverse confidence computed beforehand.
+     */
+    private static boolean meanIncrement(double estimator1, double sum1,
+            double estimator2, double sum2, double logConfidence) {
+        if (estimator1 < 0 || estimator2 < 0) {
+            return false;
+        }
+        double bound = Math.sqrt((sum1 + sum2) * logConfidence / 2);
+        return estimator2 - estimator1 > bound;
+    }
+
     public boolean detectMeanIncrement(SampleInfo sample1, SampleInfo sample2, double confidence) {
         if (sample1.EWMA_Estimator < 0 || sample2.EWMA_Estimator < 0) {
             return false;
@@ -103,6 +103,40 @@ public class PageHinkleyDM extends AbstractChangeDetector {
         } 
     }
 
+    @Override
+    public int input(double[] values, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        if (this.isChangeDetected == true || this.isInitialized == false) {
+            resetLearning();
+            this.isInitialized = true;
+        }
+        int minNumInstances = this.minNumInstancesOption.getValue();
+        int n = m_n;
+        double mean = x_mean;
+        double s = sum;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            double x = values[i];
+            mean = mean + (x - mean) / (double) n;
+            s = this.alpha * s + (x - mean - this.delta);
+            n++;
+            if (n >= minNumInstances && s > this.lambda) {
+                change = i;
+                break;
+            }
+        }
+        m_n = n;
+        x_mean = mean;
+        sum = s;
+        this.estimation = mean;
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = false;
+        this.delay = 0;
+        return change;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
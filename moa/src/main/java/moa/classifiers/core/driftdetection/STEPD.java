@@ -129,6 +129,76 @@ public class STEPD extends AbstractChangeDetector {
         }
     }
 
+    @Override
+    public int input(double[] predictions, int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        if (!this.isInitialized) {
+            initialize();
+            this.isInitialized = true;
+        } else {
+            if (this.isChangeDetected) {
+                resetLearning();
+            }
+        }
+        byte[] stored = storedPredictions;
+        int first = firstPos, last = lastPos;
+        double wOlder = wo, wRecent = wr;
+        int nOlder = no, nRecent = nr;
+        boolean warning = false;
+        int change = -1;
+        for (int i = offset; i < offset + length; i++) {
+            if (nRecent == windowSize) {
+                wOlder = wOlder + stored[first];
+                nOlder++;
+                wRecent = wRecent - stored[first];
+                first++;
+                if (first == windowSize) {
+                    first = 0;
+                }
+            } else {
+                nRecent++;
+            }
+            last++;
+            if (last == windowSize) {
+                last = 0;
+            }
+            stored[last] = (byte) predictions[i];
+            wRecent += predictions[i];
+
+            warning = false;
+            if (nOlder >= windowSize) {
+                ro = nOlder - wOlder;
+                rr = nRecent - wRecent;
+                sizeInvertedSum = 1.0 / nOlder + 1.0 / nRecent;
+                p = (ro + rr) / (nOlder + nRecent);
+                Z = Math.abs(ro / nOlder - rr / nRecent);
+                Z = Z - sizeInvertedSum / 2.0;
+                Z = Z / Math.sqrt(p * (1.0 - p) * sizeInvertedSum);
+
+                Z = Statistics.normalProbability(Math.abs(Z));
+                Z = 2 * (1 - Z);
+
+                if (Z < alphaDrift) {
+                    change = i;
+                    break;
+                } else if (Z < alphaWarning) {
+                    warning = true;
+                }
+            }
+        }
+        firstPos = first;
+        lastPos = last;
+        wo = wOlder;
+        wr = wRecent;
+        no = nOlder;
+        nr = nRecent;
+        this.isChangeDetected = change >= 0;
+        this.isWarningZone = warning;
+        return change;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
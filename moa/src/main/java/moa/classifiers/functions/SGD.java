@@ -36,6 +36,7 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.classifiers.Regressor;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import moa.core.Utils;
 
 /**
@@ -71,9 +72,15 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
 
     /** Stores the weights (+ bias in the last element) */
     protected DoubleVector m_weights;
+
+    /** The scale of the weights, which are m_weights times m_wScale */
+    protected double m_wScale = 1.0;
     
     protected double m_bias;
 
+    /** The scale below which it is folded into the weights, to keep precision */
+    protected static final double MIN_WEIGHT_SCALE = 1e-9;
+
     /** Holds the current iteration number */
     protected double m_t;
 
@@ -156,6 +163,7 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
     public void reset() {
         m_t = 1;
         m_weights = null;
+        m_wScale = 1.0;
         m_bias = 0.0;
     }
 
@@ -179,29 +187,71 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
     }
 
     protected static double dotProd(Instance inst1, DoubleVector weights, int classIndex) {
+        return dotProd(inst1, weights.getArrayRef(), classIndex);
+    }
+
+    protected static double dotProd(Instance inst1, double[] weights, int classIndex) {
         double result = 0;
 
         int n1 = inst1.numValues();
-        int n2 = weights.numValues();
+        int n2 = weights.length;
 
-        for (int p1 = 0, p2 = 0; p1 < n1 && p2 < n2;) {
+        // only the stored values are visited, the weights are looked up by index
+        for (int p1 = 0; p1 < n1; p1++) {
             int ind1 = inst1.index(p1);
-            int ind2 = p2;
-            if (ind1 == ind2) {
-                if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
-                    result += inst1.valueSparse(p1) * weights.getValue(p2);
-                }
-                p1++;
-                p2++;
-            } else if (ind1 > ind2) {
-                p2++;
-            } else {
-                p1++;
+            if (ind1 >= n2) {
+                break;
+            }
+            if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
+                result += inst1.valueSparse(p1) * weights[ind1];
             }
         }
         return (result);
     }
 
+    protected static double dotProd(double[] values, double[] weights, int classIndex) {
+        double result = 0;
+
+        int n = Math.min(values.length, weights.length);
+
+        for (int i = 0; i < n; i++) {
+            if (i != classIndex && !Double.isNaN(values[i])) {
+                result += values[i] * weights[i];
+            }
+        }
+        return (result);
+    }
+
+    /**
+     * Reads the values of a dense instance once for the passes of a training
+     * step.
+     *
+     * @param inst the instance
+     * @return the values, or null for a sparse instance, whose stored values
+     * are visited instead
+     */
+    protected static double[] denseValues(Instance inst) {
+        return inst.numValues() == inst.numAttributes() ? inst.toDoubleArray() : null;
+    }
+
+    /**
+     * Multiplies the weights by a factor, by changing their scale.
+     *
+     * @param multiplier the factor
+     */
+    protected void scaleWeights(double multiplier) {
+        if (multiplier == 0.0) {
+            m_weights.scaleValues(0.0);
+            m_wScale = 1.0;
+            return;
+        }
+        m_wScale *= multiplier;
+        if (Math.abs(m_wScale) < MIN_WEIGHT_SCALE) {
+            m_weights.scaleValues(m_wScale);
+            m_wScale = 1.0;
+        }
+    }
+
     @Override
     public void resetLearningImpl() {
         reset();
@@ -225,7 +275,10 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
 
         if (!instance.classIsMissing()) {
 
-            double wx = dotProd(instance, m_weights, instance.classIndex());
+            double[] values = denseValues(instance);
+            double wx = (values != null
+                    ? dotProd(values, m_weights.getArrayRef(), instance.classIndex())
+                    : dotProd(instance, m_weights, instance.classIndex())) * m_wScale;
 
             double y;
             double z;
@@ -245,22 +298,29 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
             } else {
                 multiplier = 1.0 - (m_learningRate * m_lambda) / m_numInstances;
             }
-            for (int i = 0; i < m_weights.numValues(); i++) {
-                m_weights.setValue(i,m_weights.getValue (i) * multiplier);
-            }
+            scaleWeights(multiplier);
 
             // Only need to do the following if the loss is non-zero
             if (m_loss != HINGE || (z < 1)) {
 
                 // Compute Factor for updates
                 double factor = m_learningRate * y * dloss(z);
+                double scaledFactor = factor / m_wScale;
 
                 // Update coefficients for attributes
-                int n1 = instance.numValues();
-                for (int p1 = 0; p1 < n1; p1++) {
-                    int indS = instance.index(p1);
-                    if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
-                        m_weights.addToValue(indS, factor * instance.valueSparse(p1));
+                if (values != null) {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i != instance.classIndex() && !Double.isNaN(values[i])) {
+                            m_weights.addToValue(i, scaledFactor * values[i]);
+                        }
+                    }
+                } else {
+                    int n1 = instance.numValues();
+                    for (int p1 = 0; p1 < n1; p1++) {
+                        int indS = instance.index(p1);
+                        if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
+                            m_weights.addToValue(indS, scaledFactor * instance.valueSparse(p1));
+                        }
                     }
                 }
 
@@ -284,12 +344,40 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
         if (m_weights == null) {
             return new double[inst.numClasses()];
         }
+        double wx = dotProd(inst, m_weights, inst.classIndex()) * m_wScale;
+        return votesForProduct(inst, wx);
+    }
+
+    /**
+     * Calculates the class membership probabilities for a block of test
+     * instances, reading the weights once for the whole block.
+     *
+     * @param batch 	the instances to be classified
+     * @param votes 	receives the predicted class probability distributions
+     */
+    @Override
+    public void getVotesForInstances(Instances batch, double[][] votes) {
+        if (m_weights == null) {
+            super.getVotesForInstances(batch, votes);
+            return;
+        }
+        double[] weights = m_weights.getArrayRef();
+        for (int i = 0; i < batch.numInstances(); i++) {
+            Instance inst = batch.instance(i);
+            votes[i] = votesForProduct(inst, dotProd(inst, weights, inst.classIndex()) * m_wScale);
+        }
+    }
+
+    /**
+     * @param inst 	the instance to be classified
+     * @param wx 	the product of the instance and the weights
+     * @return 		predicted class probability distribution
+     */
+    protected double[] votesForProduct(Instance inst, double wx) {
         double[] result = (inst.classAttribute().isNominal())
                 ? new double[2]
                 : new double[1];
 
-
-        double wx = dotProd(inst, m_weights, inst.classIndex());// * m_wScale;
         double z = (wx + m_bias);
 
         if (inst.classAttribute().isNumeric()) {
@@ -356,7 +444,7 @@ public class SGD extends AbstractClassifier implements MultiClassClassifier, Reg
                 buff.append("   ");
             }
 
-            buff.append(Utils.doubleToString(m_weights.getValue(i), 12, 4) + " "
+            buff.append(Utils.doubleToString(m_weights.getValue(i) * m_wScale, 12, 4) + " "
                     // + m_data.attribute(i).name()
                     + "\n");
 
@@ -72,9 +72,15 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
 
     /** Stores the weights (+ bias in the last element) */
     protected DoubleVector[] m_weights;
+
+    /** The scales of the weights, which are m_weights times m_wScale per class */
+    protected double[] m_wScale;
     
     protected double[] m_bias;
 
+    /** The scale below which it is folded into the weights, to keep precision */
+    protected static final double MIN_WEIGHT_SCALE = 1e-9;
+
     /** Holds the current iteration number */
     protected double m_t;
 
@@ -157,6 +163,7 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
     public void reset() {
         m_t = 1;
         m_weights = null;
+        m_wScale = null;
         m_bias = null; //0.0;
     }
 
@@ -180,29 +187,72 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
     }
 
     protected static double dotProd(Instance inst1, DoubleVector weights, int classIndex) {
+        return dotProd(inst1, weights.getArrayRef(), classIndex);
+    }
+
+    protected static double dotProd(Instance inst1, double[] weights, int classIndex) {
         double result = 0;
 
         int n1 = inst1.numValues();
-        int n2 = weights.numValues();
+        int n2 = weights.length;
 
-        for (int p1 = 0, p2 = 0; p1 < n1 && p2 < n2;) {
+        // only the stored values are visited, the weights are looked up by index
+        for (int p1 = 0; p1 < n1; p1++) {
             int ind1 = inst1.index(p1);
-            int ind2 = p2;
-            if (ind1 == ind2) {
-                if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
-                    result += inst1.valueSparse(p1) * weights.getValue(p2);
-                }
-                p1++;
-                p2++;
-            } else if (ind1 > ind2) {
-                p2++;
-            } else {
-                p1++;
+            if (ind1 >= n2) {
+                break;
+            }
+            if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
+                result += inst1.valueSparse(p1) * weights[ind1];
+            }
+        }
+        return (result);
+    }
+
+    protected static double dotProd(double[] values, double[] weights, int classIndex) {
+        double result = 0;
+
+        int n = Math.min(values.length, weights.length);
+
+        for (int i = 0; i < n; i++) {
+            if (i != classIndex && !Double.isNaN(values[i])) {
+                result += values[i] * weights[i];
             }
         }
         return (result);
     }
 
+    /**
+     * Reads the values of a dense instance once for the passes of a training
+     * step.
+     *
+     * @param inst the instance
+     * @return the values, or null for a sparse instance, whose stored values
+     * are visited instead
+     */
+    protected static double[] denseValues(Instance inst) {
+        return inst.numValues() == inst.numAttributes() ? inst.toDoubleArray() : null;
+    }
+
+    /**
+     * Multiplies the weights of a class by a factor, by changing their scale.
+     *
+     * @param classLabel the class
+     * @param multiplier the factor
+     */
+    protected void scaleWeights(int classLabel, double multiplier) {
+        if (multiplier == 0.0) {
+            m_weights[classLabel].scaleValues(0.0);
+            m_wScale[classLabel] = 1.0;
+            return;
+        }
+        m_wScale[classLabel] *= multiplier;
+        if (Math.abs(m_wScale[classLabel]) < MIN_WEIGHT_SCALE) {
+            m_weights[classLabel].scaleValues(m_wScale[classLabel]);
+            m_wScale[classLabel] = 1.0;
+        }
+    }
+
     @Override
     public void resetLearningImpl() {
         reset();
@@ -227,21 +277,31 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
                  length = 1;
              }
             m_weights = new DoubleVector[length];
+            m_wScale = new double[length];
             m_bias = new double[length];
             for (int i = 0; i < m_weights.length; i++){
                 m_weights[i] = new DoubleVector(); 
+                m_wScale[i] = 1.0;
                 m_bias[i] = 0.0;
             }
         }
+        // the values of a dense instance are read once for all the classes
+        double[] values = denseValues(instance);
         for (int i = 0; i < m_weights.length; i++){
-                this.trainOnInstanceImpl(instance, i); 
+                this.trainOnInstanceImpl(instance, i, values); 
             }
         m_t++;
     }    
     public void trainOnInstanceImpl(Instance instance, int classLabel) {    
+        trainOnInstanceImpl(instance, classLabel, denseValues(instance));
+    }
+
+    protected void trainOnInstanceImpl(Instance instance, int classLabel, double[] values) {
         if (!instance.classIsMissing()) {
 
-            double wx = dotProd(instance, m_weights[classLabel], instance.classIndex());
+            double wx = (values != null
+                    ? dotProd(values, m_weights[classLabel].getArrayRef(), instance.classIndex())
+                    : dotProd(instance, m_weights[classLabel], instance.classIndex())) * m_wScale[classLabel];
 
             double y;
             double z;
@@ -261,22 +321,29 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
             } else {
                 multiplier = 1.0 - (m_learningRate * m_lambda) / m_numInstances;
             }
-            for (int i = 0; i < m_weights[classLabel].numValues(); i++) {
-                m_weights[classLabel].setValue(i,m_weights[classLabel].getValue (i) * multiplier);
-            }
+            scaleWeights(classLabel, multiplier);
 
             // Only need to do the following if the loss is non-zero
             if (m_loss != HINGE || (z < 1)) {
 
                 // Compute Factor for updates
                 double factor = m_learningRate * y * dloss(z);
+                double scaledFactor = factor / m_wScale[classLabel];
 
                 // Update coefficients for attributes
-                int n1 = instance.numValues();
-                for (int p1 = 0; p1 < n1; p1++) {
-                    int indS = instance.index(p1);
-                    if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
-                        m_weights[classLabel].addToValue(indS, factor * instance.valueSparse(p1));
+                if (values != null) {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i != instance.classIndex() && !Double.isNaN(values[i])) {
+                            m_weights[classLabel].addToValue(i, scaledFactor * values[i]);
+                        }
+                    }
+                } else {
+                    int n1 = instance.numValues();
+                    for (int p1 = 0; p1 < n1; p1++) {
+                        int indS = instance.index(p1);
+                        if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
+                            m_weights[classLabel].addToValue(indS, scaledFactor * instance.valueSparse(p1));
+                        }
                     }
                 }
 
@@ -305,14 +372,14 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
                 : new double[1];
         
         if (inst.classAttribute().isNumeric()) {
-            double wx = dotProd(inst, m_weights[0], inst.classIndex());// * m_wScale;
+            double wx = dotProd(inst, m_weights[0], inst.classIndex()) * m_wScale[0];
             double z = (wx + m_bias[0]);
             result[0] = z;
             return result;
         }
 
         for (int i = 0; i < m_weights.length; i++){
-            double wx = dotProd(inst, m_weights[i], inst.classIndex());// * m_wScale;
+            double wx = dotProd(inst, m_weights[i], inst.classIndex()) * m_wScale[i];
             double z = (wx + m_bias[i]);
             if (z <= 0) {
                 //  z = 0;
@@ -374,7 +441,7 @@ public class SGDMultiClass extends AbstractClassifier implements MultiClassClass
                 buff.append("   ");
             }
 
-            buff.append(Utils.doubleToString(m_weights[0].getValue(i), 12, 4) + " "
+            buff.append(Utils.doubleToString(m_weights[0].getValue(i) * m_wScale[0], 12, 4) + " "
                     // + m_data.attribute(i).name()
                     + "\n");
 
@@ -98,6 +98,28 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
      */
     protected double[] m_weights;
 
+    /**
+     * The scale of the weights, which are m_weights times m_wScale, except
+     * for the bias
+     */
+    protected double m_wScale = 1.0;
+
+    /**
+     * The squared norm of m_weights, without the bias
+     */
+    protected double m_squaredNorm;
+
+    /**
+     * The number of weight updates since the squared norm was last computed
+     * from the weights
+     */
+    protected int m_normUpdates;
+
+    /**
+     * The scale below which it is folded into the weights, to keep precision
+     */
+    protected static final double MIN_WEIGHT_SCALE = 1e-9;
+
     /**
      * Holds the current iteration number
      */
@@ -145,32 +167,97 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
     public void reset() {
         m_t = 2;
         m_weights = null;
+        m_wScale = 1.0;
+        m_squaredNorm = 0.0;
+        m_normUpdates = 0;
     }
 
     protected static double dotProd(Instance inst1, double[] weights, int classIndex) {
         double result = 0;
 
         int n1 = inst1.numValues();
+        // the bias in the last element is not part of the product
         int n2 = weights.length - 1;
 
-        for (int p1 = 0, p2 = 0; p1 < n1 && p2 < n2;) {
+        for (int p1 = 0; p1 < n1; p1++) {
             int ind1 = inst1.index(p1);
-            int ind2 = p2;
-            if (ind1 == ind2) {
-                if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
-                    result += inst1.valueSparse(p1) * weights[p2];
-                }
-                p1++;
-                p2++;
-            } else if (ind1 > ind2) {
-                p2++;
-            } else {
-                p1++;
+            if (ind1 >= n2) {
+                break;
+            }
+            if (ind1 != classIndex && !inst1.isMissingSparse(p1)) {
+                result += inst1.valueSparse(p1) * weights[ind1];
             }
         }
         return (result);
     }
 
+    protected static double dotProd(double[] values, double[] weights, int classIndex) {
+        double result = 0;
+
+        int n = Math.min(values.length, weights.length - 1);
+
+        for (int i = 0; i < n; i++) {
+            if (i != classIndex && !Double.isNaN(values[i])) {
+                result += values[i] * weights[i];
+            }
+        }
+        return (result);
+    }
+
+    /**
+     * Reads the values of a dense instance once for the passes of a training
+     * step.
+     *
+     * @param inst the instance
+     * @return the values, or null for a sparse instance, whose stored values
+     * are visited instead
+     */
+    protected static double[] denseValues(Instance inst) {
+        return inst.numValues() == inst.numAttributes() ? inst.toDoubleArray() : null;
+    }
+
+    /**
+     * Multiplies the weights, but not the bias, by a factor, by changing
+     * their scale.
+     *
+     * @param multiplier the factor
+     */
+    protected void scaleWeights(double multiplier) {
+        m_wScale *= multiplier;
+        if (multiplier == 0.0 || Math.abs(m_wScale) < MIN_WEIGHT_SCALE) {
+            for (int j = 0; j < m_weights.length - 1; j++) {
+                m_weights[j] *= m_wScale;
+            }
+            m_wScale = 1.0;
+            computeSquaredNorm();
+        }
+    }
+
+    /**
+     * Computes the squared norm from the weights, dropping the rounding
+     * errors that the incremental updates accumulate.
+     */
+    protected void computeSquaredNorm() {
+        m_squaredNorm = 0.0;
+        for (int j = 0; j < m_weights.length - 1; j++) {
+            m_squaredNorm += m_weights[j] * m_weights[j];
+        }
+        m_normUpdates = 0;
+    }
+
+    /**
+     * Adds to a weight, keeping the squared norm up to date.
+     *
+     * @param index the index of the weight
+     * @param delta the change of m_weights at the index
+     */
+    protected void addToWeight(int index, double delta) {
+        double old = m_weights[index];
+        m_weights[index] += delta;
+        m_squaredNorm += m_weights[index] * m_weights[index] - old * old;
+        m_normUpdates++;
+    }
+
     protected double dloss(double z) {
         if (m_loss == HINGE) {
             return (z < 1) ? 1 : 0;
@@ -209,23 +296,32 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
             //double scale = 1.0 - learningRate * m_lambda;
             double scale = 1.0 - 1.0 / m_t;
             double y = (instance.classValue() == 0) ? -1 : 1;
-            double wx = dotProd(instance, m_weights, instance.classIndex());
+            double[] values = denseValues(instance);
+            double wx = (values != null
+                    ? dotProd(values, m_weights, instance.classIndex())
+                    : dotProd(instance, m_weights, instance.classIndex())) * m_wScale;
             double z = y * (wx + m_weights[m_weights.length - 1]);
 
-            for (int j = 0; j < m_weights.length - 1; j++) {
-                if (j != instance.classIndex()) {
-                    m_weights[j] *= scale;
-                }
-            }
+            // the weight of the class attribute is never updated, so it stays
+            // zero and scaling it as well changes nothing
+            scaleWeights(scale);
 
             if (m_loss == LOGLOSS || (z < 1)) {
                 double loss = dloss(z);
-                int n1 = instance.numValues();
-                for (int p1 = 0; p1 < n1; p1++) {
-                    int indS = instance.index(p1);
-                    if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
-                        double m = learningRate * loss * (instance.valueSparse(p1) * y);
-                        m_weights[indS] += m;
+                double factor = learningRate * loss * y / m_wScale;
+                if (values != null) {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i != instance.classIndex() && !Double.isNaN(values[i])) {
+                            addToWeight(i, factor * values[i]);
+                        }
+                    }
+                } else {
+                    int n1 = instance.numValues();
+                    for (int p1 = 0; p1 < n1; p1++) {
+                        int indS = instance.index(p1);
+                        if (indS != instance.classIndex() && !instance.isMissingSparse(p1)) {
+                            addToWeight(indS, factor * instance.valueSparse(p1));
+                        }
                     }
                 }
 
@@ -233,21 +329,18 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
                 m_weights[m_weights.length - 1] += learningRate * loss * y;
             }
 
-            double norm = 0;
-            for (int k = 0; k < m_weights.length - 1; k++) {
-                if (k != instance.classIndex()) {
-                    norm += (m_weights[k] * m_weights[k]);
-                }
+            // the incremental updates cancel out, so the norm is computed
+            // again after as many updates as there are weights, or as soon
+            // as rounding made it non-positive
+            if (m_normUpdates > 0
+                    && (m_squaredNorm <= 0.0 || m_normUpdates >= m_weights.length)) {
+                computeSquaredNorm();
             }
+            double norm = m_squaredNorm * m_wScale * m_wScale;
 
             double scale2 = Math.min(1.0, (1.0 / (m_lambda * norm)));
             if (scale2 < 1.0) {
-                scale2 = Math.sqrt(scale2);
-                for (int j = 0; j < m_weights.length - 1; j++) {
-                    if (j != instance.classIndex()) {
-                        m_weights[j] *= scale2;
-                    }
-                }
+                scaleWeights(Math.sqrt(scale2));
             }
             m_t++;
         }
@@ -269,7 +362,7 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
 
         double[] result = new double[2];
 
-        double wx = dotProd(inst, m_weights, inst.classIndex());// * m_wScale;
+        double wx = dotProd(inst, m_weights, inst.classIndex()) * m_wScale;
         double z = (wx + m_weights[m_weights.length - 1]);
         //System.out.print("" + z + ": ");
         // System.out.println(1.0 / (1.0 + Math.exp(-z)));
@@ -325,7 +418,7 @@ public class SPegasos extends AbstractClassifier implements MultiClassClassifier
                 buff.append("   ");
             }
 
-            buff.append(Utils.doubleToString(m_weights[i], 12, 4) + " "
+            buff.append(Utils.doubleToString(m_weights[i] * m_wScale, 12, 4) + " "
                     //+ m_data.attribute(i).name()
                     + "\n");
 
@@ -30,6 +30,7 @@ import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
 import moa.tasks.TaskMonitor;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBlock;
 import com.yahoo.labs.samoa.instances.Instances;
 
 /**
@@ -96,7 +97,7 @@ public class AccuracyUpdatedEnsemble extends AbstractClassifier implements Multi
 	/**
 	 * Current chunk of instances.
 	 */
-	protected Instances currentChunk;
+	protected InstanceBlock currentChunk;
 
 	@Override
 	public void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
@@ -182,8 +183,9 @@ public class AccuracyUpdatedEnsemble extends AbstractClassifier implements Multi
 		// Compute weights
 		double candidateClassifierWeight = 1.0 / (mse_r + Double.MIN_VALUE);
 
+		Instances chunk = this.currentChunk.toInstances();
 		for (int i = 0; i < this.learners.length; i++) {
-			this.weights[i][0] = 1.0 / (mse_r + this.computeMse(this.learners[(int) this.weights[i][1]], this.currentChunk) + Double.MIN_VALUE);
+			this.weights[i][0] = 1.0 / (mse_r + this.computeMse(this.learners[(int) this.weights[i][1]], chunk) + Double.MIN_VALUE);
 		}	
 
 		if (this.learners.length < this.memberCountOption.getValue()) {
@@ -352,7 +354,7 @@ public class AccuracyUpdatedEnsemble extends AbstractClassifier implements Multi
 	 */
 	private void initVariables() {
 		if (this.currentChunk == null) {
-			this.currentChunk = new Instances(this.getModelContext());
+			this.currentChunk = new InstanceBlock(this.getModelContext(), this.chunkSizeOption.getValue());
 		}
 
 		if (this.classDistributions == null) {
@@ -19,6 +19,7 @@
 package moa.classifiers.meta;
 
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.LabelOverlayInstanceData;
 
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
@@ -399,7 +400,8 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         }
 
         public void trainOnInstance(Instance instance, double weight, long instancesSeen) {
-            Instance weightedInstance = instance.copy();
+            // shares the attribute values with the instance, only the weight is private
+            Instance weightedInstance = LabelOverlayInstanceData.shareInstance(instance);
             weightedInstance.setWeight(instance.weight() * weight);
             this.classifier.trainOnInstance(weightedInstance);
             
@@ -102,7 +102,16 @@ public abstract class HeterogeneousEnsembleAbstract extends AbstractClassifier i
 
 	protected Integer instancesSeen;
 
-	List<Integer> topK;
+	/**
+	 * The members ordered by decreasing score in historyTotal, ties broken by
+	 * index. Kept up to date by updateRanking as the scores change.
+	 */
+	protected int[] ranking;
+
+	/** The position of each member in the ranking. */
+	protected int[] rankingPositions;
+
+	int[] topK;
 
 	@Override
 	public String getPurposeString() {
@@ -125,13 +134,13 @@ public abstract class HeterogeneousEnsembleAbstract extends AbstractClassifier i
 	public double[] getVotesForInstance(Instance inst) {
 		double[] votes = new double[inst.classAttribute().numValues()];
 
-		for (int i = 0; i < topK.size(); ++i) {
+		for (int i = 0; i < topK.length; ++i) {
 			double[] memberVotes = normalize(
-					ensemble[topK.get(i)].getVotesForInstance(inst));
+					ensemble[topK[i]].getVotesForInstance(inst));
 			double weight = 1.0;
 
 			if (weightClassifiersOption.isSet()) {
-				weight = historyTotal[topK.get(i)];
+				weight = historyTotal[topK[i]];
 			}
 
 			// make internal classifiers so-called "hard classifiers"
@@ -189,7 +198,65 @@ public abstract class HeterogeneousEnsembleAbstract extends AbstractClassifier i
 		}
 		super.prepareForUseImpl(monitor, repository);
 
-		topK = topK(historyTotal, activeClassifiersOption.getValue());
+		topK = rankedTopK(activeClassifiersOption.getValue());
+	}
+
+	/**
+	 * Sorts all members by their score. Called when the scores are reset.
+	 */
+	protected void initRanking() {
+		int n = historyTotal.length;
+		ranking = new int[n];
+		rankingPositions = new int[n];
+		for (int i = 0; i < n; ++i) {
+			ranking[i] = i;
+			rankingPositions[i] = i;
+		}
+		for (int i = 0; i < n; ++i) {
+			updateRanking(i);
+		}
+	}
+
+	/**
+	 * Moves a member to its place in the ranking after its score changed. As
+	 * scores change by small steps, a member usually moves by a few places.
+	 *
+	 * @param member the index of the member
+	 */
+	protected void updateRanking(int member) {
+		int position = rankingPositions[member];
+		while (position > 0 && ranksBefore(member, ranking[position - 1])) {
+			ranking[position] = ranking[position - 1];
+			rankingPositions[ranking[position]] = position;
+			--position;
+		}
+		while (position < ranking.length - 1
+				&& ranksBefore(ranking[position + 1], member)) {
+			ranking[position] = ranking[position + 1];
+			rankingPositions[ranking[position]] = position;
+			++position;
+		}
+		ranking[position] = member;
+		rankingPositions[member] = position;
+	}
+
+	private boolean ranksBefore(int a, int b) {
+		return historyTotal[a] > historyTotal[b]
+				|| (historyTotal[a] == historyTotal[b] && a < b);
+	}
+
+	/**
+	 * Gets the k best members from the ranking, the same members that
+	 * topK(historyTotal, k) selects.
+	 *
+	 * @param k the number of members
+	 * @return the indices of the members, best first
+	 */
+	protected int[] rankedTopK(int k) {
+		int[] result = new int[k];
+		// topK picks the first member again once all members are taken
+		System.arraycopy(ranking, 0, result, 0, Math.min(k, ranking.length));
+		return result;
 	}
 
 	protected static List<Integer> topK(double[] scores, int k) {
@@ -68,6 +68,7 @@ public class HeterogeneousEnsembleBlast extends HeterogeneousEnsembleAbstract im
 		this.onlineHistory = new boolean[this.ensemble.length][windowSizeOption
 				.getValue()];
 		this.instancesSeen = 0;
+		initRanking();
 
 		for (int i = 0; i < this.ensemble.length; i++) {
 			this.ensemble[i].resetLearning();
@@ -95,13 +96,14 @@ public class HeterogeneousEnsembleBlast extends HeterogeneousEnsembleAbstract im
 			} else {
 				// nothing happens
 			}
+			updateRanking(i);
 
 			this.ensemble[i].trainOnInstance(inst);
 		}
 
 		instancesSeen += 1;
 		if (instancesSeen % gracePerionOption.getValue() == 0) {
-			topK = topK(historyTotal, activeClassifiersOption.getValue());
+			topK = rankedTopK(activeClassifiersOption.getValue());
 		}
 	}
 }
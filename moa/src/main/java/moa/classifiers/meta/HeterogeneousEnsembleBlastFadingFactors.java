@@ -76,6 +76,7 @@ public class HeterogeneousEnsembleBlastFadingFactors
 		}
 
 		this.instancesSeen = 0;
+		initRanking();
 		this.trainingErrors = 0;
 		for (int i = 0; i < this.ensemble.length; i++) {
 			this.ensemble[i].resetLearning();
@@ -95,6 +96,7 @@ public class HeterogeneousEnsembleBlastFadingFactors
 			if (correct) {
 				historyTotal[i] += 1 - alphaOption.getValue();
 			}
+			updateRanking(i);
 			try {
 				this.ensemble[i].trainOnInstance(inst);
 			} catch (RuntimeException e) {
@@ -109,7 +111,7 @@ public class HeterogeneousEnsembleBlastFadingFactors
 
 		instancesSeen += 1;
 		if (instancesSeen % gracePerionOption.getValue() == 0) {
-			topK = topK(historyTotal, activeClassifiersOption.getValue());
+			topK = rankedTopK(activeClassifiersOption.getValue());
 		}
 	}
 }
@@ -33,7 +33,7 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
 
-import moa.core.DoubleVector;
+import moa.core.Utils;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
 
@@ -84,6 +84,9 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
                 "Leveraging Subagging using resampling without replacement."
             }, 0);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
@@ -94,6 +97,8 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
 
     protected boolean initMatrixCodes = false;
 
+    protected MemberParallelExecutor memberExecutor;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -110,6 +115,18 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         if (this.outputCodesOption.isSet()) {
             this.initMatrixCodes = true;
         }
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the members, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
@@ -147,19 +164,111 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
 
 
         boolean Change = false;
-        Instance weightedInst = (Instance) inst.copy();
         double w = this.weightShrinkOption.getValue();
 
         //Train ensemble of classifiers
-        for (int i = 0; i < this.ensemble.length; i++) {
+        if (getMemberExecutor().isParallel()) {
+            Change = trainMembersInParallel(inst, w);
+        } else {
+            Instance weightedInst = (Instance) inst.copy();
+            for (int i = 0; i < this.ensemble.length; i++) {
+                double k = 0.0;
+                switch (this.leveraginBagAlgorithmOption.getChosenIndex()) {
+                    case 0: //LeveragingBag
+                        k = MiscUtils.poisson(w, this.classifierRandom);
+                        break;
+                    case 1: //LeveragingBagME
+                        double error = this.ADError[i].getEstimation();
+                        k = !this.ensemble[i].correctlyClassifies(weightedInst) ? 1.0 : (this.classifierRandom.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
+                        break;
+                    case 2: //LeveragingBagHalf
+                        w = 1.0;
+                        k = this.classifierRandom.nextBoolean() ? 0.0 : w;
+                        break;
+                    case 3: //LeveragingBagWT
+                        w = 1.0;
+                        k = 1.0 + MiscUtils.poisson(w, this.classifierRandom);
+                        break;
+                    case 4: //LeveragingSubag
+                        w = 1.0;
+                        k = MiscUtils.poisson(1, this.classifierRandom);
+                        k = (k > 0) ? w : 0;
+                        break;
+                }
+                if (k > 0) {
+                    if (this.outputCodesOption.isSet()) {
+                        weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+                    }
+                    weightedInst.setWeight(inst.weight() * k);
+                    this.ensemble[i].trainOnInstance(weightedInst);
+                }
+                boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
+                double ErrEstim = this.ADError[i].getEstimation();
+                if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
+                    if (this.ADError[i].getEstimation() > ErrEstim) {
+                        Change = true;
+                    }
+                }
+            }
+        }
+        if (Change) {
+            numberOfChangesDetected++;
+            double max = 0.0;
+            int imax = -1;
+            for (int i = 0; i < this.ensemble.length; i++) {
+                if (max < this.ADError[i].getEstimation()) {
+                    max = this.ADError[i].getEstimation();
+                    imax = i;
+                }
+            }
+            if (imax != -1) {
+                this.ensemble[imax].resetLearning();
+                //this.ensemble[imax].trainOnInstance(inst);
+                this.ADError[imax] = new ADWIN((double) this.deltaAdwinOption.getValue());
+            }
+        }
+    }
+
+    /**
+     * Trains the members like the sequential loop of trainOnInstanceImpl, on
+     * several threads. The draws, and the class code and weight that the
+     * shared instance of the loop would carry for every member, are computed
+     * in member order first; then every member trains on its own copy of the
+     * instance and updates its own detector.
+     *
+     * @param inst the instance
+     * @param w the weight shrink
+     * @return whether a detector saw the error grow
+     */
+    protected boolean trainMembersInParallel(final Instance inst, double w) {
+        final int n = this.ensemble.length;
+        int algorithm = this.leveraginBagAlgorithmOption.getChosenIndex();
+        int[] predictedClasses = null;
+        if (algorithm == 1) {
+            // the members are asked before any of them trains
+            final int[] predictions = new int[n];
+            getMemberExecutor().forEachMember(n, new MemberParallelExecutor.MemberTask() {
+                @Override
+                public void run(int i) {
+                    predictions[i] = Utils.maxIndex(ensemble[i].getVotesForInstance(inst));
+                }
+            });
+            predictedClasses = predictions;
+        }
+        final double[] multipliers = new double[n];
+        final double[] classValues = new double[n];
+        final double[] weights = new double[n];
+        double classValue = inst.classValue();
+        double weight = inst.weight();
+        for (int i = 0; i < n; i++) {
             double k = 0.0;
-            switch (this.leveraginBagAlgorithmOption.getChosenIndex()) {
+            switch (algorithm) {
                 case 0: //LeveragingBag
                     k = MiscUtils.poisson(w, this.classifierRandom);
                     break;
                 case 1: //LeveragingBagME
                     double error = this.ADError[i].getEstimation();
-                    k = !this.ensemble[i].correctlyClassifies(weightedInst) ? 1.0 : (this.classifierRandom.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
+                    k = predictedClasses[i] != (int) classValue ? 1.0 : (this.classifierRandom.nextDouble() < (error / (1.0 - error)) ? 1.0 : 0.0);
                     break;
                 case 2: //LeveragingBagHalf
                     w = 1.0;
@@ -177,35 +286,40 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
             }
             if (k > 0) {
                 if (this.outputCodesOption.isSet()) {
-                    weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
-                }
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
-            }
-            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
-            double ErrEstim = this.ADError[i].getEstimation();
-            if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
-                if (this.ADError[i].getEstimation() > ErrEstim) {
-                    Change = true;
+                    classValue = (double) this.matrixCodes[i][(int) inst.classValue()];
                 }
+                weight = inst.weight() * k;
             }
+            multipliers[i] = k;
+            classValues[i] = classValue;
+            weights[i] = weight;
         }
-        if (Change) {
-            numberOfChangesDetected++;
-            double max = 0.0;
-            int imax = -1;
-            for (int i = 0; i < this.ensemble.length; i++) {
-                if (max < this.ADError[i].getEstimation()) {
-                    max = this.ADError[i].getEstimation();
-                    imax = i;
+        final boolean[] changes = new boolean[n];
+        getMemberExecutor().forEachMember(n, new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+                Instance weightedInst = (Instance) inst.copy();
+                if (outputCodesOption.isSet()) {
+                    weightedInst.setClassValue(classValues[i]);
+                }
+                weightedInst.setWeight(weights[i]);
+                if (multipliers[i] > 0) {
+                    ensemble[i].trainOnInstance(weightedInst);
+                }
+                boolean correctlyClassifies = ensemble[i].correctlyClassifies(weightedInst);
+                double ErrEstim = ADError[i].getEstimation();
+                if (ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
+                    if (ADError[i].getEstimation() > ErrEstim) {
+                        changes[i] = true;
+                    }
                 }
             }
-            if (imax != -1) {
-                this.ensemble[imax].resetLearning();
-                //this.ensemble[imax].trainOnInstance(inst);
-                this.ADError[imax] = new ADWIN((double) this.deltaAdwinOption.getValue());
-            }
+        });
+        boolean Change = false;
+        for (int i = 0; i < n; i++) {
+            Change |= changes[i];
         }
+        return Change;
     }
 
     @Override
@@ -213,27 +327,26 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         if (this.outputCodesOption.isSet()) {
             return getVotesForInstanceBinary(inst);
         }
-        DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-            if (vote.sumOfValues() > 0.0) {
-                vote.normalize();
-                combinedVote.addValues(vote);
-            }
-        }
-        return combinedVote.getArrayRef();
+        return MemberParallelExecutor.sumNormalizedVotes(
+                getMemberExecutor().getMemberVotes(this.ensemble, inst));
     }
 
-    public double[] getVotesForInstanceBinary(Instance inst) {
+    public double[] getVotesForInstanceBinary(final Instance inst) {
         double combinedVote[] = new double[(int) inst.numClasses()];
-        Instance weightedInst = (Instance) inst.copy();
         if (this.initMatrixCodes == false) {
+            final double[][] votes = new double[this.ensemble.length][];
+            getMemberExecutor().forEachMember(this.ensemble.length, new MemberParallelExecutor.MemberTask() {
+                @Override
+                public void run(int i) {
+                    //Replace class by OC
+                    Instance weightedInst = (Instance) inst.copy();
+                    weightedInst.setClassValue((double) matrixCodes[i][(int) inst.classValue()]);
+                    votes[i] = ensemble[i].getVotesForInstance(weightedInst);
+                }
+            });
             for (int i = 0; i < this.ensemble.length; i++) {
-                //Replace class by OC
-                weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
-
                 double vote[];
-                vote = this.ensemble[i].getVotesForInstance(weightedInst);
+                vote = votes[i];
                 //Binary Case
                 int voteClass = 0;
                 if (vote.length == 2) {
@@ -0,0 +1,289 @@
+/*
+ *    MemberParallelExecutor.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+import moa.classifiers.BatchClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.core.attributeclassobservers.ParallelObserverUpdate;
+import moa.core.DoubleVector;
+import moa.core.MiscUtils;
+
+/**
+ * Runs the work of the members of an ensemble in parallel, for ensembles whose
+ * members are independent given the weights they are trained with.
+ *
+ * <p>The ensemble draws all the random numbers it needs for an instance, in
+ * member order and from its own random generator, before the members run, and
+ * combines the results of the members in member order afterwards. Each member
+ * is used by one thread at a time and sees the same instances in the same order
+ * as in a sequential loop, so the results do not depend on the number of
+ * jobs.</p>
+ *
+ * <p>The members are split into at most as many contiguous ranges as there are
+ * jobs, and run on the pools shared with {@link ParallelObserverUpdate}. With
+ * one job the members run in order on the calling thread.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class MemberParallelExecutor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The work done for one member.
+     */
+    public interface MemberTask {
+
+        /**
+         * @param member the index of the member
+         */
+        void run(int member);
+    }
+
+    /** The number of jobs, following the numberOfJobs option of AdaptiveRandomForest. */
+    protected int numberOfJobs;
+
+    /**
+     * @param numberOfJobs the number of jobs, -1 for as many as available
+     * cores, 0 or 1 to run sequentially
+     */
+    public MemberParallelExecutor(int numberOfJobs) {
+        this.numberOfJobs = numberOfJobs;
+    }
+
+    protected ForkJoinPool getPool() {
+        return ParallelObserverUpdate.getPool(this.numberOfJobs);
+    }
+
+    /**
+     * @return whether the members run on several threads
+     */
+    public boolean isParallel() {
+        return getPool() != null;
+    }
+
+    /**
+     * Runs a task for every member and waits for all of them.
+     *
+     * @param numMembers the number of members
+     * @param task the task
+     */
+    public void forEachMember(int numMembers, MemberTask task) {
+        ForkJoinPool pool = getPool();
+        if (pool == null || numMembers < 2) {
+            for (int i = 0; i < numMembers; i++) {
+                task.run(i);
+            }
+            return;
+        }
+        int jobs = Math.min(pool.getParallelism(), numMembers);
+        int rangeSize = (numMembers + jobs - 1) / jobs;
+        pool.invoke(new MemberRange(task, 0, numMembers, rangeSize));
+    }
+
+    /**
+     * Trains every member with a positive multiplier on a copy of the
+     * instance whose weight is multiplied by it.
+     *
+     * @param members the members
+     * @param inst the instance
+     * @param multipliers the multiplier of each member, drawn beforehand
+     */
+    public void train(final Classifier[] members, final Instance inst,
+            final int[] multipliers) {
+        forEachMember(members.length, new MemberTask() {
+            @Override
+            public void run(int i) {
+                trainMember(members[i], inst, multipliers[i]);
+            }
+        });
+    }
+
+    /**
+     * Trains a member on a copy of the instance whose weight is multiplied
+     * by k, if k is positive.
+     *
+     * @param member the member
+     * @param inst the instance
+     * @param k the multiplier
+     */
+    public static void trainMember(Classifier member, Instance inst, int k) {
+        if (k > 0) {
+            Instance weightedInst = (Instance) inst.copy();
+            weightedInst.setWeight(inst.weight() * k);
+            member.trainOnInstance(weightedInst);
+        }
+    }
+
+    /**
+     * Gets the votes of every member for an instance.
+     *
+     * @param members the members
+     * @param inst the instance
+     * @return the votes, per member
+     */
+    public double[][] getMemberVotes(final Classifier[] members, final Instance inst) {
+        return getMemberVotes(members, members.length, inst);
+    }
+
+    /**
+     * Gets the votes of the first members for an instance.
+     *
+     * @param members the members
+     * @param numMembers the number of members that vote
+     * @param inst the instance
+     * @return the votes, per member
+     */
+    public double[][] getMemberVotes(final Classifier[] members, int numMembers,
+            final Instance inst) {
+        final double[][] votes = new double[numMembers][];
+        forEachMember(numMembers, new MemberTask() {
+            @Override
+            public void run(int i) {
+                votes[i] = members[i].getVotesForInstance(inst);
+            }
+        });
+        return votes;
+    }
+
+    /**
+     * Gets the votes of every member for an instance.
+     *
+     * @param members the members
+     * @param inst the instance
+     * @return the votes, per member
+     */
+    public double[][] getMemberVotes(final List<Classifier> members, final Instance inst) {
+        final double[][] votes = new double[members.size()][];
+        forEachMember(votes.length, new MemberTask() {
+            @Override
+            public void run(int i) {
+                votes[i] = members.get(i).getVotesForInstance(inst);
+            }
+        });
+        return votes;
+    }
+
+    /**
+     * Gets the votes of every member for a block of instances. Each member
+     * predicts the whole block in one task, as a batch when it is a
+     * {@link BatchClassifier}.
+     *
+     * @param members the members
+     * @param batch the instances
+     * @return the votes, per member and instance
+     */
+    public double[][][] getMemberVotes(final Classifier[] members, final Instances batch) {
+        final double[][][] votes = new double[members.length][batch.numInstances()][];
+        forEachMember(members.length, new MemberTask() {
+            @Override
+            public void run(int i) {
+                if (members[i] instanceof BatchClassifier) {
+                    ((BatchClassifier) members[i]).getVotesForInstances(batch, votes[i]);
+                } else {
+                    for (int j = 0; j < votes[i].length; j++) {
+                        votes[i][j] = members[i].getVotesForInstance(batch.instance(j));
+                    }
+                }
+            }
+        });
+        return votes;
+    }
+
+    /**
+     * Draws the Poisson multipliers of the members, in member order.
+     *
+     * @param numMembers the number of members
+     * @param lambda the mean of the distribution
+     * @param random the random generator of the ensemble
+     * @return the multipliers
+     */
+    public static int[] drawPoissonMultipliers(int numMembers, double lambda, Random random) {
+        int[] multipliers = new int[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            multipliers[i] = MiscUtils.poisson(lambda, random);
+        }
+        return multipliers;
+    }
+
+    /**
+     * Adds up the votes of the members, each normalized to sum one, skipping
+     * the members without votes.
+     *
+     * @param memberVotes the votes, per member
+     * @return the combined votes
+     */
+    public static double[] sumNormalizedVotes(double[][] memberVotes) {
+        DoubleVector combinedVote = new DoubleVector();
+        for (int i = 0; i < memberVotes.length; i++) {
+            DoubleVector vote = new DoubleVector(memberVotes[i]);
+            if (vote.sumOfValues() > 0.0) {
+                vote.normalize();
+                combinedVote.addValues(vote);
+            }
+        }
+        return combinedVote.getArrayRef();
+    }
+
+    /**
+     * Runs a task for a range of members, splitting it until the ranges are
+     * small enough.
+     */
+    protected static class MemberRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final MemberTask task;
+
+        protected final int from;
+
+        protected final int to;
+
+        protected final int rangeSize;
+
+        protected MemberRange(MemberTask task, int from, int to, int rangeSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.rangeSize) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.task.run(i);
+                }
+            } else {
+                int ranges = (this.to - this.from + this.rangeSize - 1) / this.rangeSize;
+                int mid = this.from + ranges / 2 * this.rangeSize;
+                invokeAll(new MemberRange(this.task, this.from, mid, this.rangeSize),
+                        new MemberRange(this.task, mid, this.to, this.rangeSize));
+            }
+        }
+    }
+}
@@ -17,7 +17,6 @@ import com.github.javacliparser.FloatOption;
 import com.yahoo.labs.samoa.instances.Instance;
 
 import moa.core.Measurement;
-import moa.core.MiscUtils;
 
 public class OOB extends OzaBag {
 	
@@ -44,14 +43,7 @@ public class OOB extends OzaBag {
 		updateClassSize(inst);
 		double lambda = calculatePoissonLambda(inst);
 		
-		for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(lambda, this.classifierRandom);
-            if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
-            }
-        }
+		trainMembers(inst, lambda);
     }
 	
 	protected void updateClassSize(Instance inst) {
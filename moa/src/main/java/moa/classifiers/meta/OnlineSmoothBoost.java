@@ -38,7 +38,7 @@ import moa.options.ClassOption;
  *
  * <p>Parameters:</p> <ul> <li>-l : Classiﬁer to train</li> <li>-s : The number
  * of models to boost</li> 
- * </ul>
+ * <li>-j : The number of jobs that train and query the models</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -66,6 +66,9 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
             "The value of the gamma parameter.",
             0.1, 0.0, 1.0);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected double[] alpha;
@@ -74,6 +77,8 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
     
     protected double theta;
 
+    protected MemberParallelExecutor memberExecutor;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -86,21 +91,50 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
         }
         this.gamma = this.gammaOption.getValue();
        this.theta = this.gamma/(2.0+this.gamma);
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the members, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
+    public void trainOnInstanceImpl(final Instance inst) {
+        // every model is asked before it trains, and its weight depends only
+        // on the answers of the models before it, so the models are asked in
+        // parallel, the weights follow in order and the models train in parallel
+        final int n = this.ensemble.length;
+        final boolean[] correct = new boolean[n];
+        getMemberExecutor().forEachMember(n, new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+                correct[i] = ensemble[i].correctlyClassifies(inst);
+            }
+        });
+        final double[] weights = new double[n];
         double zt = 0.0;
         double weight = 1.0;
-        for (int i = 0; i < this.ensemble.length; i++) {
-            zt += (this.ensemble[i].correctlyClassifies(inst) ? 1 : -1) - theta;
+        for (int i = 0; i < n; i++) {
+            zt += (correct[i] ? 1 : -1) - theta;
                     //normalized_predict(ex.x) * ex.y - theta;
-            Instance weightedInst = (Instance) inst.copy();
-            weightedInst.setWeight(weight);
-            this.ensemble[i].trainOnInstance(weightedInst);
+            weights[i] = weight;
             weight = (zt<=0)? 1.0 : Math.pow(1.0-gamma, zt/2.0);
         }
-
+        getMemberExecutor().forEachMember(n, new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+                Instance weightedInst = (Instance) inst.copy();
+                weightedInst.setWeight(weights[i]);
+                ensemble[i].trainOnInstance(weightedInst);
+            }
+        });
     }
 
     protected double getEnsembleMemberWeight(int i) {
@@ -108,19 +142,20 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
     }
 
     public double[] getVotesForInstance(Instance inst) {
-               
+        double[] memberWeights = new double[this.ensemble.length];
+        int numVoters = 0;
+        while (numVoters < this.ensemble.length
+                && (memberWeights[numVoters] = getEnsembleMemberWeight(numVoters)) > 0.0) {
+            numVoters++;
+        }
+        double[][] memberVotes = getMemberExecutor().getMemberVotes(this.ensemble, numVoters, inst);
         DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            double memberWeight = getEnsembleMemberWeight(i);
-            if (memberWeight > 0.0) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-                if (vote.sumOfValues() > 0.0) {
-                    vote.normalize();
-                    vote.scaleValues(memberWeight);
-                    combinedVote.addValues(vote);
-                }
-            } else {
-                break;
+        for (int i = 0; i < numVoters; i++) {
+            DoubleVector vote = new DoubleVector(memberVotes[i]);
+            if (vote.sumOfValues() > 0.0) {
+                vote.normalize();
+                vote.scaleValues(memberWeights[i]);
+                combinedVote.addValues(vote);
             }
         }
         return combinedVote.getArrayRef();
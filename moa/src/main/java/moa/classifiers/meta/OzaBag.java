@@ -25,11 +25,11 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 
 import moa.classifiers.MultiClassClassifier;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
-import moa.core.MiscUtils;
 import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
 
@@ -48,7 +48,8 @@ import com.github.javacliparser.IntOption;
  *
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-j : The number of jobs that train and query the models</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -69,8 +70,13 @@ public class OzaBag extends AbstractClassifier implements MultiClassClassifier,
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
+    protected MemberParallelExecutor memberExecutor;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -79,31 +85,66 @@ public class OzaBag extends AbstractClassifier implements MultiClassClassifier,
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ensemble[i] = baseLearner.copy();
         }
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the members, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
-            }
-        }
+        trainMembers(inst, 1.0);
+    }
+
+    /**
+     * Trains every member on the instance weighted by a Poisson draw. The
+     * draws are made in member order before any member is trained, so the
+     * members can be trained in parallel.
+     *
+     * @param inst the instance
+     * @param lambda the mean of the Poisson distribution
+     */
+    protected void trainMembers(Instance inst, double lambda) {
+        int[] multipliers = MemberParallelExecutor.drawPoissonMultipliers(
+                this.ensemble.length, lambda, this.classifierRandom);
+        getMemberExecutor().train(this.ensemble, inst, multipliers);
     }
 
     @Override
     public double[] getVotesForInstance(Instance inst) {
-        DoubleVector combinedVote = new DoubleVector();
+        return MemberParallelExecutor.sumNormalizedVotes(
+                getMemberExecutor().getMemberVotes(this.ensemble, inst));
+    }
+
+    @Override
+    public void getVotesForInstances(Instances batch, double[][] votes) {
+        // member by member, so that every member can predict the whole block at once
+        int numInstances = batch.numInstances();
+        DoubleVector[] combinedVotes = new DoubleVector[numInstances];
+        for (int j = 0; j < numInstances; j++) {
+            combinedVotes[j] = new DoubleVector();
+        }
+        double[][][] memberVotes = getMemberExecutor().getMemberVotes(this.ensemble, batch);
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-            if (vote.sumOfValues() > 0.0) {
-                vote.normalize();
-                combinedVote.addValues(vote);
+            for (int j = 0; j < numInstances; j++) {
+                DoubleVector vote = new DoubleVector(memberVotes[i][j]);
+                if (vote.sumOfValues() > 0.0) {
+                    vote.normalize();
+                    combinedVotes[j].addValues(vote);
+                }
             }
         }
-        return combinedVote.getArrayRef();
+        for (int j = 0; j < numInstances; j++) {
+            votes[j] = combinedVotes[j].getArrayRef();
+        }
     }
 
     @Override
@@ -28,9 +28,7 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
 
-import moa.core.DoubleVector;
 import moa.core.Measurement;
-import moa.core.MiscUtils;
 import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
 
@@ -78,7 +76,8 @@ import com.github.javacliparser.IntOption;
  * <code>OzaBagAdwin -l HoeffdingTreeNBAdaptive -s 10</code>
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-j : The number of jobs that train and query the models</li> </ul>
  *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
@@ -99,10 +98,15 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
 
+    protected MemberParallelExecutor memberExecutor;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -115,25 +119,43 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
         for (int i = 0; i < this.ensemble.length; i++) {
             this.ADError[i] = new ADWIN();
         }
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the members, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
-        boolean Change = false;
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
-                Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
-            }
-            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(inst);
-            double ErrEstim = this.ADError[i].getEstimation();
-            if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
-                if (this.ADError[i].getEstimation() > ErrEstim) {
-                    Change = true;
+    public void trainOnInstanceImpl(final Instance inst) {
+        // every member trains and updates its own detector, with the draws
+        // made beforehand, so the members can run in parallel
+        final int[] multipliers = MemberParallelExecutor.drawPoissonMultipliers(
+                this.ensemble.length, 1.0, this.classifierRandom);
+        final boolean[] changes = new boolean[this.ensemble.length];
+        getMemberExecutor().forEachMember(this.ensemble.length, new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+                MemberParallelExecutor.trainMember(ensemble[i], inst, multipliers[i]);
+                boolean correctlyClassifies = ensemble[i].correctlyClassifies(inst);
+                double ErrEstim = ADError[i].getEstimation();
+                if (ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
+                    if (ADError[i].getEstimation() > ErrEstim) {
+                        changes[i] = true;
+                    }
                 }
             }
+        });
+        boolean Change = false;
+        for (int i = 0; i < changes.length; i++) {
+            Change |= changes[i];
         }
         if (Change) {
             double max = 0.0;
@@ -154,15 +176,8 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
 
     @Override
     public double[] getVotesForInstance(Instance inst) {
-        DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-            if (vote.sumOfValues() > 0.0) {
-                vote.normalize();
-                combinedVote.addValues(vote);
-            }
-        }
-        return combinedVote.getArrayRef();
+        return MemberParallelExecutor.sumNormalizedVotes(
+                getMemberExecutor().getMemberVotes(this.ensemble, inst));
     }
 
     @Override
@@ -47,7 +47,7 @@ import com.github.javacliparser.IntOption;
  *
  * <p>Parameters:</p> <ul> <li>-l : Classiﬁer to train</li> <li>-s : The number
  * of models to boost</li> <li>-p : Boost with weights only; no poisson</li>
- * </ul>
+ * <li>-j : The number of jobs that query the models</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -70,12 +70,17 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
     public FlagOption pureBoostOption = new FlagOption("pureBoost", 'p',
             "Boost with weights only; no poisson.");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected double[] scms;
 
     protected double[] swms;
 
+    protected MemberParallelExecutor memberExecutor;
+
     @Override
     public void resetLearningImpl() {
         this.ensemble = new Classifier[this.ensembleSizeOption.getValue()];
@@ -86,6 +91,18 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
         }
         this.scms = new double[this.ensemble.length];
         this.swms = new double[this.ensemble.length];
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the members, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
@@ -118,18 +135,22 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
     }
 
     public double[] getVotesForInstance(Instance inst) {
+        // the training weight of a model depends on the models before it, so
+        // only the votes are asked in parallel, from the models that count
+        double[] memberWeights = new double[this.ensemble.length];
+        int numVoters = 0;
+        while (numVoters < this.ensemble.length
+                && (memberWeights[numVoters] = getEnsembleMemberWeight(numVoters)) > 0.0) {
+            numVoters++;
+        }
+        double[][] memberVotes = getMemberExecutor().getMemberVotes(this.ensemble, numVoters, inst);
         DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            double memberWeight = getEnsembleMemberWeight(i);
-            if (memberWeight > 0.0) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-                if (vote.sumOfValues() > 0.0) {
-                    vote.normalize();
-                    vote.scaleValues(memberWeight);
-                    combinedVote.addValues(vote);
-                }
-            } else {
-                break;
+        for (int i = 0; i < numVoters; i++) {
+            DoubleVector vote = new DoubleVector(memberVotes[i]);
+            if (vote.sumOfValues() > 0.0) {
+                vote.normalize();
+                vote.scaleValues(memberWeights[i]);
+                combinedVote.addValues(vote);
             }
         }
         return combinedVote.getArrayRef();
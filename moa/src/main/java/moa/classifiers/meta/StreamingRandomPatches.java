@@ -23,9 +23,11 @@ import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Attribute;
-import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.LabelOverlayInstanceData;
+import com.yahoo.labs.samoa.instances.SubspaceInstanceData;
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
@@ -457,26 +459,26 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
                 attSub.add(instance.attribute(featuresIndexes.get(i)));
                 this.featureIndexes[i] = featuresIndexes.get(i);
             }
-            this.subset = new Instances("Subsets Candidate Instances", attSub, 100);
-            this.subset.setClassIndex(this.subset.numAttributes()-1);
-            prepareRandomSubspaceInstance(instance,1);
+            this.subset = createSubsetHeader(attSub);
         }
 
-        public void prepareRandomSubspaceInstance(Instance instance, double weight) {
-            // If there is any instance lingering in the subset, remove it.
-            while(this.subset.numInstances() > 0)
-                this.subset.delete(0);
-
-            double[] values = new double[this.subset.numAttributes()];
-            for(int j = 0 ; j < this.subset.numAttributes() ; ++j)
-                values[j] = instance.value(this.featureIndexes[j]);
-
-            // Set the class value for each value array.
-            values[values.length-1] = instance.classValue();
-            DenseInstance subInstance = new DenseInstance(1.0, values);
-            subInstance.setWeight(weight);
-            subInstance.setDataset(this.subset);
-            this.subset.add(subInstance);
+        private Instances createSubsetHeader(ArrayList<Attribute> attSub) {
+            Instances subset = new Instances("Subsets Candidate Instances", attSub, 0);
+            subset.setClassIndex(subset.numAttributes()-1);
+            return new InstancesHeader(subset);
+        }
+
+        /**
+         * Returns a view of the instance restricted to the subspace of this
+         * learner. The view reads the values of the given instance, which must
+         * not be modified while the base learner may still use the view.
+         * The last feature index is the class index.
+         */
+        public Instance prepareRandomSubspaceInstance(Instance instance, double weight) {
+            if(!(this.subset instanceof InstancesHeader))
+                this.subset = new InstancesHeader(this.subset);
+            return SubspaceInstanceData.subspaceInstance(instance, this.featureIndexes,
+                    (InstancesHeader) this.subset, weight);
         }
 
         private ArrayList<Integer> applySubsetResetStrategy(Instance instance, Random random) {
@@ -516,6 +518,8 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
 
                 if(this.subset != null) {
                     ArrayList<Integer> fIndexes = this.applySubsetResetStrategy(instance, random);
+                    // New array, subspace views created before the reset keep the old indexes
+                    this.featureIndexes = new int[this.featureIndexes.length];
                     for(int i = 0 ; i < fIndexes.size() ; ++i)
                         this.featureIndexes[i] = fIndexes.get(i);
                     ArrayList<Attribute> attSub = new ArrayList<Attribute>();
@@ -523,9 +527,7 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
                     for(int i = 0 ; i < this.featureIndexes.length ; ++i)
                         attSub.add(instance.attribute(this.featureIndexes[i]));
 
-                    this.subset = new Instances("Subsets Candidate Instances", attSub, 100);
-                    this.subset.setClassIndex(this.subset.numAttributes()-1);
-                    prepareRandomSubspaceInstance(instance, 1);
+                    this.subset = createSubsetHeader(attSub);
                 }
             }
         }
@@ -535,16 +537,15 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
             // The subset object will be null if we are training with all features
             if(this.subset != null) {
                 // Selecting just the subset of features that we are going to use
-                prepareRandomSubspaceInstance(instance, weight);
+                Instance subspaceInstance = prepareRandomSubspaceInstance(instance, weight);
 
-                // After prepareRandomSubspaceInstance, index 0 of subset holds the instance with this learner subspaces
-                this.classifier.trainOnInstance(this.subset.get(0));
-                correctlyClassifies = this.classifier.correctlyClassifies(this.subset.get(0));
+                this.classifier.trainOnInstance(subspaceInstance);
+                correctlyClassifies = this.classifier.correctlyClassifies(subspaceInstance);
                 if(this.bkgLearner != null)
                     this.bkgLearner.trainOnInstance(instance, weight, instancesSeen, random);
             }
             else {
-                Instance weightedInstance = instance.copy();
+                Instance weightedInstance = LabelOverlayInstanceData.shareInstance(instance);
                 weightedInstance.setWeight(instance.weight() * weight);
                 this.classifier.trainOnInstance(weightedInstance);
                 correctlyClassifies = this.classifier.correctlyClassifies(instance);
@@ -603,9 +604,9 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
          */
         public double[] getVotesForInstance(Instance instance) {
             if(this.subset != null) {
-                prepareRandomSubspaceInstance(instance, 1);
-                // subset.get(0) returns the instance transformed to the correct subspace (i.e. current model subspace).
-                DoubleVector vote = new DoubleVector(this.classifier.getVotesForInstance(this.subset.get(0)));
+                // the instance restricted to the current model subspace
+                Instance subspaceInstance = prepareRandomSubspaceInstance(instance, 1);
+                DoubleVector vote = new DoubleVector(this.classifier.getVotesForInstance(subspaceInstance));
 
                 return vote.getArrayRef();
             }
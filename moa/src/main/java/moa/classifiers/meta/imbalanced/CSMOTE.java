@@ -209,14 +209,15 @@ public class CSMOTE extends AbstractClassifier implements MultiClassClassifier {
 
     	if (instance.classValue() == 1.0) {
     		if (this.maj == null) {
-        		this.maj = instance.dataset();
+        		// private windows, the header of the instance is shared
+        		this.maj = new Instances(instance.dataset(), 0);
         		this.maj.setClassIndex(this.maj.numAttributes() - 1);
         	}    		
     		this.nMajorityTotal ++;    		
     		this.maj.add(instance);    		    		
         } else {
         	if (this.min == null) {
-        		this.min = instance.dataset();
+        		this.min = new Instances(instance.dataset(), 0);
         		this.min.setClassIndex(this.min.numAttributes() - 1);    		
         	}   
         	this.nMinorityTotal ++;        	
@@ -27,7 +27,7 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
-import moa.core.DoubleVector;
+import moa.classifiers.meta.MemberParallelExecutor;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
 import moa.core.Utils;
@@ -67,6 +67,7 @@ import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
  * <li>-i : The sampling rate of the positive instances.</li>
  * <li>-d : Should use ADWIN as drift detector? If enabled it is used by the method 
  * 	to track the performance of the classifiers and adapt when a drift is detected.</li>
+ * <li>-j : The number of jobs that train and query the classifiers.</li>
  * <li>-r : Seed for the random state.</li>
  * </ul>
  *
@@ -95,6 +96,9 @@ public class OnlineSMOTEBagging extends AbstractClassifier implements MultiClass
     public FlagOption disableDriftDetectionOption = new FlagOption("disableDriftDetection", 'd',
             "Should use ADWIN as drift detector?");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier baseLearner;
     protected int nEstimators;    
     protected int samplingRate;    
@@ -103,6 +107,7 @@ public class OnlineSMOTEBagging extends AbstractClassifier implements MultiClass
     protected ArrayList<ADWIN> adwinEnsemble;  
     protected Instances posSamples;
     protected SamoaToWekaInstanceConverter samoaToWeka = new SamoaToWekaInstanceConverter();
+    protected MemberParallelExecutor memberExecutor;
     
     @Override
     public void resetLearningImpl() {
@@ -124,10 +129,22 @@ public class OnlineSMOTEBagging extends AbstractClassifier implements MultiClass
 		}
         this.posSamples = null;
         this.classifierRandom = new Random(this.randomSeed);
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the classifiers, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance instance) {        
+    public void trainOnInstanceImpl(final Instance instance) {        
         if(this.ensemble.isEmpty()) {
         	resetLearningImpl();
         }  
@@ -136,50 +153,66 @@ public class OnlineSMOTEBagging extends AbstractClassifier implements MultiClass
         double lambda = 1.0;
         boolean changeDetected = false;        
         
+        // the draws and the synthetic samples do not depend on the classifiers,
+        // so they are made in order first and the classifiers train in parallel
+        final double[] repetitions = new double[this.ensemble.size()];
+        final ArrayList<ArrayList<Instance>> samplesSMOTE = new ArrayList<ArrayList<Instance>>();
         for (int i = 0 ; i < this.ensemble.size(); i++) {
         	double a = (double)(i + 1) / (double)this.nEstimators;        	
+        	ArrayList<Instance> memberSamplesSMOTE = new ArrayList<Instance>();
         	if (instance.classValue() == 1.0) {
         		if (this.posSamples == null) {
-            		this.posSamples = instance.dataset();
+            		// a private window, the header of the instance is shared
+            		this.posSamples = new Instances(instance.dataset(), 0);
             		this.posSamples.setClassIndex(this.posSamples.numAttributes() - 1);
             	}    		        		
         		this.posSamples.add(instance); 
         		lambda = a * this.samplingRate;
         		double lambdaSMOTE = (1 - a) * this.samplingRate;               	        								
-				double k = MiscUtils.poisson(lambda, this.classifierRandom);
-				if (k > 0) {
-					for (int b = 0; b < k; b++) {
-						this.ensemble.get(i).trainOnInstance(instance);					
-					}
-				}
+				repetitions[i] = MiscUtils.poisson(lambda, this.classifierRandom);
 				double kSMOTE = MiscUtils.poisson(lambdaSMOTE, this.classifierRandom);				
 				if (kSMOTE > 0) {
 					for (int b = 0; b < kSMOTE; b++) {
-						Instance instanceSMOTE = onlineSMOTE();						
-						this.ensemble.get(i).trainOnInstance(instanceSMOTE);															
+						memberSamplesSMOTE.add(onlineSMOTE());
 					}
 				}
         	}
         	else {
-        		double k = MiscUtils.poisson(lambda, this.classifierRandom);        		
-        		if (k > 0) {
+        		repetitions[i] = MiscUtils.poisson(lambda, this.classifierRandom);        		
+        	}	
+        	samplesSMOTE.add(memberSamplesSMOTE);
+		}
+        final boolean[] changes = new boolean[this.ensemble.size()];
+        getMemberExecutor().forEachMember(this.ensemble.size(), new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+				// each member trains on its own copy, as with trainMember
+				Instance memberInstance = instance.copy();
+				double k = repetitions[i];
+				if (k > 0) {
 					for (int b = 0; b < k; b++) {
-						this.ensemble.get(i).trainOnInstance(instance);					
+						ensemble.get(i).trainOnInstance(memberInstance);					
 					}
 				}
-        	}	
-			if (this.driftDetection) {
-				double pred = Utils.maxIndex(this.ensemble.get(i).getVotesForInstance(instance));
-				double errorEstimation = this.adwinEnsemble.get(i).getEstimation();
-				double inputValue = pred == instance.classValue() ? 1.0 : 0.0;
-				boolean resInput = this.adwinEnsemble.get(i).setInput(inputValue);
-				if (resInput) {
-					if (this.adwinEnsemble.get(i).getEstimation() > errorEstimation) {
-						changeDetected = true;
+				for (Instance instanceSMOTE : samplesSMOTE.get(i)) {
+					ensemble.get(i).trainOnInstance(instanceSMOTE);															
+				}
+				if (driftDetection) {
+					double pred = Utils.maxIndex(ensemble.get(i).getVotesForInstance(memberInstance));
+					double errorEstimation = adwinEnsemble.get(i).getEstimation();
+					double inputValue = pred == memberInstance.classValue() ? 1.0 : 0.0;
+					boolean resInput = adwinEnsemble.get(i).setInput(inputValue);
+					if (resInput) {
+						if (adwinEnsemble.get(i).getEstimation() > errorEstimation) {
+							changes[i] = true;
+						}
 					}
 				}
-			}
-		}
+            }
+        });
+        for (int i = 0; i < changes.length; i++) {
+        	changeDetected |= changes[i];
+        }
         
         if (changeDetected && this.driftDetection) {
         	double maxThreshold = 0.0;
@@ -200,16 +233,8 @@ public class OnlineSMOTEBagging extends AbstractClassifier implements MultiClass
     @Override
     public double[] getVotesForInstance(Instance instance) {
         Instance testInstance = instance.copy();        
-        DoubleVector combinedVote = new DoubleVector();
-
-        for(int i = 0 ; i < this.ensemble.size() ; ++i) {
-            DoubleVector vote = new DoubleVector(this.ensemble.get(i).getVotesForInstance(testInstance));
-            if (vote.sumOfValues() > 0.0) {                                                                                                                               
-            	vote.normalize();
-                combinedVote.addValues(vote);                
-            }
-        }
-        return combinedVote.getArrayRef();
+        return MemberParallelExecutor.sumNormalizedVotes(
+                getMemberExecutor().getMemberVotes(this.ensemble, testInstance));
     }
 
     @Override
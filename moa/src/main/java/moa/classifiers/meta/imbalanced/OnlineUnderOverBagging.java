@@ -25,7 +25,6 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
-import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
 import moa.core.Utils;
@@ -36,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Random;
 
 import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.meta.MemberParallelExecutor;
 
 
 
@@ -66,6 +66,7 @@ import moa.classifiers.core.driftdetection.ADWIN;
  * <li>-i : The sampling rate of the positive instances.</li>
  * <li>-d : Should use ADWIN as drift detector? If enabled it is used by the method 
  * 	to track the performance of the classifiers and adapt when a drift is detected.</li>
+ * <li>-j : The number of jobs that train and query the classifiers.</li>
  * <li>-r : Seed for the random state.</li>
  * </ul>
  *
@@ -94,12 +95,16 @@ public class OnlineUnderOverBagging extends AbstractClassifier implements MultiC
     public FlagOption disableDriftDetectionOption = new FlagOption("disableDriftDetection", 'd',
             "Should use ADWIN as drift detector?");
     
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+    
     protected Classifier baseLearner;
     protected int nEstimators;    
     protected int samplingRate; 
     protected boolean driftDetection;        
     protected ArrayList<Classifier> ensemble;
     protected ArrayList<ADWIN> adwinEnsemble;     
+    protected MemberParallelExecutor memberExecutor;
     
     @Override
     public void resetLearningImpl() {
@@ -120,10 +125,22 @@ public class OnlineUnderOverBagging extends AbstractClassifier implements MultiC
         	}        	
 		} 
         this.classifierRandom = new Random(this.randomSeed);
+        this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+    }
+
+    /**
+     * @return the executor that runs the classifiers, created on demand for
+     * models saved before it existed
+     */
+    protected MemberParallelExecutor getMemberExecutor() {
+        if (this.memberExecutor == null) {
+            this.memberExecutor = new MemberParallelExecutor(this.numberOfJobsOption.getValue());
+        }
+        return this.memberExecutor;
     }
 
     @Override
-    public void trainOnInstanceImpl(Instance instance) {        
+    public void trainOnInstanceImpl(final Instance instance) {        
         if(this.ensemble.isEmpty()) {
         	resetLearningImpl();
         }  
@@ -132,6 +149,8 @@ public class OnlineUnderOverBagging extends AbstractClassifier implements MultiC
         boolean changeDetected = false;        
         double lambda = 0.0;
         
+        // the draws are made in order first, so the classifiers can train in parallel
+        final double[] repetitions = new double[this.ensemble.size()];
         for (int i = 0 ; i < this.ensemble.size(); i++) {
         	double a = (double)(i + 1) / (double)this.nEstimators;
         	if (instance.classValue() == 1.0) {
@@ -140,24 +159,36 @@ public class OnlineUnderOverBagging extends AbstractClassifier implements MultiC
         	else {
         		lambda = a;
         	}        	        				
-			double k = MiscUtils.poisson(lambda, this.classifierRandom);
-			if (k > 0) {
-				for (int b = 0; b < k; b++) {
-					this.ensemble.get(i).trainOnInstance(instance);					
-				}	
-			}
-			if (this.driftDetection) {
-				double pred = Utils.maxIndex(this.ensemble.get(i).getVotesForInstance(instance));
-				double errorEstimation = this.adwinEnsemble.get(i).getEstimation();
-				double inputValue = pred == instance.classValue() ? 1.0 : 0.0;
-				boolean resInput = this.adwinEnsemble.get(i).setInput(inputValue);
-				if (resInput) {
-					if (this.adwinEnsemble.get(i).getEstimation() > errorEstimation) {
-						changeDetected = true;
+			repetitions[i] = MiscUtils.poisson(lambda, this.classifierRandom);
+		}
+        final boolean[] changes = new boolean[this.ensemble.size()];
+        getMemberExecutor().forEachMember(this.ensemble.size(), new MemberParallelExecutor.MemberTask() {
+            @Override
+            public void run(int i) {
+				// each member trains on its own copy, as with trainMember
+				Instance memberInstance = instance.copy();
+				double k = repetitions[i];
+				if (k > 0) {
+					for (int b = 0; b < k; b++) {
+						ensemble.get(i).trainOnInstance(memberInstance);					
+					}	
+				}
+				if (driftDetection) {
+					double pred = Utils.maxIndex(ensemble.get(i).getVotesForInstance(memberInstance));
+					double errorEstimation = adwinEnsemble.get(i).getEstimation();
+					double inputValue = pred == memberInstance.classValue() ? 1.0 : 0.0;
+					boolean resInput = adwinEnsemble.get(i).setInput(inputValue);
+					if (resInput) {
+						if (adwinEnsemble.get(i).getEstimation() > errorEstimation) {
+							changes[i] = true;
+						}
 					}
 				}
-			}
-		}
+            }
+        });
+        for (int i = 0; i < changes.length; i++) {
+        	changeDetected |= changes[i];
+        }
         
         if (changeDetected && this.driftDetection) {
         	double maxThreshold = 0.0;
@@ -178,16 +209,8 @@ public class OnlineUnderOverBagging extends AbstractClassifier implements MultiC
     @Override
     public double[] getVotesForInstance(Instance instance) {
         Instance testInstance = instance.copy();        
-        DoubleVector combinedVote = new DoubleVector();
-
-        for(int i = 0 ; i < this.ensemble.size() ; ++i) {
-            DoubleVector vote = new DoubleVector(this.ensemble.get(i).getVotesForInstance(testInstance));
-            if (vote.sumOfValues() > 0.0) {                                                                                                                              
-            	vote.normalize();
-                combinedVote.addValues(vote);                
-            }
-        }
-        return combinedVote.getArrayRef();
+        return MemberParallelExecutor.sumNormalizedVotes(
+                getMemberExecutor().getMemberVotes(this.ensemble, testInstance));
     }
 
     @Override
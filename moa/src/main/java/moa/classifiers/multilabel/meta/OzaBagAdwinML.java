@@ -20,6 +20,7 @@ package moa.classifiers.multilabel.meta;
 
 import moa.classifiers.Classifier;
 import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.meta.MemberParallelExecutor;
 import moa.classifiers.meta.OzaBagAdwin;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.InstanceExample;
@@ -43,7 +44,7 @@ import meka.core.A;
 public class OzaBagAdwinML extends OzaBagAdwin implements MultiLabelLearner, MultiTargetRegressor {
 
     @Override
-    public void trainOnInstanceImpl(Instance inst) {
+    public void trainOnInstanceImpl(final Instance inst) {
 		// train
 		try {
 			super.trainOnInstanceImpl(inst);
@@ -52,33 +53,47 @@ public class OzaBagAdwinML extends OzaBagAdwin implements MultiLabelLearner, Mul
 			//e.printStackTrace();
 		}
 
-		for (int i = 0; i < this.ensemble.length; i++) {
-
-			// get prediction
-			double prediction[] = this.ensemble[i].getVotesForInstance(inst);
-			if (prediction == null) {
-				prediction = new double[]{};
+		// the members are checked on the jobs, each on its own copy
+		getMemberExecutor().forEachMember(this.ensemble.length, new MemberParallelExecutor.MemberTask() {
+			@Override
+			public void run(int i) {
+				checkMember(i, inst.copy());
 			}
+		});
+	}
 
-			// get true value
-			double actual[] = new double[prediction.length];
-			for (int j = 0; j < prediction.length; j++) {
-				actual[j] = (double)inst.classValue(j);
-			}
+	/**
+	 * Feeds the loss of a member on the instance to its ADWIN, and resets
+	 * the member if its error increased.
+	 *
+	 * @param i the index of the member
+	 * @param inst the instance, which only this member uses
+	 */
+	protected void checkMember(int i, Instance inst) {
+		// get prediction
+		double prediction[] = this.ensemble[i].getVotesForInstance(inst);
+		if (prediction == null) {
+			prediction = new double[]{};
+		}
+
+		// get true value
+		double actual[] = new double[prediction.length];
+		for (int j = 0; j < prediction.length; j++) {
+			actual[j] = (double)inst.classValue(j);
+		}
 
-			// compute loss
-			double loss = Metrics.L_ZeroOne(A.toIntArray(actual,0.5), A.toIntArray(prediction,0.5));
-			//System.err.println("loss["+i+"] = "+loss);
+		// compute loss
+		double loss = Metrics.L_ZeroOne(A.toIntArray(actual,0.5), A.toIntArray(prediction,0.5));
+		//System.err.println("loss["+i+"] = "+loss);
 
-			// adwin stuff
-			double ErrEstim = this.ADError[i].getEstimation();
-			if (this.ADError[i].setInput(loss)) {
-				if (this.ADError[i].getEstimation() > ErrEstim) {
-					System.err.println("Change model "+i+"!");
-					this.ensemble[i].resetLearning();
-					this.ensemble[i].trainOnInstance(inst);
-					this.ADError[i] = new ADWIN();
-				}
+		// adwin stuff
+		double ErrEstim = this.ADError[i].getEstimation();
+		if (this.ADError[i].setInput(loss)) {
+			if (this.ADError[i].getEstimation() > ErrEstim) {
+				System.err.println("Change model "+i+"!");
+				this.ensemble[i].resetLearning();
+				this.ensemble[i].trainOnInstance(inst);
+				this.ADError[i] = new ADWIN();
 			}
 		}
 	}
@@ -90,14 +105,14 @@ public class OzaBagAdwinML extends OzaBagAdwin implements MultiLabelLearner, Mul
 
 	@Override
     public Prediction getPredictionForInstance(Example<Instance> example) {
-        return OzaBagML.compilePredictions(this.ensemble, example);
+        return OzaBagML.compilePredictions(this.ensemble, example, getMemberExecutor());
     }
 
 
 	//Legacy code: not used now, only Predictions are used
 	@Override
 	public double[] getVotesForInstance(Instance inst) {
-		return OzaBagML.compileVotes(this.ensemble, inst);
+		return OzaBagML.compileVotes(this.ensemble, inst, getMemberExecutor());
 	}
 
 	@Override
@@ -19,9 +19,11 @@
 package moa.classifiers.multilabel.meta;
 
 import moa.classifiers.Classifier;
+import moa.classifiers.meta.MemberParallelExecutor;
 import moa.classifiers.meta.OzaBag;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.MultiLabelInstance;
 import com.yahoo.labs.samoa.instances.MultiLabelPrediction;
 import com.yahoo.labs.samoa.instances.Prediction;
@@ -50,14 +52,26 @@ public class OzaBagML extends OzaBag implements MultiLabelLearner, MultiTargetRe
 	// Predictions
 	@Override
 	public Prediction getPredictionForInstance(Example<Instance> example) {
-		return compilePredictions(this.ensemble, example);
+		return compilePredictions(this.ensemble, example, getMemberExecutor());
 	}
 
 	public static Prediction compilePredictions(Classifier h[], Example example) {
-		Prediction[] predictions = new Prediction[h.length];
-		for (int i = 0; i < h.length; i++) {
-			predictions[i] = h[i].getPredictionForInstance(example);
-		}
+		return compilePredictions(h, example, new MemberParallelExecutor(1));
+	}
+
+	/**
+	 * Combines the predictions of the members, which predict on the jobs of
+	 * the executor.
+	 */
+	public static Prediction compilePredictions(final Classifier h[], final Example example,
+			MemberParallelExecutor executor) {
+		final Prediction[] predictions = new Prediction[h.length];
+		executor.forEachMember(h.length, new MemberParallelExecutor.MemberTask() {
+			@Override
+			public void run(int i) {
+				predictions[i] = h[i].getPredictionForInstance(example);
+			}
+		});
 		return combinePredictions(predictions, (Instance) example.getData());
 	}
 
@@ -91,14 +105,32 @@ public class OzaBagML extends OzaBag implements MultiLabelLearner, MultiTargetRe
 	//Legacy code: not used now, only Predictions are used
 	@Override
     public double[] getVotesForInstance(Instance inst) {
-		return compileVotes(this.ensemble, inst);
+		return compileVotes(this.ensemble, inst, getMemberExecutor());
+	}
+
+	// the votes are combined differently from OzaBag
+	@Override
+	public void getVotesForInstances(Instances batch, double[][] votes) {
+		for (int i = 0; i < batch.numInstances(); i++) {
+			votes[i] = getVotesForInstance(batch.instance(i));
+		}
 	}
 
 	public static double[] compileVotes(Classifier h[], Instance inst) {
-		double votes[] = h[0].getVotesForInstance(inst);
+		return compileVotes(h, inst, new MemberParallelExecutor(1));
+	}
+
+	/**
+	 * Averages the votes of the members, which vote on the jobs of the
+	 * executor.
+	 */
+	public static double[] compileVotes(Classifier h[], Instance inst,
+			MemberParallelExecutor executor) {
+		double memberVotes[][] = executor.getMemberVotes(h, inst);
+		double votes[] = memberVotes[0];
 		for (int i = 1; i < h.length; i++) {
 			try {
-				double more_votes[] = h[i].getVotesForInstance(inst);
+				double more_votes[] = memberVotes[i];
 				for(int j = 0; j < more_votes.length; j++) {
 					votes[j] = votes[j] + more_votes[j];
 				}
@@ -33,11 +33,13 @@ package moa.classifiers.rules;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.rules.core.Rule;
 import moa.classifiers.rules.core.Rule.Builder;
 import moa.classifiers.rules.core.RuleActiveLearningNode;
+import moa.classifiers.rules.core.RuleIndex;
 import moa.classifiers.rules.core.RuleSet;
 import moa.classifiers.rules.core.attributeclassobservers.FIMTDDNumericAttributeClassLimitObserver;
 import moa.classifiers.rules.core.voting.ErrorWeightedVote;
@@ -113,6 +115,14 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 			'z', "Numeric observer.", 
 			FIMTDDNumericAttributeClassLimitObserver.class,
 			"FIMTDDNumericAttributeClassLimitObserver");
+
+	public IntOption ruleIndexMinRulesOption = new IntOption(
+			"ruleIndexMinRules",
+			'I',
+			"Minimum number of rules from which covering rules are found with an index over the rule literals (0 = never).",
+			0, 0, Integer.MAX_VALUE);
+
+	protected transient RuleIndex ruleIndex;
 	
 
 	protected double attributesPercentage;
@@ -198,40 +208,29 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 		debug("Train",3);
 		debug("Nº instance "+numInstances + " - " + instance.toString(),3);
 		boolean rulesCoveringInstance = false;
-		Iterator<Rule> ruleIterator= this.ruleSet.iterator();
-		while (ruleIterator.hasNext()) { 
-			Rule rule = ruleIterator.next();
-			if (rule.isCovering(instance) == true) {
-				rulesCoveringInstance = true;
-				if (isAnomaly(instance, rule) == false) {
-					//Update Change Detection Tests
-					double error = rule.computeError(instance); //Use adaptive mode error
-					boolean changeDetected = rule.getLearningNode().updateChangeDetection(error);
-					if (changeDetected == true) {
-						debug("I) Drift Detected. Exa. : " +  this.numInstances + " (" + rule.getInstancesSeen() +") Remove Rule: " +rule.getRuleNumberID(),1);
-
+		if (useRuleIndex()) {
+			List<Rule> coveringRules = getRuleIndex().getCoveringRules(instance, this.ruleSet, !this.unorderedRulesOption.isSet());
+			rulesCoveringInstance = !coveringRules.isEmpty();
+			for (Rule rule : coveringRules) {
+				if (trainOnCoveringRule(instance, rule) == true) {
+					this.ruleSet.remove(rule);
+					getRuleIndex().ruleRemoved(rule);
+				}
+			}
+		} else {
+			Iterator<Rule> ruleIterator= this.ruleSet.iterator();
+			while (ruleIterator.hasNext()) { 
+				Rule rule = ruleIterator.next();
+				if (rule.isCovering(instance) == true) {
+					rulesCoveringInstance = true;
+					if (trainOnCoveringRule(instance, rule) == true) {
 						ruleIterator.remove();
-						this.numChangesDetected+=instance.weight();  //Just for statistics 
-					} else {
-						rule.updateStatistics(instance);
-						if (rule.getInstancesSeen()  % this.gracePeriodOption.getValue() == 0.0) {
-							if (rule.tryToExpand(this.splitConfidenceOption.getValue(), this.tieThresholdOption.getValue()) ) 
-							{
-								rule.split();
-								debug("Rule Expanded:",2);
-								debug(rule.printRule(),2);
-							}	
-						}
 					}
+					if (!this.unorderedRulesOption.isSet()) 
+						break;
 				}
-				else {
-					debug("Anomaly Detected: " + this.numInstances + " Rule: " +rule.getRuleNumberID() ,1);
-					this.numAnomaliesDetected+=instance.weight();//Just for statistics
-				}
-				if (!this.unorderedRulesOption.isSet()) 
-					break;
 			}
-		}	
+		}
 
 		if (rulesCoveringInstance == false){ 
 			defaultRule.updateStatistics(instance);
@@ -243,6 +242,9 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 					defaultRule.split();
 					defaultRule.setRuleNumberID(++ruleNumberID);
 					this.ruleSet.add(this.defaultRule);
+					if (this.ruleIndex != null) {
+						this.ruleIndex.ruleAdded(this.defaultRule);
+					}
 
 					debug("Default rule expanded! New Rule:",2);
 					debug(defaultRule.printRule(),2);
@@ -257,6 +259,63 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 
 
 
+	/**
+	 * Updates a rule that covers the instance.
+	 * @param instance
+	 * @param rule
+	 * @return true if a change was detected and the rule must be removed
+	 */
+	private boolean trainOnCoveringRule(Instance instance, Rule rule) {
+		if (isAnomaly(instance, rule) == false) {
+			//Update Change Detection Tests
+			double error = rule.computeError(instance); //Use adaptive mode error
+			boolean changeDetected = rule.getLearningNode().updateChangeDetection(error);
+			if (changeDetected == true) {
+				debug("I) Drift Detected. Exa. : " +  this.numInstances + " (" + rule.getInstancesSeen() +") Remove Rule: " +rule.getRuleNumberID(),1);
+				this.numChangesDetected+=instance.weight();  //Just for statistics 
+				return true;
+			} else {
+				rule.updateStatistics(instance);
+				if (rule.getInstancesSeen()  % this.gracePeriodOption.getValue() == 0.0) {
+					if (rule.tryToExpand(this.splitConfidenceOption.getValue(), this.tieThresholdOption.getValue()) ) 
+					{
+						rule.split();
+						if (this.ruleIndex != null) {
+							this.ruleIndex.ruleChanged(rule);
+						}
+						debug("Rule Expanded:",2);
+						debug(rule.printRule(),2);
+					}	
+				}
+			}
+		}
+		else {
+			debug("Anomaly Detected: " + this.numInstances + " Rule: " +rule.getRuleNumberID() ,1);
+			this.numAnomaliesDetected+=instance.weight();//Just for statistics
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the covering rules are found with the rule index.
+	 * @return true if the rule set is large enough to use the index
+	 */
+	protected boolean useRuleIndex() {
+		int minRules = this.ruleIndexMinRulesOption.getValue();
+		return minRules > 0 && this.ruleSet.size() >= minRules;
+	}
+
+	/**
+	 * Gets the index over the literals of the rule set, created on first use.
+	 * @return the rule index
+	 */
+	protected RuleIndex getRuleIndex() {
+		if (this.ruleIndex == null) {
+			this.ruleIndex = new RuleIndex();
+		}
+		return this.ruleIndex;
+	}
+
 	/**
 	 * Method to verify if the instance is an anomaly.
 	 * @param instance
@@ -407,8 +466,12 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 		int numberOfRulesCovering = 0;
 
 		VerboseToConsole(instance); // Verbose to console Dataset name.
-		for (Rule rule : ruleSet) {
-			if (rule.isCovering(instance) == true){
+		List<Rule> candidateRules = this.ruleSet;
+		if (useRuleIndex()) {
+			candidateRules = getRuleIndex().getCoveringRules(instance, this.ruleSet, !this.unorderedRulesOption.isSet());
+		}
+		for (Rule rule : candidateRules) {
+			if (candidateRules != this.ruleSet || rule.isCovering(instance) == true){
 				numberOfRulesCovering++;
 				//DoubleVector vote = new DoubleVector(rule.getPrediction(instance));
 				double [] vote=rule.getPrediction(instance);
@@ -0,0 +1,414 @@
+/*
+ *    RuleIndex.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+package moa.classifiers.rules.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import moa.AbstractMOAObject;
+import moa.classifiers.rules.core.conditionaltests.NumericAttributeBinaryRulePredicate;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Index over the numeric literals of a rule set that finds the rules covering
+ * an instance without evaluating every rule.
+ *
+ * <p>For every attribute, the thresholds of the <code>&lt;=</code> and
+ * <code>&gt;</code> literals are kept sorted together with the bit sets of the
+ * rules violated by a value below or above each threshold, so that the rules
+ * violated by one attribute value are found with a binary search. The bit
+ * sets are stored every {@link #CHECKPOINT_INTERVAL} thresholds, and the rules
+ * of the thresholds in between are added one by one. Rules with
+ * literals the index cannot represent (equality, negated or non numeric
+ * literals) are always checked with {@link Rule#isCovering(Instance)}.</p>
+ *
+ * <p>The index is updated incrementally: rules added or expanded since the
+ * last build are checked directly, removed rules are masked out, and the
+ * index is rebuilt once those rules become a sizeable part of the set. The
+ * covering rules are returned in the order of the rule set, so that ordered
+ * and unordered rule sets keep their semantics.</p>
+ *
+ * @version $Revision: 1 $
+ */
+public class RuleIndex extends AbstractMOAObject {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Fraction of added, expanded or removed rules that triggers a rebuild. */
+	public static final double MAX_STALE_FRACTION = 0.125;
+
+	/** Minimum number of stale rules that triggers a rebuild. */
+	public static final int MIN_STALE_RULES = 8;
+
+	/** Number of sorted thresholds between two stored bit sets of violated rules. */
+	public static final int CHECKPOINT_INTERVAL = 32;
+
+	/** The rule set the index was built from. */
+	protected List<Rule> ruleSet;
+
+	/** The indexed rules in rule set order, null for removed rules. */
+	protected List<Rule> rules = new ArrayList<Rule>();
+
+	/** The position in {@link #rules} of every indexed rule. */
+	protected Map<Rule, Integer> positions = new IdentityHashMap<Rule, Integer>();
+
+	/** The rules that are still in the rule set. */
+	protected long[] alive = new long[0];
+
+	/** The rules that must be checked with {@link Rule#isCovering(Instance)}. */
+	protected long[] verify = new long[0];
+
+	/** The indexed literals of each attribute. */
+	protected AttributeIndex[] attributeIndexes = new AttributeIndex[0];
+
+	protected int numAlive;
+
+	protected int numStale;
+
+	/**
+	 * Rebuilds the index from the given rules.
+	 *
+	 * @param ruleSet the rule set to index
+	 */
+	public void build(List<Rule> ruleSet) {
+		this.ruleSet = ruleSet;
+		this.rules = new ArrayList<Rule>(ruleSet);
+		this.positions = new IdentityHashMap<Rule, Integer>();
+		int numWords = numWords(this.rules.size() + MIN_STALE_RULES);
+		this.alive = new long[numWords];
+		this.verify = new long[numWords];
+		Map<Integer, AttributeIndexBuilder> builders = new HashMap<Integer, AttributeIndexBuilder>();
+		for (int position = 0; position < this.rules.size(); position++) {
+			Rule rule = this.rules.get(position);
+			this.positions.put(rule, position);
+			setBit(this.alive, position);
+			for (RuleSplitNode node : rule.getNodeList()) {
+				NumericAttributeBinaryRulePredicate predicate = indexablePredicate(node);
+				if (predicate == null) {
+					setBit(this.verify, position);
+					continue;
+				}
+				AttributeIndexBuilder builder = builders.get(predicate.getAttributeIndex());
+				if (builder == null) {
+					builder = new AttributeIndexBuilder(predicate.getAttributeIndex());
+					builders.put(predicate.getAttributeIndex(), builder);
+				}
+				builder.add(predicate, position);
+			}
+		}
+		this.attributeIndexes = new AttributeIndex[builders.size()];
+		int i = 0;
+		for (AttributeIndexBuilder builder : builders.values()) {
+			this.attributeIndexes[i++] = builder.build(numWords);
+		}
+		this.numAlive = this.rules.size();
+		this.numStale = 0;
+	}
+
+	/**
+	 * Notifies the index that a rule was appended to the rule set.
+	 *
+	 * @param rule the new rule
+	 */
+	public void ruleAdded(Rule rule) {
+		if (this.ruleSet == null) {
+			return;
+		}
+		int position = this.rules.size();
+		this.rules.add(rule);
+		this.positions.put(rule, position);
+		if (numWords(position + 1) > this.alive.length) {
+			int numWords = numWords(2 * (position + 1));
+			this.alive = Arrays.copyOf(this.alive, numWords);
+			this.verify = Arrays.copyOf(this.verify, numWords);
+		}
+		setBit(this.alive, position);
+		setBit(this.verify, position);
+		this.numAlive++;
+		this.numStale++;
+	}
+
+	/**
+	 * Notifies the index that the literals of a rule changed.
+	 *
+	 * @param rule the expanded rule
+	 */
+	public void ruleChanged(Rule rule) {
+		Integer position = this.positions.get(rule);
+		if (position != null && !getBit(this.verify, position)) {
+			setBit(this.verify, position);
+			this.numStale++;
+		}
+	}
+
+	/**
+	 * Notifies the index that a rule was removed from the rule set.
+	 *
+	 * @param rule the removed rule
+	 */
+	public void ruleRemoved(Rule rule) {
+		Integer position = this.positions.remove(rule);
+		if (position != null) {
+			this.rules.set(position, null);
+			this.alive[position >>> 6] &= ~(1L << position);
+			this.numAlive--;
+			this.numStale++;
+		}
+	}
+
+	/**
+	 * Gets the rules of the rule set that cover an instance, in rule set order.
+	 * The index is rebuilt first if it does not describe the rule set.
+	 *
+	 * @param instance the instance
+	 * @param ruleSet the rule set
+	 * @param firstOnly whether to stop at the first covering rule
+	 * @return the covering rules
+	 */
+	public List<Rule> getCoveringRules(Instance instance, List<Rule> ruleSet, boolean firstOnly) {
+		if (ruleSet != this.ruleSet || ruleSet.size() != this.numAlive
+				|| this.numStale >= Math.max(MIN_STALE_RULES, MAX_STALE_FRACTION * this.numAlive)) {
+			build(ruleSet);
+		}
+		long[] violated = new long[this.alive.length];
+		for (AttributeIndex attributeIndex : this.attributeIndexes) {
+			attributeIndex.addViolatedRules(instance, violated);
+		}
+		List<Rule> coveringRules = new ArrayList<Rule>();
+		for (int word = 0; word < violated.length; word++) {
+			// violations found by the index are ignored for the rules checked directly
+			long candidates = this.alive[word] & ~(violated[word] & ~this.verify[word]);
+			while (candidates != 0) {
+				int position = (word << 6) + Long.numberOfTrailingZeros(candidates);
+				candidates &= candidates - 1;
+				Rule rule = this.rules.get(position);
+				if (getBit(this.verify, position) && !rule.isCovering(instance)) {
+					continue;
+				}
+				coveringRules.add(rule);
+				if (firstOnly) {
+					return coveringRules;
+				}
+			}
+		}
+		return coveringRules;
+	}
+
+	/**
+	 * Gets the predicate of a node if the index can represent it.
+	 *
+	 * @param node the node
+	 * @return the predicate, or null if the rule must be checked directly
+	 */
+	protected static NumericAttributeBinaryRulePredicate indexablePredicate(RuleSplitNode node) {
+		if (!(node.getSplitTest() instanceof NumericAttributeBinaryRulePredicate)) {
+			return null;
+		}
+		NumericAttributeBinaryRulePredicate predicate = (NumericAttributeBinaryRulePredicate) node.getSplitTest();
+		if (!predicate.isEqualOrLess() || Double.isNaN(predicate.getSplitValue())
+				|| (predicate.getOperator() != 1 && predicate.getOperator() != 2)) {
+			return null;
+		}
+		return predicate;
+	}
+
+	protected static int numWords(int numBits) {
+		return (numBits + 63) >>> 6;
+	}
+
+	protected static void setBit(long[] bits, int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+
+	protected static boolean getBit(long[] bits, int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * The literals of one attribute.
+	 */
+	protected static class AttributeIndex implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The attribute index, as used by the predicates. */
+		protected int attIndex;
+
+		/** The sorted thresholds of the &lt;= literals. */
+		protected double[] lessThresholds;
+
+		/** The rule of each sorted &lt;= literal. */
+		protected int[] lessPositions;
+
+		/** The rules with a &lt;= literal among the first i * CHECKPOINT_INTERVAL thresholds. */
+		protected long[][] lessViolated;
+
+		/** The sorted thresholds of the &gt; literals. */
+		protected double[] greaterThresholds;
+
+		/** The rule of each sorted &gt; literal. */
+		protected int[] greaterPositions;
+
+		/** The rules with a &gt; literal among the thresholds from i * CHECKPOINT_INTERVAL on. */
+		protected long[][] greaterViolated;
+
+		/** The rules with a literal on the attribute. */
+		protected long[] constrained;
+
+		/**
+		 * Adds to a bit set the rules violated by the value of the attribute.
+		 *
+		 * @param instance the instance
+		 * @param violated the bit set
+		 */
+		public void addViolatedRules(Instance instance, long[] violated) {
+			int instAttIndex = this.attIndex < instance.classIndex() ? this.attIndex : this.attIndex + 1;
+			if (instance.isMissing(instAttIndex)) {
+				or(violated, this.constrained);
+				return;
+			}
+			double value = instance.value(instAttIndex);
+			// value <= t fails for the thresholds below value
+			int end = firstNotBelow(this.lessThresholds, value);
+			int checkpoint = end / CHECKPOINT_INTERVAL;
+			or(violated, this.lessViolated[checkpoint]);
+			for (int i = checkpoint * CHECKPOINT_INTERVAL; i < end; i++) {
+				setBit(violated, this.lessPositions[i]);
+			}
+			// value > t fails for the thresholds from value on
+			int start = firstNotBelow(this.greaterThresholds, value);
+			checkpoint = (start + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL;
+			int checkpointStart = Math.min(checkpoint * CHECKPOINT_INTERVAL, this.greaterThresholds.length);
+			if (checkpoint < this.greaterViolated.length) {
+				or(violated, this.greaterViolated[checkpoint]);
+			}
+			for (int i = start; i < checkpointStart; i++) {
+				setBit(violated, this.greaterPositions[i]);
+			}
+		}
+
+		protected static int firstNotBelow(double[] thresholds, double value) {
+			int low = 0;
+			int high = thresholds.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (thresholds[mid] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		protected static void or(long[] bits, long[] other) {
+			if (other == null) {
+				return;
+			}
+			for (int i = 0; i < other.length; i++) {
+				bits[i] |= other[i];
+			}
+		}
+	}
+
+	/**
+	 * Collects the literals of one attribute while the index is built.
+	 */
+	protected static class AttributeIndexBuilder {
+
+		protected int attIndex;
+
+		protected List<double[]> lessLiterals = new ArrayList<double[]>();
+
+		protected List<double[]> greaterLiterals = new ArrayList<double[]>();
+
+		public AttributeIndexBuilder(int attIndex) {
+			this.attIndex = attIndex;
+		}
+
+		public void add(NumericAttributeBinaryRulePredicate predicate, int position) {
+			double[] literal = {predicate.getSplitValue(), position};
+			if (predicate.getOperator() == 1) {
+				this.lessLiterals.add(literal);
+			} else {
+				this.greaterLiterals.add(literal);
+			}
+		}
+
+		public AttributeIndex build(int numWords) {
+			AttributeIndex index = new AttributeIndex();
+			index.attIndex = this.attIndex;
+			index.constrained = new long[numWords];
+			double[][] less = sortedLiterals(this.lessLiterals);
+			index.lessThresholds = new double[less.length];
+			index.lessPositions = new int[less.length];
+			index.lessViolated = new long[less.length / CHECKPOINT_INTERVAL + 1][];
+			long[] bits = new long[numWords];
+			for (int i = 0; i < less.length; i++) {
+				if (i % CHECKPOINT_INTERVAL == 0 && i > 0) {
+					index.lessViolated[i / CHECKPOINT_INTERVAL] = bits.clone();
+				}
+				index.lessThresholds[i] = less[i][0];
+				index.lessPositions[i] = (int) less[i][1];
+				setBit(bits, index.lessPositions[i]);
+				setBit(index.constrained, index.lessPositions[i]);
+			}
+			if (less.length % CHECKPOINT_INTERVAL == 0 && less.length > 0) {
+				index.lessViolated[less.length / CHECKPOINT_INTERVAL] = bits;
+			}
+			double[][] greater = sortedLiterals(this.greaterLiterals);
+			index.greaterThresholds = new double[greater.length];
+			index.greaterPositions = new int[greater.length];
+			index.greaterViolated = new long[(greater.length + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL][];
+			bits = new long[numWords];
+			for (int i = greater.length - 1; i >= 0; i--) {
+				index.greaterThresholds[i] = greater[i][0];
+				index.greaterPositions[i] = (int) greater[i][1];
+				setBit(bits, index.greaterPositions[i]);
+				setBit(index.constrained, index.greaterPositions[i]);
+				if (i % CHECKPOINT_INTERVAL == 0) {
+					index.greaterViolated[i / CHECKPOINT_INTERVAL] = bits.clone();
+				}
+			}
+			return index;
+		}
+
+		protected static double[][] sortedLiterals(List<double[]> literals) {
+			double[][] sorted = literals.toArray(new double[literals.size()][]);
+			Arrays.sort(sorted, new Comparator<double[]>() {
+				@Override
+				public int compare(double[] a, double[] b) {
+					return Double.compare(a[0], b[0]);
+				}
+			});
+			return sorted;
+		}
+	}
+
+	@Override
+	public void getDescription(StringBuilder sb, int indent) {
+	}
+
+}
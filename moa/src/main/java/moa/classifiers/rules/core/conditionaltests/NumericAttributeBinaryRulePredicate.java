@@ -109,6 +109,15 @@ public class NumericAttributeBinaryRulePredicate extends InstanceConditionalBina
 		 return this.attValue;
 	 }
 
+	 /**
+	  * Gets the comparison of this predicate: 0 for =, 1 for &lt;= and 2 for &gt;.
+	  *
+	  * @return the operator
+	  */
+	 public int getOperator() {
+		 return this.operator;
+	 }
+
 	 @Override
 	 public boolean evaluate(Instance inst) {
 		 if(state)
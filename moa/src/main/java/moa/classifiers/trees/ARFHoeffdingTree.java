@@ -19,9 +19,12 @@
 
 package moa.classifiers.trees;
 
+import java.util.concurrent.ForkJoinPool;
+
 import com.github.javacliparser.IntOption;
 import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.ParallelObserverUpdate;
 import moa.core.Utils;
 import com.yahoo.labs.samoa.instances.Instance;
 
@@ -90,6 +93,7 @@ public class ARFHoeffdingTree extends HoeffdingTree {
 
                 }
             }
+            ForkJoinPool pool = ht.getObserverUpdatePool();
             for (int j = 0; j < this.numAttributes - 1; j++) {
                 int i = this.listAttributes[j];
                 int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
@@ -98,7 +102,12 @@ public class ARFHoeffdingTree extends HoeffdingTree {
                     obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
                     this.attributeObservers.set(i, obs);
                 }
-                obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+                if (pool == null) {
+                    obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+                }
+            }
+            if (pool != null) {
+                ParallelObserverUpdate.observe(pool, this.attributeObservers, this.listAttributes, this.numAttributes - 1, inst);
             }
         }
     }
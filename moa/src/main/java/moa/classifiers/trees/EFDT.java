@@ -47,6 +47,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
@@ -59,10 +61,12 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.SplitSuggestionCache;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.DiscreteAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.ParallelObserverUpdate;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
@@ -160,6 +164,32 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     "The number of instances a leaf should observe before permitting Naive Bayes.",
     0, 0, Integer.MAX_VALUE);
 
+  // 0 by default so that the tree makes the same splits as without the cache;
+  // the cache then only rescores the attributes that saw a value since the
+  // last evaluation, so not those that were missing, and a positive tolerance
+  // also skips those that changed little
+  public FloatOption splitReevaluationToleranceOption = new FloatOption(
+    "splitReevaluationTolerance",
+    'T',
+    "Relative growth of the weight seen by an attribute below which its last split suggestion is reused (0 = only reuse unchanged suggestions, which keeps the splits of the uncached tree).",
+    0.0, 0.0, Double.MAX_VALUE);
+
+  public IntOption splitEvaluationJobsOption = new IntOption(
+    "splitEvaluationJobs",
+    'j',
+    "Number of threads used to score the attributes of nodes with at least "
+      + SplitSuggestionCache.MIN_ATTRIBUTES_FOR_PARALLEL_EVALUATION
+      + " attributes (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+    1, -1, Integer.MAX_VALUE);
+
+  public IntOption observerUpdateJobsOption = new IntOption(
+    "observerUpdateJobs",
+    'o',
+    "Number of threads used to update the attribute observers of a node with at least "
+      + (2 * ParallelObserverUpdate.MIN_ATTRIBUTES_PER_TASK)
+      + " attributes (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+    1, -1, Integer.MAX_VALUE);
+
   protected Node treeRoot = null;
 
   protected int decisionNodeCount;
@@ -213,6 +243,14 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     }
   }
 
+  protected ExecutorService getSplitEvaluationExecutor() {
+    return ParallelObserverUpdate.getPool(this.splitEvaluationJobsOption.getValue());
+  }
+
+  protected ForkJoinPool getObserverUpdatePool() {
+    return ParallelObserverUpdate.getPool(this.observerUpdateJobsOption.getValue());
+  }
+
   @Override
   public double[] getVotesForInstance(Instance inst) {
     if (this.treeRoot != null) {
@@ -540,6 +578,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	  Node newSplit = newSplitNode(splitDecision.splitTest,
 	    node.getObservedClassDistribution(), splitDecision.numSplits());
 	  ((EFDTSplitNode) newSplit).attributeObservers = node.attributeObservers; // copy the attribute observers
+	  ((EFDTSplitNode) newSplit).splitSuggestionCache = node.splitSuggestionCache;
 	  newSplit.setInfogainSum(node.getInfogainSum());  // transfer infogain history, leaf to split
 
 	  for (int i = 0; i < splitDecision.numSplits(); i++) {
@@ -888,6 +927,8 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
     protected AutoExpandVector<AttributeClassObserver> attributeObservers;
 
+    protected SplitSuggestionCache splitSuggestionCache;
+
     public EFDTSplitNode(InstanceConditionalTest splitTest, double[] classObservations, int size) {
       super(splitTest, classObservations, size);
     }
@@ -928,25 +969,10 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     // DRY Don't Repeat Yourself... code duplicated from ActiveLearningNode in VFDT.java. However, this is the most practical way to share stand-alone.
     public AttributeSplitSuggestion[] getBestSplitSuggestions(
       SplitCriterion criterion, EFDT ht) {
-      List<AttributeSplitSuggestion> bestSuggestions = new LinkedList<>();
       double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
-      if (!ht.noPrePruneOption.isSet()) {
-	// add null split as an option
-	bestSuggestions.add(new AttributeSplitSuggestion(null,
-	  new double[0][], criterion.getMeritOfSplit(
-	  preSplitDist, new double[][]{preSplitDist})));
-      }
-      for (int i = 0; i < this.attributeObservers.size(); i++) {
-	AttributeClassObserver obs = this.attributeObservers.get(i);
-	if (obs != null) {
-	  AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-	    preSplitDist, i, ht.binarySplitsOption.isSet());
-	  if (bestSuggestion != null) {
-	    bestSuggestions.add(bestSuggestion);
-	  }
-	}
-      }
-      return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
+      return this.splitSuggestionCache.getBestSplitSuggestions(this.attributeObservers,
+	criterion, preSplitDist, ht.binarySplitsOption.isSet(), !ht.noPrePruneOption.isSet(),
+	ht.splitReevaluationToleranceOption.getValue(), ht.getSplitEvaluationExecutor());
     }
 
 
@@ -958,6 +984,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
       this.observedClassDistribution.addToValue((int) inst.classValue(), inst.weight()); // update prior (predictor)
 
+      ForkJoinPool pool = ht.getObserverUpdatePool();
       for (int i = 0; i < inst.numAttributes() - 1; i++) { //update likelihood
 	int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
 	AttributeClassObserver obs = this.attributeObservers.get(i);
@@ -965,7 +992,15 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	  obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
 	  this.attributeObservers.set(i, obs);
 	}
-	obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+	if (pool == null) {
+	  obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+	}
+	if (!inst.isMissing(instAttIndex)) {
+	  this.splitSuggestionCache.attributeObserved(i, inst.weight());
+	}
+      }
+      if (pool != null) {
+	ParallelObserverUpdate.observe(pool, this.attributeObservers, null, inst.numAttributes() - 1, inst);
       }
 
       // check if a better split is available. if so, chop the tree at this point, copying likelihood. predictors for children are from parent likelihood.
@@ -1087,6 +1122,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	    node.getObservedClassDistribution(), splitDecision.numSplits());
 
 	  ((EFDTSplitNode) newSplit).attributeObservers = node.attributeObservers; // copy the attribute observers
+	  ((EFDTSplitNode) newSplit).splitSuggestionCache = node.splitSuggestionCache;
 	  newSplit.setInfogainSum(node.getInfogainSum());  // transfer infogain history, split to replacement split
 
 	  if (node.splitTest == splitDecision.splitTest
@@ -1247,6 +1283,8 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
     protected AutoExpandVector<AttributeClassObserver> attributeObservers = new AutoExpandVector<>();
 
+    protected SplitSuggestionCache splitSuggestionCache = new SplitSuggestionCache();
+
     protected boolean isInitialized;
 
     public ActiveLearningNode(double[] initialClassObservations) {
@@ -1271,6 +1309,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
       }
       this.observedClassDistribution.addToValue((int) inst.classValue(),
 	inst.weight());
+      ForkJoinPool pool = ht.getObserverUpdatePool();
       for (int i = 0; i < inst.numAttributes() - 1; i++) {
 	int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
 	AttributeClassObserver obs = this.attributeObservers.get(i);
@@ -1278,7 +1317,15 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	  obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
 	  this.attributeObservers.set(i, obs);
 	}
-	obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+	if (pool == null) {
+	  obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+	}
+	if (!inst.isMissing(instAttIndex)) {
+	  this.splitSuggestionCache.attributeObserved(i, inst.weight());
+	}
+      }
+      if (pool != null) {
+	ParallelObserverUpdate.observe(pool, this.attributeObservers, null, inst.numAttributes() - 1, inst);
       }
     }
 
@@ -1296,25 +1343,10 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
     public AttributeSplitSuggestion[] getBestSplitSuggestions(
       SplitCriterion criterion, EFDT ht) {
-      List<AttributeSplitSuggestion> bestSuggestions = new LinkedList<>();
       double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
-      if (!ht.noPrePruneOption.isSet()) {
-	// add null split as an option
-	bestSuggestions.add(new AttributeSplitSuggestion(null,
-	  new double[0][], criterion.getMeritOfSplit(
-	  preSplitDist, new double[][]{preSplitDist})));
-      }
-      for (int i = 0; i < this.attributeObservers.size(); i++) {
-	AttributeClassObserver obs = this.attributeObservers.get(i);
-	if (obs != null) {
-	  AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-	    preSplitDist, i, ht.binarySplitsOption.isSet());
-	  if (bestSuggestion != null) {
-	    bestSuggestions.add(bestSuggestion);
-	  }
-	}
-      }
-      return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
+      return this.splitSuggestionCache.getBestSplitSuggestions(this.attributeObservers,
+	criterion, preSplitDist, ht.binarySplitsOption.isSet(), !ht.noPrePruneOption.isSet(),
+	ht.splitReevaluationToleranceOption.getValue(), ht.getSplitEvaluationExecutor());
     }
 
     public void disableAttribute(int attIndex) {
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
@@ -35,12 +36,13 @@ import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
-import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.bayes.NaiveBayesKernel;
 import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.DiscreteAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.ParallelObserverUpdate;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
@@ -167,6 +169,12 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public IntOption observerUpdateJobsOption = new IntOption("observerUpdateJobs", 'o',
+            "Number of threads used to update the attribute observers of a leaf with at least "
+            + (2 * ParallelObserverUpdate.MIN_ATTRIBUTES_PER_TASK)
+            + " attributes (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+            1, -1, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -442,6 +450,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             }
             this.observedClassDistribution.addToValue((int) inst.classValue(),
                     inst.weight());
+            ForkJoinPool pool = ht.getObserverUpdatePool();
             for (int i = 0; i < inst.numAttributes() - 1; i++) {
                 int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
                 AttributeClassObserver obs = this.attributeObservers.get(i);
@@ -449,7 +458,13 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
                     obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
                     this.attributeObservers.set(i, obs);
                 }
-                obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+                if (pool == null) {
+                    obs.observeAttributeClass(inst.value(instAttIndex), (int) inst.classValue(), inst.weight());
+                }
+            }
+            if (pool != null) {
+                // observers are updated in disjoint attribute ranges, same result as above
+                ParallelObserverUpdate.observe(pool, this.attributeObservers, null, inst.numAttributes() - 1, inst);
             }
         }
 
@@ -511,6 +526,9 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
 
     protected boolean growthAllowed;
 
+    /** Computes the naive Bayes predictions of the leaves, created when first needed. */
+    protected transient NaiveBayesKernel naiveBayesKernel;
+
     public int calcByteSize() {
         int size = (int) SizeOf.sizeOf(this);
         if (this.treeRoot != null) {
@@ -660,6 +678,20 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         return (AttributeClassObserver) numericClassObserver.copy();
     }
 
+    /**
+     * @return the kernel shared by the naive Bayes leaves of this tree
+     */
+    public NaiveBayesKernel getNaiveBayesKernel() {
+        if (this.naiveBayesKernel == null) {
+            this.naiveBayesKernel = new NaiveBayesKernel();
+        }
+        return this.naiveBayesKernel;
+    }
+
+    protected ForkJoinPool getObserverUpdatePool() {
+        return ParallelObserverUpdate.getPool(this.observerUpdateJobsOption.getValue());
+    }
+
     protected void attemptToSplit(ActiveLearningNode node, SplitNode parent,
             int parentIndex) {
         if (!node.observedClassDistributionIsPure()) {
@@ -896,7 +928,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         @Override
         public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
             if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
-                return NaiveBayes.doNaiveBayesPrediction(inst,
+                return ht.getNaiveBayesKernel().getVotesForInstance(inst,
                         this.observedClassDistribution,
                         this.attributeObservers);
             }
@@ -927,7 +959,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
             }
-            if (Utils.maxIndex(NaiveBayes.doNaiveBayesPrediction(inst,
+            if (Utils.maxIndex(ht.getNaiveBayesKernel().predict(inst,
                     this.observedClassDistribution, this.attributeObservers)) == trueClass) {
                 this.nbCorrectWeight += inst.weight();
             }
@@ -939,7 +971,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             if (this.mcCorrectWeight > this.nbCorrectWeight) {
                 return this.observedClassDistribution.getArrayCopy();
             }
-            return NaiveBayes.doNaiveBayesPrediction(inst,
+            return ht.getNaiveBayesKernel().getVotesForInstance(inst,
                     this.observedClassDistribution, this.attributeObservers);
         }
     }
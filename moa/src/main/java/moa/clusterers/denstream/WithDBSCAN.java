@@ -25,10 +25,13 @@
 package moa.clusterers.denstream;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.clusterers.AbstractClusterer;
+import moa.clusterers.macro.MicroClusterIndex;
 import moa.clusterers.macro.dbscan.DBScan;
 import moa.core.Measurement;
 import com.github.javacliparser.FloatOption;
@@ -73,6 +76,9 @@ public class WithDBSCAN extends AbstractClusterer {
 
 	Clustering p_micro_cluster;
 	Clustering o_micro_cluster;
+	// Indexes over the centres of the potential and outlier micro-clusters
+	MicroClusterIndex<MicroCluster> p_index;
+	MicroClusterIndex<MicroCluster> o_index;
 	ArrayList<DenPoint> initBuffer;
 
 	boolean initialized;
@@ -114,6 +120,8 @@ public class WithDBSCAN extends AbstractClusterer {
 		initialized = false;
 		p_micro_cluster = new Clustering();
 		o_micro_cluster = new Clustering();
+		p_index = new MicroClusterIndex<MicroCluster>(epsilon);
+		o_index = new MicroClusterIndex<MicroCluster>(epsilon);
 		initBuffer = new ArrayList<DenPoint>();
 		
 		tp = Math.round(1 / lambda * Math.log((beta * mu) / (beta * mu - 1))) + 1;
@@ -135,6 +143,7 @@ public class WithDBSCAN extends AbstractClusterer {
 							currentTimestamp);
 					expandCluster(mc, initBuffer, neighbourhood);
 					p_micro_cluster.add(mc);
+					p_index.insert(mc, mc.getCenter(), mc.getRadius(timestamp));
 				} else {
 					point.covered = false;
 				}
@@ -168,16 +177,17 @@ public class WithDBSCAN extends AbstractClusterer {
 			// ////////////
 			boolean merged = false;
 			if (p_micro_cluster.getClustering().size() != 0) {
-				MicroCluster x = nearestCluster(point, p_micro_cluster);
+				MicroCluster x = nearestCluster(point, p_micro_cluster, p_index);
 				MicroCluster xCopy = x.copy();
 				xCopy.insert(point, timestamp);
 				if (xCopy.getRadius(timestamp) <= epsilon) {
 					x.insert(point, timestamp);
+					p_index.move(x, x.getCenter(), x.getRadius(timestamp));
 					merged = true;
 				}
 			}
 			if (!merged && (o_micro_cluster.getClustering().size() != 0)) {
-				MicroCluster x = nearestCluster(point, o_micro_cluster);
+				MicroCluster x = nearestCluster(point, o_micro_cluster, o_index);
 				MicroCluster xCopy = x.copy();
 				xCopy.insert(point, timestamp);
 
@@ -186,43 +196,60 @@ public class WithDBSCAN extends AbstractClusterer {
 					merged = true;
 					if (x.getWeight() > beta * mu) {
 						o_micro_cluster.getClustering().remove(x);
+						o_index.remove(x);
 						p_micro_cluster.getClustering().add(x);
+						p_index.insert(x, x.getCenter(), x.getRadius(timestamp));
+					} else {
+						o_index.move(x, x.getCenter(), x.getRadius(timestamp));
 					}
 				}
 			}
 			if (!merged) {
-				o_micro_cluster.getClustering().add(
-						new MicroCluster(point.toDoubleArray(), point
-								.toDoubleArray().length, timestamp, lambda,
-								currentTimestamp));
+				MicroCluster mc = new MicroCluster(point.toDoubleArray(), point
+						.toDoubleArray().length, timestamp, lambda,
+						currentTimestamp);
+				o_micro_cluster.getClustering().add(mc);
+				o_index.insert(mc, mc.getCenter(), mc.getRadius(timestamp));
 			}
 
 			// //////////////////////////
 			// Periodic cluster removal//
 			// //////////////////////////
 			if (timestamp % tp == 0) {
-				ArrayList<MicroCluster> removalList = new ArrayList<MicroCluster>();
-				for (Cluster c : p_micro_cluster.getClustering()) {
-					if (((MicroCluster) c).getWeight() < beta * mu) {
-						removalList.add((MicroCluster) c);
+				// Micro-clusters are removed in place, in a single pass over each list
+				Iterator<Cluster> iterator = p_micro_cluster.getClustering().iterator();
+				List<Cluster> kept = new ArrayList<Cluster>(p_micro_cluster.size());
+				while (iterator.hasNext()) {
+					MicroCluster c = (MicroCluster) iterator.next();
+					if (c.getWeight() < beta * mu) {
+						p_index.remove(c);
+					} else {
+						kept.add(c);
 					}
 				}
-				for (Cluster c : removalList) {
-					p_micro_cluster.getClustering().remove(c);
+				if (kept.size() != p_micro_cluster.size()) {
+					p_micro_cluster.getClustering().clear();
+					p_micro_cluster.getClustering().addAll(kept);
 				}
 
-				for (Cluster c : o_micro_cluster.getClustering()) {
-					long t0 = ((MicroCluster) c).getCreationTime();
+				double xsi2 = Math.pow(2, -lambda * tp) - 1;
+				iterator = o_micro_cluster.getClustering().iterator();
+				kept = new ArrayList<Cluster>(o_micro_cluster.size());
+				while (iterator.hasNext()) {
+					MicroCluster c = (MicroCluster) iterator.next();
+					long t0 = c.getCreationTime();
 					double xsi1 = Math
 							.pow(2, (-lambda * (timestamp - t0 + tp))) - 1;
-					double xsi2 = Math.pow(2, -lambda * tp) - 1;
 					double xsi = xsi1 / xsi2;
-					if (((MicroCluster) c).getWeight() < xsi) {
-						removalList.add((MicroCluster) c);
+					if (c.getWeight() < xsi) {
+						o_index.remove(c);
+					} else {
+						kept.add(c);
 					}
 				}
-				for (Cluster c : removalList) {
-					o_micro_cluster.getClustering().remove(c);
+				if (kept.size() != o_micro_cluster.size()) {
+					o_micro_cluster.getClustering().clear();
+					o_micro_cluster.getClustering().addAll(kept);
 				}
 			}
 
@@ -261,17 +288,19 @@ public class WithDBSCAN extends AbstractClusterer {
 		return neighbourIDs;
 	}
 
-	private MicroCluster nearestCluster(DenPoint p, Clustering cl) {
-		MicroCluster min = null;
+	private MicroCluster nearestCluster(DenPoint p, Clustering cl,
+			MicroClusterIndex<MicroCluster> index) {
+		// The first micro-cluster is kept unless the point lies within the
+		// radius of another one, so only those within reach are looked at;
+		// ties go to the first micro-cluster in the list, as in a full scan.
+		double[] point = p.toDoubleArray();
+		MicroCluster min = (MicroCluster) cl.get(0);
 		double minDist = 0;
-		for (int c = 0; c < cl.size(); c++) {
-			MicroCluster x = (MicroCluster) cl.get(c);
-			if (min == null) {
-				min = x;
-			}
-			double dist = distance(p.toDoubleArray(), x.getCenter());
+		for (MicroCluster x : index.rangeQuery(point, index.getRadiusBound())) {
+			double dist = distance(point, x.getCenter());
 			dist -= x.getRadius(timestamp);
-			if (dist < minDist) {
+			if (dist < minDist || (dist == minDist && dist < 0
+					&& cl.getClustering().indexOf(x) < cl.getClustering().indexOf(min))) {
 				minDist = dist;
 				min = x;
 			}
@@ -84,6 +84,12 @@ public class CharacteristicVector {
 	 * the last time the grid density was updated.
 	 */
 	private boolean attChange;
+
+	/**
+	 * The time from which the grid must be assessed for sporadicity again. Until then the
+	 * grid, if it is not updated, cannot satisfy rule S1 of Chen and Tu 2007.
+	 */
+	private int sporadicCheckTime;
 	
 	/**
 	 * @category Constructor method for the Characteristic Vector of grid g
@@ -109,6 +115,7 @@ public class CharacteristicVector {
 			this.attribute = TRANSITIONAL;
 		
 		this.attChange = false;
+		this.sporadicCheckTime = tg;
 	}
 
 	/**
@@ -195,6 +202,20 @@ public class CharacteristicVector {
 		this.isSporadic = isSporadic;
 	}
 
+	/**
+	 * @return the time from which the grid must be assessed for sporadicity again
+	 */
+	public int getSporadicCheckTime() {
+		return this.sporadicCheckTime;
+	}
+
+	/**
+	 * @param sporadicCheckTime the time from which the grid must be assessed for sporadicity again
+	 */
+	public void setSporadicCheckTime(int sporadicCheckTime) {
+		this.sporadicCheckTime = sporadicCheckTime;
+	}
+
 	public int getDensityTimeStamp() {
 		return densityTimeStamp;
 	}
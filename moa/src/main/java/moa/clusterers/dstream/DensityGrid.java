@@ -58,6 +58,11 @@ public class DensityGrid extends CFCluster
 	 * step of D-Stream.
 	 */
 	private boolean isVisited;
+
+	/**
+	 * The hash code of the coordinates, computed once as they do not change.
+	 */
+	private int hashCode;
 	
 	/**
 	 * A constructor method for a density grid
@@ -82,6 +87,7 @@ public class DensityGrid extends CFCluster
 		}
 		
 		this.isVisited = false;
+		this.hashCode = computeHashCode();
 	}
 
 	/**
@@ -108,6 +114,7 @@ public class DensityGrid extends CFCluster
 		}
 		
 		this.isVisited = false;
+		this.hashCode = dg.hashCode;
 	}
 	
 	/**
@@ -148,6 +155,11 @@ public class DensityGrid extends CFCluster
 	 */
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		//int[] primes = {31, 37, 41, 43, 47, 53, 59};
 		int hc = 1;
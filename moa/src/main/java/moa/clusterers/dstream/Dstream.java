@@ -121,14 +121,31 @@ public class Dstream extends AbstractClusterer {
 	 * A list of all density grids which are being monitored;
 	 * given in figure 1 of Chen and Tu 2007
 	 */
-	private HashMap<DensityGrid,CharacteristicVector> grid_list;
+	private GridTable<CharacteristicVector> grid_list;
 	
 	/**
 	 * A list of all density grids which have been deleted;
 	 * allows the recording of tm - the last time when the 
 	 * grid is removed from grid list as a sporadic grid (if ever).
 	 */
-	private HashMap<DensityGrid,Integer> deleted_grids;
+	private GridTable<Integer> deleted_grids;
+	
+	/**
+	 * The density grids whose attribute changed during the last density update,
+	 * in grid_list order.
+	 */
+	private ArrayList<DensityGrid> changed_grids;
+	
+	/**
+	 * True if every density grid must be assessed for sporadicity at the next call to
+	 * removeSporadic, because N, gap or the decay factor changed.
+	 */
+	private boolean recheckSporadic;
+	
+	/**
+	 * The density grid coordinates of the current instance.
+	 */
+	private int[] coordinates;
 	
 	
 	/**
@@ -203,8 +220,10 @@ public class Dstream extends AbstractClusterer {
 		//System.out.println("Option values set...");
 
 		this.initialized = false;
-		this.grid_list = new HashMap<DensityGrid, CharacteristicVector>();
-		this.deleted_grids = new HashMap<DensityGrid, Integer>();
+		this.grid_list = new GridTable<CharacteristicVector>();
+		this.deleted_grids = new GridTable<Integer>();
+		this.changed_grids = new ArrayList<DensityGrid>();
+		this.recheckSporadic = false;
 		this.cluster_list = new ArrayList<GridCluster>();
 		//System.out.println("Data structures initialized...");
 
@@ -244,6 +263,7 @@ public class Dstream extends AbstractClusterer {
 			//System.out.println("d = "+this.d);
 			this.minVals = new int[this.d];
 			this.maxVals = new int[this.d];
+			this.coordinates = new int[this.d];
 			//System.out.println("...data initialized");
 			
 			for(int i = 0 ; i < this.d ; i++)
@@ -265,7 +285,7 @@ public class Dstream extends AbstractClusterer {
 
 		// 2. Determine the density grid g that contains x
 		//System.out.print(" & Step 2 ");
-		g = new int[this.d];
+		g = this.coordinates;
 
 		for (int i = 0 ; i < this.d ; i++)
 		{
@@ -316,23 +336,25 @@ public class Dstream extends AbstractClusterer {
 			{
 				gap = 1;
 			}
+			this.recheckSporadic = true;
 			//System.out.println(" A is "+optionA+", B is "+optionB+" and gap = "+gap);
 		}
 
-		dg = new DensityGrid(g);
-		//System.out.println(dg.toString());
+		// Look g up by its coordinates; a DensityGrid is only built for new grids
+		cv = this.grid_list.get(g);
 		
 		// 3. If (g not in grid_list) insert dg to grid_list
 		//System.out.println(" & Step 3 or 4");
 		
-		if(!this.grid_list.containsKey(dg))
+		if(cv == null)
 		{
+			dg = new DensityGrid(g);
 			//System.out.print("3 - dg wasn't in grid_list!");
-			if(this.deleted_grids.containsKey(dg))
+			Integer removeTime = this.deleted_grids.remove(dg);
+			if(removeTime != null)
 			{
 				//System.out.print(" but it was in deleted_grids!");
-				cv = new CharacteristicVector(this.getCurrTime(), this.deleted_grids.get(dg).intValue(), 1.0, -1, false, this.getDL(), this.getDM());
-				this.deleted_grids.remove(dg);
+				cv = new CharacteristicVector(this.getCurrTime(), removeTime.intValue(), 1.0, -1, false, this.getDL(), this.getDM());
 			}
 			else
 				cv = new CharacteristicVector(this.getCurrTime(), -1, 1.0, -1, false, this.getDL(), this.getDM());
@@ -345,15 +367,12 @@ public class Dstream extends AbstractClusterer {
 		else
 		{
 			//System.out.print("4 - dg was in grid_list!");
-			cv = this.grid_list.get(dg);
-				
 			cv.densityWithNew(this.getCurrTime(), this.getDecayFactor());
 				
 			cv.setUpdateTime(this.getCurrTime());
+			cv.setSporadicCheckTime(this.getCurrTime());
 		
 			//System.out.println(" "+dg.toString()+" "+cv.toString());
-		
-			grid_list.put(dg, cv);
 		}
 
 		// 5. If tc == gap, then initial clustering
@@ -413,14 +432,10 @@ public class Dstream extends AbstractClusterer {
 		// 2. Assign each dense grid to a distinct cluster
 		// and
 		// 3. Label all other grids as NO_CLASS	
-		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> glIter = this.grid_list.entrySet().iterator();
-		HashMap<DensityGrid, CharacteristicVector> newGL = new HashMap<DensityGrid, CharacteristicVector>();
-		
-		while(glIter.hasNext())
+		for (int i = 0 ; i < this.grid_list.size() ; i++)
 		{
-			Map.Entry<DensityGrid, CharacteristicVector> grid = glIter.next();
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cvOfG = grid.getValue();
+			DensityGrid dg = this.grid_list.getGrid(i);
+			CharacteristicVector cvOfG = this.grid_list.getValue(i);
 
 			//System.out.print(dg.toString());
 			if(cvOfG.getAttribute() == DENSE)
@@ -436,10 +451,8 @@ public class Dstream extends AbstractClusterer {
 				cvOfG.setLabel(NO_CLASS);
 
 			//System.out.println();
-			newGL.put(dg, cvOfG);
 		}
 
-		this.grid_list = newGL;
 		//printGridClusters();
 		
 		// 4. Make changes to grid labels by doing:
@@ -593,13 +606,13 @@ public class Dstream extends AbstractClusterer {
 	private boolean inspectChangedGrids()
 	{
 		HashMap<DensityGrid, CharacteristicVector> glNew = new HashMap<DensityGrid, CharacteristicVector>();
-		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> gridIter = this.grid_list.entrySet().iterator();
+		// Only the grids whose attribute changed are candidates, in grid_list order
+		Iterator<DensityGrid> gridIter = this.changed_grids.iterator();
 		
 		while (gridIter.hasNext() && glNew.isEmpty())
 		{
-			Map.Entry<DensityGrid, CharacteristicVector> grid = gridIter.next();
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			DensityGrid dg = gridIter.next();
+			CharacteristicVector cv = this.grid_list.get(dg);
 			int dgClass = cv.getLabel();
 			
 			if(cv.isAttChanged() && !dg.isVisited())
@@ -620,7 +633,8 @@ public class Dstream extends AbstractClusterer {
 		if (!glNew.isEmpty())
 		{
 			//System.out.println("There are "+glNew.size()+" entries to update from glNew to grid_list.");
-			this.grid_list.putAll(glNew);
+			for (Map.Entry<DensityGrid, CharacteristicVector> grid : glNew.entrySet())
+				this.grid_list.put(grid.getKey(), grid.getValue());
 			cleanClusters();
 			return true;
 		}
@@ -1156,16 +1170,16 @@ public class Dstream extends AbstractClusterer {
 		//    b. Else
 		//       i. If (S1 && S2), mark as sporadic
 		
+		// Grids that are neither sporadic nor updated since they were last assessed are
+		// only assessed again once they may satisfy S1 (see nextSporadicCheckTime)
+		
 		// For each grid g in grid_list
-		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> glIter = this.grid_list.entrySet().iterator();
-		HashMap<DensityGrid, CharacteristicVector> newGL = new HashMap<DensityGrid, CharacteristicVector>();
 		ArrayList<DensityGrid> remGL = new ArrayList<DensityGrid>();
 				
-		while(glIter.hasNext())
+		for (int i = 0 ; i < this.grid_list.size() ; i++)
 		{
-			Map.Entry<DensityGrid, CharacteristicVector> grid = glIter.next();
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			DensityGrid dg = this.grid_list.getGrid(i);
+			CharacteristicVector cv = this.grid_list.getValue(i);
 			
 			// If g is sporadic
 			if (cv.isSporadic())
@@ -1184,22 +1198,19 @@ public class Dstream extends AbstractClusterer {
 				// Else if (S1 && S2), mark as sporadic - Else mark as normal
 				else
 				{
-					cv.setSporadic(checkIfSporadic(cv));
+					assessSporadic(cv);
 					//System.out.println("within gap" + dg.toString() + " sporadicity assessed "+cv.isSporadic());
-					newGL.put(dg, cv);
 				}
 				
 			}
 			// Else if (S1 && S2), mark as sporadic
-			else
+			else if (this.recheckSporadic || this.getCurrTime() >= cv.getSporadicCheckTime())
 			{
-				cv.setSporadic(checkIfSporadic(cv));
+				assessSporadic(cv);
 				//System.out.println(dg.toString() + " sporadicity assessed "+cv.isSporadic());
-				newGL.put(dg, cv);
 			}
 		}
-		
-		this.grid_list.putAll(newGL);
+		this.recheckSporadic = false;
 		
 		//System.out.println(" - Removed "+remGL.size()+" grids from grid_list.");
 		Iterator<DensityGrid> remIter = remGL.iterator();
@@ -1214,6 +1225,46 @@ public class Dstream extends AbstractClusterer {
 		
 	}
 
+	/**
+	 * Marks a density grid as sporadic or normal using rules S1 and S2 and, if it is normal,
+	 * records when it has to be assessed again.
+	 * 
+	 * @param cv - the CharacteristicVector of the density grid being assessed for sporadicity
+	 */
+	private void assessSporadic(CharacteristicVector cv)
+	{
+		boolean sporadic = checkIfSporadic(cv);
+		cv.setSporadic(sporadic);
+		if (!sporadic)
+			cv.setSporadicCheckTime(nextSporadicCheckTime(cv));
+	}
+
+	/**
+	 * Gives a time before which a normal density grid that is not updated cannot become
+	 * sporadic. Until then its density, which is decayed both in updateGridDensity and in
+	 * the S1 test, falls by at most decayFactor^2 per time step, while the threshold of S1
+	 * is at most its value for a density updated one gap earlier. S2 cannot hold before
+	 * (1 + beta) times the removal time of the grid. One gap is kept as a safety margin.
+	 * 
+	 * @param cv - the CharacteristicVector of a density grid that is not sporadic
+	 * @return the time from which the density grid must be assessed again
+	 */
+	private int nextSporadicCheckTime(CharacteristicVector cv)
+	{
+		long next = this.getCurrTime() + gap;
+		double density = cv.getCurrGridDensity(this.getCurrTime(), this.getDecayFactor());
+		double threshold = (this.cl * (1.0 - Math.pow(this.getDecayFactor(), gap + 1.0)))/(this.N * (1.0 - this.getDecayFactor()));
+		if (density > threshold)
+		{
+			double steps = Math.log(threshold / density) / (2.0 * Math.log(this.getDecayFactor()));
+			next = Math.max(next, this.getCurrTime() + (long) Math.min(Math.floor(steps), Integer.MAX_VALUE) - gap);
+		}
+		if (cv.getRemoveTime() != -1)
+			next = Math.max(next, (long) Math.min(Math.ceil((1 + this.beta)*cv.getRemoveTime()), Integer.MAX_VALUE) - gap);
+		
+		return (int) Math.min(next, Integer.MAX_VALUE);
+	}
+
 	/**
 	 * Determines whether a sparse density grid is sporadic using rules S1 and S2 of Chen and Tu 2007
 	 * 
@@ -1256,16 +1307,14 @@ public class Dstream extends AbstractClusterer {
 	{		
 		//System.out.println("Merge clusters "+smallClus+" and "+bigClus+".");
 		// Iterate through the density grids in grid_list to find those which are in highClass
-		for (Map.Entry<DensityGrid, CharacteristicVector> grid : grid_list.entrySet())
+		for (int i = 0 ; i < this.grid_list.size() ; i++)
 		{
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			CharacteristicVector cv = this.grid_list.getValue(i);
 
 			// Assign density grids in smallClus to bigClus
 			if(cv.getLabel() == smallClus)
 			{
 				cv.setLabel(bigClus);
-				this.grid_list.put(dg, cv);
 			}
 		}
 		//System.out.println("Density grids assigned to cluster "+bigClus+".");
@@ -1281,19 +1330,22 @@ public class Dstream extends AbstractClusterer {
 
 	/**
 	 * Iterates through grid_list and updates the density for each density grid therein.
-	 * Also marks each density grid as unvisited for this call to adjustClustering.
+	 * Also marks each density grid as unvisited for this call to adjustClustering, and
+	 * collects the density grids whose attribute changed.
 	 */
 	private void updateGridListDensity()
 	{
-		for (Map.Entry<DensityGrid, CharacteristicVector> grid : grid_list.entrySet())
+		this.changed_grids.clear();
+		for (int i = 0 ; i < this.grid_list.size() ; i++)
 		{
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cvOfG = grid.getValue();
+			DensityGrid dg = this.grid_list.getGrid(i);
+			CharacteristicVector cvOfG = this.grid_list.getValue(i);
 
 			dg.setVisited(false);
 			cvOfG.updateGridDensity(this.getCurrTime(), this.getDecayFactor(), this.getDL(), this.getDM());
 
-			this.grid_list.put(dg, cvOfG);
+			if (cvOfG.isAttChanged())
+				this.changed_grids.add(dg);
 		}
 	}
 
@@ -1379,10 +1431,10 @@ public class Dstream extends AbstractClusterer {
 	public void printGridList()
 	{
 		System.out.println("Grid List. Size "+this.grid_list.size()+".");
-		for (Map.Entry<DensityGrid, CharacteristicVector> grid : grid_list.entrySet())
+		for (int i = 0 ; i < this.grid_list.size() ; i++)
 		{
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			DensityGrid dg = this.grid_list.getGrid(i);
+			CharacteristicVector cv = this.grid_list.getValue(i);
 			
 			if (cv.getAttribute() != SPARSE)
 			{
@@ -1413,5 +1465,6 @@ public class Dstream extends AbstractClusterer {
 		this.cm = cmOption.getValue();
 		this.cl = clOption.getValue();
 		this.beta = betaOption.getValue();
+		this.recheckSporadic = true;
 	}
 }
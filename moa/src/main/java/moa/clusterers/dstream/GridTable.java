@@ -0,0 +1,281 @@
+/*
+ *    GridTable.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package moa.clusterers.dstream;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from density grids to values, used by D-Stream for its grid list and
+ * its list of deleted grids.
+ *
+ * The coordinates of each grid are encoded into a 64-bit key that is kept in a
+ * primitive array and probed with open addressing, so that a grid can be looked
+ * up by its coordinates without allocating a DensityGrid. The entries are kept
+ * packed in positions 0 to size()-1, which is how the table is iterated;
+ * removing an entry moves the last entry into its position.
+ */
+public class GridTable<V> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * The grid of each entry.
+	 */
+	private DensityGrid[] grids;
+
+	/**
+	 * The value of each entry.
+	 */
+	private Object[] values;
+
+	/**
+	 * The encoded coordinates of each entry.
+	 */
+	private long[] keys;
+
+	/**
+	 * The open addressing slots, holding the position of an entry plus one, or 0 if empty.
+	 */
+	private int[] slots;
+
+	private int size;
+
+	public GridTable()
+	{
+		this.grids = new DensityGrid[MIN_CAPACITY];
+		this.values = new Object[MIN_CAPACITY];
+		this.keys = new long[MIN_CAPACITY];
+		this.slots = new int[2 * MIN_CAPACITY];
+	}
+
+	/**
+	 * Encodes the coordinates of a density grid into a 64-bit key.
+	 *
+	 * @param coordinates the coordinates of the density grid
+	 * @return the key
+	 */
+	public static long encode(int[] coordinates)
+	{
+		long key = coordinates.length;
+		for (int i = 0 ; i < coordinates.length ; i++)
+		{
+			key = (key ^ (coordinates[i] & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+			key ^= key >>> 29;
+		}
+		return key;
+	}
+
+	/**
+	 * @return the number of entries in the table
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * @return TRUE if the table has no entries, FALSE otherwise
+	 */
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	/**
+	 * @param i a position between 0 and size()-1
+	 * @return the density grid at that position
+	 */
+	public DensityGrid getGrid(int i)
+	{
+		return this.grids[i];
+	}
+
+	/**
+	 * @param i a position between 0 and size()-1
+	 * @return the value at that position
+	 */
+	@SuppressWarnings("unchecked")
+	public V getValue(int i)
+	{
+		return (V) this.values[i];
+	}
+
+	/**
+	 * @param coordinates the coordinates of a density grid
+	 * @return the position of the density grid, or -1 if it is not in the table
+	 */
+	public int indexOf(int[] coordinates)
+	{
+		long key = encode(coordinates);
+		int mask = this.slots.length - 1;
+		for (int slot = (int) key & mask ; this.slots[slot] != 0 ; slot = (slot + 1) & mask)
+		{
+			int i = this.slots[slot] - 1;
+			if (this.keys[i] == key && Arrays.equals(this.grids[i].getCoordinates(), coordinates))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param coordinates the coordinates of a density grid
+	 * @return the value of the density grid, or null if it is not in the table
+	 */
+	public V get(int[] coordinates)
+	{
+		int i = indexOf(coordinates);
+		return i < 0 ? null : getValue(i);
+	}
+
+	/**
+	 * @param dg a density grid
+	 * @return the value of the density grid, or null if it is not in the table
+	 */
+	public V get(DensityGrid dg)
+	{
+		return get(dg.getCoordinates());
+	}
+
+	/**
+	 * @param dg a density grid
+	 * @return TRUE if the density grid is in the table, FALSE otherwise
+	 */
+	public boolean containsKey(DensityGrid dg)
+	{
+		return indexOf(dg.getCoordinates()) >= 0;
+	}
+
+	/**
+	 * Associates a value with a density grid. If the density grid is already in the
+	 * table its value is replaced, and the density grid object already in the table
+	 * is kept.
+	 *
+	 * @param dg the density grid
+	 * @param value the value
+	 * @return the previous value of the density grid, or null if it was not in the table
+	 */
+	public V put(DensityGrid dg, V value)
+	{
+		int i = indexOf(dg.getCoordinates());
+		if (i >= 0)
+		{
+			V previous = getValue(i);
+			this.values[i] = value;
+			return previous;
+		}
+		if (this.size == this.grids.length)
+		{
+			int capacity = 2 * this.grids.length;
+			this.grids = Arrays.copyOf(this.grids, capacity);
+			this.values = Arrays.copyOf(this.values, capacity);
+			this.keys = Arrays.copyOf(this.keys, capacity);
+			this.slots = new int[2 * capacity];
+			for (int j = 0 ; j < this.size ; j++)
+				insertSlot(j);
+		}
+		i = this.size++;
+		this.grids[i] = dg;
+		this.values[i] = value;
+		this.keys[i] = encode(dg.getCoordinates());
+		insertSlot(i);
+		return null;
+	}
+
+	/**
+	 * Removes a density grid from the table. The last entry moves into its position.
+	 *
+	 * @param dg the density grid
+	 * @return the value of the density grid, or null if it was not in the table
+	 */
+	public V remove(DensityGrid dg)
+	{
+		int i = indexOf(dg.getCoordinates());
+		if (i < 0)
+			return null;
+		V previous = getValue(i);
+		deleteSlot(i);
+		int last = --this.size;
+		if (i != last)
+		{
+			int slot = findSlot(last);
+			this.grids[i] = this.grids[last];
+			this.values[i] = this.values[last];
+			this.keys[i] = this.keys[last];
+			this.slots[slot] = i + 1;
+		}
+		this.grids[last] = null;
+		this.values[last] = null;
+		return previous;
+	}
+
+	/**
+	 * Removes every entry from the table.
+	 */
+	public void clear()
+	{
+		Arrays.fill(this.grids, 0, this.size, null);
+		Arrays.fill(this.values, 0, this.size, null);
+		Arrays.fill(this.slots, 0);
+		this.size = 0;
+	}
+
+	private void insertSlot(int i)
+	{
+		int mask = this.slots.length - 1;
+		int slot = (int) this.keys[i] & mask;
+		while (this.slots[slot] != 0)
+			slot = (slot + 1) & mask;
+		this.slots[slot] = i + 1;
+	}
+
+	private int findSlot(int i)
+	{
+		int mask = this.slots.length - 1;
+		int slot = (int) this.keys[i] & mask;
+		while (this.slots[slot] != i + 1)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	 * Empties the slot of an entry, moving back the entries that follow it in the
+	 * probe sequence so that no tombstones are needed.
+	 */
+	private void deleteSlot(int i)
+	{
+		int mask = this.slots.length - 1;
+		int hole = findSlot(i);
+		int slot = hole;
+		while (true)
+		{
+			slot = (slot + 1) & mask;
+			if (this.slots[slot] == 0)
+				break;
+			int home = (int) this.keys[this.slots[slot] - 1] & mask;
+			// the entry may fill the hole if its home slot is not between the hole and its slot
+			if (((slot - home) & mask) >= ((slot - hole) & mask))
+			{
+				this.slots[hole] = this.slots[slot];
+				hole = slot;
+			}
+		}
+		this.slots[hole] = 0;
+	}
+}
@@ -0,0 +1,289 @@
+/**
+ * [MicroClusterIndex.java]
+ *
+ * A spatial index over the centres of micro-clusters.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+package moa.clusterers.macro;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Index over the centres of micro-clusters, used for the online assignment of
+ * points to micro-clusters and for epsilon-neighbourhood queries in DBSCAN.
+ *
+ * The centres are hashed into a uniform grid over their first two dimensions,
+ * whose cells are as wide as the typical query range. As the distance between
+ * the projections of two points never exceeds their Euclidean distance, a range
+ * query only has to look at the cells around the query point. Items are moved
+ * when their centre or radius changes.
+ *
+ * Queries return candidates: every item whose stored centre is within the
+ * range, widened by a small tolerance so that callers recomputing centres
+ * (which may differ in the last bits) can apply their own exact test to the
+ * candidates and get the same result as a scan over all items.
+ *
+ * @param <T> the type of the indexed items, compared by identity
+ */
+public class MicroClusterIndex<T> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The number of dimensions of the grid. */
+	public static final int GRID_DIMENSIONS = 2;
+
+	/** The relative tolerance added to query ranges. */
+	public static final double TOLERANCE = 1e-7;
+
+	private static class Entry<T> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		T item;
+
+		double[] center;
+
+		/** The grid cell, or null if the centre has undefined coordinates. */
+		Long cell;
+
+		/** The position of the entry in its cell list. */
+		int position;
+	}
+
+	private double cellWidth;
+
+	private HashMap<Long, ArrayList<Entry<T>>> cells = new HashMap<Long, ArrayList<Entry<T>>>();
+
+	/** The entries whose centre cannot be placed in the grid; always candidates. */
+	private ArrayList<Entry<T>> unplaced = new ArrayList<Entry<T>>();
+
+	private IdentityHashMap<T, Entry<T>> entries = new IdentityHashMap<T, Entry<T>>();
+
+	/** An upper bound of the radii of the items, which is never lowered. */
+	private double radiusBound;
+
+	/**
+	 * @param cellWidth the width of the grid cells, best set to the usual query range
+	 */
+	public MicroClusterIndex(double cellWidth) {
+		this.cellWidth = cellWidth > 0 && !Double.isInfinite(cellWidth) ? cellWidth : 1.0;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return a value that is not smaller than the radius of any item
+	 */
+	public double getRadiusBound() {
+		return radiusBound;
+	}
+
+	/**
+	 * Adds an item, or moves it if it is already indexed.
+	 *
+	 * @param item the item
+	 * @param center the centre of the item, which is copied
+	 * @param radius the radius of the item
+	 */
+	public void insert(T item, double[] center, double radius) {
+		Entry<T> entry = entries.get(item);
+		if (entry == null) {
+			entry = new Entry<T>();
+			entry.item = item;
+			entries.put(item, entry);
+		} else {
+			unlink(entry);
+		}
+		entry.center = center.clone();
+		if (radius > radiusBound) {
+			radiusBound = radius;
+		}
+		entry.cell = cellOf(entry.center);
+		ArrayList<Entry<T>> list = unplaced;
+		if (entry.cell != null) {
+			list = cells.get(entry.cell);
+			if (list == null) {
+				list = new ArrayList<Entry<T>>();
+				cells.put(entry.cell, list);
+			}
+		}
+		entry.position = list.size();
+		list.add(entry);
+	}
+
+	/**
+	 * Updates the centre and radius of an item.
+	 *
+	 * @param item the item
+	 * @param center the new centre of the item, which is copied
+	 * @param radius the new radius of the item
+	 */
+	public void move(T item, double[] center, double radius) {
+		insert(item, center, radius);
+	}
+
+	/**
+	 * @param item the item to remove
+	 */
+	public void remove(T item) {
+		Entry<T> entry = entries.remove(item);
+		if (entry != null) {
+			unlink(entry);
+		}
+	}
+
+	public void clear() {
+		cells.clear();
+		unplaced.clear();
+		entries.clear();
+		radiusBound = 0;
+	}
+
+	/**
+	 * Gets every item whose centre may be within a distance of a point.
+	 *
+	 * @param point the point
+	 * @param range the distance
+	 * @return the candidates, in no particular order
+	 */
+	public List<T> rangeQuery(double[] point, double range) {
+		List<T> result = new ArrayList<T>();
+		double scale = 0;
+		for (int i = 0; i < point.length; i++) {
+			scale += Math.abs(point[i]);
+		}
+		double widened = range + TOLERANCE * (1 + range + scale);
+		double widenedSquared = widened * widened;
+		for (Entry<T> entry : unplaced) {
+			result.add(entry.item);
+		}
+		long[] cell = cellCoordinates(point);
+		long reach = (long) Math.ceil(widened / cellWidth);
+		if (cell == null || Double.isNaN(widened) || reach > Integer.MAX_VALUE
+				|| Math.pow(2 * reach + 1, cell.length) > cells.size()) {
+			// Fewer occupied cells than cells in range: look at every entry
+			for (ArrayList<Entry<T>> list : cells.values()) {
+				addWithin(list, point, widenedSquared, result);
+			}
+			return result;
+		}
+		if (cell.length == 1) {
+			for (long i = cell[0] - reach; i <= cell[0] + reach; i++) {
+				addWithin(cells.get(key(i, 0)), point, widenedSquared, result);
+			}
+		} else {
+			for (long i = cell[0] - reach; i <= cell[0] + reach; i++) {
+				for (long j = cell[1] - reach; j <= cell[1] + reach; j++) {
+					addWithin(cells.get(key(i, j)), point, widenedSquared, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the item whose stored centre is nearest to a point.
+	 *
+	 * @param point the point
+	 * @return the nearest item, or null if the index is empty
+	 */
+	public T nearest(double[] point) {
+		T best = null;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (double range = cellWidth; best == null && !entries.isEmpty(); range *= 4) {
+			for (T item : rangeQuery(point, range)) {
+				double distance = squaredDistance(point, entries.get(item).center);
+				if (best == null || distance < bestDistance) {
+					best = item;
+					bestDistance = distance;
+				}
+			}
+			if (best != null && Math.sqrt(bestDistance) > range) {
+				// a nearer item may lie outside the range that was searched
+				for (T item : rangeQuery(point, Math.sqrt(bestDistance))) {
+					double distance = squaredDistance(point, entries.get(item).center);
+					if (distance < bestDistance) {
+						best = item;
+						bestDistance = distance;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	private void addWithin(ArrayList<Entry<T>> list, double[] point,
+			double widenedSquared, List<T> result) {
+		if (list != null) {
+			for (Entry<T> entry : list) {
+				if (!(squaredDistance(point, entry.center) > widenedSquared)) {
+					result.add(entry.item);
+				}
+			}
+		}
+	}
+
+	private void unlink(Entry<T> entry) {
+		ArrayList<Entry<T>> list = entry.cell == null ? unplaced : cells.get(entry.cell);
+		Entry<T> last = list.remove(list.size() - 1);
+		if (last != entry) {
+			list.set(entry.position, last);
+			last.position = entry.position;
+		}
+		if (list.isEmpty() && entry.cell != null) {
+			cells.remove(entry.cell);
+		}
+	}
+
+	private long[] cellCoordinates(double[] point) {
+		long[] cell = new long[Math.min(GRID_DIMENSIONS, point.length)];
+		for (int i = 0; i < cell.length; i++) {
+			double c = Math.floor(point[i] / cellWidth);
+			if (Double.isNaN(c) || Math.abs(c) > Integer.MAX_VALUE) {
+				return null;
+			}
+			cell[i] = (long) c;
+		}
+		return cell;
+	}
+
+	private Long cellOf(double[] center) {
+		long[] cell = cellCoordinates(center);
+		if (cell == null || cell.length == 0) {
+			return null;
+		}
+		return key(cell[0], cell.length > 1 ? cell[1] : 0);
+	}
+
+	private static Long key(long i, long j) {
+		return Long.valueOf((i << 32) ^ (j & 0xFFFFFFFFL));
+	}
+
+	private static double squaredDistance(double[] a, double[] b) {
+		double distance = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			double d = a[i] - b[i];
+			distance += d * d;
+		}
+		return distance;
+	}
+}
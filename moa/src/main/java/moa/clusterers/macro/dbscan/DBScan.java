@@ -24,6 +24,8 @@
 package moa.clusterers.macro.dbscan;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Vector;
 
@@ -31,6 +33,7 @@ import moa.cluster.CFCluster;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.clusterers.macro.AbstractMacroClusterer;
+import moa.clusterers.macro.MicroClusterIndex;
 import moa.clusterers.macro.NonConvexCluster;
 
 public class DBScan extends AbstractMacroClusterer {
@@ -39,6 +42,12 @@ public class DBScan extends AbstractMacroClusterer {
 	private double mEps;
 	private int mMinPts;
 
+	// The centres of the micro-clusters being clustered, their positions and
+	// an index over the centres, set up by getClustering
+	private double[][] centers;
+	private IdentityHashMap<DenseMicroCluster, Integer> positions;
+	private MicroClusterIndex<Integer> index;
+
 	public DBScan(Clustering microClusters, double eps, int MinPts) {
 		datasource = microClusters;
 		mEps = eps;
@@ -82,9 +91,13 @@ public class DBScan extends AbstractMacroClusterer {
 	private List<DenseMicroCluster> getNeighbourhood(DenseMicroCluster mc,
 			Vector<DenseMicroCluster> dbmc) {
 		List<DenseMicroCluster> res = new Vector<DenseMicroCluster>();
-		for (DenseMicroCluster dmc : dbmc) {
-			if (distance(dmc.getCFCluster().getCenter(), mc.getCFCluster().getCenter()) < mEps) {
-				res.add(dmc);
+		double[] center = centers[positions.get(mc)];
+		// candidates are sorted to list the neighbours in the order of dbmc
+		List<Integer> candidates = index.rangeQuery(center, mEps);
+		Collections.sort(candidates);
+		for (int i : candidates) {
+			if (distance(centers[i], center) < mEps) {
+				res.add(dbmc.get(i));
 			}
 		}
 		return res;
@@ -117,6 +130,14 @@ public class DBScan extends AbstractMacroClusterer {
 				} else
 					throw new RuntimeException();
 			}
+			centers = new double[dbmc.size()][];
+			positions = new IdentityHashMap<DenseMicroCluster, Integer>();
+			index = new MicroClusterIndex<Integer>(mEps);
+			for (int i = 0; i < dbmc.size(); i++) {
+				centers[i] = dbmc.get(i).getCFCluster().getCenter();
+				positions.put(dbmc.get(i), i);
+				index.insert(i, centers[i], 0);
+			}
 
 			ArrayList<ArrayList<DenseMicroCluster>> clusters = new ArrayList<ArrayList<DenseMicroCluster>>();
 
@@ -22,24 +22,37 @@ package moa.core;
 import nz.ac.waikato.cms.locator.ClassCache;
 import nz.ac.waikato.cms.locator.FixedClassListTraversal;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * Class for discovering classes via reflection in the java class path.
  * <br>
  * If analyzing of classpath fails, it falls back on reading class names
  * from file list {@link #CLASS_LIST} as resource stream.
+ * <br>
+ * Classes of a given type are looked up in the type index {@link #TYPE_INDEX}
+ * generated at build time, if there is one covering the package searched.
+ * Only the class path entries that do not come with a type index are then
+ * scanned, and only the classes found there are loaded to check their type.
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  */
@@ -51,6 +64,25 @@ public class AutoClassDiscovery {
 
     public final static String CLASS_LIST = "moa.classes";
 
+    /**
+     * The resource listing the public concrete classes with an empty
+     * constructor, one per line, each followed by the names of the classes
+     * and interfaces it extends or implements, separated by tabs.
+     */
+    public final static String TYPE_INDEX = "moa.types";
+
+    /** the lines of the type indexes, per package, or null if not read yet */
+    protected static Map<String, List<String>> m_TypeIndexLines;
+
+    /** the parsed type index entries of the packages used so far */
+    protected static final Map<String, Map<String, Set<String>>> m_TypeIndex = new HashMap<String, Map<String, Set<String>>>();
+
+    /** the class path entries that come with a type index */
+    protected static final Set<File> m_IndexedLocations = new HashSet<File>();
+
+    /** the class names found outside of indexed class path entries, per package searched */
+    protected static final Map<String, String[]> cachedUnindexedClassNames = new HashMap<String, String[]>();
+
     /**
      * Initializes the class cache
      */
@@ -121,6 +153,24 @@ public class AutoClassDiscovery {
 
     public static Class[] findClassesOfType(String packageNameToSearch,
                                             Class<?> typeDesired) {
+        String[] indexed = findIndexedClassNames(packageNameToSearch, typeDesired);
+        if (indexed != null) {
+            Set<String> classNames = new TreeSet<String>(Arrays.asList(indexed));
+            for (String className : findUnindexedClassNames(packageNameToSearch)) {
+                if (!classNames.contains(className) && isPublicConcreteClassOfType(className, typeDesired)) {
+                    classNames.add(className);
+                }
+            }
+            ArrayList<Class<?>> classesFound = new ArrayList<>();
+            for (String className : classNames) {
+                try {
+                    classesFound.add(Class.forName(className));
+                } catch (Throwable ignored) {
+                    // ignore classes that we cannot load
+                }
+            }
+            return classesFound.toArray(new Class[classesFound.size()]);
+        }
         ArrayList<Class<?>> classesFound = new ArrayList<>();
         String[] classNames = findClassNames(packageNameToSearch);
         for (String className : classNames) {
@@ -135,6 +185,251 @@ public class AutoClassDiscovery {
         return classesFound.toArray(new Class[classesFound.size()]);
     }
 
+    /**
+     * Reads the type indexes on the class path, keeping the lines of each
+     * package to be parsed when the package is first searched.
+     */
+    protected static synchronized void initTypeIndex() {
+        if (m_TypeIndexLines != null) {
+            return;
+        }
+        m_TypeIndexLines = new HashMap<String, List<String>>();
+        try {
+            Enumeration<URL> indexes = AutoClassDiscovery.class.getClassLoader().getResources(TYPE_INDEX);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int end = line.indexOf('\t');
+                        String className = end < 0 ? line : line.substring(0, end);
+                        if (className.isEmpty()) {
+                            continue;
+                        }
+                        String pkg = className.lastIndexOf('.') < 0 ? "" : className.substring(0, className.lastIndexOf('.'));
+                        List<String> lines = m_TypeIndexLines.get(pkg);
+                        if (lines == null) {
+                            lines = new ArrayList<String>();
+                            m_TypeIndexLines.put(pkg, lines);
+                        }
+                        lines.add(line);
+                    }
+                }
+                finally {
+                    reader.close();
+                }
+                File location = locationOf(index);
+                if (location != null) {
+                    m_IndexedLocations.add(location);
+                }
+            }
+        }
+        catch (Exception e) {
+            System.err.println("Failed to read type index (" + TYPE_INDEX + ")!");
+            e.printStackTrace();
+            m_TypeIndexLines.clear();
+        }
+    }
+
+    /**
+     * Returns the class path entry that a resource was loaded from.
+     *
+     * @param resource the URL of the resource
+     * @return the jar file or directory, or null if not a local file
+     */
+    protected static File locationOf(URL resource) {
+        try {
+            String path = resource.toString();
+            if (path.startsWith("jar:")) {
+                path = path.substring("jar:".length(), path.lastIndexOf("!/"));
+                return new File(new URL(path).toURI()).getCanonicalFile();
+            }
+            if (path.startsWith("file:")) {
+                return new File(resource.toURI()).getCanonicalFile().getParentFile();
+            }
+        }
+        catch (Exception e) {
+            // not a local file
+        }
+        return null;
+    }
+
+    /**
+     * Returns the type index entries of a package.
+     *
+     * @param pkg the package
+     * @return the class names, each with the names of its types
+     */
+    protected static synchronized Map<String, Set<String>> getTypeIndex(String pkg) {
+        Map<String, Set<String>> entries = m_TypeIndex.get(pkg);
+        if (entries == null) {
+            entries = new HashMap<String, Set<String>>();
+            for (String line : m_TypeIndexLines.get(pkg)) {
+                String[] names = line.split("\t");
+                entries.put(names[0], new HashSet<String>(Arrays.asList(names)));
+            }
+            m_TypeIndex.put(pkg, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the names of the classes of a type listed in the type indexes,
+     * without loading any class.
+     *
+     * @param packageNameToSearch the package to search, including subpackages
+     * @param typeDesired the type
+     * @return the class names, or null if the package is not indexed
+     */
+    public static synchronized String[] findIndexedClassNames(String packageNameToSearch,
+                                                              Class<?> typeDesired) {
+        initTypeIndex();
+        List<String> classNames = null;
+        for (String pkg : m_TypeIndexLines.keySet()) {
+            if (pkg.equals(packageNameToSearch) || pkg.startsWith(packageNameToSearch + ".")) {
+                if (classNames == null) {
+                    classNames = new ArrayList<String>();
+                }
+                for (Map.Entry<String, Set<String>> entry : getTypeIndex(pkg).entrySet()) {
+                    if (entry.getValue().contains(typeDesired.getName())) {
+                        classNames.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        if (classNames == null) {
+            return null;
+        }
+        String[] result = classNames.toArray(new String[classNames.size()]);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the names of the classes of a package found in the class path
+     * entries that do not come with a type index.
+     *
+     * @param packageNameToSearch the package to search, including subpackages
+     * @return the class names
+     */
+    public static synchronized String[] findUnindexedClassNames(String packageNameToSearch) {
+        String[] cached = cachedUnindexedClassNames.get(packageNameToSearch);
+        if (cached == null) {
+            initTypeIndex();
+            Set<String> classNames = new LinkedHashSet<String>();
+            String path = packageNameToSearch.replace('.', '/') + "/";
+            for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                File location = new File(entry);
+                try {
+                    location = location.getCanonicalFile();
+                }
+                catch (Exception e) {
+                    // use the path as given
+                }
+                if (m_IndexedLocations.contains(location) || !location.exists()) {
+                    continue;
+                }
+                if (location.isDirectory()) {
+                    addClassNames(new File(location, path), packageNameToSearch, classNames);
+                } else {
+                    JarFile jar = null;
+                    try {
+                        jar = new JarFile(location);
+                        Enumeration<JarEntry> entries = jar.entries();
+                        while (entries.hasMoreElements()) {
+                            String name = entries.nextElement().getName();
+                            if (name.startsWith(path) && name.endsWith(".class")) {
+                                classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                            }
+                        }
+                    }
+                    catch (Exception e) {
+                        // not a jar file
+                    }
+                    finally {
+                        if (jar != null) {
+                            try {
+                                jar.close();
+                            }
+                            catch (Exception e) {
+                                // ignored
+                            }
+                        }
+                    }
+                }
+            }
+            cached = classNames.toArray(new String[classNames.size()]);
+            Arrays.sort(cached);
+            cachedUnindexedClassNames.put(packageNameToSearch, cached);
+        }
+        return cached;
+    }
+
+    private static void addClassNames(File dir, String pkg, Set<String> classNames) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addClassNames(file, pkg + "." + file.getName(), classNames);
+            } else if (file.getName().endsWith(".class")) {
+                classNames.add(pkg + "." + file.getName().substring(0, file.getName().length() - ".class".length()));
+            }
+        }
+    }
+
+    /**
+     * Writes the type index of the given classes: the public concrete classes
+     * with an empty constructor, each with the classes and interfaces it
+     * extends or implements.
+     *
+     * @param classnames the class names
+     * @param out the stream to write the index to
+     */
+    public static void writeTypeIndex(List<String> classnames, PrintStream out) {
+        ClassLoader loader = AutoClassDiscovery.class.getClassLoader();
+        for (String clsname : classnames) {
+            Class<?> cls;
+            try {
+                cls = Class.forName(clsname, false, loader);
+            } catch (Throwable e) {
+                continue;
+            }
+            int modifiers = cls.getModifiers();
+            if (!java.lang.reflect.Modifier.isPublic(modifiers)
+                || java.lang.reflect.Modifier.isAbstract(modifiers)
+                || cls.isInterface() || !hasEmptyConstructor(cls)) {
+                continue;
+            }
+            Set<String> types = new LinkedHashSet<String>();
+            List<Class<?>> pending = new ArrayList<Class<?>>();
+            pending.add(cls);
+            while (!pending.isEmpty()) {
+                Class<?> type = pending.remove(pending.size() - 1);
+                if (type == Object.class || !types.add(type.getName())) {
+                    continue;
+                }
+                if (type.getSuperclass() != null) {
+                    pending.add(type.getSuperclass());
+                }
+                pending.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            StringBuilder line = new StringBuilder();
+            for (String type : types) {
+                if (line.length() > 0) {
+                    line.append('\t');
+                }
+                line.append(type);
+            }
+            out.println(line);
+        }
+    }
+
     public static boolean isPublicConcreteClassOfType(String className,
                                                       Class<?> typeDesired) {
         Class<?> testClass = null;
@@ -160,9 +455,11 @@ public class AutoClassDiscovery {
 
     /**
      * Outputs all class names below "moa" either to stdout or to the
-     * file provided as first argument.
+     * file provided as first argument, and their type index to the file
+     * provided as second argument.
      *
-     * @param args optional file for storing the classnames
+     * @param args optional file for storing the classnames, optional file
+     *             for storing the type index
      * @throws Exception if writing to file fails
      */
     public static void main(String[] args) throws Exception {
@@ -177,5 +474,11 @@ public class AutoClassDiscovery {
         out.flush();
         if (args.length > 0)
             out.close();
+        if (args.length > 1) {
+            out = new PrintStream(new File(args[1]), "UTF-8");
+            writeTypeIndex(allClassnames, out);
+            out.flush();
+            out.close();
+        }
     }
 }
@@ -78,6 +78,10 @@ public class GaussianEstimator extends AbstractMOAObject {
         return this.mean;
     }
 
+    public double getVarianceSum() {
+        return this.varianceSum;
+    }
+
     public double getStdDev() {
         return Math.sqrt(getVariance());
     }
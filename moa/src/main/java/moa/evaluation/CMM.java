@@ -126,7 +126,7 @@ public class CMM extends MeasureCollection{
         numPoints = points.size();
         numFClusters = clustering.size();
 
-        gtAnalysis = new CMM_GTAnalysis(trueClustering, points, enableClassMerge);
+        gtAnalysis = new CMM_GTAnalysis(trueClustering, points, enableClassMerge, getDistanceKernel());
 
         numGT0Classes = gtAnalysis.getNumberOfGT0Classes();
 
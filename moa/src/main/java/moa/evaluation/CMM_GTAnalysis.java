@@ -39,7 +39,6 @@ import java.util.Iterator;
 import moa.cluster.Clustering;
 import moa.core.AutoExpandVector;
 import moa.gui.visualization.DataPoint;
-import com.yahoo.labs.samoa.instances.Instance;
 
 public class CMM_GTAnalysis{
 	
@@ -119,6 +118,16 @@ public class CMM_GTAnalysis{
      */
     private boolean debug = false;
 
+    /**
+     * coordinates of the points, indexed by point ID
+     */
+    private double[][] coords;
+
+    /**
+     * runs the nearest neighbour searches of independent points in parallel
+     */
+    private PairwiseDistanceKernel distanceKernel;
+
     
     /******* CMM parameter ***********/
 
@@ -294,28 +303,38 @@ public class CMM_GTAnalysis{
          * + average knn distance and average knn distance deviation of all points 
          */
         private void calculateKnn(){
+            //the points are independent, so their neighbours are searched in parallel
+            distanceKernel.run(points.size(), new PairwiseDistanceKernel.Block() {
+                @Override
+                public void process(int from, int to) {
+                    for (int i0 = from; i0 < to; i0++) {
+                        CMMPoint cmdp = cmmpoints.get(points.get(i0));
+                        if(!cmdp.isNoise()){
+                            AutoExpandVector<Double> knnDist = new AutoExpandVector<Double>();
+                            AutoExpandVector<Integer> knnPointIndex = new AutoExpandVector<Integer>();
+
+                            //calculate nearest neighbours 
+                            getKnnInCluster(cmdp, knnNeighbourhood, points, knnDist,knnPointIndex);
+
+                            //TODO: What to do if we have less then k neighbours?
+                            double avgKnn = 0;
+                            for (int i = 0; i < knnDist.size(); i++) {
+                                avgKnn+= knnDist.get(i);
+                            }
+                            if(knnDist.size()!=0)
+                                avgKnn/=knnDist.size();
+                            cmdp.knnInCluster = avgKnn;
+                            cmdp.knnIndices = knnPointIndex;
+                            cmdp.p.setMeasureValue("knnAvg", cmdp.knnInCluster);
+                        }
+                    }
+                }
+            });
             for (int p0 : points) {
                 CMMPoint cmdp = cmmpoints.get(p0);
                 if(!cmdp.isNoise()){
-                    AutoExpandVector<Double> knnDist = new AutoExpandVector<Double>();
-                    AutoExpandVector<Integer> knnPointIndex = new AutoExpandVector<Integer>();
-                    
-                    //calculate nearest neighbours 
-                    getKnnInCluster(cmdp, knnNeighbourhood, points, knnDist,knnPointIndex);
-
-                    //TODO: What to do if we have less then k neighbours?
-                    double avgKnn = 0;
-                    for (int i = 0; i < knnDist.size(); i++) {
-                        avgKnn+= knnDist.get(i);
-                    }
-                    if(knnDist.size()!=0)
-                        avgKnn/=knnDist.size();
-                    cmdp.knnInCluster = avgKnn;
-                    cmdp.knnIndices = knnPointIndex;
-                    cmdp.p.setMeasureValue("knnAvg", cmdp.knnInCluster);
-
-                    knnMeanAvg+=avgKnn;
-                    knnDevAvg+=Math.pow(avgKnn,2);
+                    knnMeanAvg+=cmdp.knnInCluster;
+                    knnDevAvg+=Math.pow(cmdp.knnInCluster,2);
                 }
             }
             knnMeanAvg=knnMeanAvg/(double)points.size();
@@ -343,9 +362,11 @@ public class CMM_GTAnalysis{
                 AutoExpandVector<Double> kmax = new AutoExpandVector<Double>();
                 AutoExpandVector<Integer> kmaxIndexes = new AutoExpandVector<Integer>();
 
-                for(int p : points){
+                double[] con_Cj = getConnectionValues(points, otherCid);
+                for (int i = 0; i < points.size(); i++) {
+                    int p = points.get(i);
                     CMMPoint cmdp = cmmpoints.get(p);
-                    double con_p_Cj = getConnectionValue(cmmpoints.get(p), otherCid);
+                    double con_p_Cj = con_Cj[i];
                     double connection = cmdp.connectivity * con_p_Cj;
                     if(initial){
                         cmdp.p.setMeasureValue("Connection to C"+otherCid, con_p_Cj);
@@ -457,6 +478,18 @@ public class CMM_GTAnalysis{
      * @param enableClassMerge allow class merging (should be set to true on default)
      */
     public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge){
+        this(trueClustering, points, enableClassMerge, PairwiseDistanceKernel.getDefault());
+    }
+
+    /**
+     * @param trueClustering the ground truth clustering
+     * @param points data points
+     * @param enableClassMerge allow class merging (should be set to true on default)
+     * @param distanceKernel the kernel to run the nearest neighbour searches on
+     */
+    public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge,
+            PairwiseDistanceKernel distanceKernel){
+        this.distanceKernel = distanceKernel;
         if(debug)
             System.out.println("GT Analysis Debug Output");
 
@@ -472,6 +505,7 @@ public class CMM_GTAnalysis{
 
         numPoints = points.size();
         numDims = points.get(0).numAttributes()-1;
+        coords = PairwiseDistanceKernel.coordinates(points, numDims);
         numGTClusters = gtClustering.size();
 
         //init mappings between work and true labels
@@ -585,6 +619,27 @@ public class CMM_GTAnalysis{
     }
 
     
+    /**
+     * Calculate the connections of points to a cluster
+     *
+     * @param pointIDs the points to calculate the connection for
+     * @param clusterID the corresponding cluster
+     * @return the connection value of each point
+     */
+    private double[] getConnectionValues(final ArrayList<Integer> pointIDs, final int clusterID){
+        final double[] connections = new double[pointIDs.size()];
+        distanceKernel.run(pointIDs.size(), new PairwiseDistanceKernel.Block() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    connections[i] = getConnectionValue(cmmpoints.get(pointIDs.get(i)), clusterID);
+                }
+            }
+        });
+        return connections;
+    }
+
+
     /**
      * @param cmmp point to calculate knn distance for
      * @param k number of nearest neighbors to look for
@@ -601,7 +656,7 @@ public class CMM_GTAnalysis{
         for (int p1 = 0; p1 < pointIDs.size(); p1++) {
             int pid = pointIDs.get(p1);
             if(cmmp.pID == pid) continue;
-            double dist = distance(cmmp,cmmpoints.get(pid));
+            double dist = PairwiseDistanceKernel.distance(coords[cmmp.pID], coords[pid]);
             if(knnDist.size() < k || dist < knnDist.get(knnDist.size()-1)){
                 int index = 0;
                 while(index < knnDist.size() && dist > knnDist.get(index)) {
@@ -623,13 +678,18 @@ public class CMM_GTAnalysis{
      * calculate initial connectivities
      */
     private void calculateGTPointQualities(){
-        for (int p = 0; p < numPoints; p++) {
-            CMMPoint cmdp = cmmpoints.get(p);
-            if(!cmdp.isNoise()){
-                cmdp.connectivity = getConnectionValue(cmdp, cmdp.workclass());
-                cmdp.p.setMeasureValue("Connectivity", cmdp.connectivity);
+        distanceKernel.run(numPoints, new PairwiseDistanceKernel.Block() {
+            @Override
+            public void process(int from, int to) {
+                for (int p = from; p < to; p++) {
+                    CMMPoint cmdp = cmmpoints.get(p);
+                    if(!cmdp.isNoise()){
+                        cmdp.connectivity = getConnectionValue(cmdp, cmdp.workclass());
+                        cmdp.p.setMeasureValue("Connectivity", cmdp.connectivity);
+                    }
+                }
             }
-        }
+        });
     }
 
     
@@ -718,19 +778,28 @@ public class CMM_GTAnalysis{
         if(noise.isEmpty()) 
             return 1;
 
-        double connectivity = 0;
-        for(int p : noise){
-            CMMPoint npoint = cmmpoints.get(p);
-            double maxConnection = 0;
-
-            //TODO: some kind of pruning possible. what about weighting?
-            for (int c = 0; c < gt0Clusters.size(); c++) {
-                double connection = getConnectionValue(npoint, c);
-                if(connection > maxConnection)
-                    maxConnection = connection;
+        final double[] maxConnections = new double[noise.size()];
+        distanceKernel.run(noise.size(), new PairwiseDistanceKernel.Block() {
+            @Override
+            public void process(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    CMMPoint npoint = cmmpoints.get(noise.get(i));
+                    double maxConnection = 0;
+
+                    //TODO: some kind of pruning possible. what about weighting?
+                    for (int c = 0; c < gt0Clusters.size(); c++) {
+                        double connection = getConnectionValue(npoint, c);
+                        if(connection > maxConnection)
+                            maxConnection = connection;
+                    }
+                    maxConnections[i] = maxConnection;
+                    npoint.p.setMeasureValue("MaxConnection", maxConnection);
+                }
             }
+        });
+        double connectivity = 0;
+        for (double maxConnection : maxConnections) {
             connectivity+=maxConnection;
-            npoint.p.setMeasureValue("MaxConnection", maxConnection);
         }
 
         return 1-(connectivity / noise.size());
@@ -790,32 +859,6 @@ public class CMM_GTAnalysis{
         return numGT0Classes;
     }
     
-    /**
-     * Calculates Euclidian distance 
-     * @param inst1 point as double array
-     * @param inst2 point as double array
-     * @return euclidian distance
-     */
-    private double distance(Instance inst1, Instance inst2){
-          return distance(inst1, inst2.toDoubleArray());
-
-    }
-    
-    /**
-     * Calculates Euclidian distance 
-     * @param inst1 point as an instance
-     * @param inst2 point as double array
-     * @return euclidian distance
-     */
-    private double distance(Instance inst1, double[] inst2){
-        double distance = 0.0;
-        for (int i = 0; i < numDims; i++) {
-            double d = inst1.value(i) - inst2[i];
-            distance += d * d;
-        }
-        return Math.sqrt(distance);
-    }
-    
     /**
      * String with main CMM parameters
      * @return main CMM parameter
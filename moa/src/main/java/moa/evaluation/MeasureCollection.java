@@ -21,15 +21,24 @@
 package moa.evaluation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import moa.AbstractMOAObject;
 import moa.cluster.Clustering;
+import moa.core.GreenwaldKhannaQuantileSummary;
 import moa.gui.visualization.DataPoint;
 
 public abstract class MeasureCollection extends AbstractMOAObject{
     private String[] names;
-    private ArrayList<Double>[] values;
-    private ArrayList<Double>[] sortedValues;
+    private double[][] values;
+    private int[] numValues;
+    private double[] lastValues;
+    // sorted copy of the first numSortedValues values, built when quantiles are asked for
+    private double[][] sortedValues;
+    private int[] numSortedValues;
+    private boolean[] sortedHasNaN;
+    // replace the sorted copies and the values when set, see setQuantileSummarySize
+    private GreenwaldKhannaQuantileSummary[] quantileSummaries;
     private ArrayList<String> events;
     
     private double[] minValue;
@@ -40,6 +49,8 @@ public abstract class MeasureCollection extends AbstractMOAObject{
     private double time;
     private boolean debug = true;
     private MembershipMatrix mm = null;
+    // computes the pairwise distances of measures that need them, see setDistanceKernel
+    private transient PairwiseDistanceKernel distanceKernel;
 
     private HashMap<String, Integer> map;
 
@@ -55,8 +66,12 @@ public abstract class MeasureCollection extends AbstractMOAObject{
         for (int i = 0; i < names.length; i++) {
              map.put(names[i],i);
         }
-        values = (ArrayList<Double>[]) new ArrayList[numMeasures];
-        sortedValues = (ArrayList<Double>[]) new ArrayList[numMeasures];
+        values = new double[numMeasures][];
+        numValues = new int[numMeasures];
+        lastValues = new double[numMeasures];
+        sortedValues = new double[numMeasures][];
+        numSortedValues = new int[numMeasures];
+        sortedHasNaN = new boolean[numMeasures];
         maxValue = new double[numMeasures];
         minValue = new double[numMeasures];
         sumValues = new double[numMeasures];
@@ -66,8 +81,8 @@ public abstract class MeasureCollection extends AbstractMOAObject{
         events = new ArrayList<String>();
 
         for (int i = 0; i < numMeasures; i++) {
-                values[i] = new ArrayList<Double>();
-                sortedValues[i] = new ArrayList<Double>();
+                values[i] = new double[16];
+                sortedValues[i] = new double[0];
                 maxValue[i] = Double.MIN_VALUE;
                 minValue[i] = Double.MAX_VALUE;
                 corrupted[i] = false;
@@ -78,6 +93,56 @@ public abstract class MeasureCollection extends AbstractMOAObject{
 
     protected abstract String[] getNames();
 
+    /**
+     * Keeps a Greenwald-Khanna quantile summary of each measure instead of
+     * all its values, so that the memory used does not grow with the number
+     * of values. Medians and quartiles are estimated from the summaries, the
+     * mean, minimum and maximum are still exact, and only the last value is
+     * available from getValue. Must be called before any value is added.
+     *
+     * @param maxTuples the number of tuples of each summary, 0 to keep all values
+     */
+    public void setQuantileSummarySize(int maxTuples){
+        for (int i = 0; i < numMeasures; i++) {
+            if(numValues[i] > 0)
+                throw new IllegalStateException("Values have already been added to "+names[i]);
+        }
+        if(maxTuples <= 0){
+            quantileSummaries = null;
+            for (int i = 0; i < numMeasures; i++) {
+                if(values[i] == null)
+                    values[i] = new double[16];
+            }
+            return;
+        }
+        quantileSummaries = new GreenwaldKhannaQuantileSummary[numMeasures];
+        for (int i = 0; i < numMeasures; i++) {
+            quantileSummaries[i] = new GreenwaldKhannaQuantileSummary(maxTuples);
+            values[i] = null;
+        }
+    }
+
+    /**
+     * @return whether all the values are kept, false when quantile summaries are used
+     */
+    public boolean keepsAllValues(){
+        return quantileSummaries == null;
+    }
+
+    private void storeValue(int index, double value){
+        if(quantileSummaries != null){
+            if(!Double.isNaN(value))
+                quantileSummaries[index].insert(value);
+        }
+        else{
+            if(numValues[index] == values[index].length)
+                values[index] = Arrays.copyOf(values[index], 2*values[index].length);
+            values[index][numValues[index]] = value;
+        }
+        lastValues[index] = value;
+        numValues[index]++;
+    }
+
      public void addValue(int index, double value){
          if(Double.isNaN(value)){
         	 if(debug)
@@ -89,7 +154,7 @@ public abstract class MeasureCollection extends AbstractMOAObject{
         //		 System.out.println("Negative value for "+names[index]);
         // }
 
-         values[index].add(value);
+         storeValue(index, value);
          sumValues[index]+=value;
          if(value < minValue[index]) minValue[index] = value;
          if(value > maxValue[index]) maxValue[index] = value;
@@ -106,7 +171,7 @@ public abstract class MeasureCollection extends AbstractMOAObject{
      
      //add an empty entry e.g. if evaluation crashed internally
      public void addEmptyValue(int index){
-         values[index].add(Double.NaN);
+         storeValue(index, Double.NaN);
          corrupted[index] = true;
      }
 
@@ -127,79 +192,126 @@ public abstract class MeasureCollection extends AbstractMOAObject{
      }
 
      public double getLastValue(int index){
-         if(values[index].size()<1) return Double.NaN;
-         return values[index].get(values[index].size()-1);
+         if(numValues[index]<1) return Double.NaN;
+         return lastValues[index];
      }
 
      public double getMean(int index){
-         if(corrupted[index] || values[index].size()<1)
+         if(corrupted[index] || numValues[index]<1)
              return Double.NaN;
 
-         return sumValues[index]/values[index].size();
+         return sumValues[index]/numValues[index];
      }
 
      private void updateSortedValues(int index){
-         //naive implementation of insertion sort
-         for (int i = sortedValues[index].size(); i < values[index].size(); i++) {
-             double v = values[index].get(i);
+         if(sortedValues[index].length < numValues[index])
+             sortedValues[index] = Arrays.copyOf(sortedValues[index], values[index].length);
+         double[] sorted = sortedValues[index];
+         for (int i = numSortedValues[index]; i < numValues[index]; i++) {
+             double v = values[index][i];
+             // insert before the first value v is not greater than
              int insertIndex = 0;
-             while(!sortedValues[index].isEmpty() && insertIndex < sortedValues[index].size() && v > sortedValues[index].get(insertIndex))
-                 insertIndex++;
-             sortedValues[index].add(insertIndex,v);
+             if(sortedHasNaN[index]){
+                 while(insertIndex < numSortedValues[index] && v > sorted[insertIndex])
+                     insertIndex++;
+             }
+             else{
+                 int high = numSortedValues[index];
+                 while(insertIndex < high){
+                     int mid = (insertIndex + high) >>> 1;
+                     if(v > sorted[mid])
+                         insertIndex = mid + 1;
+                     else
+                         high = mid;
+                 }
+             }
+             System.arraycopy(sorted, insertIndex, sorted, insertIndex + 1, numSortedValues[index] - insertIndex);
+             sorted[insertIndex] = v;
+             numSortedValues[index]++;
+             if(Double.isNaN(v))
+                 sortedHasNaN[index] = true;
          }
-//         for (int i = 0; i < sortedValues[index].size(); i++) {
-//             System.out.print(sortedValues[index].get(i)+" ");
-//         }
-//         System.out.println();
      }
 
      public void clean(int index){
-         sortedValues[index].clear();
+         sortedValues[index] = new double[0];
+         numSortedValues[index] = 0;
+         sortedHasNaN[index] = false;
      }
 
      public double getMedian(int index){
+         if(quantileSummaries != null){
+             if(quantileSummaries[index].getTotalCount() > 0)
+                 return quantileSummaries[index].getQuantile(0.5);
+             return Double.NaN;
+         }
          updateSortedValues(index);
-         int size = sortedValues[index].size();
+         int size = numSortedValues[index];
 
          if(size > 0){
              if(size%2 == 1)
-                 return sortedValues[index].get((int)(size/2));
+                 return sortedValues[index][(int)(size/2)];
              else
-                 return (sortedValues[index].get((size-1)/2)+sortedValues[index].get((size-1)/2+1))/2.0;
+                 return (sortedValues[index][(size-1)/2]+sortedValues[index][(size-1)/2+1])/2.0;
          }
          return Double.NaN;
     }
 
      public double getLowerQuartile(int index){
+         if(quantileSummaries != null){
+             if(quantileSummaries[index].getTotalCount() > 11)
+                 return quantileSummaries[index].getQuantile(0.25);
+             return Double.NaN;
+         }
          updateSortedValues(index);
-         int size = sortedValues[index].size();
+         int size = numSortedValues[index];
          if(size > 11){
-             return sortedValues[index].get(Math.round(size*0.25f));
+             return sortedValues[index][Math.round(size*0.25f)];
          }
          return Double.NaN;
      }
 
      public double getUpperQuartile(int index){
+         if(quantileSummaries != null){
+             if(quantileSummaries[index].getTotalCount() > 11)
+                 return quantileSummaries[index].getQuantile(0.75);
+             return Double.NaN;
+         }
          updateSortedValues(index);
-         int size = sortedValues[index].size();
+         int size = numSortedValues[index];
          if(size > 11){
-             return sortedValues[index].get(Math.round(size*0.75f-1));
+             return sortedValues[index][Math.round(size*0.75f-1)];
          }
          return Double.NaN;
      }
 
 
      public int getNumberOfValues(int index){
-         return values[index].size();
+         return numValues[index];
      }
 
+     /**
+      * @return the i-th value of the measure, or NaN if it is not kept
+      * @see #setQuantileSummarySize(int)
+      */
      public double getValue(int index, int i){
-         if(i>=values[index].size()) return Double.NaN;
-         return values[index].get(i);
+         if(i>=numValues[index]) return Double.NaN;
+         if(quantileSummaries != null)
+             return i == numValues[index]-1 ? lastValues[index] : Double.NaN;
+         return values[index][i];
      }
 
+     /**
+      * @return a copy of the values of the measure, empty if they are not kept
+      */
      public ArrayList<Double> getAllValues(int index){
-         return values[index];
+         if(quantileSummaries != null)
+             return new ArrayList<Double>();
+         ArrayList<Double> all = new ArrayList<Double>(numValues[index]);
+         for (int i = 0; i < numValues[index]; i++) {
+             all.add(values[index][i]);
+         }
+         return all;
      }
 
      public void setEnabled(int index, boolean value){
@@ -211,8 +323,8 @@ public abstract class MeasureCollection extends AbstractMOAObject{
      }
 
      public double getMeanRunningTime(){
-         if(values[0].size()!=0)
-            return (time/10e5/values[0].size());
+         if(numValues[0]!=0)
+            return (time/10e5/numValues[0]);
          else
              return 0;
      }
@@ -225,6 +337,22 @@ public abstract class MeasureCollection extends AbstractMOAObject{
          return defaults;
      }
 
+     /**
+      * Sets the kernel that measures use to compute pairwise point distances.
+      * By default all measures share the sequential PairwiseDistanceKernel.getDefault().
+      *
+      * @param kernel the kernel, or null for the shared one
+      */
+     public void setDistanceKernel(PairwiseDistanceKernel kernel){
+         distanceKernel = kernel;
+     }
+
+     protected PairwiseDistanceKernel getDistanceKernel(){
+         if(distanceKernel == null)
+             distanceKernel = PairwiseDistanceKernel.getDefault();
+         return distanceKernel;
+     }
+
      protected abstract void evaluateClustering(Clustering clustering, Clustering trueClustering, ArrayList<DataPoint> points) throws Exception;
 
      /*
@@ -0,0 +1,236 @@
+/*
+ *    PairwiseDistanceKernel.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package moa.evaluation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Computes the pairwise point distances needed by clustering measures in
+ * tiled blocks, spread over a pool of worker threads.
+ *
+ * The query points are split into blocks of consecutive points, one task per
+ * block. A task walks over the reference points tile by tile, so that a tile
+ * stays in cache while it is compared with every query point of the block.
+ * Every query point is handled by a single task which visits the reference
+ * points in their given order, so results do not depend on the number of
+ * threads and are the same as those of a plain double loop.
+ */
+public class PairwiseDistanceKernel {
+
+    /** The number of reference points compared with a block at a time. */
+    public static final int TILE_SIZE = 256;
+
+    /** The number of query points below which no tasks are created. */
+    public static final int MIN_POINTS_FOR_PARALLEL_EVALUATION = 256;
+
+    private static final Map<Integer, PairwiseDistanceKernel> kernels = new HashMap<Integer, PairwiseDistanceKernel>();
+
+    private final ExecutorService executor;
+
+    private final int numThreads;
+
+    /**
+     * A range of query points to process.
+     */
+    public interface Block {
+
+        /**
+         * @param from the first position to process
+         * @param to the position after the last one to process
+         */
+        void process(int from, int to);
+    }
+
+    /**
+     * @param executor the pool to run blocks on, or null to run them on the calling thread
+     * @param numThreads the number of threads of the pool
+     */
+    public PairwiseDistanceKernel(ExecutorService executor, int numThreads) {
+        this.executor = executor;
+        this.numThreads = executor == null ? 1 : Math.max(1, numThreads);
+    }
+
+    /**
+     * Gets the kernel shared by all measures unless another one is set. It
+     * runs on the calling thread, multithreading has to be asked for with
+     * {@link #getKernel(int)}.
+     *
+     * @return the shared sequential kernel
+     */
+    public static PairwiseDistanceKernel getDefault() {
+        return getKernel(1);
+    }
+
+    /**
+     * Gets the kernel shared by all measures that use the same number of
+     * threads, whose pool has that many daemon threads.
+     *
+     * @param numThreads the number of threads, -1 for one per available
+     * processor, 0 or 1 to run on the calling thread
+     * @return the shared kernel
+     */
+    public static synchronized PairwiseDistanceKernel getKernel(int numThreads) {
+        if (numThreads == -1) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+        numThreads = Math.max(1, numThreads);
+        PairwiseDistanceKernel kernel = kernels.get(numThreads);
+        if (kernel == null) {
+            ExecutorService executor = null;
+            if (numThreads > 1) {
+                executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "clustering measure worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            kernel = new PairwiseDistanceKernel(executor, numThreads);
+            kernels.put(numThreads, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * Copies the attribute values of points into arrays.
+     *
+     * @param points the points
+     * @param numDims the number of leading attributes to copy
+     * @return the coordinates of each point
+     */
+    public static double[][] coordinates(List<? extends Instance> points, int numDims) {
+        double[][] coords = new double[points.size()][];
+        for (int p = 0; p < coords.length; p++) {
+            Instance point = points.get(p);
+            double[] c = new double[numDims];
+            for (int i = 0; i < numDims; i++) {
+                c[i] = point.value(i);
+            }
+            coords[p] = c;
+        }
+        return coords;
+    }
+
+    /**
+     * @param a the coordinates of a point
+     * @param b the coordinates of another point
+     * @return the Euclidean distance of the points
+     */
+    public static double distance(double[] a, double[] b) {
+        double distance = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double d = a[i] - b[i];
+            distance += d * d;
+        }
+        return Math.sqrt(distance);
+    }
+
+    /**
+     * Sums, for every query point, the distances to the reference points of
+     * each group, leaving out the query point itself. A reference point may
+     * belong to any number of groups.
+     *
+     * @param coords the coordinates of all points
+     * @param queries the indices of the query points
+     * @param references the indices of the reference points
+     * @param referenceGroups the groups of each reference point, in the order of references
+     * @param sums receives the sum of the distances of query q to group g at [q][g]
+     * @param counts receives the number of reference points summed at [q][g]
+     */
+    public void groupDistanceSums(final double[][] coords, final int[] queries,
+            final int[] references, final int[][] referenceGroups,
+            final double[][] sums, final int[][] counts) {
+        run(queries.length, new Block() {
+            @Override
+            public void process(int from, int to) {
+                for (int r0 = 0; r0 < references.length; r0 += TILE_SIZE) {
+                    int r1 = Math.min(r0 + TILE_SIZE, references.length);
+                    for (int q = from; q < to; q++) {
+                        int query = queries[q];
+                        double[] point = coords[query];
+                        double[] sum = sums[q];
+                        int[] count = counts[q];
+                        for (int r = r0; r < r1; r++) {
+                            int[] groups = referenceGroups[r];
+                            if (groups.length == 0 || references[r] == query) {
+                                continue;
+                            }
+                            double distance = distance(point, coords[references[r]]);
+                            for (int g : groups) {
+                                sum[g] += distance;
+                                count[g]++;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Processes the positions 0 to size-1 in blocks, in parallel if the kernel
+     * has a pool and there are enough positions. Blocks must only write
+     * results belonging to their own positions.
+     *
+     * @param size the number of positions
+     * @param block the work to do on a range of positions
+     */
+    public void run(int size, final Block block) {
+        if (this.executor == null || size < MIN_POINTS_FOR_PARALLEL_EVALUATION) {
+            block.process(0, size);
+            return;
+        }
+        // a few blocks per thread evens out blocks of unequal cost
+        int numBlocks = Math.min(4 * this.numThreads, (size + 63) / 64);
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(numBlocks);
+        for (int b = 0; b < numBlocks; b++) {
+            final int from = (int) ((long) size * b / numBlocks);
+            final int to = (int) ((long) size * (b + 1) / numBlocks);
+            tasks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    block.process(from, to);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Object> result : this.executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while computing distances.", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Could not compute distances.", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ *    ScoreTree.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Order-statistic tree over the scores of the positive and negative examples
+ * in an evaluation window, answering how many positive or negative examples
+ * (and what sum of scores) lie above a given score in logarithmic time.
+ *
+ * The tree is a treap kept in primitive arrays. Each example is a node whose
+ * identifier is chosen by the caller, typically its position in the window, so
+ * no objects are allocated as examples enter and leave the window. Every node
+ * stores the number of positive and negative examples and the sums of their
+ * scores in its subtree.
+ *
+ * @version $Revision: 1 $
+ */
+public class ScoreTree implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected double[] value;
+
+	protected boolean[] positive;
+
+	protected int[] priority;
+
+	protected int[] left;
+
+	protected int[] right;
+
+	protected int[] numPos;
+
+	protected int[] numNeg;
+
+	protected double[] sumPos;
+
+	protected double[] sumNeg;
+
+	protected int root = -1;
+
+	protected int numInserted = 0;
+
+	/**
+	 * @param capacity the initial number of nodes, grown when a larger identifier is inserted
+	 */
+	public ScoreTree(int capacity) {
+		capacity = Math.max(capacity, 16);
+		this.value = new double[capacity];
+		this.positive = new boolean[capacity];
+		this.priority = new int[capacity];
+		this.left = new int[capacity];
+		this.right = new int[capacity];
+		this.numPos = new int[capacity];
+		this.numNeg = new int[capacity];
+		this.sumPos = new double[capacity];
+		this.sumNeg = new double[capacity];
+	}
+
+	/**
+	 * Adds an example.
+	 *
+	 * @param id an identifier that is not in the tree
+	 * @param score the score of the example, which must not be NaN
+	 * @param isPositive true if the example is positive
+	 */
+	public void insert(int id, double score, boolean isPositive) {
+		if (id >= this.value.length) {
+			grow(Math.max(id + 1, 2 * this.value.length));
+		}
+		this.value[id] = score;
+		this.positive[id] = isPositive;
+		this.priority[id] = mix(this.numInserted++);
+		this.left[id] = -1;
+		this.right[id] = -1;
+		update(id);
+		this.root = insert(this.root, id);
+	}
+
+	/**
+	 * Removes an example.
+	 *
+	 * @param id the identifier of an example in the tree
+	 */
+	public void remove(int id) {
+		this.root = remove(this.root, id);
+	}
+
+	/**
+	 * @param score a score
+	 * @param inclusive true to count the examples with the given score as well
+	 * @return the number of positive examples with a higher score
+	 */
+	public int numPosAbove(double score, boolean inclusive) {
+		int count = 0;
+		int node = this.root;
+		while (node >= 0) {
+			if (this.value[node] > score || (inclusive && this.value[node] == score)) {
+				count += (this.positive[node] ? 1 : 0) + numPos(this.right[node]);
+				node = this.left[node];
+			} else {
+				node = this.right[node];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param score a score
+	 * @param inclusive true to count the examples with the given score as well
+	 * @return the number of negative examples with a higher score
+	 */
+	public int numNegAbove(double score, boolean inclusive) {
+		int count = 0;
+		int node = this.root;
+		while (node >= 0) {
+			if (this.value[node] > score || (inclusive && this.value[node] == score)) {
+				count += (this.positive[node] ? 0 : 1) + numNeg(this.right[node]);
+				node = this.left[node];
+			} else {
+				node = this.right[node];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param score a score
+	 * @return the sum of the scores of the positive examples with a higher score
+	 */
+	public double sumPosAbove(double score) {
+		double sum = 0;
+		int node = this.root;
+		while (node >= 0) {
+			if (this.value[node] > score) {
+				sum += (this.positive[node] ? this.value[node] : 0) + sumPos(this.right[node]);
+				node = this.left[node];
+			} else {
+				node = this.right[node];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @param score a score
+	 * @return the sum of the scores of the negative examples with a higher score
+	 */
+	public double sumNegAbove(double score) {
+		double sum = 0;
+		int node = this.root;
+		while (node >= 0) {
+			if (this.value[node] > score) {
+				sum += (this.positive[node] ? 0 : this.value[node]) + sumNeg(this.right[node]);
+				node = this.left[node];
+			} else {
+				node = this.right[node];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the sum of the scores of all negative examples
+	 */
+	public double sumNeg() {
+		return sumNeg(this.root);
+	}
+
+	/**
+	 * @return the sum of the scores of all positive examples
+	 */
+	public double sumPos() {
+		return sumPos(this.root);
+	}
+
+	public boolean isEmpty() {
+		return this.root < 0;
+	}
+
+	private int insert(int node, int id) {
+		if (node < 0) {
+			return id;
+		}
+		if (before(id, node)) {
+			this.left[node] = insert(this.left[node], id);
+			if (this.priority[this.left[node]] > this.priority[node]) {
+				node = rotateRight(node);
+			}
+		} else {
+			this.right[node] = insert(this.right[node], id);
+			if (this.priority[this.right[node]] > this.priority[node]) {
+				node = rotateLeft(node);
+			}
+		}
+		update(node);
+		return node;
+	}
+
+	private int remove(int node, int id) {
+		if (node < 0) {
+			return node;
+		}
+		if (node == id) {
+			return merge(this.left[node], this.right[node]);
+		}
+		if (before(id, node)) {
+			this.left[node] = remove(this.left[node], id);
+		} else {
+			this.right[node] = remove(this.right[node], id);
+		}
+		update(node);
+		return node;
+	}
+
+	/**
+	 * Joins two subtrees, all nodes of the first coming before those of the second.
+	 */
+	private int merge(int a, int b) {
+		if (a < 0) {
+			return b;
+		}
+		if (b < 0) {
+			return a;
+		}
+		if (this.priority[a] > this.priority[b]) {
+			this.right[a] = merge(this.right[a], b);
+			update(a);
+			return a;
+		}
+		this.left[b] = merge(a, this.left[b]);
+		update(b);
+		return b;
+	}
+
+	private int rotateRight(int node) {
+		int top = this.left[node];
+		this.left[node] = this.right[top];
+		this.right[top] = node;
+		update(node);
+		return top;
+	}
+
+	private int rotateLeft(int node) {
+		int top = this.right[node];
+		this.right[node] = this.left[top];
+		this.left[top] = node;
+		update(node);
+		return top;
+	}
+
+	/**
+	 * Orders the nodes by score, then by identifier.
+	 */
+	private boolean before(int a, int b) {
+		return this.value[a] < this.value[b]
+				|| (this.value[a] == this.value[b] && a < b);
+	}
+
+	private void update(int node) {
+		int l = this.left[node];
+		int r = this.right[node];
+		boolean pos = this.positive[node];
+		this.numPos[node] = numPos(l) + numPos(r) + (pos ? 1 : 0);
+		this.numNeg[node] = numNeg(l) + numNeg(r) + (pos ? 0 : 1);
+		this.sumPos[node] = sumPos(l) + sumPos(r) + (pos ? this.value[node] : 0);
+		this.sumNeg[node] = sumNeg(l) + sumNeg(r) + (pos ? 0 : this.value[node]);
+	}
+
+	private int numPos(int node) {
+		return node < 0 ? 0 : this.numPos[node];
+	}
+
+	private int numNeg(int node) {
+		return node < 0 ? 0 : this.numNeg[node];
+	}
+
+	private double sumPos(int node) {
+		return node < 0 ? 0 : this.sumPos[node];
+	}
+
+	private double sumNeg(int node) {
+		return node < 0 ? 0 : this.sumNeg[node];
+	}
+
+	private void grow(int capacity) {
+		this.value = Arrays.copyOf(this.value, capacity);
+		this.positive = Arrays.copyOf(this.positive, capacity);
+		this.priority = Arrays.copyOf(this.priority, capacity);
+		this.left = Arrays.copyOf(this.left, capacity);
+		this.right = Arrays.copyOf(this.right, capacity);
+		this.numPos = Arrays.copyOf(this.numPos, capacity);
+		this.numNeg = Arrays.copyOf(this.numNeg, capacity);
+		this.sumPos = Arrays.copyOf(this.sumPos, capacity);
+		this.sumNeg = Arrays.copyOf(this.sumNeg, capacity);
+	}
+
+	/**
+	 * Scrambles a counter into a priority, so that the tree stays balanced
+	 * without a random number generator.
+	 */
+	private static int mix(int x) {
+		x = (x ^ (x >>> 16)) * 0x7feb352d;
+		x = (x ^ (x >>> 15)) * 0x846ca68b;
+		return x ^ (x >>> 16);
+	}
+}
@@ -21,13 +21,17 @@
 package moa.evaluation; 
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Random;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.gui.visualization.DataPoint;
 
 public class SilhouetteCoefficient extends MeasureCollection{
     private double pointInclusionProbThreshold = 0.8;
+    private int sampleSize = 0;
+    private long sampleSeed = 1;
+    private double errorBound = 0;
 
     public SilhouetteCoefficient() {
         super();
@@ -35,107 +39,202 @@ public class SilhouetteCoefficient extends MeasureCollection{
 
     @Override
     protected boolean[] getDefaultEnabled() {
-        boolean [] defaults = {false};
+        boolean [] defaults = {false, false};
         return defaults;
     }
 
     @Override
     public String[] getNames() {
-        String[] names = {"SilhCoeff"};
+        String[] names = {"SilhCoeff", "SilhCoeff Bound"};
         return names;
     }
 
+    /**
+     * Estimates the coefficient from a stratified sample of the points when a
+     * window has more points than the sample size, instead of comparing every
+     * pair of points. The points are stratified by the first found cluster
+     * they belong to, and the average distance of a point to a cluster is
+     * taken over at most sampleSize random members of the cluster. The
+     * half-width of the 95% confidence interval of the estimate is added as
+     * the value of "SilhCoeff Bound" and is available from getErrorBound.
+     * Per-point values are only set for sampled points.
+     *
+     * @param sampleSize the number of points to sample, 0 to use all points
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = Math.max(0, sampleSize);
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @param seed the seed of the random numbers drawing the samples of each window
+     */
+    public void setSampleSeed(long seed) {
+        this.sampleSeed = seed;
+    }
+
+    /**
+     * @return the half-width of the 95% confidence interval of the last
+     * value, on the normalized scale of the value; 0 if it was computed from
+     * all points
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
     public void evaluateClustering(Clustering clustering, Clustering trueClustering, ArrayList<DataPoint> points) {
         int numFCluster = clustering.size();
+        int numPoints = points.size();
 
-        double [][] pointInclusionProbFC = new double[points.size()][numFCluster];
-        for (int p = 0; p < points.size(); p++) {
+        // the found clusters each point belongs to
+        int[][] memberOf = new int[numPoints][];
+        int[] members = new int[numFCluster];
+        for (int p = 0; p < numPoints; p++) {
             DataPoint point = points.get(p);
+            int numOwn = 0;
             for (int fc = 0; fc < numFCluster; fc++) {
                 Cluster cl = clustering.get(fc);
-                pointInclusionProbFC[p][fc] = cl.getInclusionProbability(point);
+                if(cl.getInclusionProbability(point) > pointInclusionProbThreshold){
+                    members[numOwn++] = fc;
+                }
             }
+            memberOf[p] = Arrays.copyOf(members, numOwn);
         }
 
-        double silhCoeff = 0.0;
-        int totalCount = 0;
-        for (int p = 0; p < points.size(); p++) {
-            DataPoint point = points.get(p);
-            ArrayList<Integer> ownClusters = new ArrayList<Integer>();
+        StratifiedSample sample = null;
+        int[] queries;
+        int[] references;
+        int[][] referenceGroups;
+        if(sampleSize > 0 && numPoints > sampleSize){
+            Random random = new Random(sampleSeed);
+            int[] strata = new int[numPoints];
+            for (int p = 0; p < numPoints; p++) {
+                strata[p] = memberOf[p].length > 0 ? memberOf[p][0] : -1;
+            }
+            sample = new StratifiedSample(strata, numFCluster, sampleSize, random);
+            queries = sample.getAllMembers();
+            // draw the members each cluster is compared with
+            int[] clusterOf = new int[numPoints];
+            int[][] drawn = new int[numFCluster][];
             for (int fc = 0; fc < numFCluster; fc++) {
-                if(pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                    ownClusters.add(fc);
+                for (int p = 0; p < numPoints; p++) {
+                    clusterOf[p] = Arrays.binarySearch(memberOf[p], fc) >= 0 ? 0 : -1;
                 }
+                drawn[fc] = new StratifiedSample(clusterOf, 1, sampleSize, random).getMembers(0);
             }
-
-            if(ownClusters.size() > 0){
-                double[] distanceByClusters = new double[numFCluster];
-                int[] countsByClusters = new int[numFCluster];
-                    //calculate averageDistance of p to all cluster
-                for (int p1 = 0; p1 < points.size(); p1++) {
-                    DataPoint point1 = points.get(p1);
-                    if(p1!= p){ 
-                        // Matthias Carnein 2019/04/03
-                        // Removed second part of if-condition: && point1.classValue() != -1 
-                        // Accessing the classValue will go outOfBounds when no class label exists
-                        // What is the purpose of this check anyway? Class label is not used for Silhouette calculation
-                        for (int fc = 0; fc < numFCluster; fc++) {
-                            if(pointInclusionProbFC[p1][fc] > pointInclusionProbThreshold){
-                                double distance = distance(point, point1);
-                                distanceByClusters[fc]+=distance;
-                                countsByClusters[fc]++;
-                            }
-                        }
-                    }
+            int[] numGroups = new int[numPoints];
+            for (int fc = 0; fc < numFCluster; fc++) {
+                for (int p : drawn[fc]) {
+                    numGroups[p]++;
                 }
-
-                //find closest OWN cluster as clusters might overlap
-                double minAvgDistanceOwn = Double.MAX_VALUE;
-                int minOwnIndex = -1;
-                for (int fc : ownClusters) {
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOwn){// && pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                            minAvgDistanceOwn = normDist;
-                            minOwnIndex = fc;
-                        }
+            }
+            int numReferences = 0;
+            int[][] groupsOf = new int[numPoints][];
+            for (int p = 0; p < numPoints; p++) {
+                if(numGroups[p] > 0){
+                    groupsOf[p] = new int[numGroups[p]];
+                    numGroups[p] = 0;
+                    numReferences++;
+                }
+            }
+            for (int fc = 0; fc < numFCluster; fc++) {
+                for (int p : drawn[fc]) {
+                    groupsOf[p][numGroups[p]++] = fc;
                 }
+            }
+            references = new int[numReferences];
+            referenceGroups = new int[numReferences][];
+            int r = 0;
+            for (int p = 0; p < numPoints; p++) {
+                if(groupsOf[p] != null){
+                    references[r] = p;
+                    referenceGroups[r++] = groupsOf[p];
+                }
+            }
+        }
+        else{
+            int numQueries = 0;
+            for (int p = 0; p < numPoints; p++) {
+                if(memberOf[p].length > 0) numQueries++;
+            }
+            queries = new int[numQueries];
+            int q = 0;
+            for (int p = 0; p < numPoints; p++) {
+                if(memberOf[p].length > 0) queries[q++] = p;
+            }
+            references = new int[numPoints];
+            for (int p = 0; p < numPoints; p++) {
+                references[p] = p;
+            }
+            referenceGroups = memberOf;
+        }
 
+        //calculate averageDistance of the points to all clusters
+        // Matthias Carnein 2019/04/03
+        // Removed check point1.classValue() != -1 for the other points
+        // Accessing the classValue will go outOfBounds when no class label exists
+        // What is the purpose of this check anyway? Class label is not used for Silhouette calculation
+        double[][] coords = PairwiseDistanceKernel.coordinates(points,
+                numPoints > 0 ? points.get(0).numAttributes() : 0);
+        double[][] distanceByClusters = new double[queries.length][numFCluster];
+        int[][] countsByClusters = new int[queries.length][numFCluster];
+        getDistanceKernel().groupDistanceSums(coords, queries, references,
+                referenceGroups, distanceByClusters, countsByClusters);
 
-                //find closest other (or other own) cluster
-                double minAvgDistanceOther = Double.MAX_VALUE;
-                for (int fc = 0; fc < numFCluster; fc++) {
-                    if(fc != minOwnIndex){
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOther){
-                            minAvgDistanceOther = normDist;
-                        }
+        double silhCoeff = 0.0;
+        int totalCount = 0;
+        double[] silhValues = sample != null ? new double[numPoints] : null;
+        for (int q = 0; q < queries.length; q++) {
+            DataPoint point = points.get(queries[q]);
+            //find closest OWN cluster as clusters might overlap
+            double minAvgDistanceOwn = Double.MAX_VALUE;
+            int minOwnIndex = -1;
+            for (int fc : memberOf[queries[q]]) {
+                    double normDist = distanceByClusters[q][fc]/(double)countsByClusters[q][fc];
+                    if(normDist < minAvgDistanceOwn){
+                        minAvgDistanceOwn = normDist;
+                        minOwnIndex = fc;
                     }
-                }
+            }
 
-                double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
-                point.setMeasureValue("SC - own", minAvgDistanceOwn);
-                point.setMeasureValue("SC - other", minAvgDistanceOther);
-                point.setMeasureValue("SC", silhP);
 
-                silhCoeff+=silhP;
-                totalCount++;
-                //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
+            //find closest other (or other own) cluster
+            double minAvgDistanceOther = Double.MAX_VALUE;
+            for (int fc = 0; fc < numFCluster; fc++) {
+                if(fc != minOwnIndex){
+                    double normDist = distanceByClusters[q][fc]/(double)countsByClusters[q][fc];
+                    if(normDist < minAvgDistanceOther){
+                        minAvgDistanceOther = normDist;
+                    }
+                }
             }
+
+            double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
+            point.setMeasureValue("SC - own", minAvgDistanceOwn);
+            point.setMeasureValue("SC - other", minAvgDistanceOther);
+            point.setMeasureValue("SC", silhP);
+
+            silhCoeff+=silhP;
+            totalCount++;
+            if(silhValues != null)
+                silhValues[queries[q]] = silhP;
+            //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
+        }
+        errorBound = 0;
+        if(sample != null && totalCount > 0){
+            double[] estimate = sample.estimateMean(silhValues, StratifiedSample.Z_95);
+            silhCoeff = estimate[0];
+            // on the normalized scale below
+            errorBound = estimate[1]/2.0;
         }
-        if(totalCount>0)
+        else if(totalCount>0)
             silhCoeff/=(double)totalCount;
         //normalize from -1, 1 to 0,1
         silhCoeff = (silhCoeff+1)/2.0;
         addValue(0,silhCoeff);
-    }
-
-    private double distance(DataPoint inst1, DataPoint inst2){
-        double distance = 0.0;
-        int numDims = inst1.numAttributes();
-        for (int i = 0; i < numDims; i++) {
-            double d = inst1.value(i) - inst2.value(i);
-            distance += d * d;
-        }
-        return Math.sqrt(distance);
+        addValue(1,errorBound);
     }
 }
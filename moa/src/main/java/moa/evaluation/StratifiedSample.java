@@ -0,0 +1,189 @@
+/*
+ *    StratifiedSample.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package moa.evaluation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Stratified random sample of points, used by clustering measures to estimate
+ * the mean of a per-point value over large evaluation windows.
+ *
+ * The sample size is allocated to the strata in proportion to their sizes,
+ * with at least one point from every non-empty stratum, and points are drawn
+ * without replacement within each stratum. The estimate of the mean comes with
+ * the half-width of its normal confidence interval.
+ */
+public class StratifiedSample {
+
+    /** The quantile of the standard normal distribution for 95% confidence. */
+    public static final double Z_95 = 1.959963984540054;
+
+    private int[] stratumSizes;
+
+    private int[][] members;
+
+    /**
+     * Draws a sample.
+     *
+     * @param strata the stratum of every point, or -1 to leave a point out
+     * @param numStrata the number of strata
+     * @param sampleSize the number of points to draw in total
+     * @param random the random number generator
+     */
+    public StratifiedSample(int[] strata, int numStrata, int sampleSize, Random random) {
+        stratumSizes = new int[numStrata];
+        int total = 0;
+        for (int s : strata) {
+            if (s >= 0) {
+                stratumSizes[s]++;
+                total++;
+            }
+        }
+        int[][] population = new int[numStrata][];
+        for (int h = 0; h < numStrata; h++) {
+            population[h] = new int[stratumSizes[h]];
+        }
+        int[] fill = new int[numStrata];
+        for (int p = 0; p < strata.length; p++) {
+            if (strata[p] >= 0) {
+                population[strata[p]][fill[strata[p]]++] = p;
+            }
+        }
+        members = new int[numStrata][];
+        for (int h = 0; h < numStrata; h++) {
+            int size = stratumSizes[h];
+            int n = total == 0 ? 0 : (int) Math.round(sampleSize * (double) size / total);
+            n = Math.min(size, Math.max(n, size > 0 ? 1 : 0));
+            // partial Fisher-Yates shuffle draws the first n points
+            int[] pool = population[h];
+            for (int i = 0; i < n; i++) {
+                int j = i + random.nextInt(size - i);
+                int tmp = pool[i];
+                pool[i] = pool[j];
+                pool[j] = tmp;
+            }
+            members[h] = Arrays.copyOf(pool, n);
+            Arrays.sort(members[h]);
+        }
+    }
+
+    public int getNumStrata() {
+        return members.length;
+    }
+
+    /**
+     * @param stratum a stratum
+     * @return the number of points of the stratum in the population
+     */
+    public int getStratumSize(int stratum) {
+        return stratumSizes[stratum];
+    }
+
+    /**
+     * @param stratum a stratum
+     * @return the sampled points of the stratum, in increasing order
+     */
+    public int[] getMembers(int stratum) {
+        return members[stratum];
+    }
+
+    /**
+     * @return the sampled points of all strata, in increasing order
+     */
+    public int[] getAllMembers() {
+        int size = 0;
+        for (int[] m : members) {
+            size += m.length;
+        }
+        int[] all = new int[size];
+        int pos = 0;
+        for (int[] m : members) {
+            System.arraycopy(m, 0, all, pos, m.length);
+            pos += m.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    /**
+     * Estimates the population mean of a value known for the sampled points.
+     * Strata with a single sampled point get the pooled variance of the others.
+     *
+     * @param values the value of every point, only read for sampled points;
+     * NaN values are left out
+     * @param z the quantile of the standard normal distribution for the confidence level
+     * @return the estimated mean and the half-width of its confidence interval
+     */
+    public double[] estimateMean(double[] values, double z) {
+        int numStrata = members.length;
+        double[] means = new double[numStrata];
+        double[] variances = new double[numStrata];
+        int[] counts = new int[numStrata];
+        double pooledSum = 0;
+        int pooledDf = 0;
+        for (int h = 0; h < numStrata; h++) {
+            double sum = 0;
+            for (int p : members[h]) {
+                if (!Double.isNaN(values[p])) {
+                    sum += values[p];
+                    counts[h]++;
+                }
+            }
+            if (counts[h] == 0) {
+                continue;
+            }
+            means[h] = sum / counts[h];
+            double squares = 0;
+            for (int p : members[h]) {
+                if (!Double.isNaN(values[p])) {
+                    double d = values[p] - means[h];
+                    squares += d * d;
+                }
+            }
+            if (counts[h] > 1) {
+                variances[h] = squares / (counts[h] - 1);
+                pooledSum += squares;
+                pooledDf += counts[h] - 1;
+            }
+        }
+        double pooled = pooledDf > 0 ? pooledSum / pooledDf : 0;
+        double weightTotal = 0;
+        for (int h = 0; h < numStrata; h++) {
+            if (counts[h] > 0) {
+                weightTotal += stratumSizes[h];
+            }
+        }
+        if (weightTotal == 0) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
+        double mean = 0;
+        double variance = 0;
+        for (int h = 0; h < numStrata; h++) {
+            if (counts[h] == 0) {
+                continue;
+            }
+            double w = stratumSizes[h] / weightTotal;
+            mean += w * means[h];
+            double s2 = counts[h] > 1 ? variances[h] : pooled;
+            double fpc = 1 - members[h].length / (double) stratumSizes[h];
+            variance += w * w * fpc * s2 / counts[h];
+        }
+        return new double[]{mean, z * Math.sqrt(variance)};
+    }
+}
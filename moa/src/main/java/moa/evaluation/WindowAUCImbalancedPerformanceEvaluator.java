@@ -18,7 +18,7 @@
  */
 package moa.evaluation;
 
-import java.util.TreeSet;
+import java.io.Serializable;
 
 import moa.core.Example;
 import moa.core.Measurement;
@@ -59,7 +59,10 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 	private SimpleEstimator weightMajorityClassifier;
 	protected int numClasses;
 
-    public class SimpleEstimator {
+    public class SimpleEstimator implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
         protected double len;
 
         protected double sum;
@@ -74,78 +77,24 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
         }
     }
 	
-	public class Estimator {
-
-		public class Score implements Comparable<Score> {
-			/**
-			 * Predicted score of the example
-			 */
-			protected double value;
-
-			/**
-			 * Age of example - position in the window where the example was
-			 * added
-			 */
-			protected int posWindow;
-
-			/**
-			 * True if example's true label is positive
-			 */
-			protected boolean isPositive;
-
-			/**
-			 * Constructor.
-			 * 
-			 * @param value
-			 *            score value
-			 * @param position
-			 *            score position in window (defines its age)
-			 * @param isPositive
-			 *            true if the example's true label is positive
-			 */
-			public Score(double value, int position, boolean isPositive) {
-				this.value = value;
-				this.posWindow = position;
-				this.isPositive = isPositive;
-			}
+	public class Estimator implements Serializable {
 
-			/**
-			 * Sort descending based on score value.
-			 */
-			@Override
-			public int compareTo(Score o) {
-				if (o.value < this.value) {
-					return -1;
-				} else if (o.value > this.value){
-					return 1;
-				} else {
-					if (!o.isPositive && this.isPositive) {
-						return -1;
-					} else if (o.isPositive && !this.isPositive){
-						return 1;
-					} else {
-						if (o.posWindow > this.posWindow) {
-							return -1;
-						} else if (o.posWindow < this.posWindow){
-							return 1;
-						} else {
-							return 0;
-						}
-					}
-				}
-			}
-			
-			@Override
-			public boolean equals(Object o) {
-				return (o instanceof Score) && ((Score)o).posWindow == this.posWindow;
-			}
-		}
+		private static final long serialVersionUID = 1L;
 
-		protected TreeSet<Score> sortedScores;
-		
-		protected TreeSet<Score> holdoutSortedScores;
+		/**
+		 * Scores of the examples in the window, ordered by score
+		 */
+		protected ScoreTree sortedScores;
+
+		/**
+		 * Predicted score of each example in the window, by position
+		 */
+		protected double[] window;
 
-		protected Score[] window;
+		/**
+		 * True if the true label of the example at a window position is positive
+		 */
+		protected boolean[] windowPositive;
 		
 		protected double[] predictions;
 
@@ -160,6 +109,27 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 		protected double holdoutNumPos;
 
 		protected double holdoutNumNeg;
+
+		/**
+		 * Sum over all pairs of a positive and a negative example of 1 if the
+		 * positive is scored higher, 1/2 if the scores tie. AUC is this sum
+		 * divided by the number of pairs.
+		 */
+		protected double rankSum;
+
+		/**
+		 * Sum over all pairs of the positive score if it is higher than the
+		 * negative one, half of it if the scores tie (scored AUC)
+		 */
+		protected double scoredRankSum;
+
+		/**
+		 * Sum over all pairs of the negative score if it is higher than the
+		 * positive one (scored AUC)
+		 */
+		protected double scoredNegRankSum;
+
+		protected double holdoutRankSum;
 		
 		protected double correctPredictions;
 		
@@ -170,11 +140,11 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 	    protected double[] rowKappa;
 
 		public Estimator(int sizeWindow) {
-			this.sortedScores = new TreeSet<Score>();
-			this.holdoutSortedScores = new TreeSet<Score>();
+			this.sortedScores = new ScoreTree(sizeWindow);
 			this.size = sizeWindow;
-			this.window = new Score[sizeWindow];
-			this.predictions = new double[sizeWindow];
+			this.window = new double[Math.max(sizeWindow, 0)];
+			this.windowPositive = new boolean[Math.max(sizeWindow, 0)];
+			this.predictions = new double[Math.max(sizeWindow, 0)];
 			
 	        this.rowKappa = new double[numClasses];
 	        this.columnKappa = new double[numClasses];
@@ -188,6 +158,10 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 			this.numNeg = 0;
 			this.holdoutNumPos = 0;
 			this.holdoutNumNeg = 0;
+			this.rankSum = 0;
+			this.scoredRankSum = 0;
+			this.scoredNegRankSum = 0;
+			this.holdoutRankSum = 0;
 			this.correctPredictions = 0;
 			this.correctPositivePredictions = 0;
 		}
@@ -195,12 +169,7 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 		public void add(double score, boolean isPositive, boolean correctPrediction) {
             // // periodically update holdout evaluation
 			if (size > 0 && posWindow % this.size == 0) {
-				this.holdoutSortedScores = new TreeSet<Score>();
-				
-				for (Score s : this.sortedScores) {
-					this.holdoutSortedScores.add(s);
-				}
-				
+				this.holdoutRankSum = this.rankSum;
 				this.holdoutNumPos = this.numPos;
 				this.holdoutNumNeg = this.numNeg;
 			}
@@ -208,26 +177,28 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 			// // if the window is used and it's full			
 			if (size > 0 && posWindow >= this.size) {
 				// // remove the oldest example
-				sortedScores.remove(window[posWindow % size]);
-				correctPredictions -= predictions[posWindow % size];
-				correctPositivePredictions -= window[posWindow % size].isPositive ? predictions[posWindow % size] : 0;
+				int oldest = posWindow % size;
+				sortedScores.remove(oldest);
+				updateRankSums(window[oldest], windowPositive[oldest], -1);
+				correctPredictions -= predictions[oldest];
+				correctPositivePredictions -= windowPositive[oldest] ? predictions[oldest] : 0;
 				
-				if (window[posWindow % size].isPositive) {
+				if (windowPositive[oldest]) {
 					numPos--;
 				} else {
 					numNeg--;
 				}
 				
-				int oldestExampleTrueClass = window[posWindow % size].isPositive ? 1 : 0;
-	            int oldestExamplePredictedClass = predictions[posWindow % size] == 1.0 ? oldestExampleTrueClass : Math.abs(oldestExampleTrueClass - 1);  
+				int oldestExampleTrueClass = windowPositive[oldest] ? 1 : 0;
+	            int oldestExamplePredictedClass = predictions[oldest] == 1.0 ? oldestExampleTrueClass : Math.abs(oldestExampleTrueClass - 1);  
 	            
 				this.rowKappa[oldestExamplePredictedClass] -= 1;
 	            this.columnKappa[oldestExampleTrueClass] -= 1;
 			}
 			
 			// // add new example
-			Score newScore = new Score(score, posWindow, isPositive);
-			sortedScores.add(newScore);
+			updateRankSums(score, isPositive, 1);
+			sortedScores.insert(size > 0 ? posWindow % size : posWindow, score, isPositive);
 			correctPredictions += correctPrediction ? 1 : 0;
 			correctPositivePredictions += correctPrediction && isPositive ? 1 : 0;
 			
@@ -236,59 +207,61 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
             this.rowKappa[predictedClass] += 1;
             this.columnKappa[trueClass] += 1;
 			
-			if (newScore.isPositive) {
+			if (isPositive) {
 				numPos++;
 			} else {
 				numNeg++;
 			}
 
 			if (size > 0) {
-				window[posWindow % size] = newScore;
+				window[posWindow % size] = score;
+				windowPositive[posWindow % size] = isPositive;
 				predictions[posWindow % size] = correctPrediction ? 1 : 0;
 			}
 			
-			//// posWindow needs to be always incremented to differentiate between examples in the red-black tree
+			//// posWindow needs to be always incremented to identify examples in an unbounded window
 			posWindow++;
 		}
 
+		/**
+		 * Adds (sign 1) or removes (sign -1) the pairs an example forms with the
+		 * examples of the other class in the window, which must not contain the
+		 * example itself.
+		 */
+		protected void updateRankSums(double score, boolean isPositive, int sign) {
+			if (isPositive) {
+				int negAbove = sortedScores.numNegAbove(score, false);
+				int negTies = sortedScores.numNegAbove(score, true) - negAbove;
+				double negBelow = numNeg - negAbove - negTies;
+				rankSum += sign * (negBelow + negTies / 2.0);
+				scoredRankSum += sign * score * (negBelow + negTies / 2.0);
+				scoredNegRankSum += sign * sortedScores.sumNegAbove(score);
+			} else {
+				int posAbove = sortedScores.numPosAbove(score, false);
+				int posTies = sortedScores.numPosAbove(score, true) - posAbove;
+				double posBelow = numPos - posAbove - posTies;
+				rankSum += sign * (posAbove + posTies / 2.0);
+				scoredRankSum += sign * (sortedScores.sumPosAbove(score) + score * posTies / 2.0);
+				scoredNegRankSum += sign * score * posBelow;
+			}
+			if (sign < 0 && (isPositive ? numPos : numNeg) == 1) {
+				// no pairs are left, drop the rounding errors of the scored sums
+				rankSum = 0;
+				scoredRankSum = 0;
+				scoredNegRankSum = 0;
+			}
+		}
+
 		public double getAUC() {
-			double AUC = 0;
-			double c = 0;
-			double prevc = 0;
-			double lastPosScore = Double.MAX_VALUE;
-					
 			if (numPos == 0 || numNeg == 0) {
 				return 1;
 			}
 			
-			for (Score s : sortedScores){
-				if(s.isPositive) {			
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += 1;
-				} else {
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			return AUC / (numPos * numNeg);
+			return rankSum / (numPos * numNeg);
 		}
 		
 		public double getHoldoutAUC() {
-			double AUC = 0;
-			double c = 0;
-			double prevc = 0;
-			double lastPosScore = Double.MAX_VALUE;
-
-			if (holdoutSortedScores.isEmpty()) {
+			if (holdoutNumPos + holdoutNumNeg == 0) {
 				return 0;
 			}
 			
@@ -296,76 +269,18 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 				return 1;
 			}
 
-			for (Score s : holdoutSortedScores){
-				if(s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += 1;
-				} else {
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			return AUC / (holdoutNumPos * holdoutNumNeg);
+			return holdoutRankSum / (holdoutNumPos * holdoutNumNeg);
 		}
 
 		public double getScoredAUC() {
-			double AOC = 0;
-			double AUC = 0;
-			double r = 0;
-			double prevr = 0;
-			double c = 0;
-			double prevc = 0;
 			double R_plus, R_minus;
-			double lastPosScore = Double.MAX_VALUE;
-			double lastNegScore = Double.MAX_VALUE;
 			
 			if (numPos == 0 || numNeg == 0) {
 				return 1;
 			}
 			
-			for (Score s : sortedScores){
-				if(s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += s.value;
-					
-					if (s.value == lastNegScore) {
-						// tie
-						AOC += ((double)(r + prevr))/2.0;
-					} else {
-						AOC += r;
-					}
-				} else {
-					if (s.value != lastNegScore) {
-						prevr = r;
-						lastNegScore = s.value;
-					}
-					
-					r += s.value;
-					
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			R_minus = (numPos*r - AOC)/(numPos * numNeg);
-			R_plus = (AUC)/(numPos * numNeg);		
+			R_minus = (numPos*sortedScores.sumNeg() - scoredNegRankSum)/(numPos * numNeg);
+			R_plus = (scoredRankSum)/(numPos * numNeg);		
 			return R_plus - R_minus;
 		}
 		
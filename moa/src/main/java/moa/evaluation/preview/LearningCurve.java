@@ -41,6 +41,12 @@ public class LearningCurve extends Preview {
 
     protected List<double[]> measurementValues = new ArrayList<double[]>();
 
+    /**
+     * The number of times entries were replaced or inserted before the last
+     * entry, so that a LearningCurveCursor knows when to read all entries again.
+     */
+    protected int numRewrites = 0;
+
     Class<?> taskClass = null;
     
     public LearningCurve(String orderingMeasurementName) {
@@ -56,10 +62,11 @@ public class LearningCurve extends Preview {
         return this.measurementNames.get(0);
     }
     
-    public void setData(
+    public synchronized void setData(
     		List<String> measurementNames, 
     		List<double[]> measurementValues) 
     {
+    	this.numRewrites++;
     	this.measurementNames.clear();
     	this.measurementValues.clear();
     	
@@ -67,7 +74,7 @@ public class LearningCurve extends Preview {
     	this.measurementValues.addAll(measurementValues);
     }
 
-    public void insertEntry(LearningEvaluation learningEvaluation) {
+    public synchronized void insertEntry(LearningEvaluation learningEvaluation) {
         Measurement[] measurements = learningEvaluation.getMeasurements();
         Measurement orderMeasurement = Measurement.getMeasurementNamed(
                 getOrderingMeasurementName(), measurements);
@@ -85,6 +92,9 @@ public class LearningCurve extends Preview {
                 && (orderVal > this.measurementValues.get(index)[0])) {
             index++;
         }
+        if (index < this.measurementValues.size()) {
+            this.numRewrites++;
+        }
         this.measurementValues.add(index, entryVals.getArrayRef());
     }
 
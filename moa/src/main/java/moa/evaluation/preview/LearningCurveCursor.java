@@ -0,0 +1,104 @@
+/*
+ *    LearningCurveCursor.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation.preview;
+
+import moa.AbstractMOAObject;
+
+/**
+ * Read-only cursor over the entries of a learning curve that a running task
+ * keeps adding to.
+ *
+ * A task sets the same cursor as its result preview every time a preview is
+ * requested, instead of copying its learning curve. Readers call update(),
+ * which pulls the entries added since the previous call into a replica of the
+ * curve owned by the cursor, and then read the replica. Entries are never
+ * changed once added to a curve, so the replica shares them with the curve.
+ *
+ * @version $Revision: 1 $
+ */
+public class LearningCurveCursor extends AbstractMOAObject {
+
+    private static final long serialVersionUID = 1L;
+
+    protected LearningCurve learningCurve;
+
+    protected LearningCurve replica;
+
+    protected Preview preview;
+
+    protected int numEntriesPulled = 0;
+
+    protected int numRewritesSeen = 0;
+
+    /**
+     * Creates a cursor whose preview is the replica of the learning curve.
+     *
+     * @param learningCurve the learning curve of the task
+     */
+    public LearningCurveCursor(LearningCurve learningCurve) {
+        this.learningCurve = learningCurve;
+        this.replica = new LearningCurve(learningCurve.getOrderingMeasurementName(),
+                learningCurve.getTaskClass());
+        this.preview = this.replica;
+    }
+
+    /**
+     * Creates a cursor whose preview is the replica of the learning curve
+     * wrapped for use in a preview collection.
+     *
+     * @param learningCurve the learning curve of the task
+     * @param taskClass the task class of the wrapper
+     */
+    public LearningCurveCursor(LearningCurve learningCurve, Class<?> taskClass) {
+        this(learningCurve);
+        this.preview = new PreviewCollectionLearningCurveWrapper(this.replica, taskClass);
+    }
+
+    /**
+     * Pulls the entries added to the learning curve since the last update.
+     * All entries are read again if the curve has changed otherwise.
+     *
+     * @return the preview of the learning curve, which is the same object on
+     * every call
+     */
+    public synchronized Preview update() {
+        synchronized (this.learningCurve) {
+            int numEntries = this.learningCurve.numEntries();
+            if (this.learningCurve.numRewrites != this.numRewritesSeen
+                    || numEntries < this.numEntriesPulled) {
+                this.replica.setData(this.learningCurve.measurementNames,
+                        this.learningCurve.measurementValues);
+            } else {
+                for (int i = this.replica.measurementNames.size(); i < this.learningCurve.measurementNames.size(); i++) {
+                    this.replica.measurementNames.add(this.learningCurve.measurementNames.get(i));
+                }
+                for (int i = this.numEntriesPulled; i < numEntries; i++) {
+                    this.replica.measurementValues.add(this.learningCurve.measurementValues.get(i));
+                }
+            }
+            this.numEntriesPulled = numEntries;
+            this.numRewritesSeen = this.learningCurve.numRewrites;
+        }
+        return this.preview;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        update().getDescription(sb, indent);
+    }
+}
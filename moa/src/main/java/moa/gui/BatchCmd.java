@@ -64,6 +64,12 @@ public class BatchCmd implements ClusterEventListener{
 	private int totalInstances;
 	public boolean useMicroGT = false;
 
+	// set to write a row of the output after each evaluation, see runBatch
+	private PrintWriter rowOut;
+	private int rowHorizon;
+	private int numRows;
+	private int numEventsWritten;
+
 
 	public BatchCmd(AbstractClusterer clusterer, ClusteringStream stream, MeasureCollection[] measures, int totalInstances){
 		this.clusterer = clusterer;
@@ -129,20 +135,77 @@ public class BatchCmd implements ClusterEventListener{
 	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
 			boolean[] measureCollection, int amountInstances, String outputFile){
 		// create the measure collection 
-		MeasureCollection[] measures = getMeasures(getMeasureSelection(measureCollection));
+		MeasureCollection[] measures = getMeasures(measureCollection);
 		
+		runBatch(stream, clusterer, measures, amountInstances, outputFile);
+	}
+
+	/**
+	 * Runs a clusterer on a stream and writes the values of the measures to a
+	 * csv file, one row per evaluation. When the measures keep quantile
+	 * summaries instead of all their values, each row is written right after
+	 * its evaluation.
+	 *
+	 * @param measures the measures, see getMeasures(boolean[])
+	 */
+	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
+			MeasureCollection[] measures, int amountInstances, String outputFile){
 		// run the batch job
 		BatchCmd batch = new BatchCmd(clusterer, stream, measures, amountInstances);
+
+		// read horizon
+		int horizon = stream.decayHorizonOption.getValue();
+
+		for (int i = 0; i < measures.length; i++) {
+			if (!measures[i].keepsAllValues()) {
+				batch.runWithRowOutput(outputFile, horizon);
+				return;
+			}
+		}
 		batch.run();
 
-		// read events and horizon
+		// read events
 		ArrayList<ClusterEvent> clusterEvents = batch.getEventList();
-		int horizon = stream.decayHorizonOption.getValue();
 		
 		// write results to file
 		exportCSV(outputFile, clusterEvents, measures, horizon);
 	}
 
+	/**
+	 * Runs the batch job and writes a row of the csv file after each
+	 * evaluation, with the last values of the measures.
+	 */
+	public void runWithRowOutput(String filepath, int horizon){
+		try {
+			rowOut = openCSV(filepath);
+		} catch (IOException ex) {
+			Logger.getLogger(RunVisualizer.class.getName()).log(Level.SEVERE, null, ex);
+			return;
+		}
+		rowHorizon = horizon;
+		numRows = 0;
+		numEventsWritten = 0;
+		try {
+			writeHeader(rowOut, measures);
+			run();
+		} finally {
+			rowOut.close();
+			rowOut = null;
+		}
+	}
+
+	private void writeNextRow(){
+		String eventType = null;
+		if (clusterEvents != null && numEventsWritten < clusterEvents.size()
+				&& clusterEvents.get(numEventsWritten).getTimestamp() <= ((numRows+1) * rowHorizon)) {
+			eventType = clusterEvents.get(numEventsWritten).getType();
+			numEventsWritten++;
+		}
+		writeRow(rowOut, numRows, eventType, measures);
+		rowOut.flush();
+		numRows++;
+	}
+
 
 	public void run(){
 		ArrayList<DataPoint> pointBuffer0 = new ArrayList<DataPoint>();
@@ -207,6 +270,8 @@ public class BatchCmd implements ClusterEventListener{
 						//System.out.println("Eval of "+measures[i].getClass().getSimpleName()+" at "+m_timestamp+" took "+sec);
 					} catch (Exception ex) { ex.printStackTrace(); }
 				}
+				if(rowOut != null)
+					writeNextRow();
 
 				pointBuffer0.clear();
 				counter = decayHorizon;
@@ -214,6 +279,17 @@ public class BatchCmd implements ClusterEventListener{
 		}
 	}
 
+	/**
+	 * Creates the measure collections selected by flags, in the order of the
+	 * measure options of EvaluateClustering, with all their measures enabled.
+	 *
+	 * @param measureCollection the selection flags
+	 * @return the measure collections
+	 */
+	public static MeasureCollection[] getMeasures(boolean[] measureCollection){
+		return getMeasures(getMeasureSelection(measureCollection));
+	}
+
 	@SuppressWarnings("unchecked")
 	private static MeasureCollection[] getMeasures(ArrayList<Class> measure_classes){
 		MeasureCollection[] measures = new MeasureCollection[measure_classes.size()];
@@ -243,29 +319,10 @@ public class BatchCmd implements ClusterEventListener{
 		PrintWriter out = null;
 		try {
 			// Prepare an output file			
-			if (!filepath.endsWith(".csv")) {
-				filepath += ".csv";
-			}
-			out = new PrintWriter(new BufferedWriter(new FileWriter(filepath)));
-			
-			
-			String delimiter = ";";
+			out = openCSV(filepath);
 
 			// Header
-			int numValues = 0;
-			out.write("Nr" + delimiter);
-			out.write("Event" + delimiter);
-			for (int m = 0; m < 1; m++) {	// TODO: Multiple group of measures
-				for (int i = 0; i < measures.length; i++) {
-					for (int j = 0; j < measures[i].getNumMeasures(); j++) {
-						if (measures[i].isEnabled(j)) {
-							out.write(measures[i].getName(j) + delimiter);
-							numValues = measures[i].getNumberOfValues(j);
-						}
-					}
-				}
-			}
-			out.write("\n");
+			int numValues = writeHeader(out, measures);
 
 			// Rows
 			Iterator<ClusterEvent> eventIt = null;
@@ -277,31 +334,18 @@ public class BatchCmd implements ClusterEventListener{
 				}
 			}
 			for (int v = 0; v < numValues; v++){
-				// Nr
-				out.write(v + delimiter);
 				// Events
+				String eventType = null;
 				if (event != null && event.getTimestamp() <= ((v+1) * horizon)) {
-					out.write(event.getType() + delimiter);
+					eventType = event.getType();
 					if (eventIt != null && eventIt.hasNext()) {
 						event = eventIt.next();
 					} else {
 						event = null;
 					}
-				} else {
-					out.write(delimiter);
 				}
 
-				// Values
-				for (int m = 0; m < 1; m++) {	// TODO: Multiple group of measures
-					for (int i = 0; i < measures.length; i++) {
-						for (int j = 0; j < measures[i].getNumMeasures(); j++) {
-							if (measures[i].isEnabled(j)) {
-								out.write(measures[i].getValue(j, v) + delimiter);
-							}
-						}
-					}
-				}
-				out.write("\n");
+				writeRow(out, v, eventType, measures);
 			}
 			
 			out.close();
@@ -312,5 +356,56 @@ public class BatchCmd implements ClusterEventListener{
 			out.close();
 		}
 	}
+
+	private static final String DELIMITER = ";";
+
+	private static PrintWriter openCSV(String filepath) throws IOException {
+		if (!filepath.endsWith(".csv")) {
+			filepath += ".csv";
+		}
+		return new PrintWriter(new BufferedWriter(new FileWriter(filepath)));
+	}
+
+	// returns the number of values of the last enabled measure
+	private static int writeHeader(PrintWriter out, MeasureCollection[] measures) {
+		int numValues = 0;
+		out.write("Nr" + DELIMITER);
+		out.write("Event" + DELIMITER);
+		for (int m = 0; m < 1; m++) {	// TODO: Multiple group of measures
+			for (int i = 0; i < measures.length; i++) {
+				for (int j = 0; j < measures[i].getNumMeasures(); j++) {
+					if (measures[i].isEnabled(j)) {
+						out.write(measures[i].getName(j) + DELIMITER);
+						numValues = measures[i].getNumberOfValues(j);
+					}
+				}
+			}
+		}
+		out.write("\n");
+		return numValues;
+	}
+
+	private static void writeRow(PrintWriter out, int v, String eventType, MeasureCollection[] measures) {
+		// Nr
+		out.write(v + DELIMITER);
+		// Events
+		if (eventType != null) {
+			out.write(eventType + DELIMITER);
+		} else {
+			out.write(DELIMITER);
+		}
+
+		// Values
+		for (int m = 0; m < 1; m++) {	// TODO: Multiple group of measures
+			for (int i = 0; i < measures.length; i++) {
+				for (int j = 0; j < measures[i].getNumMeasures(); j++) {
+					if (measures[i].isEnabled(j)) {
+						out.write(measures[i].getValue(j, v) + DELIMITER);
+					}
+				}
+			}
+		}
+		out.write("\n");
+	}
 }
 
@@ -39,6 +39,9 @@ public class PreviewTableModel extends AbstractTableModel {
 	List<String> names;
 	List<double[]> data;
 	Preview latestPreview;
+	// kept apart from latestPreview, which may be updated in place by the task
+	int latestNumEntries;
+	Class<?> latestTaskClass;
 	boolean structureChangeFlag;
 	
 	public PreviewTableModel()
@@ -89,13 +92,15 @@ public class PreviewTableModel extends AbstractTableModel {
 		else
 		{
 			structureChangeFlag |= latestPreview == null;
-			structureChangeFlag |= latestPreview != null && latestPreview.numEntries() == 0 && preview.numEntries() > 0;
-			structureChangeFlag |= latestPreview != null && latestPreview.getTaskClass() != preview.getTaskClass();
+			structureChangeFlag |= latestPreview != null && latestNumEntries == 0 && preview.numEntries() > 0;
+			structureChangeFlag |= latestPreview != null && latestTaskClass != preview.getTaskClass();
 		}
 		latestPreview = preview;
 		if(preview != null)
 		{
 			data = preview.getData();
+			latestNumEntries = data.size();
+			latestTaskClass = preview.getTaskClass();
 			
 			if(structureChangeFlag)
 			{
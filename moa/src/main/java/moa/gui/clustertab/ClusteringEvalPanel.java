@@ -23,11 +23,17 @@ import java.awt.GridBagConstraints;
 import java.util.ArrayList;
 import java.util.logging.Logger;
 import javax.swing.JCheckBox;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import moa.core.AutoClassDiscovery;
 import moa.core.AutoExpandVector;
 import moa.evaluation.ClassificationMeasureCollection;
 import moa.evaluation.MeasureCollection;
+import moa.evaluation.PairwiseDistanceKernel;
+import moa.evaluation.SilhouetteCoefficient;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.gui.OptionEditComponent;
+import com.github.javacliparser.gui.OptionsConfigurationPanel;
 
 public class ClusteringEvalPanel extends javax.swing.JPanel {
 
@@ -37,12 +43,30 @@ public class ClusteringEvalPanel extends javax.swing.JPanel {
 
     ArrayList<JCheckBox> checkboxes = null;
 
+    ArrayList<OptionEditComponent> editComponents = null;
+
+    private IntOption quantileSummarySizeOption = new IntOption("quantileSummarySize", 'z',
+            "Number of tuples of the quantile summary kept for each measure instead of all its values, the curves and the csv export then only show their statistics (0 = keep all values).",
+            0, 0, Integer.MAX_VALUE);
+
+    private IntOption silhouetteSampleSizeOption = new IntOption("silhouetteSampleSize", 'n',
+            "Number of points sampled to estimate the silhouette coefficient of larger windows (0 = use all points).",
+            0, 0, Integer.MAX_VALUE);
+
+    private IntOption silhouetteSampleSeedOption = new IntOption("silhouetteSampleSeed", 'r',
+            "Seed for the samples of the silhouette coefficient.", 1);
+
+    private IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to compute point distances for the measures (-1 = as much as possible, 0 or 1 = do not use multithreading)",
+            1, -1, Integer.MAX_VALUE);
+
     /** Creates new form ClusteringEvalPanel */
     public ClusteringEvalPanel() {
         initComponents();
         measure_classes = findMeasureClasses();
         labels = new ArrayList<JLabel>();
         checkboxes = new ArrayList<JCheckBox>();
+        editComponents = new ArrayList<OptionEditComponent>();
         addComponents();
     }
 
@@ -82,6 +106,12 @@ public class ClusteringEvalPanel extends javax.swing.JPanel {
             }
 
         }
+
+        counter = addOption(quantileSummarySizeOption, "Quantile summary", gb, counter);
+        counter = addOption(silhouetteSampleSizeOption, "SilhCoeff sample", gb, counter);
+        counter = addOption(silhouetteSampleSeedOption, "SilhCoeff seed", gb, counter);
+        counter = addOption(numberOfJobsOption, "Distance jobs", gb, counter);
+
         JLabel dummy = new JLabel();
         gb.gridx = 0;
         gb.gridy++;
@@ -92,6 +122,22 @@ public class ClusteringEvalPanel extends javax.swing.JPanel {
 
     }
 
+    private int addOption(IntOption option, String name, GridBagConstraints gb, int counter) {
+        JLabel l = new JLabel(name);
+        l.setPreferredSize(new java.awt.Dimension(100, 14));
+        l.setToolTipText(option.getPurpose());
+        gb.gridx = 0;
+        gb.gridy = counter;
+        contentPanel.add(l, gb);
+
+        JComponent editor = OptionsConfigurationPanel.getEditComponent(option);
+        l.setLabelFor(editor);
+        gb.gridx = 1;
+        editComponents.add((OptionEditComponent) editor);
+        contentPanel.add(editor, gb);
+        return counter + 1;
+    }
+
     private Class<?>[] findMeasureClasses() {
         AutoExpandVector<Class<?>> finalClasses = new AutoExpandVector<Class<?>>();
         Class<?>[] classesFound = AutoClassDiscovery.findClassesOfType("moa.evaluation",
@@ -113,6 +159,10 @@ public class ClusteringEvalPanel extends javax.swing.JPanel {
 
     public MeasureCollection[] getSelectedMeasures() {
         ArrayList<MeasureCollection> measuresSelect = new ArrayList<MeasureCollection>();
+        for (OptionEditComponent editor : editComponents) {
+            editor.applyState();
+        }
+        PairwiseDistanceKernel kernel = PairwiseDistanceKernel.getKernel(numberOfJobsOption.getValue());
 
         int counter = 0;
         for (int i = 0; i < measure_classes.length; i++) {
@@ -128,6 +178,12 @@ public class ClusteringEvalPanel extends javax.swing.JPanel {
                     counter++;
                 }
                 if (addMeasure) {
+                    m.setQuantileSummarySize(quantileSummarySizeOption.getValue());
+                    m.setDistanceKernel(kernel);
+                    if (m instanceof SilhouetteCoefficient) {
+                        ((SilhouetteCoefficient) m).setSampleSize(silhouetteSampleSizeOption.getValue());
+                        ((SilhouetteCoefficient) m).setSampleSeed(silhouetteSampleSeedOption.getValue());
+                    }
                     measuresSelect.add(m);
                 }
 
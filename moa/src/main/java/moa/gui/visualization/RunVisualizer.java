@@ -522,6 +522,11 @@ public class RunVisualizer implements Runnable, ActionListener, ClusterEventList
             MeasureCollection measurecol[][] = new MeasureCollection[2][];
             measurecol[0] = m_measures0;
             measurecol[1] = m_measures1;
+            if(!keepsAllValues(measurecol)){
+                exportSummary(out, measurecol, del);
+                out.close();
+                return;
+            }
             int numValues = 0;
             //header
             out.write("Nr"+del);
@@ -580,6 +585,41 @@ public class RunVisualizer implements Runnable, ActionListener, ClusterEventList
         }
     }
 
+    private static boolean keepsAllValues(MeasureCollection measurecol[][]) {
+        for (int m = 0; m < measurecol.length; m++) {
+            for (int i = 0; i < measurecol[m].length; i++) {
+                if(!measurecol[m][i].keepsAllValues())
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    // with quantile summaries the values are not kept, so one row of statistics is written per measure
+    private static void exportSummary(PrintWriter out, MeasureCollection measurecol[][], String del) {
+        out.write("Measure"+del+"Mean"+del+"Min"+del+"Max"+del);
+        out.write("Lower quartile"+del+"Median"+del+"Upper quartile"+del+"\n");
+        for (int m = 0; m < measurecol.length; m++) {
+            for (int i = 0; i < measurecol[m].length; i++) {
+                MeasureCollection mc = measurecol[m][i];
+                for (int j = 0; j < mc.getNumMeasures(); j++) {
+                    if(mc.isEnabled(j) && mc.getNumberOfValues(j) > 0){
+                        out.write(m+"-"+mc.getName(j)+del);
+                        double[] stats = {mc.getMean(j), mc.getMinValue(j), mc.getMaxValue(j),
+                            mc.getLowerQuartile(j), mc.getMedian(j), mc.getUpperQuartile(j)};
+                        for (double value : stats) {
+                            if(Double.isNaN(value))
+                                out.write(del);
+                            else
+                                out.write(value+del);
+                        }
+                        out.write("\n");
+                    }
+                }
+            }
+        }
+    }
+
     public void weka() {
     	try{
     		Class.forName("weka.gui.Logger");
@@ -21,6 +21,8 @@ package moa.streams;
 
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
+import com.yahoo.labs.samoa.instances.InstanceStorage;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import java.io.BufferedReader;
@@ -67,6 +69,10 @@ public class ArffFileStream extends AbstractOptionHandler implements
             "Class index of data. 0 for none or -1 for last attribute in file.",
             -1, -1, Integer.MAX_VALUE);
 
+    public MultiChoiceOption valueStorageOption = new MultiChoiceOption(
+            "valueStorage", 'v', "How instances store their values.",
+            InstanceStorage.NAMES, InstanceStorage.DESCRIPTIONS, InstanceStorage.DOUBLE);
+
     protected Instances instances;
 
     protected Reader fileReader;
@@ -96,7 +102,7 @@ public class ArffFileStream extends AbstractOptionHandler implements
 
     @Override
     public InstancesHeader getHeader() {
-        return new InstancesHeader(this.instances);
+        return InstancesHeader.intern(this.instances);
     }
 
     @Override
@@ -138,6 +144,7 @@ public class ArffFileStream extends AbstractOptionHandler implements
                     this.fileProgressMonitor));
             int classIndex = this.classIndexOption.getValue();
             this.instances = new Instances(this.fileReader, 1, classIndex);
+            this.instances.setInstanceStorage(new InstanceStorage(this.valueStorageOption.getChosenIndex()));
             if (classIndex < 0) {
 		this.instances.setClassIndex(this.instances.numAttributes() - 1);
             } else if (this.classIndexOption.getValue() > 0) {
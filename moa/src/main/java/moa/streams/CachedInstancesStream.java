@@ -47,7 +47,7 @@ public class CachedInstancesStream extends AbstractMOAObject implements
 
     @Override
 	public InstancesHeader getHeader() {
-		return new InstancesHeader(this.toStream);
+		return InstancesHeader.intern(this.toStream);
 	}
 
     @Override
@@ -98,7 +98,7 @@ public class MultiTargetArffFileStream extends AbstractOptionHandler implements
 
     @Override
     public InstancesHeader getHeader() {
-        return new InstancesHeader(this.instances);
+        return InstancesHeader.intern(this.instances);
     }
 
     @Override
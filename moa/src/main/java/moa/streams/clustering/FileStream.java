@@ -121,7 +121,7 @@ public class FileStream extends ClusteringStream{
 	}
 
 	public InstancesHeader getHeader() {
-		return new InstancesHeader(this.filteredDataset);
+		return InstancesHeader.intern(this.filteredDataset);
 	}
 
 	public long estimatedRemainingInstances() {
@@ -124,7 +124,7 @@ public class SimpleCSVStream extends ClusteringStream {
 	 */
 	@Override
 	public InstancesHeader getHeader() {
-		return new InstancesHeader(this.dataset);
+		return InstancesHeader.intern(this.dataset);
 	}
 
 	/*
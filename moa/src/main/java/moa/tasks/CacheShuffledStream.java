@@ -21,10 +21,12 @@ package moa.tasks;
 
 import java.util.Random;
 
+import com.yahoo.labs.samoa.instances.InstanceStorage;
 import com.yahoo.labs.samoa.instances.Instances;
 import moa.core.ObjectRepository;
 import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.streams.CachedInstancesStream;
 import moa.streams.InstanceStream;
 
@@ -55,14 +57,20 @@ public class CacheShuffledStream extends AbstractTask {
             "shuffleRandomSeed", 'r',
             "Seed for random shuffling of instances.", 1);
 
+    public MultiChoiceOption valueStorageOption = new MultiChoiceOption(
+            "valueStorage", 'v', "How cached instances store their values.",
+            InstanceStorage.NAMES, InstanceStorage.DESCRIPTIONS, InstanceStorage.DOUBLE);
+
     @Override
     protected Object doTaskImpl(TaskMonitor monitor, ObjectRepository repository) {
         InstanceStream stream = (InstanceStream) getPreparedClassOption(this.streamOption);
         Instances cache = new Instances(stream.getHeader(), 0);
+        InstanceStorage storage = new InstanceStorage(this.valueStorageOption.getChosenIndex());
         monitor.setCurrentActivity("Caching instances...", -1.0);
         while ((cache.numInstances() < this.maximumCacheSizeOption.getValue())
                 && stream.hasMoreInstances()) {
             cache.add(stream.nextInstance().getData());
+            storage.compact(cache.instance(cache.numInstances() - 1));
             if (cache.numInstances()
                     % MainTask.INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
@@ -0,0 +1,136 @@
+/*
+ *    CheckpointWriter.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the checkpoints of an evaluation task to a file.
+ *
+ * A checkpoint is serialized to memory on the thread of the task, which is
+ * the only time the task waits, and is compressed and written by a background
+ * thread while the task goes on. It is written to a temporary file that then
+ * replaces the checkpoint file, so a crash while writing leaves the previous
+ * checkpoint in place. The file can be read back with
+ * EvaluationCheckpoint.readFromFile.
+ *
+ * @version $Revision: 1 $
+ */
+public class CheckpointWriter {
+
+    protected File file;
+
+    protected Thread writerThread;
+
+    protected volatile Exception writeException;
+
+    public CheckpointWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Takes a snapshot of a checkpoint and starts writing it. Waits for the
+     * previous checkpoint to be written first.
+     *
+     * @param checkpoint the checkpoint
+     */
+    public void write(EvaluationCheckpoint checkpoint) {
+        final byte[] snapshot;
+        try {
+            ByteArrayOutputStream baoStream = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(baoStream);
+            out.writeObject(checkpoint);
+            out.close();
+            snapshot = baoStream.toByteArray();
+        } catch (IOException ex) {
+            throw new RuntimeException("Unable to serialize checkpoint.", ex);
+        }
+        waitForWrite();
+        this.writerThread = new Thread("checkpoint writer") {
+
+            @Override
+            public void run() {
+                try {
+                    writeSnapshot(snapshot);
+                } catch (Exception ex) {
+                    writeException = ex;
+                }
+            }
+        };
+        this.writerThread.start();
+    }
+
+    /**
+     * Waits until the last checkpoint is written.
+     */
+    public void close() {
+        waitForWrite();
+    }
+
+    protected void waitForWrite() {
+        if (this.writerThread != null) {
+            boolean interrupted = false;
+            while (this.writerThread.isAlive()) {
+                try {
+                    this.writerThread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            this.writerThread = null;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (this.writeException != null) {
+            Exception ex = this.writeException;
+            this.writeException = null;
+            throw new RuntimeException(
+                    "Unable to write checkpoint file: " + this.file, ex);
+        }
+    }
+
+    protected void writeSnapshot(byte[] snapshot) throws IOException {
+        File tempFile = new File(this.file.getPath() + ".tmp");
+        OutputStream out = new GZIPOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile)));
+        try {
+            out.write(snapshot);
+        } finally {
+            out.close();
+        }
+        try {
+            Files.move(tempFile.toPath(), this.file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile.toPath(), this.file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
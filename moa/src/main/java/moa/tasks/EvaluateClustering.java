@@ -10,6 +10,9 @@ package moa.tasks;
 
 import moa.clusterers.AbstractClusterer;
 import moa.core.ObjectRepository;
+import moa.evaluation.MeasureCollection;
+import moa.evaluation.PairwiseDistanceKernel;
+import moa.evaluation.SilhouetteCoefficient;
 import moa.evaluation.preview.LearningCurve;
 import moa.gui.BatchCmd;
 import moa.options.ClassOption;
@@ -62,6 +65,21 @@ public class EvaluateClustering extends AuxiliarMainTask {
     public FlagOption silhouetteOption = new FlagOption("Silhouette", 'h', "SilhCoeff.");
     
     public FlagOption statisticalOption = new FlagOption("Statistical", 't', "van Dongen, Rand statistic.");
+
+    public IntOption quantileSummarySizeOption = new IntOption("quantileSummarySize", 'z',
+            "Number of tuples of the quantile summary kept for each measure instead of all its values, rows are then written after each evaluation (0 = keep all values).",
+            0, 0, Integer.MAX_VALUE);
+
+    public IntOption silhouetteSampleSizeOption = new IntOption("silhouetteSampleSize", 'n',
+            "Number of points sampled to estimate the silhouette coefficient of larger windows (0 = use all points).",
+            0, 0, Integer.MAX_VALUE);
+
+    public IntOption silhouetteSampleSeedOption = new IntOption("silhouetteSampleSeed", 'r',
+            "Seed for the samples of the silhouette coefficient.", 1);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to compute point distances for the measures (-1 = as much as possible, 0 or 1 = do not use multithreading)",
+            1, -1, Integer.MAX_VALUE);
        
     /*public ClassOption evaluatorOption = new ClassOption("evaluator", 'e',
     "Performance evaluation method.",
@@ -120,9 +138,20 @@ public class EvaluateClustering extends AuxiliarMainTask {
     	measureCollection[6] = this.silhouetteOption.isSet();
     	measureCollection[7] = this.statisticalOption.isSet();
     	
+    	MeasureCollection[] measures = BatchCmd.getMeasures(measureCollection);
+    	PairwiseDistanceKernel kernel = PairwiseDistanceKernel.getKernel(this.numberOfJobsOption.getValue());
+    	for (MeasureCollection measure : measures) {
+    		measure.setQuantileSummarySize(this.quantileSummarySizeOption.getValue());
+    		measure.setDistanceKernel(kernel);
+    		if (measure instanceof SilhouetteCoefficient) {
+    			((SilhouetteCoefficient) measure).setSampleSize(this.silhouetteSampleSizeOption.getValue());
+    			((SilhouetteCoefficient) measure).setSampleSeed(this.silhouetteSampleSeedOption.getValue());
+    		}
+    	}
+    	
         BatchCmd.runBatch((ClusteringStream) getPreparedClassOption(this.streamOption),
                 (AbstractClusterer) getPreparedClassOption(this.learnerOption),
-                measureCollection,
+                measures,
                 (int) this.instanceLimitOption.getValue(),
                 (String) dumpFileOption.getValue());
 
@@ -33,6 +33,7 @@ import moa.core.TimingUtils;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.ChangeDetectorLearner;
 import moa.options.ClassOption;
 
@@ -107,6 +108,7 @@ public class EvaluateConceptDrift extends ConceptDriftMainTask{
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
 
         learner.setModelContext(stream.getHeader());
         int maxInstances = this.instanceLimitOption.getValue();
@@ -222,7 +224,7 @@ public class EvaluateConceptDrift extends ConceptDriftMainTask{
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
                 secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
                         - evaluateStartTime);
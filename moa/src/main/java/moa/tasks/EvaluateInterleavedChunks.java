@@ -22,6 +22,7 @@ package moa.tasks;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import moa.classifiers.BatchClassifier;
 import moa.classifiers.Classifier;
 import moa.core.Example;
 import moa.core.InstanceExample;
@@ -31,6 +32,7 @@ import moa.core.TimingUtils;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
@@ -149,6 +151,7 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 		monitor.setCurrentActivity("Evaluating learner...", -1.0);
 		LearningCurve learningCurve = new LearningCurve(
 				"learning evaluation instances");
+		LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
 		File dumpFile = this.dumpFileOption.getFile();
 		PrintStream immediateResultStream = null;
 		if (dumpFile != null) {
@@ -203,10 +206,16 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 			long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
 			if(!firstChunk)
 			{
+				double[][] predictions = null;
+				if (learner instanceof BatchClassifier) {
+					predictions = new double[chunkInstances.numInstances()][];
+					((BatchClassifier) learner).getVotesForInstances(chunkInstances, predictions);
+				}
 				for (int i=0; i< chunkInstances.numInstances(); i++) {
 					Example testInst = new InstanceExample((Instance) chunkInstances.instance(i));
 					//testInst.setClassMissing();
-					double[] prediction = learner.getVotesForInstance(testInst);
+					double[] prediction = predictions != null ? predictions[i]
+							: learner.getVotesForInstance(testInst);
 					evaluator.addResult(testInst, prediction);
 			    }
 			}
@@ -220,10 +229,15 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 			////Training
 			long trainStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
 			
-			for (int i=0; i< chunkInstances.numInstances(); i++) {
-				learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
-				instancesProcessed++;
-		    }
+			if (learner instanceof BatchClassifier) {
+				((BatchClassifier) learner).trainOnInstances(chunkInstances);
+				instancesProcessed += chunkInstances.numInstances();
+			} else {
+				for (int i=0; i< chunkInstances.numInstances(); i++) {
+					learner.trainOnInstance(new InstanceExample(chunkInstances.instance(i)));
+					instancesProcessed++;
+			    }
+			}
 			
 			sampleTrainTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - trainStartTime;
 			
@@ -283,7 +297,7 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 								: (double) instancesProcessed
 										/ (double) (instancesProcessed + estimatedRemainingInstances));
 				if (monitor.resultPreviewRequested()) {
-					monitor.setLatestResultPreview(learningCurve.copy());
+					monitor.setLatestResultPreview(previewCursor);
 				}
 				secondsElapsed = (int) TimingUtils
 						.nanoTimeToSeconds(TimingUtils
@@ -34,9 +34,11 @@ import moa.core.TimingUtils;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
 import moa.streams.InstanceStream;
@@ -94,6 +96,17 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv reslts to.", null, "csv", true);
 
+    public FileOption checkpointFileOption = new FileOption("checkpointFile", 'c',
+            "File to write checkpoints of the evaluation to.", null, "moa", true);
+
+    public IntOption checkpointFrequencyOption = new IntOption("checkpointFrequency",
+            'n',
+            "How many instances between checkpoints (0 = no checkpoints).",
+            1000000, 0, Integer.MAX_VALUE);
+
+    public FlagOption resumeOption = new FlagOption("resume", 'u',
+            "Resume the evaluation from the checkpoint file if it exists.");
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -120,9 +133,31 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
         int secondsElapsed = 0;
-        monitor.setCurrentActivity("Evaluating learner...", -1.0);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        long elapsedTime = 0;
+        double RAMHours = 0.0;
+        boolean firstDump = true;
+
+        File checkpointFile = this.checkpointFileOption.getFile();
+        int checkpointFrequency = this.checkpointFrequencyOption.getValue();
+        CheckpointWriter checkpointWriter = checkpointFile != null && checkpointFrequency > 0
+                ? new CheckpointWriter(checkpointFile) : null;
+        if (checkpointFile != null && this.resumeOption.isSet() && checkpointFile.exists()) {
+            monitor.setCurrentActivity("Resuming from checkpoint...", -1.0);
+            EvaluationCheckpoint checkpoint = EvaluationCheckpoint.readFromFile(checkpointFile);
+            learner = (Learner) checkpoint.get("learner");
+            evaluator = (LearningPerformanceEvaluator) checkpoint.get("evaluator");
+            learningCurve = (LearningCurve) checkpoint.get("learningCurve");
+            elapsedTime = (Long) checkpoint.get("elapsedTime");
+            RAMHours = (Double) checkpoint.get("RAMHours");
+            firstDump = (Boolean) checkpoint.get("firstDump");
+            instancesProcessed = checkpoint.getInstancesProcessed();
+            checkpoint.truncateFiles();
+            checkpoint.seek(stream);
+        }
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
+        monitor.setCurrentActivity("Evaluating learner...", -1.0);
         File dumpFile = this.dumpFileOption.getFile();
         PrintStream immediateResultStream = null;
         if (dumpFile != null) {
@@ -139,11 +174,9 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
                         "Unable to open immediate result file: " + dumpFile, ex);
             }
         }
-        boolean firstDump = true;
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-        long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
+        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread() - elapsedTime;
+        long lastEvaluateStartTime = evaluateStartTime + elapsedTime;
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
@@ -192,8 +225,23 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
                     immediateResultStream.flush();
                 }
             }
+            if (checkpointWriter != null && instancesProcessed % checkpointFrequency == 0) {
+                long checkpointTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                EvaluationCheckpoint checkpoint = new EvaluationCheckpoint(instancesProcessed);
+                checkpoint.put("learner", learner);
+                checkpoint.put("evaluator", evaluator);
+                checkpoint.put("learningCurve", learningCurve);
+                checkpoint.put("elapsedTime", checkpointTime - evaluateStartTime);
+                checkpoint.put("RAMHours", RAMHours);
+                checkpoint.put("firstDump", firstDump);
+                checkpoint.putFileLength(dumpFile);
+                checkpointWriter.write(checkpoint);
+            }
             if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
+                    if (checkpointWriter != null) {
+                        checkpointWriter.close();
+                    }
                     return null;
                 }
                 long estimatedRemainingInstances = stream.estimatedRemainingInstances();
@@ -208,7 +256,7 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
                 secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
                         - evaluateStartTime);
@@ -217,6 +265,9 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
+        if (checkpointWriter != null) {
+            checkpointWriter.close();
+        }
         return learningCurve;
     }
 
@@ -40,6 +40,7 @@ import moa.core.TimingUtils;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import moa.streams.CachedInstancesStream;
@@ -112,6 +113,7 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
         learner.setModelContext(stream.getHeader());
         long instancesProcessed = 0;
         LearningCurve learningCurve = new LearningCurve("evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
         File dumpFile = this.dumpFileOption.getFile();
         PrintStream immediateResultStream = null;
         if (dumpFile != null) {
@@ -248,7 +250,7 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
                 immediateResultStream.flush();
             }
             if (monitor.resultPreviewRequested()) {
-                monitor.setLatestResultPreview(learningCurve.copy());
+                monitor.setLatestResultPreview(previewCursor);
             }
             // if (learner instanceof HoeffdingTree
             // || learner instanceof HoeffdingOptionTree) {
@@ -27,6 +27,7 @@ import java.io.PrintStream;
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
+import moa.classifiers.BatchClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.Example;
 import moa.core.Measurement;
@@ -34,6 +35,7 @@ import moa.core.ObjectRepository;
 import moa.core.TimingUtils;
 import moa.evaluation.WindowClassificationPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.evaluation.EWMAClassificationPerformanceEvaluator;
 import moa.evaluation.FadingFactorClassificationPerformanceEvaluator;
 import moa.evaluation.LearningEvaluation;
@@ -42,10 +44,12 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import moa.core.Utils;
 
 /**
@@ -104,6 +108,21 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
     public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
             "File to append output predictions to.", null, "pred", true);
 
+    public FileOption checkpointFileOption = new FileOption("checkpointFile", 'c',
+            "File to write checkpoints of the evaluation to.", null, "moa", true);
+
+    public IntOption checkpointFrequencyOption = new IntOption("checkpointFrequency",
+            'n',
+            "How many instances between checkpoints (0 = no checkpoints).",
+            1000000, 0, Integer.MAX_VALUE);
+
+    public FlagOption resumeOption = new FlagOption("resume", 'u',
+            "Resume the evaluation from the checkpoint file if it exists.");
+
+    public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+            "How many instances to test on before training on them (1 = test then train each instance).",
+            1, 1, Integer.MAX_VALUE);
+
     //New for prequential method DEPRECATED
     public IntOption widthOption = new IntOption("width",
             'w', "Size of Window", 1000);
@@ -158,6 +177,28 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
         int secondsElapsed = 0;
+        long elapsedTime = 0;
+        double RAMHours = 0.0;
+        boolean firstDump = true;
+
+        File checkpointFile = this.checkpointFileOption.getFile();
+        int checkpointFrequency = this.checkpointFrequencyOption.getValue();
+        CheckpointWriter checkpointWriter = checkpointFile != null && checkpointFrequency > 0
+                ? new CheckpointWriter(checkpointFile) : null;
+        if (checkpointFile != null && this.resumeOption.isSet() && checkpointFile.exists()) {
+            monitor.setCurrentActivity("Resuming from checkpoint...", -1.0);
+            EvaluationCheckpoint checkpoint = EvaluationCheckpoint.readFromFile(checkpointFile);
+            learner = (Learner) checkpoint.get("learner");
+            evaluator = (LearningPerformanceEvaluator) checkpoint.get("evaluator");
+            learningCurve = (LearningCurve) checkpoint.get("learningCurve");
+            elapsedTime = (Long) checkpoint.get("elapsedTime");
+            RAMHours = (Double) checkpoint.get("RAMHours");
+            firstDump = (Boolean) checkpoint.get("firstDump");
+            instancesProcessed = checkpoint.getInstancesProcessed();
+            checkpoint.truncateFiles();
+            checkpoint.seek(stream);
+        }
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
         monitor.setCurrentActivity("Evaluating learner...", -1.0);
 
         File dumpFile = this.dumpFileOption.getFile();
@@ -193,30 +234,68 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
                         "Unable to open prediction result file: " + outputPredictionFile, ex);
             }
         }
-        boolean firstDump = true;
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-        long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
+        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread() - elapsedTime;
+        long lastEvaluateStartTime = evaluateStartTime + elapsedTime;
+        int batchSize = this.batchSizeOption.getValue();
+        Example[] batchExamples = new Example[batchSize];
+        double[][] batchPredictions = new double[batchSize][];
+        Instances batch = batchSize > 1 && learner instanceof BatchClassifier
+                ? new Instances(stream.getHeader(), batchSize) : null;
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst; //.copy();
-            //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
-            // Output prediction
-            if (outputPredictionFile != null) {
-                int trueClass = (int) ((Instance) trainInst.getData()).classValue();
-                outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
-                 ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
+            // a block of instances is tested on before the learner trains on any of them
+            int numInBatch = 0;
+            do {
+                batchExamples[numInBatch++] = stream.nextInstance();
+            } while (numInBatch < batchSize && stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed + numInBatch < maxInstances)));
+            if (batch != null) {
+                // the instances take the places of the previous block without
+                // being copied, only the first block copies them to fill the buffer
+                for (int i = 0; i < numInBatch; i++) {
+                    Instance inst = (Instance) batchExamples[i].getData();
+                    if (i < batch.numInstances()) {
+                        batch.set(i, inst);
+                    } else {
+                        batch.add(inst);
+                    }
+                }
+                while (batch.numInstances() > numInBatch) {
+                    batch.delete(batch.numInstances() - 1);
+                }
+                ((BatchClassifier) learner).getVotesForInstances(batch, batchPredictions);
+            } else {
+                for (int i = 0; i < numInBatch; i++) {
+                    batchPredictions[i] = learner.getVotesForInstance(batchExamples[i]);
+                }
             }
+            for (int i = 0; i < numInBatch; i++) {
+                Example trainInst = batchExamples[i];
+                Example testInst = (Example) trainInst; //.copy();
+                //testInst.setClassMissing();
+                double[] prediction = batchPredictions[i];
+                // Output prediction
+                if (outputPredictionFile != null) {
+                    int trueClass = (int) ((Instance) trainInst.getData()).classValue();
+                    outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
+                     ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
+                }
 
-            //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
-            evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
-            instancesProcessed++;
-            if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
+                //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
+                evaluator.addResult(testInst, prediction);
+            }
+            if (batch != null) {
+                ((BatchClassifier) learner).trainOnInstances(batch);
+            } else {
+                for (int i = 0; i < numInBatch; i++) {
+                    learner.trainOnInstance(batchExamples[i]);
+                }
+            }
+            long batchStart = instancesProcessed;
+            instancesProcessed += numInBatch;
+            if (reachedMultiple(batchStart, instancesProcessed, this.sampleFrequencyOption.getValue())
                     || stream.hasMoreInstances() == false) {
                 long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
@@ -250,8 +329,24 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
                     immediateResultStream.flush();
                 }
             }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+            if (checkpointWriter != null && reachedMultiple(batchStart, instancesProcessed, checkpointFrequency)) {
+                long checkpointTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                EvaluationCheckpoint checkpoint = new EvaluationCheckpoint(instancesProcessed);
+                checkpoint.put("learner", learner);
+                checkpoint.put("evaluator", evaluator);
+                checkpoint.put("learningCurve", learningCurve);
+                checkpoint.put("elapsedTime", checkpointTime - evaluateStartTime);
+                checkpoint.put("RAMHours", RAMHours);
+                checkpoint.put("firstDump", firstDump);
+                checkpoint.putFileLength(dumpFile);
+                checkpoint.putFileLength(outputPredictionFile);
+                checkpointWriter.write(checkpoint);
+            }
+            if (reachedMultiple(batchStart, instancesProcessed, INSTANCES_BETWEEN_MONITOR_UPDATES)) {
                 if (monitor.taskShouldAbort()) {
+                    if (checkpointWriter != null) {
+                        checkpointWriter.close();
+                    }
                     return null;
                 }
                 long estimatedRemainingInstances = stream.estimatedRemainingInstances();
@@ -266,7 +361,7 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
                 secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
                         - evaluateStartTime);
@@ -278,9 +373,19 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
         if (outputPredictionResultStream != null) {
             outputPredictionResultStream.close();
         }
+        if (checkpointWriter != null) {
+            checkpointWriter.close();
+        }
         return learningCurve;
     }
 
+    /**
+     * @return true if a multiple of the period lies after from, up to and including to
+     */
+    private static boolean reachedMultiple(long from, long to, long period) {
+        return to / period != from / period;
+    }
+
     @Override
     public ImmutableCapabilities defineImmutableCapabilities() {
         if (this.getClass() == EvaluatePrequential.class)
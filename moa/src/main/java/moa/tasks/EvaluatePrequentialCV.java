@@ -23,11 +23,13 @@ package moa.tasks;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
+import com.yahoo.labs.samoa.instances.LabelOverlayInstanceData;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.*;
 import moa.evaluation.*;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import moa.streams.ExampleStream;
@@ -110,6 +112,15 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
 
     public IntOption bvRandomSeedOption = new IntOption("bootStrapValidationRandomSeed", 'x',
             "Seed for random behaviour of the task.", 1);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Number of threads the folds are distributed over (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+            1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Maximum number of instances the fold threads may lag behind the stream reader.",
+            1024, 1, Integer.MAX_VALUE);
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -121,7 +132,7 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
         Random random = new Random(this.bvRandomSeedOption.getValue());
         ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
 
-        Learner[] learners = new Learner[this.numFoldsOption.getValue()];
+        final Learner[] learners = new Learner[this.numFoldsOption.getValue()];
         Learner baseLearner = (Learner) getPreparedClassOption(this.learnerOption);
         if (baseLearner.isRandomizable()) {
             baseLearner.setRandomSeed(this.randomSeedOption.getValue());
@@ -129,7 +140,7 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
         }
 //        baseLearner.resetLearning();
 
-        LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
+        final LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
         LearningPerformanceEvaluator baseEvaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         for (int i = 0; i < learners.length; i++) {
             learners[i] = (Learner) baseLearner.copy();
@@ -139,6 +150,7 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
 
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
@@ -164,7 +176,22 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
 
         boolean firstDump = true;
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+
+        // Folds are tested and trained on worker threads when multithreading is enabled
+        FoldPipeline<FoldPipeline.FoldExample> pipeline = null;
+        int numberOfWorkers = FoldPipeline.numberOfWorkers(this.numberOfJobsOption.getValue(), learners.length);
+        if (numberOfWorkers > 1) {
+            pipeline = new FoldPipeline<FoldPipeline.FoldExample>(learners.length, numberOfWorkers,
+                    this.bufferSizeOption.getValue(), new FoldPipeline.FoldProcessor<FoldPipeline.FoldExample>() {
+                @Override
+                public void process(int fold, FoldPipeline.FoldExample item) {
+                    evaluators[fold].addResult(item.example, learners[fold].getVotesForInstance(item.example));
+                    trainFold(learners[fold], item.example, item.weights[fold]);
+                }
+            });
+        }
+
+        long evaluateStartTime = FoldPipeline.getNanoCPUTime(pipeline);
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
         while (stream.hasMoreInstances()
@@ -174,34 +201,29 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
             Example testInst = (Example) trainInst; //.copy();
             //testInst.setClassMissing();
 
-            for (int i = 0; i < learners.length; i++) {
-                evaluators[i].addResult(testInst, learners[i].getVotesForInstance(testInst));
-            }
-
-            for (int i = 0; i < learners.length; i++) {
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
+            if (pipeline != null) {
+                int[] weights = new int[learners.length];
+                for (int i = 0; i < learners.length; i++) {
+                    weights[i] = getFoldWeight(i, learners.length, instancesProcessed, random);
+                }
+                pipeline.submit(new FoldPipeline.FoldExample(trainInst, weights));
+            } else {
+                for (int i = 0; i < learners.length; i++) {
+                    evaluators[i].addResult(testInst, learners[i].getVotesForInstance(testInst));
                 }
-                if (k > 0) {
-                    Example weightedInst = (Example) trainInst.copy();
-                    weightedInst.setWeight(trainInst.weight() * k);
-                    learners[i].trainOnInstance(weightedInst);
+
+                for (int i = 0; i < learners.length; i++) {
+                    trainFold(learners[i], trainInst, getFoldWeight(i, learners.length, instancesProcessed, random));
                 }
             }
 
             instancesProcessed++;
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                if (pipeline != null) {
+                    pipeline.synchronize();
+                }
+                long evaluateTime = FoldPipeline.getNanoCPUTime(pipeline);
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
@@ -239,6 +261,9 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
             }
             if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
+                    if (pipeline != null) {
+                        pipeline.shutdown();
+                    }
                     return null;
                 }
                 long estimatedRemainingInstances = stream.estimatedRemainingInstances();
@@ -253,18 +278,62 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(FoldPipeline.getNanoCPUTime(pipeline)
                         - evaluateStartTime);
             }
         }
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
         return learningCurve;
     }
 
+    /**
+     * Returns the weight of an instance in the training set of a fold
+     * according to the validation methodology.
+     *
+     * @param fold the fold
+     * @param numFolds the number of folds
+     * @param instancesProcessed the number of instances processed before this one
+     * @param random the source of randomness for bootstrap validation
+     * @return the weight, 0 if the fold does not train on the instance
+     */
+    protected int getFoldWeight(int fold, int numFolds, long instancesProcessed, Random random) {
+        int k = 1;
+        switch (this.validationMethodologyOption.getChosenIndex()) {
+            case 0: //Cross-Validation;
+                k = instancesProcessed % numFolds == fold ? 0: 1; //Test all except one
+                break;
+            case 1: //Bootstrap;
+                k = MiscUtils.poisson(1, random);
+                break;
+            case 2: //Split-Validation;
+                k = instancesProcessed % numFolds == fold ? 1: 0; //Test only one
+                break;
+        }
+        return k;
+    }
+
+    protected static void trainFold(Learner learner, Example trainInst, int k) {
+        if (k > 0) {
+            // Share the attribute values with the other folds, only the weight is private
+            Example weightedInst;
+            if (trainInst instanceof InstanceExample) {
+                weightedInst = new InstanceExample(
+                        LabelOverlayInstanceData.shareInstance(((InstanceExample) trainInst).getData()));
+            } else {
+                weightedInst = (Example) trainInst.copy();
+            }
+            weightedInst.setWeight(trainInst.weight() * k);
+            learner.trainOnInstance(weightedInst);
+        }
+    }
+
 
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
         List<Measurement> measurementList = new LinkedList<Measurement>();
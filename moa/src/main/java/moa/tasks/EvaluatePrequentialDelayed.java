@@ -33,6 +33,7 @@ import moa.core.ObjectRepository;
 import moa.core.TimingUtils;
 import moa.evaluation.WindowClassificationPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.evaluation.EWMAClassificationPerformanceEvaluator;
 import moa.evaluation.FadingFactorClassificationPerformanceEvaluator;
 import moa.evaluation.LearningEvaluation;
@@ -153,6 +154,7 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
 
         this.trainInstances = new LinkedList<Example>();
         
@@ -326,7 +328,7 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
                             : (double) instancesProcessed
                             / (double) (instancesProcessed + estimatedRemainingInstances));
                     if (monitor.resultPreviewRequested()) {
-                        monitor.setLatestResultPreview(learningCurve.copy());
+                        monitor.setLatestResultPreview(previewCursor);
                     }
                     secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
                             - evaluateStartTime);
@@ -29,6 +29,7 @@ import moa.classifiers.MultiClassClassifier;
 import moa.core.*;
 import moa.evaluation.*;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import moa.streams.ExampleStream;
@@ -122,6 +123,14 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     public IntOption bvRandomSeedOption = new IntOption("bootStrapValidationRandomSeed", 'x',
             "Seed for random behaviour of the task.", 1);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Number of threads the folds are distributed over (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+            1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Maximum number of instances the fold threads may lag behind the stream reader.",
+            1024, 1, Integer.MAX_VALUE);
+
     // Buffer of instances to use for training. 
     // Note: It is a list of lists because it stores instances per learner, e.g.
     // CV of 10, would be 10 lists of buffered instances for delayed training. 
@@ -138,7 +147,7 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
         Random random = new Random(this.bvRandomSeedOption.getValue());
         ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
 
-        Learner[] learners = new Learner[this.numFoldsOption.getValue()];
+        final Learner[] learners = new Learner[this.numFoldsOption.getValue()];
         Learner baseLearner = (Learner) getPreparedClassOption(this.learnerOption);
         if (baseLearner.isRandomizable()) {
             baseLearner.setRandomSeed(this.randomSeedOption.getValue());
@@ -146,7 +155,7 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
         }
 //        baseLearner.resetLearning();
 
-        LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
+        final LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
         LearningPerformanceEvaluator baseEvaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         for (int i = 0; i < learners.length; i++) {
             learners[i] = (Learner) baseLearner.copy();
@@ -156,6 +165,7 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
 
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
         int maxInstances = this.instanceLimitOption.getValue();
         long instancesProcessed = 0;
         int maxSeconds = this.timeLimitOption.getValue();
@@ -186,7 +196,21 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
 
         boolean firstDump = true;
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+
+        // Folds are tested and trained on worker threads when multithreading is enabled
+        FoldPipeline<FoldPipeline.FoldExample> pipeline = null;
+        int numberOfWorkers = FoldPipeline.numberOfWorkers(this.numberOfJobsOption.getValue(), learners.length);
+        if (numberOfWorkers > 1) {
+            pipeline = new FoldPipeline<FoldPipeline.FoldExample>(learners.length, numberOfWorkers,
+                    this.bufferSizeOption.getValue(), new FoldPipeline.FoldProcessor<FoldPipeline.FoldExample>() {
+                @Override
+                public void process(int fold, FoldPipeline.FoldExample item) {
+                    processFold(fold, learners[fold], evaluators[fold], item.example, item.weights[fold]);
+                }
+            });
+        }
+
+        long evaluateStartTime = FoldPipeline.getNanoCPUTime(pipeline);
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
         
@@ -199,35 +223,25 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
             Example testInst = (Example) trainInst;
             
             instancesProcessed++;
-            for (int i = 0; i < learners.length; i++) {
-                
-                double[] prediction = learners[i].getVotesForInstance(testInst);
-                evaluators[i].addResult(testInst, prediction);
-                
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
-                }
-                if (k > 0) {
-                    this.trainInstances.get(i).addLast(trainInst);
+            if (pipeline != null) {
+                int[] weights = new int[learners.length];
+                for (int i = 0; i < learners.length; i++) {
+                    weights[i] = getFoldWeight(i, learners.length, instancesProcessed, random);
                 }
-                if(this.delayLengthOption.getValue() < this.trainInstances.get(i).size()) {
-                    Example trainInstI = this.trainInstances.get(i).removeFirst();
-                    learners[i].trainOnInstance(trainInstI);
+                pipeline.submit(new FoldPipeline.FoldExample(trainInst, weights));
+            } else {
+                for (int i = 0; i < learners.length; i++) {
+                    processFold(i, learners[i], evaluators[i], testInst,
+                            getFoldWeight(i, learners.length, instancesProcessed, random));
                 }
             }
             
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                if (pipeline != null) {
+                    pipeline.synchronize();
+                }
+                long evaluateTime = FoldPipeline.getNanoCPUTime(pipeline);
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
@@ -265,6 +279,9 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
             }
             if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
+                    if (pipeline != null) {
+                        pipeline.shutdown();
+                    }
                     return null;
                 }
                 long estimatedRemainingInstances = stream.estimatedRemainingInstances();
@@ -279,18 +296,67 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(FoldPipeline.getNanoCPUTime(pipeline)
                         - evaluateStartTime);
             }
         }
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
         return learningCurve;
     }
 
+    /**
+     * Tests a fold on an instance and buffers the instance for delayed training.
+     * Only touches the state of the given fold, so different folds can be
+     * processed concurrently.
+     */
+    protected void processFold(int fold, Learner learner, LearningPerformanceEvaluator evaluator,
+                               Example testInst, int k) {
+        double[] prediction = learner.getVotesForInstance(testInst);
+        evaluator.addResult(testInst, prediction);
+
+        LinkedList<Example> buffer = this.trainInstances.get(fold);
+        if (k > 0) {
+            buffer.addLast(testInst);
+        }
+        if(this.delayLengthOption.getValue() < buffer.size()) {
+            Example trainInstI = buffer.removeFirst();
+            learner.trainOnInstance(trainInstI);
+        }
+    }
+
+    /**
+     * Returns the weight of an instance in the training set of a fold
+     * according to the validation methodology.
+     *
+     * @param fold the fold
+     * @param numFolds the number of folds
+     * @param instancesProcessed the number of instances processed including this one
+     * @param random the source of randomness for bootstrap validation
+     * @return the weight, 0 if the fold does not train on the instance
+     */
+    protected int getFoldWeight(int fold, int numFolds, long instancesProcessed, Random random) {
+        int k = 1;
+        switch (this.validationMethodologyOption.getChosenIndex()) {
+            case 0: //Cross-Validation;
+                k = instancesProcessed % numFolds == fold ? 0: 1; //Test all except one
+                break;
+            case 1: //Bootstrap;
+                k = MiscUtils.poisson(1, random);
+                break;
+            case 2: //Split-Validation;
+                k = instancesProcessed % numFolds == fold ? 1: 0; //Test only one
+                break;
+        }
+        return k;
+    }
+
 
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
         List<Measurement> measurementList = new LinkedList<>();
@@ -25,12 +25,15 @@ import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.InstanceImpl;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.LabelOverlayInstanceData;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.*;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.evaluation.preview.LearningCurveExtension;
 import moa.learners.Learner;
 import moa.options.ClassOption;
@@ -204,6 +207,14 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
             "Seed for random behaviour of the task.", 1);
     public IntOption bvRandomSeedOption = new IntOption("bootStrapValidationRandomSeed", 'x',
             "Seed for random behaviour of the task.", 1);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Number of threads the folds are distributed over (-1 = as many as available cores, 0 or 1 = do not use multithreading).",
+            1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Maximum number of instances the fold threads may lag behind the stream reader.",
+            1024, 1, Integer.MAX_VALUE);
     protected int positiveClass = 1;
     protected int negativeClass = 0;
 
@@ -249,6 +260,7 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
 
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve);
 
         LearningCurveExtension learningFoldCurve = new LearningCurveExtension(
                 "learning evaluation instances on certain fold");
@@ -317,8 +329,27 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
         boolean firstFoldDump = true;
 
 
+        // with more than one worker the folds are tested and trained on the
+        // threads of the pipeline, each fold in stream order
+        final Learner[] foldLearners = learners;
+        final LearningPerformanceEvaluator[] foldEvaluators = evaluators;
+        final int[] foldInstancesTested = arrInstancesTested;
+        final FoldPipeline.FoldRows foldRows = new FoldPipeline.FoldRows(learners.length);
+        FoldPipeline<FoldPipeline.FeedbackExample> pipeline = null;
+        int numberOfWorkers = FoldPipeline.numberOfWorkers(this.numberOfJobsOption.getValue(), learners.length);
+        if (numberOfWorkers > 1) {
+            pipeline = new FoldPipeline<FoldPipeline.FeedbackExample>(learners.length, numberOfWorkers,
+                    this.bufferSizeOption.getValue(), new FoldPipeline.FoldProcessor<FoldPipeline.FeedbackExample>() {
+                @Override
+                public void process(int fold, FoldPipeline.FeedbackExample item) {
+                    item.evaluated[fold] = processFold(fold, foldLearners[fold], foldEvaluators[fold], item,
+                            foldInstancesTested, foldRows);
+                }
+            });
+        }
+
         boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        long evaluateStartTime = FoldPipeline.getNanoCPUTime(pipeline);
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
 
@@ -333,6 +364,9 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
             instancesProcessed++;
 
             String trainInstTimestamp = ((InstanceExample) trainInst).instance.stringValue(dateIndex);
+            // the header is shared by the instances of the stream, the attributes are removed from a copy
+            InstanceImpl trainInstImpl = (InstanceImpl) ((InstanceExample) trainInst).instance;
+            trainInstImpl.instanceHeader = new InstancesHeader(trainInstImpl.instanceHeader);
             if(dateIndex != dateIndexOption.getMinValue()){
                 ((InstanceImpl) ((InstanceExample) trainInst).instance).instanceHeader.getInstanceInformation().deleteAttributeAt(dateIndex);
                 ((InstanceExample)trainInst).getData().deleteAttributeAt(dateIndex);
@@ -352,115 +386,34 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
             //如果到时间了就从positiveInstances队列取出来一个赋予他observed label
             //然后立马evaluated
             //随后train by it
-            boolean newEvaluated = false;
-
+            int[] weights = new int[learners.length];
             for (int i = 0; i < learners.length; i++) {
-                //分配实例给每个fold
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    // TODO: the update of instancesProcessed may have bug. therefore k is always 1 in case 0 and case 2
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
-                }
-
-                //test it 拿到它的predicted label
-                double[] prediction = learners[i].getVotesForInstance(trainInst);
-                int predictedClass = Utils.maxIndex(prediction);
-
-
-                //if predicted label==positive then positiveQueue.add(instance) else negativeQueue.add(instances)
-                if (k > 0) {
-                    if(predictedClass==positiveClass){
-                        this.positiveTrainInstances.get(i).addLast(trainInst);
-                        this.positiveTrainTimestamps.get(i).addLast(trainInstTimestamp);
-                    }else{
-                        this.negativeTrainInstances.get(i).addLast(trainInst);
-                        this.negativeTrainTimestamps.get(i).addLast(trainInstTimestamp);
-                    }
-                }
-                boolean isEvaluated = false;
-
-                //如果时间不到但是feedback instance到了. in this case, observed label is true label
-                int indexOfLabelledPosInstance = this.positiveTrainTimestamps.get(i).indexOf(feedbackValue);
-                int indexOfLabelledNegInstance = this.negativeTrainTimestamps.get(i).indexOf(feedbackValue);
-                if(Math.max(indexOfLabelledNegInstance,indexOfLabelledPosInstance)!=-1){
-                    if(indexOfLabelledPosInstance!=-1){
-                        int observedLabel = stream.getHeader().numClasses();
-                        isEvaluated = true;
-                        Example trainInstI = this.positiveTrainInstances.get(i).get(indexOfLabelledPosInstance);
-                        this.positiveTrainInstances.get(i).remove(indexOfLabelledPosInstance);
-                        this.positiveTrainTimestamps.get(i).remove(indexOfLabelledPosInstance);
-                        evaluators[i].addResult(trainInstI, prediction);
-                        learners[i].trainOnInstance(trainInstI);
-                        arrInstancesTested[i]++;
-                        addEvaluationOnFoldLevel(arrInstancesTested,i,evaluateStartTime,lastEvaluateStartTime,
-                                learners,RAMHours,learningFoldCurve,preciseCPUTiming,evaluators,trainInstTimestamp,
-                                immediateFoldResultStream);
-
-
-                    }else if(indexOfLabelledNegInstance!=-1){
-                        isEvaluated = true;
-                        Example trainInstI = this.negativeTrainInstances.get(i).get(indexOfLabelledNegInstance);
-                        this.negativeTrainInstances.get(i).remove(indexOfLabelledNegInstance);
-                        this.negativeTrainTimestamps.get(i).remove(indexOfLabelledNegInstance);
-                        evaluators[i].addResult(trainInstI, prediction);
-                        learners[i].trainOnInstance(trainInstI);
-                        arrInstancesTested[i]++;
-                        addEvaluationOnFoldLevel(arrInstancesTested,i,evaluateStartTime,lastEvaluateStartTime,
-                                learners,RAMHours,learningFoldCurve,preciseCPUTiming,evaluators,trainInstTimestamp,
-                                immediateFoldResultStream);
-
-                    }
-                }
-
-                /* 到时间了就从positiveInstances队列取出来一个赋予他observed label. in this case, observed label is negative
-                然后立马evaluated
-                随后train by it*/
-                if (this.positiveTrainTimestamps.get(i).size() != 0 &&
-                        this.positiveFeedBackTimeOption.getValue() <=
-                                (Integer.valueOf(trainInstTimestamp) - Integer.valueOf(this.positiveTrainTimestamps.get(i).getFirst()))) {//把.size改成.timestamp是不是就可以实现QAtimeWindow了
-                    isEvaluated = true;
-                    Example trainInstI = this.positiveTrainInstances.get(i).removeFirst();
-                    this.positiveTrainTimestamps.get(i).removeFirst();
-                    evaluators[i].addResult(trainInstI, prediction);//原本的evaluators 里面的实例的到达顺序会被我的positive和negative窗口的加入打乱默认的先进先出的顺序
-                    learners[i].trainOnInstance(trainInstI);
-                    arrInstancesTested[i]++;
-                    addEvaluationOnFoldLevel(arrInstancesTested,i,evaluateStartTime,lastEvaluateStartTime,
-                            learners,RAMHours,learningFoldCurve,preciseCPUTiming,evaluators,trainInstTimestamp,
-                            immediateFoldResultStream);
-
-                }
-
-                if(this.negativeTrainTimestamps.get(i).size() != 0 &&
-                        this.negativeFeedBackTimeOption.getValue() <=
-                                (Integer.valueOf(trainInstTimestamp)  - Integer.valueOf(this.negativeTrainTimestamps.get(i).getFirst()))) {//把.size改成.timestamp是不是就可以实现QAtimeWindow了
-                    isEvaluated = true;
-                    Example trainInstI = this.negativeTrainInstances.get(i).removeFirst();
-                    this.negativeTrainTimestamps.get(i).removeFirst();
-                    evaluators[i].addResult(trainInstI, prediction);
-                    learners[i].trainOnInstance(trainInstI);
-                    arrInstancesTested[i]++;
-                    addEvaluationOnFoldLevel(arrInstancesTested,i,evaluateStartTime,lastEvaluateStartTime,
-                            learners,RAMHours,learningFoldCurve,preciseCPUTiming,evaluators,trainInstTimestamp,
-                            immediateFoldResultStream);
-
+                weights[i] = getFoldWeight(i, learners.length, instancesProcessed, random);
+            }
+            FoldPipeline.FeedbackExample item = new FoldPipeline.FeedbackExample(trainInst, weights,
+                    instancesProcessed, trainInstTimestamp, feedbackValue);
+            if (pipeline != null) {
+                pipeline.submit(item);
+            } else {
+                for (int i = 0; i < learners.length; i++) {
+                    item.evaluated[i] = processFold(i, learners[i], evaluators[i], item,
+                            arrInstancesTested, foldRows);
+                    addFoldRows(foldRows, pipeline, evaluateStartTime, lastEvaluateStartTime, RAMHours,
+                            learningFoldCurve, preciseCPUTiming, immediateFoldResultStream);
                 }
+            }
 
-                if(isEvaluated && !newEvaluated){
-                    newEvaluated = true;
-                }
+            boolean sample = instancesProcessed % this.sampleFrequencyOption.getValue() == 0
+                    || stream.hasMoreInstances() == false;
+            if (sample && pipeline != null) {
+                pipeline.synchronize();
+                addFoldRows(foldRows, pipeline, evaluateStartTime, lastEvaluateStartTime, RAMHours,
+                        learningFoldCurve, preciseCPUTiming, immediateFoldResultStream);
             }
+            boolean newEvaluated = sample && item.isEvaluated();
 
-            if (newEvaluated && (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
-                    || stream.hasMoreInstances() == false)) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+            if (newEvaluated) {
+                long evaluateTime = FoldPipeline.getNanoCPUTime(pipeline);
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
@@ -499,6 +452,9 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
 
             if (instancesProcessed != 0 && instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
                 if (monitor.taskShouldAbort()) {
+                    if (pipeline != null) {
+                        pipeline.shutdown();
+                    }
                     return null;
                 }
                 long estimatedRemainingInstances = stream.estimatedRemainingInstances();
@@ -513,12 +469,18 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
                         : (double) instancesProcessed
                         / (double) (instancesProcessed + estimatedRemainingInstances));
                 if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                    monitor.setLatestResultPreview(previewCursor);
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(FoldPipeline.getNanoCPUTime(pipeline)
                         - evaluateStartTime);
             }
         }
+        if (pipeline != null) {
+            pipeline.synchronize();
+            addFoldRows(foldRows, pipeline, evaluateStartTime, lastEvaluateStartTime, RAMHours,
+                    learningFoldCurve, preciseCPUTiming, immediateFoldResultStream);
+            pipeline.shutdown();
+        }
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
@@ -530,48 +492,182 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
         return learningCurve;
 
     }
-    public void addEvaluationOnFoldLevel(int[] arrInstancesTested,int i,long evaluateStartTime,long lastEvaluateStartTime,
-                                         Learner[] learners,double RAMHours,LearningCurveExtension learningFoldCurve,
-                                         boolean preciseCPUTiming,LearningPerformanceEvaluator[] evaluators,String trainInstTimestamp,
-                                         PrintStream immediateFoldResultStream){
-        if (arrInstancesTested[i]!=0) {
-            long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+    /**
+     * Tests a fold on an instance, queues the instance until its label is
+     * observed, and evaluates and trains the fold on the queued instances whose
+     * labels are observed now. Only touches the state of the given fold, so
+     * different folds can be processed concurrently.
+     *
+     * @return whether the fold evaluated an instance
+     */
+    protected boolean processFold(int i, Learner learner, LearningPerformanceEvaluator evaluator,
+                                  FoldPipeline.FeedbackExample item, int[] arrInstancesTested,
+                                  FoldPipeline.FoldRows foldRows) {
+        Example trainInst = item.example;
+        String trainInstTimestamp = item.timestamp;
+        String feedbackValue = item.feedbackValue;
+        int k = item.weights[i];
+
+        //test it 拿到它的predicted label
+        double[] prediction = learner.getVotesForInstance(trainInst);
+        int predictedClass = Utils.maxIndex(prediction);
+
+
+        //if predicted label==positive then positiveQueue.add(instance) else negativeQueue.add(instances)
+        if (k > 0) {
+            // Each fold gets its own view of the instance, sharing the attribute values,
+            // so the observed labels set below are not seen by the other folds
+            Example foldInst = new InstanceExample(
+                    LabelOverlayInstanceData.shareInstance(((InstanceExample) trainInst).instance));
+            if(predictedClass==positiveClass){
+                this.positiveTrainInstances.get(i).addLast(foldInst);
+                this.positiveTrainTimestamps.get(i).addLast(trainInstTimestamp);
+            }else{
+                this.negativeTrainInstances.get(i).addLast(foldInst);
+                this.negativeTrainTimestamps.get(i).addLast(trainInstTimestamp);
+            }
+        }
+        boolean isEvaluated = false;
+
+        //如果时间不到但是feedback instance到了. in this case, observed label is true label
+        int indexOfLabelledPosInstance = this.positiveTrainTimestamps.get(i).indexOf(feedbackValue);
+        int indexOfLabelledNegInstance = this.negativeTrainTimestamps.get(i).indexOf(feedbackValue);
+        if(Math.max(indexOfLabelledNegInstance,indexOfLabelledPosInstance)!=-1){
+            if(indexOfLabelledPosInstance!=-1){
+                isEvaluated = true;
+                Example trainInstI = this.positiveTrainInstances.get(i).get(indexOfLabelledPosInstance);
+                this.positiveTrainInstances.get(i).remove(indexOfLabelledPosInstance);
+                this.positiveTrainTimestamps.get(i).remove(indexOfLabelledPosInstance);
+                evaluator.addResult(trainInstI, prediction);
+                learner.trainOnInstance(trainInstI);
+                arrInstancesTested[i]++;
+                recordFoldEvaluation(i, learner, evaluator, arrInstancesTested[i], item, foldRows);
+
+
+            }else if(indexOfLabelledNegInstance!=-1){
+                isEvaluated = true;
+                Example trainInstI = this.negativeTrainInstances.get(i).get(indexOfLabelledNegInstance);
+                this.negativeTrainInstances.get(i).remove(indexOfLabelledNegInstance);
+                this.negativeTrainTimestamps.get(i).remove(indexOfLabelledNegInstance);
+                evaluator.addResult(trainInstI, prediction);
+                learner.trainOnInstance(trainInstI);
+                arrInstancesTested[i]++;
+                recordFoldEvaluation(i, learner, evaluator, arrInstancesTested[i], item, foldRows);
+
+            }
+        }
+
+        /* 到时间了就从positiveInstances队列取出来一个赋予他observed label. in this case, observed label is negative
+        然后立马evaluated
+        随后train by it*/
+        if (this.positiveTrainTimestamps.get(i).size() != 0 &&
+                this.positiveFeedBackTimeOption.getValue() <=
+                        (Integer.valueOf(trainInstTimestamp) - Integer.valueOf(this.positiveTrainTimestamps.get(i).getFirst()))) {//把.size改成.timestamp是不是就可以实现QAtimeWindow了
+            isEvaluated = true;
+            Example trainInstI = this.positiveTrainInstances.get(i).removeFirst();
+            this.positiveTrainTimestamps.get(i).removeFirst();
+            evaluator.addResult(trainInstI, prediction);//原本的evaluators 里面的实例的到达顺序会被我的positive和negative窗口的加入打乱默认的先进先出的顺序
+            learner.trainOnInstance(trainInstI);
+            arrInstancesTested[i]++;
+            recordFoldEvaluation(i, learner, evaluator, arrInstancesTested[i], item, foldRows);
+
+        }
+
+        if(this.negativeTrainTimestamps.get(i).size() != 0 &&
+                this.negativeFeedBackTimeOption.getValue() <=
+                        (Integer.valueOf(trainInstTimestamp)  - Integer.valueOf(this.negativeTrainTimestamps.get(i).getFirst()))) {//把.size改成.timestamp是不是就可以实现QAtimeWindow了
+            isEvaluated = true;
+            Example trainInstI = this.negativeTrainInstances.get(i).removeFirst();
+            this.negativeTrainTimestamps.get(i).removeFirst();
+            evaluator.addResult(trainInstI, prediction);
+            learner.trainOnInstance(trainInstI);
+            arrInstancesTested[i]++;
+            recordFoldEvaluation(i, learner, evaluator, arrInstancesTested[i], item, foldRows);
+
+        }
+        return isEvaluated;
+    }
+
+    /**
+     * Returns the weight of an instance in the training set of a fold
+     * according to the validation methodology.
+     *
+     * @param fold the fold
+     * @param numFolds the number of folds
+     * @param instancesProcessed the number of instances processed including this one
+     * @param random the source of randomness for bootstrap validation
+     * @return the weight, 0 if the fold does not train on the instance
+     */
+    protected int getFoldWeight(int fold, int numFolds, long instancesProcessed, Random random) {
+        int k = 1;
+        switch (this.validationMethodologyOption.getChosenIndex()) {
+            // TODO: the update of instancesProcessed may have bug. therefore k is always 1 in case 0 and case 2
+            case 0: //Cross-Validation;
+                k = instancesProcessed % numFolds == fold ? 0: 1; //Test all except one
+                break;
+            case 1: //Bootstrap;
+                k = MiscUtils.poisson(1, random);
+                break;
+            case 2: //Split-Validation;
+                k = instancesProcessed % numFolds == fold ? 1: 0; //Test only one
+                break;
+        }
+        return k;
+    }
+
+    /**
+     * Takes a row of the curve of a fold every sampleFrequency instances
+     * evaluated by the fold. Called from the thread of the fold.
+     */
+    protected void recordFoldEvaluation(int fold, Learner learner, LearningPerformanceEvaluator evaluator,
+                                        int instancesTested, FoldPipeline.FeedbackExample item,
+                                        FoldPipeline.FoldRows foldRows) {
+        if (instancesTested % this.sampleFrequencyOption.getValue() == 0) {
+            foldRows.add(new FoldPipeline.FoldRow(item.instanceIndex, fold, instancesTested,
+                    learner.measureByteSize(), getFoldPerformanceMeasurements(evaluator), item.timestamp));
+        }
+    }
+
+    /**
+     * Adds the rows taken by the folds to the curve of the folds, and to its
+     * dump file, with the time and model cost of the evaluation so far.
+     */
+    public void addFoldRows(FoldPipeline.FoldRows foldRows, FoldPipeline<?> pipeline,
+                            long evaluateStartTime, long lastEvaluateStartTime, double RAMHours,
+                            LearningCurveExtension learningFoldCurve, boolean preciseCPUTiming,
+                            PrintStream immediateFoldResultStream) {
+        for (FoldPipeline.FoldRow row : foldRows.drain()) {
+            long evaluateTime = FoldPipeline.getNanoCPUTime(pipeline);
             double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
             double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
-
-            double RAMHoursIncrement = learners[i].measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+            double RAMHoursIncrement = row.byteSize / (1024.0 * 1024.0 * 1024.0); //GBs
             RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
-            RAMHours += RAMHoursIncrement;
-
-            if (arrInstancesTested[i] % this.sampleFrequencyOption.getValue() == 0){
-                learningFoldCurve.insertEntry(new LearningEvaluation(
-                        getFoldEvaluationMeasurements(
-                                new Measurement[]{
-                                        new Measurement(
-                                                "learning evaluation instances on certain fold",
-                                                arrInstancesTested[i]),
-                                        new Measurement(
-                                                "evaluation time ("
-                                                        + (preciseCPUTiming ? "cpu "
-                                                        : "") + "seconds)",
-                                                time),
-                                        new Measurement(
-                                                "model cost (RAM-Hours)",
-                                                RAMHours)
-                                }, evaluators[i], i, trainInstTimestamp)));
 
-                if (immediateFoldResultStream != null) {
-                    if (firstFoldDump) {
-                        immediateFoldResultStream.println(learningFoldCurve.headerToString());
-                        firstFoldDump = false;
-                    }
-                    immediateFoldResultStream.println(learningFoldCurve.entryToString(learningFoldCurve.numEntries() - 1));
-                    immediateFoldResultStream.flush();
+            learningFoldCurve.insertEntry(new LearningEvaluation(
+                    getFoldEvaluationMeasurements(
+                            new Measurement[]{
+                                    new Measurement(
+                                            "learning evaluation instances on certain fold",
+                                            row.instancesTested),
+                                    new Measurement(
+                                            "evaluation time ("
+                                                    + (preciseCPUTiming ? "cpu "
+                                                    : "") + "seconds)",
+                                            time),
+                                    new Measurement(
+                                            "model cost (RAM-Hours)",
+                                            RAMHours + RAMHoursIncrement)
+                            }, row.performance, row.fold, row.timestamp)));
+
+            if (immediateFoldResultStream != null) {
+                if (firstFoldDump) {
+                    immediateFoldResultStream.println(learningFoldCurve.headerToString());
+                    firstFoldDump = false;
                 }
-
+                immediateFoldResultStream.println(learningFoldCurve.entryToString(learningFoldCurve.numEntries() - 1));
+                immediateFoldResultStream.flush();
             }
-
         }
     }
 
@@ -596,21 +692,31 @@ public class EvaluatePrequentialDelayedCVIdeal extends ClassificationMainTask {
     }
 
     public Measurement[] getFoldEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator subEvaluator, int fold, String timestamp) {
+        return getFoldEvaluationMeasurements(modelMeasurements, getFoldPerformanceMeasurements(subEvaluator), fold, timestamp);
+    }
+
+    public Measurement[] getFoldEvaluationMeasurements(Measurement[] modelMeasurements, Measurement[] performanceMeasurements, int fold, String timestamp) {
         List<Measurement> measurementList = new LinkedList<>();
         measurementList.add(new Measurement("current timestamp",Double.valueOf(timestamp).longValue()));
         measurementList.add(new Measurement("fold",fold));
         if (modelMeasurements != null) {
             measurementList.addAll(Arrays.asList(modelMeasurements));
         }
-        List<Measurement[]> subMeasurements = new LinkedList<>();
-
-        if (subEvaluator != null) {
-            subMeasurements.add(subEvaluator.getPerformanceMeasurements());
-            // Measurement[] avgMeasurements = Measurement.averageMeasurements(subMeasurements.toArray(new Measurement[subMeasurements.size()][]));
-
-            measurementList.addAll(Arrays.asList(subMeasurements.get(0)));
+        if (performanceMeasurements != null) {
+            measurementList.addAll(Arrays.asList(performanceMeasurements));
         }
 
         return measurementList.toArray(new Measurement[measurementList.size()]);
     }
+
+    /**
+     * @return the performance measurements of a fold, null if the fold has
+     * nothing to report yet
+     */
+    protected Measurement[] getFoldPerformanceMeasurements(LearningPerformanceEvaluator subEvaluator) {
+        if (subEvaluator != null) {
+            return subEvaluator.getPerformanceMeasurements();
+        }
+        return null;
+    }
 }
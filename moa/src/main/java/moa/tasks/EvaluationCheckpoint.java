@@ -0,0 +1,134 @@
+/*
+ *    EvaluationCheckpoint.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import moa.core.SerializeUtils;
+import moa.streams.ExampleStream;
+
+/**
+ * The state of an evaluation task after a number of instances of its stream,
+ * from which the evaluation can be resumed.
+ *
+ * A checkpoint holds the named objects of the task (learners, evaluators,
+ * learning curves, buffers of instances waiting for their labels, random
+ * number generators and so on), the number of instances read from the stream,
+ * and the lengths of the files the task appends results to. Streams are not
+ * stored: on resume the stream is restarted and the instances already read are
+ * skipped, and the result files are cut back to their length at the checkpoint
+ * so that no line is written twice.
+ *
+ * @version $Revision: 1 $
+ */
+public class EvaluationCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected long instancesProcessed;
+
+    protected HashMap<String, Object> state = new HashMap<String, Object>();
+
+    protected HashMap<String, Long> fileLengths = new HashMap<String, Long>();
+
+    public EvaluationCheckpoint(long instancesProcessed) {
+        this.instancesProcessed = instancesProcessed;
+    }
+
+    /**
+     * @return the number of instances read from the stream
+     */
+    public long getInstancesProcessed() {
+        return this.instancesProcessed;
+    }
+
+    public void put(String name, Serializable value) {
+        this.state.put(name, value);
+    }
+
+    public Object get(String name) {
+        return this.state.get(name);
+    }
+
+    /**
+     * Records the current length of a result file. Streams writing to the file
+     * must have been flushed.
+     *
+     * @param file the file, or null for none
+     */
+    public void putFileLength(File file) {
+        if (file != null) {
+            this.fileLengths.put(file.getAbsolutePath(), file.exists() ? file.length() : 0L);
+        }
+    }
+
+    /**
+     * Cuts the result files back to their recorded length, dropping the lines
+     * written after the checkpoint.
+     */
+    public void truncateFiles() {
+        for (Map.Entry<String, Long> entry : this.fileLengths.entrySet()) {
+            File file = new File(entry.getKey());
+            if (file.exists() && file.length() > entry.getValue()) {
+                try {
+                    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                    try {
+                        raf.setLength(entry.getValue());
+                    } finally {
+                        raf.close();
+                    }
+                } catch (IOException ex) {
+                    throw new RuntimeException(
+                            "Unable to truncate result file: " + file, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a freshly prepared stream to the position of the checkpoint by
+     * reading the instances that were processed before it.
+     *
+     * @param stream the stream
+     */
+    public void seek(ExampleStream stream) {
+        for (long i = 0; i < this.instancesProcessed && stream.hasMoreInstances(); i++) {
+            stream.nextInstance();
+        }
+    }
+
+    /**
+     * Reads a checkpoint written by a CheckpointWriter.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint
+     */
+    public static EvaluationCheckpoint readFromFile(File file) {
+        try {
+            return (EvaluationCheckpoint) SerializeUtils.readFromFile(file);
+        } catch (Exception ex) {
+            throw new RuntimeException(
+                    "Unable to read checkpoint file: " + file, ex);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *    FoldPipeline.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.TimingUtils;
+
+/**
+ * Pipelined execution engine for the cross-validation family of tasks.
+ *
+ * <p>The task thread reads the stream and submits every item to the pipeline.
+ * Each fold is pinned to one worker thread (fold <code>f</code> runs on worker
+ * <code>f % numberOfJobs</code>), and each worker consumes items from its own
+ * bounded ring buffer, so every fold sees the items in stream order and
+ * produces exactly the same results as the sequential loop. Before reading
+ * measurements the task calls {@link #synchronize()}, which waits until all
+ * submitted items have been processed by every fold.</p>
+ *
+ * @param <T> the type of the items passed from the reader to the folds
+ */
+public class FoldPipeline<T> {
+
+    /**
+     * Processes one item on one fold. Called from the worker thread the fold
+     * is pinned to.
+     */
+    public interface FoldProcessor<T> {
+        void process(int fold, T item);
+    }
+
+    /**
+     * Example read from the stream together with the weight each fold
+     * assigns to it, drawn by the reader so that results do not depend on
+     * the number of workers.
+     */
+    public static class FoldExample {
+
+        public final Example example;
+
+        public final int[] weights;
+
+        public FoldExample(Example example, int[] weights) {
+            this.example = example;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Example of the delayed cross-validation tasks whose labels arrive as
+     * feedback, with the values the reader took from it and whether each
+     * fold evaluated an instance while processing it. A fold only writes its
+     * own flag, which the reader can read after {@link #synchronize()}.
+     */
+    public static class FeedbackExample extends FoldExample {
+
+        public final long instanceIndex;
+
+        public final String timestamp;
+
+        public final String feedbackValue;
+
+        public final boolean[] evaluated;
+
+        public FeedbackExample(Example example, int[] weights, long instanceIndex,
+                String timestamp, String feedbackValue) {
+            super(example, weights);
+            this.instanceIndex = instanceIndex;
+            this.timestamp = timestamp;
+            this.feedbackValue = feedbackValue;
+            this.evaluated = new boolean[weights.length];
+        }
+
+        /**
+         * @return whether any fold evaluated an instance
+         */
+        public boolean isEvaluated() {
+            for (boolean foldEvaluated : this.evaluated) {
+                if (foldEvaluated) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Row of the curve of one fold, taken on the thread of the fold. The
+     * timing measurements are added by the reader.
+     */
+    public static class FoldRow {
+
+        public final long instanceIndex;
+
+        public final int fold;
+
+        public final int instancesTested;
+
+        public final double byteSize;
+
+        public final Measurement[] performance;
+
+        public final String timestamp;
+
+        public FoldRow(long instanceIndex, int fold, int instancesTested, double byteSize,
+                Measurement[] performance, String timestamp) {
+            this.instanceIndex = instanceIndex;
+            this.fold = fold;
+            this.instancesTested = instancesTested;
+            this.byteSize = byteSize;
+            this.performance = performance;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Rows of the fold curves, kept per fold so each fold adds them from its
+     * own thread. {@link #drain()} returns them in the order of the
+     * sequential loop, by instance and then by fold, so the curve of the
+     * folds does not depend on the number of workers.
+     */
+    public static class FoldRows {
+
+        protected final List<List<FoldRow>> rows = new ArrayList<List<FoldRow>>();
+
+        public FoldRows(int numFolds) {
+            for (int i = 0; i < numFolds; i++) {
+                this.rows.add(new ArrayList<FoldRow>());
+            }
+        }
+
+        /**
+         * Adds a row of a fold. Only called from the thread of the fold.
+         *
+         * @param row the row
+         */
+        public void add(FoldRow row) {
+            this.rows.get(row.fold).add(row);
+        }
+
+        /**
+         * Removes the rows added so far, after {@link #synchronize()} when
+         * the folds run on workers.
+         *
+         * @return the rows in the order of the sequential loop
+         */
+        public List<FoldRow> drain() {
+            List<FoldRow> drained = new ArrayList<FoldRow>();
+            for (List<FoldRow> foldRows : this.rows) {
+                drained.addAll(foldRows);
+                foldRows.clear();
+            }
+            // stable, so the rows of a fold keep their order
+            Collections.sort(drained, new Comparator<FoldRow>() {
+                @Override
+                public int compare(FoldRow a, FoldRow b) {
+                    return Long.compare(a.instanceIndex, b.instanceIndex);
+                }
+            });
+            return drained;
+        }
+    }
+
+    /** Marker that tells a worker to terminate. */
+    private static final Object STOP = new Object();
+
+    protected final FoldProcessor<T> processor;
+
+    protected final List<Worker> workers = new ArrayList<Worker>();
+
+    protected volatile Throwable failure;
+
+    /**
+     * Returns the number of worker threads to use given the value of a
+     * <code>numberOfJobs</code> option, following the convention of
+     * {@link moa.classifiers.meta.AdaptiveRandomForest}: -1 uses every
+     * available core, 0 and 1 disable multithreading.
+     *
+     * @param numberOfJobs the option value
+     * @param numFolds the number of folds
+     * @return the number of workers, 1 meaning sequential execution
+     */
+    public static int numberOfWorkers(int numberOfJobs, int numFolds) {
+        int jobs = numberOfJobs == -1 ? Runtime.getRuntime().availableProcessors() : numberOfJobs;
+        return Math.max(1, Math.min(jobs, numFolds));
+    }
+
+    public FoldPipeline(int numFolds, int numberOfWorkers, int bufferSize, FoldProcessor<T> processor) {
+        this.processor = processor;
+        int numWorkers = Math.max(1, Math.min(numberOfWorkers, numFolds));
+        for (int w = 0; w < numWorkers; w++) {
+            int[] folds = new int[(numFolds - w + numWorkers - 1) / numWorkers];
+            for (int f = w, j = 0; f < numFolds; f += numWorkers, j++) {
+                folds[j] = f;
+            }
+            Worker worker = new Worker(folds, bufferSize);
+            worker.setName("FoldPipeline-" + w);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * Passes an item to every fold. Blocks while the ring buffer of a worker
+     * is full.
+     *
+     * @param item the item to process
+     */
+    public void submit(T item) {
+        checkFailure();
+        for (Worker worker : this.workers) {
+            worker.put(item);
+        }
+    }
+
+    /**
+     * Waits until every submitted item has been processed by all folds. After
+     * this call returns the learners and evaluators of the folds can safely be
+     * read from the calling thread.
+     */
+    public void synchronize() {
+        for (Worker worker : this.workers) {
+            worker.awaitIdle();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Returns the CPU time of the calling thread plus the time consumed by the
+     * workers of the pipeline, if any.
+     *
+     * @param pipeline the pipeline of the task, null when running sequentially
+     * @return the time in nanoseconds
+     */
+    public static long getNanoCPUTime(FoldPipeline<?> pipeline) {
+        long time = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        if (pipeline != null) {
+            time += pipeline.getNanoCPUTimeOfWorkers();
+        }
+        return time;
+    }
+
+    /**
+     * Returns the CPU time consumed so far by the fold workers. Only exact
+     * after {@link #synchronize()}.
+     *
+     * @return the accumulated time in nanoseconds
+     */
+    public long getNanoCPUTimeOfWorkers() {
+        long time = 0;
+        for (Worker worker : this.workers) {
+            time += worker.nanoCPUTime;
+        }
+        return time;
+    }
+
+    /**
+     * Stops the worker threads. Items not yet processed are discarded.
+     */
+    public void shutdown() {
+        for (Worker worker : this.workers) {
+            worker.queue.clear();
+            worker.put(STOP);
+        }
+    }
+
+    protected void checkFailure() {
+        if (this.failure != null) {
+            throw new RuntimeException("Fold worker failed.", this.failure);
+        }
+    }
+
+    /**
+     * Worker thread owning a subset of the folds and their ring buffer.
+     */
+    protected class Worker extends Thread {
+
+        protected final int[] folds;
+
+        protected final BlockingQueue<Object> queue;
+
+        protected final Object lock = new Object();
+
+        protected long submitted;
+
+        protected long processed;
+
+        protected volatile long nanoCPUTime;
+
+        public Worker(int[] folds, int bufferSize) {
+            this.folds = folds;
+            this.queue = new ArrayBlockingQueue<Object>(bufferSize);
+        }
+
+        protected void put(Object item) {
+            if (item != STOP) {
+                synchronized (this.lock) {
+                    this.submitted++;
+                }
+            }
+            try {
+                this.queue.put(item);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while passing an item to the fold workers.", ex);
+            }
+        }
+
+        protected void awaitIdle() {
+            synchronized (this.lock) {
+                try {
+                    while (this.processed < this.submitted) {
+                        this.lock.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the fold workers.", ex);
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            long startTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+            try {
+                while (true) {
+                    Object item = this.queue.take();
+                    if (item == STOP) {
+                        return;
+                    }
+                    if (failure == null) {
+                        try {
+                            for (int fold : this.folds) {
+                                processor.process(fold, (T) item);
+                            }
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                    this.nanoCPUTime = TimingUtils.getNanoCPUTimeOfCurrentThread() - startTime;
+                    synchronized (this.lock) {
+                        this.processed++;
+                        if (this.processed == this.submitted) {
+                            this.lock.notifyAll();
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // terminate
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@
  */
 package moa.tasks;
 
+import moa.evaluation.preview.LearningCurveCursor;
+
 /**
  * Class that represents a standard task monitor.
  *
@@ -114,7 +116,11 @@ public class StandardTaskMonitor implements TaskMonitor {
 
     @Override
     public Object getLatestResultPreview() {
-        return this.latestResultPreview;
+        Object preview = this.latestResultPreview;
+        if (preview instanceof LearningCurveCursor) {
+            return ((LearningCurveCursor) preview).update();
+        }
+        return preview;
     }
 
     @Override
@@ -65,7 +65,8 @@ public interface TaskMonitor {
     public boolean resultPreviewRequested();
 
     /**
-     * Sets the current result to preview
+     * Sets the current result to preview. Tasks with a learning curve set a
+     * LearningCurveCursor over it, so that the curve is not copied.
      *
      * @param latestPreview the result to preview
      */
@@ -131,7 +132,9 @@ public interface TaskMonitor {
     public void requestResultPreview(ResultPreviewListener toInform);
 
     /**
-     * Gets the current result to preview
+     * Gets the current result to preview. If the task set a
+     * LearningCurveCursor, the entries added since the last call are pulled
+     * and the preview of the cursor is returned.
      *
      * @return the result to preview
      */
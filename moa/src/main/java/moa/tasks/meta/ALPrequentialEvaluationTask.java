@@ -38,6 +38,7 @@ import moa.core.TimingUtils;
 import moa.evaluation.ALClassificationPerformanceEvaluator;
 import moa.evaluation.LearningEvaluation;
 import moa.evaluation.preview.LearningCurve;
+import moa.evaluation.preview.LearningCurveCursor;
 import moa.evaluation.preview.PreviewCollectionLearningCurveWrapper;
 import moa.options.ClassOption;
 import moa.streams.ExampleStream;
@@ -134,6 +135,7 @@ public class ALPrequentialEvaluationTask extends ALMainTask {
         // initialize learning curve
         LearningCurve learningCurve = new LearningCurve(
         		"learning evaluation instances");
+        LearningCurveCursor previewCursor = new LearningCurveCursor(learningCurve, this.getClass());
         
 		// perform training and testing
         int maxInstances = this.instanceLimitOption.getValue();
@@ -257,7 +259,7 @@ public class ALPrequentialEvaluationTask extends ALMainTask {
         		// TODO currently the preview is sent after each instance
         		// 		should be changed later on
         		if (monitor.resultPreviewRequested() || isSubtask()) {
-        			monitor.setLatestResultPreview(new PreviewCollectionLearningCurveWrapper((LearningCurve)learningCurve.copy(), this.getClass()));
+        			monitor.setLatestResultPreview(previewCursor);
                 }
         		
         		// update time measurement
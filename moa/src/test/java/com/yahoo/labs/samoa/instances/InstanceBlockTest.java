@@ -0,0 +1,99 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the ring buffer, growth and views of {@link InstanceBlock}.
+ */
+public class InstanceBlockTest {
+	private static double EPS=0.00000001;
+	private InstancesHeader header;
+
+	@Before
+	public void setUp() {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("x"));
+		attributes.add(new Attribute("y"));
+		attributes.add(new Attribute("class"));
+		Instances data = new Instances("block", attributes, 0);
+		data.setClassIndex(2);
+		header = new InstancesHeader(data);
+	}
+
+	@Test
+	public void testSlidingWindow() {
+		InstanceBlock block = new InstanceBlock(header, 2, 5);
+		for (int i = 0; i < 12; i++) {
+			block.add(new double[]{i, -i, i % 2}, i + 0.5);
+			if (i == 6) {
+				block.removeFirst(2);
+			}
+		}
+		assertEquals(5, block.numInstances());
+		for (int row = 0; row < 5; row++) {
+			assertEquals(row + 7, block.value(row, 0), EPS);
+			assertEquals(row + 7.5, block.weight(row), EPS);
+			assertEquals(-(row + 7), block.instance(row).value(1), EPS);
+			assertEquals((row + 7) % 2, block.instance(row).classValue(), EPS);
+		}
+	}
+
+	@Test
+	public void testGrowthAndConversion() {
+		InstanceBlock block = new InstanceBlock(header, 1);
+		for (int i = 0; i < 7; i++) {
+			block.add(new DenseInstance(1.0, new double[]{i, 2 * i, 0}));
+		}
+		block.add(new SparseInstance(3.0, new double[]{4}, new int[]{1}, 3));
+		Instances instances = block.toInstances();
+		assertEquals(8, instances.numInstances());
+		assertEquals(12, instances.instance(6).value(1), EPS);
+		assertEquals(0, instances.instance(7).value(0), EPS);
+		assertEquals(4, instances.instance(7).value(1), EPS);
+		assertEquals(3, instances.instance(7).weight(), EPS);
+		assertSame(header, instances.instance(7).dataset());
+	}
+
+	@Test
+	public void testViewsWriteInPlace() {
+		InstanceBlock block = new InstanceBlock(header, 4);
+		block.add(new double[]{1, 2, 1}, 1.0);
+		Instance view = block.instance(0);
+		Instance copy = view.copy();
+		view.setValue(0, 5);
+		assertEquals(5, block.value(0, 0), EPS);
+		assertEquals(1, copy.value(0), EPS);
+		assertSame(view, block.instance(0));
+	}
+
+	@Test
+	public void testViewsAfterWrapping() {
+		InstanceBlock block = new InstanceBlock(header, 2, 2);
+		block.add(new double[]{1, 2, 1}, 1.0);
+		block.add(new double[]{3, 4, 0}, 2.0);
+		Instance materialized = block.instance(0);
+		materialized.deleteAttributeAt(0);
+		Instance moved = block.instance(1);
+		moved.setDataset(new Instances(header, 0));
+		block.add(new double[]{5, 6, 1}, 3.0);
+		block.add(new double[]{7, 8, 0}, 4.0);
+		// both positions of the ring now hold new rows
+		for (int row = 0; row < 2; row++) {
+			Instance view = block.instance(row);
+			assertEquals(3, view.numAttributes());
+			assertSame(header, view.dataset());
+			assertEquals(5 + 2 * row, view.value(0), EPS);
+			assertEquals(6 + 2 * row, view.value(1), EPS);
+			assertEquals(3 + row, view.weight(), EPS);
+		}
+		assertNotSame(materialized, block.instance(0));
+		assertSame(moved, block.instance(1));
+		assertEquals(2, materialized.numAttributes());
+		assertEquals(2, materialized.value(0), EPS);
+	}
+}
@@ -0,0 +1,81 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the compact value storages chosen by {@link InstanceStorage}.
+ */
+public class InstanceStorageTest {
+	private static double EPS=0.00000001;
+
+	private static Instances dataset(boolean withDate) {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("count"));
+		attributes.add(withDate ? new Attribute("time", "yyyy-MM-dd") : new Attribute("x"));
+		attributes.add(new Attribute("class", Arrays.asList("yes", "no")));
+		Instances data = new Instances("storage", attributes, 0);
+		data.setClassIndex(2);
+		return data;
+	}
+
+	private static InstanceImpl instance(Instances dataset, double... values) {
+		InstanceImpl inst = new DenseInstance(1.0, values);
+		inst.setDataset(dataset);
+		return inst;
+	}
+
+	@Test
+	public void testQuantizedValues() {
+		InstanceImpl inst = instance(dataset(false), 3, Double.NaN, 1);
+		new InstanceStorage(InstanceStorage.QUANTIZED).compact(inst);
+		assertTrue(inst.instanceData instanceof QuantizedInstanceData);
+		assertEquals(3, inst.value(0), EPS);
+		assertTrue(inst.isMissing(1));
+		assertEquals(1, inst.classValue(), EPS);
+	}
+
+	@Test
+	public void testQuantizedWidening() {
+		InstanceImpl inst = instance(dataset(false), 3, 0, 1);
+		new InstanceStorage(InstanceStorage.QUANTIZED).compact(inst);
+		Instance copy = inst.copy();
+		inst.setValue(1, 1000);
+		assertEquals(1000, inst.value(1), EPS);
+		inst.setValue(0, 0.25);
+		assertEquals(0.25, inst.value(0), 0);
+		assertEquals(1000, inst.value(1), EPS);
+		assertEquals(1, inst.classValue(), EPS);
+		assertEquals(3, copy.value(0), EPS);
+		assertEquals(0, copy.value(1), EPS);
+	}
+
+	@Test
+	public void testNonIntegerRowsStayDouble() {
+		InstanceImpl inst = instance(dataset(false), 3, 0.1, 1);
+		new InstanceStorage(InstanceStorage.QUANTIZED).compact(inst);
+		assertTrue(inst.instanceData instanceof DenseInstanceData);
+		assertEquals(0.1, inst.value(1), 0);
+	}
+
+	@Test
+	public void testFloatValues() {
+		InstanceImpl inst = instance(dataset(false), 3, 0.1, 1);
+		new InstanceStorage(InstanceStorage.FLOAT).compact(inst);
+		assertTrue(inst.instanceData instanceof FloatInstanceData);
+		assertEquals(0.1f, inst.value(1), 0);
+		assertEquals(1, inst.classValue(), EPS);
+	}
+
+	@Test
+	public void testDatesStayDouble() {
+		InstanceImpl inst = instance(dataset(true), 3, 1.5e12 + 1, 1);
+		new InstanceStorage(InstanceStorage.FLOAT).compact(inst);
+		assertTrue(inst.instanceData instanceof DenseInstanceData);
+		assertEquals(1.5e12 + 1, inst.value(1), 0);
+	}
+}
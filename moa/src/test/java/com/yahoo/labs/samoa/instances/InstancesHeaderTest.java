@@ -0,0 +1,85 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the interning of {@link InstancesHeader} objects.
+ */
+public class InstancesHeaderTest {
+
+	private static Instances dataset(String classValue) {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("x"));
+		attributes.add(new Attribute("colour", Arrays.asList("red", "green")));
+		attributes.add(new Attribute("class", Arrays.asList("yes", classValue)));
+		Instances data = new Instances("interned", attributes, 0);
+		data.setClassIndex(2);
+		return data;
+	}
+
+	@Test
+	public void testSameStructureSameHeader() {
+		InstancesHeader header = InstancesHeader.intern(dataset("no"));
+		assertTrue(header.isInterned());
+		assertSame(header, InstancesHeader.intern(dataset("no")));
+		assertSame(header, InstancesHeader.intern(new InstancesHeader(header)));
+		assertNotSame(header, InstancesHeader.intern(dataset("maybe")));
+		assertTrue(InstancesHeader.sameStructure(dataset("no"), header));
+		assertFalse(InstancesHeader.sameStructure(dataset("maybe"), header));
+	}
+
+	@Test
+	public void testStructureChange() {
+		Instances data = dataset("no");
+		Instance first = new DenseInstance(1.0, new double[]{1, 0, 1});
+		Instance second = new DenseInstance(1.0, new double[]{2, 1, 0});
+		first.setDataset(data);
+		second.setDataset(data);
+		assertSame(first.dataset(), second.dataset());
+		data.setClassIndex(1);
+		second.setDataset(data);
+		assertNotSame(first.dataset(), second.dataset());
+		assertEquals(2, first.classIndex());
+		assertEquals(1, second.classIndex());
+	}
+
+	@Test
+	public void testInternedHeaderCannotChange() {
+		try {
+			InstancesHeader.intern(dataset("no")).setClassIndex(0);
+			fail("Interned header changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCopyCanChange() {
+		InstancesHeader header = InstancesHeader.intern(dataset("no"));
+		InstancesHeader copy = new InstancesHeader(header);
+		assertFalse(copy.isInterned());
+		copy.setClassIndex(0);
+		assertEquals(0, copy.classIndex());
+		assertEquals(2, header.classIndex());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		InstancesHeader header = InstancesHeader.intern(dataset("no"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(header);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertSame(header, in.readObject());
+	}
+}
@@ -0,0 +1,64 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the copy-on-write behaviour of instances sharing their attribute
+ * values through {@link LabelOverlayInstanceData}.
+ */
+public class LabelOverlayInstanceDataTest {
+	private static double EPS=0.00000001;
+	private Instance original;
+	private double[] originalValues;
+
+	@Before
+	public void setUp() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		original = stream.nextInstance().getData();
+		originalValues = original.toDoubleArray();
+	}
+
+	@Test
+	public void testSharedValues() {
+		Instance fold = LabelOverlayInstanceData.shareInstance(original);
+		assertEquals(original.numAttributes(), fold.numAttributes());
+		assertArrayEquals(originalValues, fold.toDoubleArray(), EPS);
+		assertEquals(original.classValue(), fold.classValue(), EPS);
+		assertEquals(original.weight(), fold.weight(), EPS);
+		assertSame(original.dataset(), fold.dataset());
+	}
+
+	@Test
+	public void testLabelAndWeightArePrivate() {
+		Instance fold1 = LabelOverlayInstanceData.shareInstance(original);
+		Instance fold2 = LabelOverlayInstanceData.shareInstance(original);
+		double label = original.classValue() == 0 ? 1 : 0;
+		fold1.setClassValue(label);
+		fold1.setWeight(3);
+		assertEquals(label, fold1.classValue(), EPS);
+		assertEquals(3, fold1.weight(), EPS);
+		assertEquals(originalValues[original.classIndex()], fold2.classValue(), EPS);
+		assertEquals(originalValues[original.classIndex()], original.classValue(), EPS);
+		assertEquals(1, fold2.weight(), EPS);
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		Instance fold1 = LabelOverlayInstanceData.shareInstance(original);
+		Instance fold2 = LabelOverlayInstanceData.shareInstance(fold1);
+		fold1.setValue(0, originalValues[0] + 1);
+		assertEquals(originalValues[0] + 1, fold1.value(0), EPS);
+		assertEquals(originalValues[0], fold2.value(0), EPS);
+		assertArrayEquals(originalValues, original.toDoubleArray(), EPS);
+
+		fold1.deleteAttributeAt(0);
+		assertEquals(originalValues.length - 1, fold1.numAttributes());
+		assertEquals(originalValues.length, fold2.numAttributes());
+	}
+}
@@ -0,0 +1,77 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the attribute mapping and copy-on-write behaviour of
+ * {@link SubspaceInstanceData} views.
+ */
+public class SubspaceInstanceDataTest {
+	private static double EPS=0.00000001;
+	private static int[] INDEXES = {3, 0, 7};
+	private Instance original;
+	private double[] originalValues;
+	private InstancesHeader header;
+
+	@Before
+	public void setUp() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		original = stream.nextInstance().getData();
+		originalValues = original.toDoubleArray();
+		int[] indexes = {INDEXES[0], INDEXES[1], INDEXES[2], original.classIndex()};
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		for (int index : indexes) {
+			attributes.add(original.attribute(index));
+		}
+		Instances subset = new Instances("subset", attributes, 0);
+		subset.setClassIndex(attributes.size() - 1);
+		header = new InstancesHeader(subset);
+	}
+
+	private Instance view() {
+		int[] indexes = {INDEXES[0], INDEXES[1], INDEXES[2], original.classIndex()};
+		return SubspaceInstanceData.subspaceInstance(original, indexes, header, 2);
+	}
+
+	@Test
+	public void testMappedValues() {
+		Instance view = view();
+		assertEquals(4, view.numAttributes());
+		assertEquals(2, view.weight(), EPS);
+		assertEquals(3, view.classIndex());
+		assertSame(original.attribute(INDEXES[0]), view.attribute(0));
+		for (int i = 0; i < INDEXES.length; i++) {
+			assertEquals(originalValues[INDEXES[i]], view.value(i), EPS);
+		}
+		assertEquals(original.classValue(), view.classValue(), EPS);
+		assertEquals(original.classValue(), view.toDoubleArray()[3], EPS);
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		Instance view = view();
+		Instance copy = view.copy();
+		view.setValue(0, originalValues[INDEXES[0]] + 1);
+		assertEquals(originalValues[INDEXES[0]] + 1, view.value(0), EPS);
+		assertEquals(originalValues[INDEXES[1]], view.value(1), EPS);
+		assertEquals(originalValues[INDEXES[0]], copy.value(0), EPS);
+		assertArrayEquals(originalValues, original.toDoubleArray(), EPS);
+	}
+
+	@Test
+	public void testCopyIsIndependentOfSource() {
+		Instance copy = view().copy();
+		assertTrue(((InstanceImpl) copy).instanceData instanceof DenseInstanceData);
+		original.setValue(INDEXES[0], originalValues[INDEXES[0]] + 1);
+		assertEquals(originalValues[INDEXES[0]], copy.value(0), EPS);
+		assertEquals(original.classValue(), copy.classValue(), EPS);
+	}
+}
@@ -0,0 +1,39 @@
+package moa.classifiers.bayes;
+
+import static org.junit.Assert.*;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests that {@link NaiveBayesKernel} computes the same votes as
+ * {@link NaiveBayes#doNaiveBayesPrediction} while the model keeps learning.
+ */
+public class NaiveBayesKernelTest {
+
+	@Test
+	public void testSameVotes() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numClassesOption.setValue(3);
+		stream.prepareForUse();
+		NaiveBayes learner = new NaiveBayes();
+		learner.setModelContext(stream.getHeader());
+		learner.prepareForUse();
+		NaiveBayesKernel kernel = new NaiveBayesKernel();
+		for (int i = 0; i < 2000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			// predicting twice between updates also exercises the cached parameters
+			for (int j = 0; j < 2; j++) {
+				double[] expected = NaiveBayes.doNaiveBayesPrediction(inst,
+						learner.observedClassDistribution, learner.attributeObservers);
+				assertArrayEquals(expected, kernel.predict(inst,
+						learner.observedClassDistribution, learner.attributeObservers), 0.0);
+				assertArrayEquals(expected, learner.getVotesForInstance(inst), 0.0);
+			}
+			learner.trainOnInstance(inst);
+		}
+	}
+}
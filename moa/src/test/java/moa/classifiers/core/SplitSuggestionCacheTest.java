@@ -0,0 +1,129 @@
+package moa.classifiers.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.trees.EFDT;
+import moa.core.AutoExpandVector;
+import moa.core.Utils;
+
+/**
+ * Tests that {@link SplitSuggestionCache} only rescores the attributes whose
+ * observers changed, and that EFDT does not count missing values as changes.
+ */
+public class SplitSuggestionCacheTest {
+
+	private static final double EPS = 1e-12;
+
+	/**
+	 * Counts the evaluations of each attribute, over all copies.
+	 */
+	public static class CountingObserver extends NominalAttributeClassObserver {
+
+		private static final long serialVersionUID = 1L;
+
+		static int[] evaluations = new int[2];
+
+		@Override
+		public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+				SplitCriterion criterion, double[] preSplitDist, int attIndex,
+				boolean binaryOnly) {
+			evaluations[attIndex]++;
+			return super.getBestEvaluatedSplitSuggestion(criterion, preSplitDist,
+					attIndex, binaryOnly);
+		}
+	}
+
+	private AutoExpandVector<AttributeClassObserver> observers;
+
+	@Before
+	public void setUp() {
+		CountingObserver.evaluations = new int[2];
+		observers = new AutoExpandVector<AttributeClassObserver>();
+		observers.set(0, new CountingObserver());
+		observers.set(1, new CountingObserver());
+	}
+
+	private void observe(SplitSuggestionCache cache, double[] preSplitDist,
+			int attIndex, double attVal, int classVal) {
+		observers.get(attIndex).observeAttributeClass(attVal, classVal, 1.0);
+		cache.attributeObserved(attIndex, 1.0);
+		preSplitDist[classVal]++;
+	}
+
+	@Test
+	public void testUnchangedAttributeIsNotRescored() {
+		SplitSuggestionCache cache = new SplitSuggestionCache();
+		SplitCriterion criterion = new InfoGainSplitCriterion();
+		double[] preSplitDist = new double[2];
+		for (int i = 0; i < 20; i++) {
+			observe(cache, preSplitDist, 0, i % 2, i % 3 == 0 ? 1 : 0);
+			observers.get(1).observeAttributeClass(i % 4 == 0 ? 1 : 0, i % 3 == 0 ? 1 : 0, 1.0);
+			cache.attributeObserved(1, 1.0);
+		}
+		cache.getBestSplitSuggestions(observers, criterion, preSplitDist, false, false, 0.0, null);
+		assertArrayEquals(new int[]{1, 1}, CountingObserver.evaluations);
+
+		// only the second attribute changes, the class distribution as well
+		for (int i = 0; i < 10; i++) {
+			observe(cache, preSplitDist, 1, i % 2, 1);
+		}
+		AttributeSplitSuggestion[] suggestions = cache.getBestSplitSuggestions(
+				observers, criterion, preSplitDist, false, false, 0.0, null);
+		assertArrayEquals(new int[]{1, 2}, CountingObserver.evaluations);
+
+		// the reused suggestion has the merit of a full rescore
+		AttributeSplitSuggestion rescored = observers.get(0).getBestEvaluatedSplitSuggestion(
+				criterion, preSplitDist, 0, false);
+		assertEquals(rescored.merit, suggestions[0].merit, EPS);
+		assertTrue(Arrays.deepEquals(rescored.resultingClassDistributions,
+				suggestions[0].resultingClassDistributions));
+	}
+
+	@Test
+	public void testMissingValuesAreNotRescoredByEFDT() {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("a", Arrays.asList("x", "y")));
+		attributes.add(new Attribute("b", Arrays.asList("x", "y")));
+		attributes.add(new Attribute("class", Arrays.asList("0", "1")));
+		Instances data = new Instances("missing", attributes, 0);
+		data.setClassIndex(2);
+		InstancesHeader header = new InstancesHeader(data);
+
+		EFDT tree = new EFDT();
+		tree.nominalEstimatorOption.setCurrentObject(new CountingObserver());
+		tree.gracePeriodOption.setValue(100);
+		tree.setModelContext(header);
+		tree.prepareForUse();
+
+		// the first attribute is only seen by the first evaluation, the
+		// classes are random so the leaf does not split
+		Random random = new Random(1);
+		int numInstances = 1000;
+		for (int i = 0; i < numInstances; i++) {
+			double a = i < 100 ? random.nextInt(2) : Utils.missingValue();
+			Instance inst = new DenseInstance(1.0,
+					new double[]{a, random.nextInt(2), random.nextInt(2)});
+			inst.setDataset(header);
+			tree.trainOnInstance(inst);
+		}
+		assertEquals(1, CountingObserver.evaluations[0]);
+		assertEquals(numInstances / 100, CountingObserver.evaluations[1]);
+	}
+}
@@ -0,0 +1,92 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.GiniSplitCriterion;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link PackedGaussianNumericAttributeClassObserver} computes the
+ * same statistics and split suggestions as
+ * {@link GaussianNumericAttributeClassObserver}.
+ */
+public class PackedGaussianNumericAttributeClassObserverTest {
+	private GaussianNumericAttributeClassObserver reference;
+	private PackedGaussianNumericAttributeClassObserver packed;
+	private double[] classDist;
+
+	@Before
+	public void setUp() {
+		reference = new GaussianNumericAttributeClassObserver();
+		packed = new PackedGaussianNumericAttributeClassObserver();
+		classDist = new double[4];
+		Random random = new Random(1);
+		for (int i = 0; i < 5000; i++) {
+			// class 2 is never observed
+			int classVal = random.nextInt(3) == 2 ? 3 : random.nextInt(2);
+			double value = random.nextDouble() < 0.01 ? Double.NaN : classVal + random.nextGaussian();
+			double weight = 1 + random.nextInt(3);
+			reference.observeAttributeClass(value, classVal, weight);
+			packed.observeAttributeClass(value, classVal, weight);
+			if (!Double.isNaN(value)) {
+				classDist[classVal] += weight;
+			}
+		}
+	}
+
+	@Test
+	public void testProbabilities() {
+		for (int classVal = 0; classVal < 5; classVal++) {
+			for (double value = -3; value < 6; value += 0.25) {
+				assertEquals(reference.probabilityOfAttributeValueGivenClass(value, classVal),
+						packed.probabilityOfAttributeValueGivenClass(value, classVal), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testSplitPoints() {
+		assertArrayEquals(reference.getSplitPointSuggestions(), packed.getSplitPointSuggestions(), 0.0);
+		for (double splitValue : reference.getSplitPointSuggestions()) {
+			double[][] expected = reference.getClassDistsResultingFromBinarySplit(splitValue);
+			double[][] actual = packed.getClassDistsResultingFromBinarySplit(splitValue);
+			assertEquals(expected.length, actual.length);
+			for (int i = 0; i < expected.length; i++) {
+				assertArrayEquals(expected[i], actual[i], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testBestSplitSuggestion() {
+		SplitCriterion[] criteria = {new InfoGainSplitCriterion(), new GiniSplitCriterion()};
+		for (SplitCriterion criterion : criteria) {
+			AttributeSplitSuggestion expected = reference.getBestEvaluatedSplitSuggestion(criterion, classDist, 7, false);
+			AttributeSplitSuggestion actual = packed.getBestEvaluatedSplitSuggestion(criterion, classDist, 7, false);
+			assertEquals(expected.merit, actual.merit, 0.0);
+			assertEquals(((NumericAttributeBinaryTest) expected.splitTest).getSplitValue(),
+					((NumericAttributeBinaryTest) actual.splitTest).getSplitValue(), 0.0);
+			assertArrayEquals(expected.splitTest.getAttsTestDependsOn(), actual.splitTest.getAttsTestDependsOn());
+			for (int i = 0; i < expected.numSplits(); i++) {
+				assertArrayEquals(expected.resultingClassDistributionFromSplit(i),
+						actual.resultingClassDistributionFromSplit(i), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testNoObservations() {
+		PackedGaussianNumericAttributeClassObserver empty = new PackedGaussianNumericAttributeClassObserver();
+		assertEquals(0, empty.getSplitPointSuggestions().length);
+		assertNull(empty.getBestEvaluatedSplitSuggestion(new InfoGainSplitCriterion(), new double[]{1, 1}, 0, false));
+		assertEquals(0.0, empty.probabilityOfAttributeValueGivenClass(0.5, 1), 0.0);
+	}
+}
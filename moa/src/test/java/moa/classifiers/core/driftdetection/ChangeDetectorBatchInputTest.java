@@ -0,0 +1,143 @@
+package moa.classifiers.core.driftdetection;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that the batch input of the change detectors that implement it
+ * natively leaves them in the same state as inserting the values one by one.
+ */
+public class ChangeDetectorBatchInputTest {
+
+	private static final int[] CHUNK_SIZES = {1, 7, 100, 10000};
+
+	/**
+	 * Errors of a classifier whose error rate rises, falls below the first
+	 * level and rises again, so both increasing and decreasing changes occur.
+	 */
+	private static double[] errors() {
+		double[] rates = {0.1, 0.5, 0.02, 0.3};
+		Random random = new Random(1);
+		double[] values = new double[8000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() < rates[i / 2000] ? 1.0 : 0.0;
+		}
+		return values;
+	}
+
+	private static void assertSameAsLoop(ChangeDetector prototype) {
+		double[] values = errors();
+		for (int chunk : CHUNK_SIZES) {
+			ChangeDetector batch = prototype.copy();
+			ChangeDetector loop = prototype.copy();
+			int changes = 0;
+			int offset = 0;
+			while (offset < values.length) {
+				int length = Math.min(chunk, values.length - offset);
+				int expected = -1;
+				for (int i = offset; i < offset + length; i++) {
+					loop.input(values[i]);
+					if (loop.getChange()) {
+						expected = i;
+						break;
+					}
+				}
+				int result = batch.input(values, offset, length);
+				assertEquals(expected, result);
+				assertEquals(loop.getChange(), batch.getChange());
+				assertEquals(loop.getWarningZone(), batch.getWarningZone());
+				assertEquals(loop.getEstimation(), batch.getEstimation(), 0.0);
+				assertEquals(loop.getDelay(), batch.getDelay(), 0.0);
+				if (result >= 0) {
+					changes++;
+					offset = result + 1;
+				} else {
+					offset += length;
+				}
+			}
+			assertTrue(changes > 0);
+		}
+	}
+
+	@Test
+	public void testADWINChangeDetector() {
+		assertSameAsLoop(new ADWINChangeDetector());
+	}
+
+	@Test
+	public void testDDM() {
+		assertSameAsLoop(new DDM());
+	}
+
+	@Test
+	public void testEDDM() {
+		assertSameAsLoop(new EDDM());
+	}
+
+	@Test
+	public void testPageHinkleyDM() {
+		assertSameAsLoop(new PageHinkleyDM());
+	}
+
+	@Test
+	public void testSTEPD() {
+		assertSameAsLoop(new STEPD());
+	}
+
+	@Test
+	public void testHDDM_A_Test() {
+		HDDM_A_Test oneSided = new HDDM_A_Test();
+		oneSided.oneSidedTestOption.setChosenIndex(0);
+		oneSided.resetLearning();
+		assertSameAsLoop(oneSided);
+		assertSameAsLoop(new HDDM_A_Test());
+	}
+
+	@Test
+	public void testHDDM_W_Test() {
+		assertSameAsLoop(new HDDM_W_Test());
+		HDDM_W_Test twoSided = new HDDM_W_Test();
+		twoSided.oneSidedTestOption.setChosenIndex(1);
+		twoSided.resetLearning();
+		assertSameAsLoop(twoSided);
+	}
+
+	/**
+	 * Puts a two-sided detector in a state where the next value of 0.5 keeps
+	 * the increase test in the warning zone and detects a decrease, which
+	 * resets the detector.
+	 */
+	private static HDDM_W_Test decreasingDetector() {
+		HDDM_W_Test detector = new HDDM_W_Test();
+		detector.oneSidedTestOption.setChosenIndex(1);
+		detector.resetLearning();
+		double sum = 0.0256;
+		detector.total.EWMA_Estimator = 0.5;
+		detector.total.independentBoundedConditionSum = sum;
+		detector.sample1_IncrMonitoring.EWMA_Estimator = 0.1;
+		detector.sample1_IncrMonitoring.independentBoundedConditionSum = sum;
+		detector.sample2_IncrMonitoring.EWMA_Estimator = 0.5;
+		detector.sample2_IncrMonitoring.independentBoundedConditionSum = sum;
+		detector.sample1_DecrMonitoring.EWMA_Estimator = 1.0;
+		detector.sample1_DecrMonitoring.independentBoundedConditionSum = sum;
+		detector.sample2_DecrMonitoring.EWMA_Estimator = 0.0;
+		detector.sample2_DecrMonitoring.independentBoundedConditionSum = sum;
+		detector.incrCutPoint = 0.0;
+		detector.decrCutPoint = 10.0;
+		return detector;
+	}
+
+	@Test
+	public void testHDDM_W_TestDecreaseClearsWarning() {
+		HDDM_W_Test loop = decreasingDetector();
+		HDDM_W_Test batch = decreasingDetector();
+		loop.input(0.5);
+		assertEquals(-1, batch.input(new double[]{0.5}, 0, 1));
+		assertFalse(loop.getWarningZone());
+		assertEquals(loop.getWarningZone(), batch.getWarningZone());
+		assertEquals(loop.getEstimation(), batch.getEstimation(), 0.0);
+	}
+}
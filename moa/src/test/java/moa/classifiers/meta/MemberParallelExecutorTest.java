@@ -0,0 +1,75 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import moa.classifiers.AbstractClassifier;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests that {@link MemberParallelExecutor} runs every member once and that
+ * ensembles learn the same models with several jobs as with one.
+ */
+public class MemberParallelExecutorTest {
+
+	@Test
+	public void testEveryMemberRunsOnce() {
+		for (int numMembers = 0; numMembers < 12; numMembers++) {
+			final AtomicIntegerArray runs = new AtomicIntegerArray(numMembers);
+			new MemberParallelExecutor(4).forEachMember(numMembers, new MemberParallelExecutor.MemberTask() {
+				@Override
+				public void run(int member) {
+					runs.incrementAndGet(member);
+				}
+			});
+			for (int i = 0; i < numMembers; i++) {
+				assertEquals(1, runs.get(i));
+			}
+		}
+	}
+
+	private static void assertSameVotes(AbstractClassifier sequential, AbstractClassifier parallel) {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numClassesOption.setValue(3);
+		stream.prepareForUse();
+		sequential.setModelContext(stream.getHeader());
+		sequential.prepareForUse();
+		parallel.setModelContext(stream.getHeader());
+		parallel.prepareForUse();
+		for (int i = 0; i < 1000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			assertArrayEquals(sequential.getVotesForInstance(inst), parallel.getVotesForInstance(inst), 0.0);
+			sequential.trainOnInstance(inst);
+			parallel.trainOnInstance(inst);
+		}
+	}
+
+	@Test
+	public void testOzaBag() {
+		OzaBag sequential = new OzaBag();
+		OzaBag parallel = new OzaBag();
+		parallel.numberOfJobsOption.setValue(4);
+		assertSameVotes(sequential, parallel);
+	}
+
+	@Test
+	public void testLeveragingBag() {
+		LeveragingBag sequential = new LeveragingBag();
+		LeveragingBag parallel = new LeveragingBag();
+		parallel.numberOfJobsOption.setValue(4);
+		assertSameVotes(sequential, parallel);
+	}
+
+	@Test
+	public void testOnlineSmoothBoost() {
+		OnlineSmoothBoost sequential = new OnlineSmoothBoost();
+		OnlineSmoothBoost parallel = new OnlineSmoothBoost();
+		parallel.numberOfJobsOption.setValue(4);
+		assertSameVotes(sequential, parallel);
+	}
+}
@@ -0,0 +1,54 @@
+package moa.classifiers.meta.imbalanced;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.classifiers.Classifier;
+import moa.streams.ArffFileStream;
+
+/**
+ * Tests that the SMOTE classifiers keep their windows of instances apart
+ * from the header shared by the instances of an ARFF stream.
+ */
+public class SMOTEArffStreamTest {
+
+	private static ArffFileStream stream() {
+		ArffFileStream stream = new ArffFileStream(ClassLoader.getSystemResource(
+				"moa/classifiers/data/imbalanced_classification.arff").getPath(), -1);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static void assertRunsOverStream(Classifier classifier) {
+		ArffFileStream stream = stream();
+		InstancesHeader header = stream.getHeader();
+		assertTrue(header.isInterned());
+		classifier.setModelContext(header);
+		classifier.prepareForUse();
+		int count = 0;
+		while (stream.hasMoreInstances()) {
+			Instance inst = stream.nextInstance().getData();
+			assertNotNull(classifier.getVotesForInstance(inst));
+			classifier.trainOnInstance(inst);
+			count++;
+		}
+		assertEquals(400, count);
+		assertEquals(0, header.numInstances());
+	}
+
+	@Test
+	public void testCSMOTE() {
+		CSMOTE classifier = new CSMOTE();
+		classifier.minSizeAllowedOption.setValue(10);
+		assertRunsOverStream(classifier);
+	}
+
+	@Test
+	public void testOnlineSMOTEBagging() {
+		assertRunsOverStream(new OnlineSMOTEBagging());
+	}
+}
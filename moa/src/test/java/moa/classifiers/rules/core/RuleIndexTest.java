@@ -0,0 +1,252 @@
+/*
+ *    RuleIndexTest.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+
+package moa.classifiers.rules.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.classifiers.rules.AMRulesRegressorOld;
+import moa.classifiers.rules.core.conditionaltests.NumericAttributeBinaryRulePredicate;
+
+/**
+ * Tests that {@link RuleIndex} returns the same covering rules as a linear
+ * scan over the rule set while rules are added, removed and expanded.
+ */
+public class RuleIndexTest {
+
+	private static final int NUM_ATTRIBUTES = 3;
+
+	private AMRulesRegressorOld amRules;
+
+	private InstancesHeader header;
+
+	private Random random;
+
+	private int ruleNumberID;
+
+	@Before
+	public void setUp() {
+		amRules = new AMRulesRegressorOld();
+		amRules.prepareForUse();
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < NUM_ATTRIBUTES; i++) {
+			attributes.add(new Attribute("a" + i));
+		}
+		attributes.add(new Attribute("target"));
+		Instances data = new Instances("rules", attributes, 0);
+		data.setClassIndex(NUM_ATTRIBUTES);
+		header = new InstancesHeader(data);
+		random = new Random(1);
+		ruleNumberID = 0;
+	}
+
+	private Rule newRule() {
+		return new Rule.Builder().amRules(amRules).statistics(new double[3])
+				.id(++ruleNumberID).build();
+	}
+
+	private static RuleSplitNode literal(int attIndex, double value, int operator) {
+		return new RuleSplitNode(new NumericAttributeBinaryRulePredicate(attIndex, value, operator), new double[0]);
+	}
+
+	/**
+	 * Draws a literal, mostly &lt;= and &gt; literals on a coarse grid so that
+	 * thresholds are shared, and sometimes literals the index does not
+	 * represent.
+	 */
+	private RuleSplitNode randomLiteral() {
+		int attIndex = random.nextInt(NUM_ATTRIBUTES);
+		double value = random.nextInt(11) / 10.0;
+		int kind = random.nextInt(10);
+		if (kind == 0) {
+			return literal(attIndex, value, 0);
+		}
+		RuleSplitNode node = literal(attIndex, value, kind < 5 ? 1 : 2);
+		if (kind == 9) {
+			((NumericAttributeBinaryRulePredicate) node.getSplitTest()).negateCondition();
+		}
+		return node;
+	}
+
+	private Rule randomRule() {
+		Rule rule = newRule();
+		int numLiterals = 1 + random.nextInt(3);
+		for (int i = 0; i < numLiterals; i++) {
+			rule.getNodeList().add(randomLiteral());
+		}
+		return rule;
+	}
+
+	private List<Rule> randomRules(int numRules) {
+		List<Rule> ruleSet = new LinkedList<Rule>();
+		for (int i = 0; i < numRules; i++) {
+			ruleSet.add(randomRule());
+		}
+		return ruleSet;
+	}
+
+	/**
+	 * Draws an instance with values on the grid of the thresholds, between
+	 * them or missing.
+	 */
+	private Instance randomInstance() {
+		double[] values = new double[NUM_ATTRIBUTES + 1];
+		for (int i = 0; i < NUM_ATTRIBUTES; i++) {
+			int kind = random.nextInt(10);
+			if (kind == 0) {
+				values[i] = Double.NaN;
+			} else if (kind < 5) {
+				values[i] = random.nextInt(11) / 10.0;
+			} else {
+				values[i] = random.nextDouble() * 1.2 - 0.1;
+			}
+		}
+		values[NUM_ATTRIBUTES] = random.nextDouble();
+		Instance inst = new DenseInstance(1.0, values);
+		inst.setDataset(header);
+		return inst;
+	}
+
+	private static List<Rule> linearScan(Instance instance, List<Rule> ruleSet, boolean firstOnly) {
+		List<Rule> coveringRules = new ArrayList<Rule>();
+		for (Rule rule : ruleSet) {
+			if (rule.isCovering(instance)) {
+				coveringRules.add(rule);
+				if (firstOnly) {
+					break;
+				}
+			}
+		}
+		return coveringRules;
+	}
+
+	private void assertSameCoveringRules(RuleIndex index, List<Rule> ruleSet, int numInstances) {
+		for (int i = 0; i < numInstances; i++) {
+			Instance instance = randomInstance();
+			assertEquals(linearScan(instance, ruleSet, false), index.getCoveringRules(instance, ruleSet, false));
+			assertEquals(linearScan(instance, ruleSet, true), index.getCoveringRules(instance, ruleSet, true));
+		}
+	}
+
+	@Test
+	public void testBuiltIndex() {
+		// more literals per attribute than a checkpoint interval
+		List<Rule> ruleSet = randomRules(300);
+		RuleIndex index = new RuleIndex();
+		index.build(ruleSet);
+		assertSameCoveringRules(index, ruleSet, 2000);
+	}
+
+	@Test
+	public void testRulesAdded() {
+		List<Rule> ruleSet = randomRules(100);
+		RuleIndex index = new RuleIndex();
+		index.build(ruleSet);
+		// the added rules are checked directly until the index is rebuilt
+		for (int i = 0; i < 100; i++) {
+			Rule rule = randomRule();
+			ruleSet.add(rule);
+			index.ruleAdded(rule);
+			assertSameCoveringRules(index, ruleSet, 20);
+		}
+	}
+
+	@Test
+	public void testRulesRemoved() {
+		List<Rule> ruleSet = randomRules(200);
+		RuleIndex index = new RuleIndex();
+		index.build(ruleSet);
+		while (!ruleSet.isEmpty()) {
+			Rule rule = ruleSet.remove(random.nextInt(ruleSet.size()));
+			index.ruleRemoved(rule);
+			assertSameCoveringRules(index, ruleSet, 20);
+		}
+	}
+
+	@Test
+	public void testRulesExpanded() {
+		List<Rule> ruleSet = randomRules(200);
+		RuleIndex index = new RuleIndex();
+		index.build(ruleSet);
+		for (int i = 0; i < 200; i++) {
+			Rule rule = ruleSet.get(random.nextInt(ruleSet.size()));
+			rule.getNodeList().add(randomLiteral());
+			index.ruleChanged(rule);
+			assertSameCoveringRules(index, ruleSet, 20);
+		}
+	}
+
+	@Test
+	public void testNoCoveringRule() {
+		List<Rule> ruleSet = new LinkedList<Rule>();
+		for (int i = 0; i < 100; i++) {
+			Rule rule = newRule();
+			rule.getNodeList().add(literal(i % NUM_ATTRIBUTES, 2.0 + i, 2));
+			ruleSet.add(rule);
+		}
+		RuleIndex index = new RuleIndex();
+		for (int i = 0; i < 100; i++) {
+			Instance instance = randomInstance();
+			assertTrue(index.getCoveringRules(instance, ruleSet, false).isEmpty());
+			assertTrue(index.getCoveringRules(instance, ruleSet, true).isEmpty());
+		}
+		Instance instance = randomInstance();
+		assertTrue(index.getCoveringRules(instance, new LinkedList<Rule>(), false).isEmpty());
+	}
+
+	@Test
+	public void testOnlyDefaultRuleCovers() {
+		// as in AMRules, the default rule is not in the rule set until it is
+		// expanded, so the instances it covers alone have no covering rule
+		List<Rule> ruleSet = new LinkedList<Rule>();
+		for (int i = 0; i < 50; i++) {
+			Rule rule = newRule();
+			rule.getNodeList().add(literal(0, 0.5, 1));
+			rule.getNodeList().add(literal(1, i / 50.0, 2));
+			ruleSet.add(rule);
+		}
+		Rule defaultRule = newRule();
+		RuleIndex index = new RuleIndex();
+		index.build(ruleSet);
+		Instance instance = randomInstance();
+		instance.setValue(0, 0.75);
+		assertTrue(defaultRule.isCovering(instance));
+		assertTrue(index.getCoveringRules(instance, ruleSet, false).isEmpty());
+
+		defaultRule.getNodeList().add(literal(0, 0.5, 2));
+		ruleSet.add(defaultRule);
+		index.ruleAdded(defaultRule);
+		assertEquals(linearScan(instance, ruleSet, false), index.getCoveringRules(instance, ruleSet, false));
+		assertSame(defaultRule, index.getCoveringRules(instance, ruleSet, true).get(0));
+		assertSameCoveringRules(index, ruleSet, 200);
+	}
+}